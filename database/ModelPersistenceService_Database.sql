@@ -1,6 +1,8 @@
 --
 -- Database:  commedit 
 -- Creates the CAE datatabase structure needed to store SyncMeta's application models.
+-- Later changes of the schema (e.g. indexes) are applied by the service on startup,
+-- see database.migration.SchemaMigrations.
 -- --------------------------------------------------------
 
 --
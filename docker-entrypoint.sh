@@ -43,6 +43,11 @@ export MYSQL_DATABASE='commedit'
 [[ -z "${DEPLOYMENT_URL}" ]] && export DEPLOYMENT_URL="http://localhost:${HTTP_PORT}"
 [[ -z "${REQ_BAZ_BACKEND_URL}" ]] && export REQ_BAZ_BACKEND_URL="https://requirements-bazaar.org/bazaar"
 [[ -z "${DISABLE_CATEGORY_CREATION}" ]] && export DISABLE_CATEGORY_CREATION='false'
+[[ -z "${MODEL_STORAGE_MODE}" ]] && export MODEL_STORAGE_MODE='normalized'
+[[ -z "${ORPHAN_COLLECTION_INTERVAL_MINUTES}" ]] && export ORPHAN_COLLECTION_INTERVAL_MINUTES='60'
+[[ -z "${HTTP_CONNECT_TIMEOUT_SECONDS}" ]] && export HTTP_CONNECT_TIMEOUT_SECONDS='10'
+[[ -z "${HTTP_REQUEST_TIMEOUT_SECONDS}" ]] && export HTTP_REQUEST_TIMEOUT_SECONDS='30'
+[[ -z "${OUTBOX_DISPATCH_INTERVAL_SECONDS}" ]] && export OUTBOX_DISPATCH_INTERVAL_SECONDS='30'
 
 # set defaults for optional web connector parameters
 [[ -z "${START_HTTP}" ]] && export START_HTTP='TRUE'
@@ -70,6 +75,11 @@ set_in_service_config deploymentUrl ${DEPLOYMENT_URL}
 set_in_service_config reqBazBackendUrl ${REQ_BAZ_BACKEND_URL}
 set_in_service_config reqBazProjectId ${REQ_BAZ_PROJECT_ID}
 set_in_service_config debugDisableCategoryCreation ${DISABLE_CATEGORY_CREATION}
+set_in_service_config modelStorageMode ${MODEL_STORAGE_MODE}
+set_in_service_config orphanCollectionIntervalMinutes ${ORPHAN_COLLECTION_INTERVAL_MINUTES}
+set_in_service_config httpConnectTimeoutSeconds ${HTTP_CONNECT_TIMEOUT_SECONDS}
+set_in_service_config httpRequestTimeoutSeconds ${HTTP_REQUEST_TIMEOUT_SECONDS}
+set_in_service_config outboxDispatchIntervalSeconds ${OUTBOX_DISPATCH_INTERVAL_SECONDS}
 set_in_service_config gitHubOrganization ${GITHUB_ORG}
 set_in_service_config gitHubPersonalAccessToken ${GITHUB_PERSONAL_ACCESS_TOKEN}
 set_in_service_config rocketChatUrl ${ROCKET_CHAT_URL}
@@ -1,17 +1,17 @@
 package i5.las2peer.services.modelPersistenceService;
 
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
 import i5.las2peer.apiTestModel.TestModel;
 import i5.las2peer.services.modelPersistenceService.chat.RocketChatConfig;
-import i5.las2peer.services.modelPersistenceService.chat.RocketChatHelper;
 import org.json.simple.JSONObject;
 
 import i5.las2peer.api.Context;
 import i5.las2peer.api.ManualDeployment;
+import i5.las2peer.api.ServiceException;
 import i5.las2peer.api.execution.InternalServiceException;
 import i5.las2peer.api.execution.ServiceAccessDeniedException;
 import i5.las2peer.api.execution.ServiceInvocationFailedException;
@@ -22,7 +22,17 @@ import i5.las2peer.api.execution.ServiceNotFoundException;
 import i5.las2peer.logging.L2pLogger;
 import i5.las2peer.restMapper.RESTService;
 import i5.las2peer.restMapper.annotations.ServicePath;
+import i5.las2peer.services.modelPersistenceService.cache.CommunicationViewCache;
+import i5.las2peer.services.modelPersistenceService.cache.SemanticCheckCache;
+import i5.las2peer.services.modelPersistenceService.http.GitHubRateLimit;
+import i5.las2peer.services.modelPersistenceService.http.SharedHttpClient;
+import i5.las2peer.services.modelPersistenceService.invocation.ServiceContext;
 import i5.las2peer.services.modelPersistenceService.database.DatabaseManager;
+import i5.las2peer.services.modelPersistenceService.database.OrphanCollector;
+import i5.las2peer.services.modelPersistenceService.database.migration.SchemaMigrator;
+import i5.las2peer.services.modelPersistenceService.metrics.ServiceMetrics;
+import i5.las2peer.services.modelPersistenceService.model.Model;
+import i5.las2peer.services.modelPersistenceService.model.ModelStorageMode;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.Contact;
 import io.swagger.annotations.Info;
@@ -30,10 +40,18 @@ import io.swagger.annotations.License;
 import io.swagger.annotations.SwaggerDefinition;
 
 import i5.las2peer.services.modelPersistenceService.modelServices.*;
+import i5.las2peer.services.modelPersistenceService.outbox.ExternalCalls;
+import i5.las2peer.services.modelPersistenceService.outbox.OutboxDispatcher;
+import i5.las2peer.services.modelPersistenceService.projectMetadata.GitHubHelper;
 import i5.las2peer.services.modelPersistenceService.projectMetadata.ProjectMetadata;
+import i5.las2peer.services.modelPersistenceService.projectMetadata.ProjectServiceCache;
 import i5.las2peer.services.modelPersistenceService.projectMetadata.ReqBazHelper;
-import i5.las2peer.services.modelPersistenceService.versionedModel.Commit;
-import i5.las2peer.services.modelPersistenceService.versionedModel.VersionedModel;
+import i5.las2peer.services.modelPersistenceService.repository.JdbcRepository;
+import i5.las2peer.services.modelPersistenceService.repository.PersistenceRepository;
+import i5.las2peer.services.modelPersistenceService.testmodel.GitHubActionsClient;
+import i5.las2peer.services.modelPersistenceService.testmodel.TestGHActionsHelper;
+import i5.las2peer.services.modelPersistenceService.versionedModel.VersionedModelLocks;
+import i5.las2peer.services.modelPersistenceService.versionedModel.WorkingCopySaver;
 
 /**
  * 
@@ -66,8 +84,45 @@ public class ModelPersistenceService extends RESTService {
 	
 	private String gitHubOrganization;
 	private String gitHubPersonalAccessToken;
+	// shared, because it caches the test and coverage reports of completed workflow runs
+	private TestGHActionsHelper testGHActionsHelper;
+	// remaining GitHub API budget of the personal access token
+	private GitHubRateLimit gitHubRateLimit;
 
 	private MetadataDocService metadataDocService;
+
+	// caches the RMI lookups to the project service
+	private ProjectServiceCache projectServiceCache = new ProjectServiceCache();
+
+	// serializes commits to the same versioned model on this node
+	private VersionedModelLocks versionedModelLocks = new VersionedModelLocks();
+
+	// coalesces the autosaves of working copies
+	private WorkingCopySaver workingCopySaver;
+
+	// storage of models, versioned models, commits and test suggestions
+	private PersistenceRepository repository;
+
+	// removes unreferenced rows of the model storage (0 disables the collector)
+	private int orphanCollectionIntervalMinutes;
+	private OrphanCollector orphanCollector;
+
+	// timeouts of the requests to external APIs (GitHub, Requirements Bazaar)
+	private int httpConnectTimeoutSeconds = SharedHttpClient.DEFAULT_CONNECT_TIMEOUT_SECONDS;
+	private int httpRequestTimeoutSeconds = SharedHttpClient.DEFAULT_REQUEST_TIMEOUT_SECONDS;
+
+	// sends the calls to other services (code generation, API testing bot) in the background
+	private int outboxDispatchIntervalSeconds = 30;
+	private OutboxDispatcher outboxDispatcher;
+
+	// counters of the service, e.g. skipped stages of the commit pipeline
+	private ServiceMetrics metrics = new ServiceMetrics();
+
+	// results of the semantic check service by model content
+	private SemanticCheckCache semanticCheckCache;
+
+	// communication views of application models, computed by the code generation service
+	private CommunicationViewCache communicationViewCache = new CommunicationViewCache();
 	
 	/*
 	 * Requirements Bazaar configuration.
@@ -77,6 +132,9 @@ public class ModelPersistenceService extends RESTService {
 	// debug variable to turn on/off the creation of requirements bazaar categories
 	private boolean debugDisableCategoryCreation;
 
+	// how models get stored (normalized, document or document_and_normalized)
+	private String modelStorageMode;
+
 	private String rocketChatUrl;
 	private String rocketChatBotAuthToken;
 	private String rocketChatBotUserId;
@@ -92,18 +150,68 @@ public class ModelPersistenceService extends RESTService {
 		// instantiate a database manager to handle database connection pooling
 		// and credentials
 		dbm = new DatabaseManager(jdbcDriverClassName, jdbcLogin, jdbcPass, jdbcUrl, jdbcSchema);
+		Model.setStorageMode(ModelStorageMode.fromName(this.modelStorageMode));
 		metadataDocService = new MetadataDocService(this.dbm, this.logger);
+		workingCopySaver = new WorkingCopySaver(this.dbm, this.logger);
+		repository = new JdbcRepository(this.dbm);
+		semanticCheckCache = new SemanticCheckCache(this.semanticCheckService, this.metrics);
+		orphanCollector = new OrphanCollector(this.dbm);
 		
+		SharedHttpClient.configure(this.httpConnectTimeoutSeconds, this.httpRequestTimeoutSeconds);
+
 		// setup ReqBazHelper
 		ReqBazHelper reqBazHelper = ReqBazHelper.getInstance();
 		reqBazHelper.setReqBazBackendUrl(this.reqBazBackendUrl);
 	    reqBazHelper.setReqBazProjectId(this.reqBazProjectId);
+
+		gitHubRateLimit = new GitHubRateLimit(this.metrics);
+		GitHubHelper.configure(this.gitHubPersonalAccessToken, gitHubRateLimit);
+		testGHActionsHelper = new TestGHActionsHelper(GitHubActionsClient.DEFAULT_API_URL, this.gitHubOrganization,
+				this.gitHubPersonalAccessToken, gitHubRateLimit);
+
+		outboxDispatcher = new OutboxDispatcher(this.dbm, this.metrics, logger);
+		ExternalCalls.register(outboxDispatcher, this.codeGenerationService, this::getRocketChatConfig);
 	}
 
 	@Override
 	protected void initResources() {
 		getResourceConfig().register(RESTResources.class);
 	}
+
+	@Override
+	public void onStart() throws ServiceException {
+		// bring the database schema up to date (e.g. add indexes to existing deployments), the service
+		// does not work with an outdated schema
+		try {
+			int applied = new SchemaMigrator(dbm).migrate();
+			if(applied > 0) logger.info("Applied " + applied + " database schema migration(s).");
+		} catch (SQLException e) {
+			throw new ServiceException("Could not migrate the database schema.", e);
+		}
+		if(this.orphanCollectionIntervalMinutes > 0) {
+			orphanCollector.start(this.orphanCollectionIntervalMinutes, logger);
+		}
+
+		// the outbox calls other services as this service (not as the user whose request caused the call),
+		// entries left over from the last run get sent right away
+		Executor serviceContext;
+		try {
+			serviceContext = ServiceContext.executorOf(getAgent());
+		} catch (Exception e) {
+			throw new ServiceException("Could not create execution context of the service.", e);
+		}
+		outboxDispatcher.start(Math.max(1, this.outboxDispatchIntervalSeconds), serviceContext);
+		outboxDispatcher.wakeUp();
+	}
+
+	@Override
+	public void onStop() {
+		orphanCollector.stop();
+		outboxDispatcher.stop();
+		// writes the autosaves that are still pending
+		workingCopySaver.stop(2 * WorkingCopySaver.FLUSH_INTERVAL_MILLIS);
+		super.onStop();
+	}
 	
 	public String getSemanticCheckService() {
 		return semanticCheckService;
@@ -133,6 +241,50 @@ public class ModelPersistenceService extends RESTService {
 		return gitHubPersonalAccessToken;
 	}
 
+	public ProjectServiceCache getProjectServiceCache() {
+		return projectServiceCache;
+	}
+
+	public VersionedModelLocks getVersionedModelLocks() {
+		return versionedModelLocks;
+	}
+
+	public WorkingCopySaver getWorkingCopySaver() {
+		return workingCopySaver;
+	}
+
+	public PersistenceRepository getRepository() {
+		return repository;
+	}
+
+	public OrphanCollector getOrphanCollector() {
+		return orphanCollector;
+	}
+
+	public ServiceMetrics getMetrics() {
+		return metrics;
+	}
+
+	public SemanticCheckCache getSemanticCheckCache() {
+		return semanticCheckCache;
+	}
+
+	public CommunicationViewCache getCommunicationViewCache() {
+		return communicationViewCache;
+	}
+
+	public OutboxDispatcher getOutboxDispatcher() {
+		return outboxDispatcher;
+	}
+
+	public GitHubRateLimit getGitHubRateLimit() {
+		return gitHubRateLimit;
+	}
+
+	public TestGHActionsHelper getTestGHActionsHelper() {
+		return testGHActionsHelper;
+	}
+
 	public RocketChatConfig getRocketChatConfig() {
 		return new RocketChatConfig(this.rocketChatUrl, this.rocketChatBotAuthToken, this.rocketChatBotUserId);
 	}
@@ -156,33 +308,15 @@ public class ModelPersistenceService extends RESTService {
 	 * @return
 	 */
 	public String addAutoCommitToVersionedModel(String commitSha, String commitMessage, int versionedModelId) {
-		Connection connection = null;
+		versionedModelLocks.lock(versionedModelId);
 		try {
-			connection = dbm.getConnection();
-			
-			// there always exists a commit for "uncommited changes"
-			// that one needs to be removed first
-			VersionedModel versionedModel = new VersionedModel(versionedModelId, connection);
-			Commit uncommitedChanges = versionedModel.getCommitForUncommitedChanges();
-			uncommitedChanges.delete(connection);
-			
-			// now create a new commit
-			Commit commit = new Commit(commitMessage);
-			commit.persist(versionedModelId, connection, true);
-			commit.persistSha(commitSha, connection);
-			
-			// readd uncommited changes commit
-			uncommitedChanges.persist(versionedModelId, connection, true);
-			
+			// adds the commit without loading the versioned model
+			repository.addAutoCommit(versionedModelId, commitMessage, commitSha);
 			return "done";
 		} catch (SQLException e) {
 			return "error";
 		} finally {
-			try {
-			    connection.close();
-			} catch (SQLException e) {
-				return "error";
-			}
+			versionedModelLocks.unlock(versionedModelId);
 		}
 	}
 	
@@ -194,24 +328,11 @@ public class ModelPersistenceService extends RESTService {
 	 * @return
 	 */
 	public String addTagToCommit(String commitSha, int versionedModelId, String tag) {
-		Connection connection = null;
 		try {
-			connection = dbm.getConnection();
-			
-			VersionedModel versionedModel = new VersionedModel(versionedModelId, connection);
-			Commit commit = versionedModel.getCommitBySha(commitSha);
-			if(commit == null) return "error";
-			
-			commit.setVersionTag(tag, connection);
+			repository.addVersionTag(versionedModelId, commitSha, tag);
 			return "done";
 		} catch (SQLException e) {
 			return "error";
-		} finally {
-			try {
-			    connection.close();
-			} catch (SQLException e) {
-				return "error";
-			}
 		}
 	}
 	
@@ -221,21 +342,10 @@ public class ModelPersistenceService extends RESTService {
 	 * @return ArrayList containing the version tags of the versioned model as strings.
 	 */
 	public ArrayList<String> getVersionsOfVersionedModel(int versionedModelId) {
-		ArrayList<String> versions = new ArrayList<>();
-		Connection connection = null;
 		try {
-			connection = dbm.getConnection();
-			
-			VersionedModel versionedModel = new VersionedModel(versionedModelId, connection);
-			return versionedModel.getVersions();
+			return new ArrayList<>(repository.findVersionTags(versionedModelId));
 		} catch (SQLException e) {
-			return versions;
-		} finally {
-			try {
-			    connection.close();
-			} catch (SQLException e) {
-				return versions;
-			}
+			return new ArrayList<>();
 		}
 	}
 	
@@ -247,35 +357,44 @@ public class ModelPersistenceService extends RESTService {
 		Connection connection = null;
 		try {
 			connection = this.getDbm().getConnection();
+			// the metadata and the calls it causes are stored together (or not at all)
+			connection.setAutoCommit(false);
 			String projectName = (String) project.get("name");
-			// create initial metadata for the project 
+			// create initial metadata for the project (also adds the creation of its GitHub repo to the outbox)
 			ProjectMetadata metadata = new ProjectMetadata(connection, projectName, 
 					Context.getCurrent().getMainAgent().getIdentifier(), codeGenerationService);
+
+			JSONObject chatInfo = (JSONObject) project.get("chatInfo");
+			String channelId = (String) chatInfo.get("channelId");
+
+			// create RocketChat integration and add it as webhook to the GitHub repo (in the background)
+			if(!codeGenerationService.isEmpty()) {
+				String repoName = "application-" + metadata.getComponents().stream().findFirst().get().getVersionedModelId();
+				ExternalCalls.addWebhook(connection, repoName, channelId);
+			}
+			connection.commit();
+			outboxDispatcher.wakeUp();
+
 			// update project and set this as the new metadata
 			JSONObject o = new JSONObject();
 			o.put("projectName", projectName);
 			o.put("oldMetadata", new JSONObject());
 			o.put("newMetadata", metadata.toJSONObject());
-			Context.get().invoke(PROJECT_SERVICE, "changeMetadataRMI", "CAE", o.toJSONString());
-
-			JSONObject chatInfo = (JSONObject) project.get("chatInfo");
-			String channelId = (String) chatInfo.get("channelId");
-
-			// create RocketChat integration
-			String webhookUrl = new RocketChatHelper().createIntegration(getRocketChatConfig(), channelId);
-			// add webhook to GitHub repo
-			String repoName = "application-" + metadata.getComponents().stream().findFirst().get().getVersionedModelId();
-			Context.get().invoke(codeGenerationService, "addWebhook", repoName, webhookUrl);
+			projectServiceCache.changeMetadata(projectName, o);
 		} catch (SQLException | ServiceNotFoundException | ServiceNotAvailableException | InternalServiceException | 
 				ServiceMethodNotFoundException | ServiceInvocationFailedException | ServiceAccessDeniedException |
 				ServiceNotAuthorizedException e) {
+			try {
+				if(connection != null) connection.rollback();
+			} catch (SQLException e1) {
+			}
 			logger.printStackTrace(e);
-			System.out.println("ERROR:");
-			System.out.println(e.toString());
-			System.out.println(e.getMessage());
 		} finally {
 			try {
-				if(connection != null) connection.close();
+				if(connection != null) {
+					connection.setAutoCommit(true);
+					connection.close();
+				}
 			} catch (SQLException e) {
 				logger.printStackTrace(e);
 			}
@@ -287,34 +406,15 @@ public class ModelPersistenceService extends RESTService {
 	 * @param project JSON representation of the deleted project.
 	 */
 	public void _onProjectDeleted(JSONObject project) {
-		
+		projectServiceCache.invalidateProject((String) project.get("name"));
 	}
 
 	public void addTestSuggestion(int versionedModelId, TestModel testModel, String description) {
-		Connection connection = null;
 		try {
-			connection = dbm.getConnection();
-			testModel.persist(connection);
-			this.storeTestSuggestionToDB(connection, versionedModelId, testModel, description);
+			repository.addTestSuggestion(versionedModelId, testModel, description);
 		} catch(Exception e) {
 			logger.printStackTrace(e);
-		} finally {
-			try {
-				if(connection != null) connection.close();
-			} catch (SQLException e) {
-				logger.printStackTrace(e);
-			}
 		}
 	}
-
-	public static void storeTestSuggestionToDB(Connection connection, int versionedModelId, TestModel m, String description) throws SQLException {
-		PreparedStatement statement = connection.prepareStatement("INSERT INTO VersionedModelToTestSuggestion (versionedModelId, testModelId, description, suggest) VALUES (?,?,?,?);");
-		statement.setInt(1, versionedModelId);
-		statement.setInt(2, m.getId());
-		statement.setString(3, description);
-		statement.setBoolean(4, true);
-		statement.executeUpdate();
-		statement.close();
-	}
 	
 }
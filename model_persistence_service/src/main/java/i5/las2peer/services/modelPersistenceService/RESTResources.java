@@ -23,8 +23,8 @@ import javax.ws.rs.core.Response;
 
 import i5.las2peer.apiTestModel.TestCase;
 import i5.las2peer.apiTestModel.TestModel;
-import i5.las2peer.services.modelPersistenceService.chat.RocketChatHelper;
 import i5.las2peer.services.modelPersistenceService.testmodel.TestGHActionsHelper;
+import i5.las2peer.services.modelPersistenceService.repository.PersistenceRepository;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONValue;
@@ -47,40 +47,58 @@ import i5.las2peer.api.execution.ServiceNotAuthorizedException;
 import i5.las2peer.api.execution.ServiceNotAvailableException;
 import i5.las2peer.api.execution.ServiceNotFoundException;
 import i5.las2peer.api.logging.MonitoringEvent;
+import i5.las2peer.api.security.AnonymousAgent;
 import i5.las2peer.api.security.UserAgent;
 import i5.las2peer.logging.L2pLogger;
 import i5.las2peer.services.modelPersistenceService.database.DatabaseManager;
 import i5.las2peer.services.modelPersistenceService.exception.CGSInvocationException;
 import i5.las2peer.services.modelPersistenceService.exception.GitHubException;
 import i5.las2peer.services.modelPersistenceService.exception.ModelNotFoundException;
+import i5.las2peer.services.modelPersistenceService.exception.ServiceCallException;
+import i5.las2peer.services.modelPersistenceService.exception.RateLimitException;
 import i5.las2peer.services.modelPersistenceService.exception.ReqBazException;
+import i5.las2peer.services.modelPersistenceService.exception.RevisionConflictException;
 import i5.las2peer.services.modelPersistenceService.exception.VersionedModelNotFoundException;
+import i5.las2peer.services.modelPersistenceService.invocation.ServiceCalls;
+import i5.las2peer.services.modelPersistenceService.model.AttributeIndex;
 import i5.las2peer.services.modelPersistenceService.model.EntityAttribute;
 import i5.las2peer.services.modelPersistenceService.model.Model;
+import i5.las2peer.services.modelPersistenceService.model.ModelCatalog;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import io.swagger.jaxrs.Reader;
 import io.swagger.models.Swagger;
 import io.swagger.util.Json;
+import i5.las2peer.services.modelPersistenceService.cache.CommunicationViewCache;
+import i5.las2peer.services.modelPersistenceService.cache.SemanticCheckCache;
+import i5.las2peer.services.modelPersistenceService.metrics.ServiceMetrics;
 import i5.las2peer.services.modelPersistenceService.model.metadata.MetadataDoc;
 
 import i5.las2peer.services.modelPersistenceService.modelServices.*;
+import i5.las2peer.services.modelPersistenceService.outbox.ExternalCalls;
 import i5.las2peer.services.modelPersistenceService.projectMetadata.Component;
 import i5.las2peer.services.modelPersistenceService.projectMetadata.ExternalDependency;
 import i5.las2peer.services.modelPersistenceService.projectMetadata.GitHubHelper;
 import i5.las2peer.services.modelPersistenceService.projectMetadata.PredefinedRoles;
+import i5.las2peer.services.modelPersistenceService.projectMetadata.ProjectServiceCache;
 import i5.las2peer.services.modelPersistenceService.projectMetadata.ReqBazCategory;
 import i5.las2peer.services.modelPersistenceService.projectMetadata.ReqBazHelper;
 import i5.las2peer.services.modelPersistenceService.versionedModel.Commit;
+import i5.las2peer.services.modelPersistenceService.versionedModel.RegenerationPlan;
 import i5.las2peer.services.modelPersistenceService.versionedModel.VersionedModel;
-
-import static i5.las2peer.services.modelPersistenceService.ModelPersistenceService.PROJECT_SERVICE;
+import i5.las2peer.services.modelPersistenceService.versionedModel.WorkingCopy;
 
 @Path("/")
 public class RESTResources {
 
 	private static final String PROJECT_MANAGEMENT_SERVICE = "i5.las2peer.services.projectManagementService.ProjectManagementService@0.1.0";
+
+	/**
+	 * Page sizes used when listing models.
+	 */
+	private static final int DEFAULT_PAGE_SIZE = 100;
+	private static final int MAX_PAGE_SIZE = 1000;
 	
 	private final ModelPersistenceService service = (ModelPersistenceService) Context.getCurrent().getService();
 	private L2pLogger logger;
@@ -88,6 +106,7 @@ public class RESTResources {
 	private String codeGenerationService;
 	private String deploymentUrl;
 	private DatabaseManager dbm;
+	private PersistenceRepository repository;
 	private MetadataDocService metadataDocService;
 
 	public RESTResources() throws ServiceException {
@@ -96,6 +115,7 @@ public class RESTResources {
 		this.codeGenerationService = service.getCodeGenerationService();
 		this.deploymentUrl = service.getDeploymentUrl();
 		this.dbm = service.getDbm();
+		this.repository = service.getRepository();
 		this.metadataDocService = service.getMetadataService();
 	}
 
@@ -107,9 +127,11 @@ public class RESTResources {
 			Connection connection = dbm.getConnection();
 			TestModel testModel = new TestModel(connection, testModelId);
 			connection.close();
-			TestGHActionsHelper h = new TestGHActionsHelper(service.getGitHubOrganization(), service.getGitHubPersonalAccessToken());
+			TestGHActionsHelper h = service.getTestGHActionsHelper();
 			h.addTestResults(sha, testModel, repoName);
 			return Response.status(HttpURLConnection.HTTP_OK).entity(testModel.toJSONObject().toJSONString()).build();
+		} catch (RateLimitException e) {
+			return rateLimitedResponse(e);
 		} catch (SQLException | IOException e) {
 			e.printStackTrace();
 			return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
@@ -133,15 +155,27 @@ public class RESTResources {
 	public Response getModelCoverage(@QueryParam("sha") String sha, @QueryParam("repoName") String repoName, String body) {
 		try {
 			Model model = new Model(body);
-			TestGHActionsHelper h = new TestGHActionsHelper(service.getGitHubOrganization(), service.getGitHubPersonalAccessToken());
+			TestGHActionsHelper h = service.getTestGHActionsHelper();
 			h.addTestCoverage(sha, model, repoName);
 			return Response.status(HttpURLConnection.HTTP_OK).entity(model.toJSONObject().toJSONString()).build();
+		} catch (RateLimitException e) {
+			return rateLimitedResponse(e);
 		} catch (Exception e) {
 			e.printStackTrace();
 			return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
 		}
 	}
 
+	/**
+	 * Response for requests that could not be answered, because the GitHub rate limit is (nearly) exhausted.
+	 * @param e Exception containing the time after which the request may succeed again.
+	 * @return Response with status 503 and Retry-After header.
+	 */
+	private Response rateLimitedResponse(RateLimitException e) {
+		return Response.status(HttpURLConnection.HTTP_UNAVAILABLE).header("Retry-After", e.getRetryAfterSeconds())
+				.entity(e.getMessage()).build();
+	}
+
 	/**
 	 * 
 	 * Searches for a model in the database by name.
@@ -163,10 +197,8 @@ public class RESTResources {
 	public Response getModel(@PathParam("modelId") int modelId) {
 		Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "getModel: searching for model with id " + modelId);
 		Model model = null;
-		Connection connection = null;
 		try {
-			connection = dbm.getConnection();
-			model = new Model(modelId, connection);
+			model = repository.findModel(modelId);
 		} catch (ModelNotFoundException e) {
 			Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "getModel: did not find model with id " + modelId);
 			return Response.status(404).entity("Model not found!").build();
@@ -178,12 +210,6 @@ public class RESTResources {
 			Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "getModel: something went seriously wrong: " + e);
 			logger.printStackTrace(e);
 			return Response.serverError().entity("Server error!").build();
-		} finally {
-			try {
-				connection.close();
-			} catch (SQLException e) {
-				logger.printStackTrace(e);
-			}
 		}
 		Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE,
 				"getModel: found model " + modelId + ", now converting to JSONObject and returning");
@@ -192,10 +218,59 @@ public class RESTResources {
 		return Response.ok(jsonModel.toJSONString(), MediaType.APPLICATION_JSON).build();
 	}
 
+	/**
+	 * Returns the counters of the service, e.g. how often stages of the commit pipeline got skipped.
+	 * @return Response containing a JSON object with the value of every counter.
+	 */
+	@GET
+	@Path("/metrics")
+	@Produces(MediaType.APPLICATION_JSON)
+	@ApiOperation(value = "Returns the counters of the service.")
+	@ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "OK, counters are returned") })
+	public Response getMetrics() {
+		return Response.ok(service.getMetrics().toJSONObject().toJSONString(), MediaType.APPLICATION_JSON).build();
+	}
+
+	/**
+	 * Returns the remaining GitHub API budget of the personal access token and how many requests got
+	 * shed or answered with "304 Not Modified".
+	 * @return Response containing a JSON object with the budget.
+	 */
+	@GET
+	@Path("/metrics/github")
+	@Produces(MediaType.APPLICATION_JSON)
+	@ApiOperation(value = "Returns the GitHub API rate limit budget of the service.")
+	@ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "OK, budget is returned") })
+	public Response getGitHubMetrics() {
+		return Response.ok(service.getGitHubRateLimit().toJSONObject().toJSONString(), MediaType.APPLICATION_JSON).build();
+	}
+
+	/**
+	 * Returns the number of outbox entries (calls to other services) per target and status.
+	 * @return Response containing a JSON object with the state of the outbox.
+	 */
+	@GET
+	@Path("/metrics/outbox")
+	@Produces(MediaType.APPLICATION_JSON)
+	@ApiOperation(value = "Returns the state of the outbox of calls to other services.")
+	@ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "OK, state is returned"),
+			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error") })
+	public Response getOutboxMetrics() {
+		try {
+			return Response.ok(service.getOutboxDispatcher().toJSONObject().toJSONString(), MediaType.APPLICATION_JSON).build();
+		} catch (SQLException e) {
+			logger.printStackTrace(e);
+			return Response.serverError().entity("Internal server error.").build();
+		}
+	}
+
 	/**
 	 * 
-	 * Retrieves all model names from the database.
+	 * Retrieves a page of the model ids from the database. Without offset and limit, the ids of all
+	 * models are returned.
 	 * 
+	 * @param offset Number of models to skip.
+	 * @param limit Maximum number of model ids to return (default 100 if an offset is given, at most 1000).
 	 * 
 	 * @return HttpResponse containing the status code of the request and (if
 	 *         the database is not empty) the model-list as a JSON array
@@ -206,28 +281,23 @@ public class RESTResources {
 	@GET
 	@Path("/models/")
 	@Produces(MediaType.APPLICATION_JSON)
-	@ApiOperation(value = "Retrieves a list of models from the database.", notes = "Retrieves a list of all models stored in the database. Returns a list of model names.")
+	@ApiOperation(value = "Retrieves a list of models from the database.", notes = "Retrieves a page of the models stored in the database (all models if neither offset nor limit is given). Returns a list of model ids.")
 	@ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "OK, model list is returned"),
 			@ApiResponse(code = HttpURLConnection.HTTP_NOT_FOUND, message = "No models in the database"),
 			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error") })
-	public Response getModels() {
+	public Response getModels(@QueryParam("offset") int offset, @QueryParam("limit") int limit) {
 
-		ArrayList<Integer> modelIds = new ArrayList<>();
-		Connection connection = null;
+		List<Integer> modelIds;
 		try {
-			connection = dbm.getConnection();
-			// search for all models
-			PreparedStatement statement = connection.prepareStatement("SELECT modelId FROM Model;");
-			Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "getModels: retrieving all models..");
-			ResultSet queryResult = statement.executeQuery();
-			while (queryResult.next()) {
-				modelIds.add(queryResult.getInt(1));
-			}
-			if (modelIds.isEmpty()) {
+			// search for the models of the requested page
+			Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "getModels: retrieving models..");
+			// without paging parameters all models are returned, like before the list got paginated
+			int pageSize = offset <= 0 && limit < 1 ? Integer.MAX_VALUE : pageSize(limit);
+			modelIds = repository.findModelIds(offset, pageSize);
+			if (modelIds.isEmpty() && offset <= 0) {
 				Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "getModels: database is empty!");
 				return Response.status(404).entity("Database is empty!").build();
 			}
-			connection.close();
 		} catch (SQLException e) {
 			Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "getModels: exception fetching model: " + e);
 			logger.printStackTrace(e);
@@ -236,14 +306,8 @@ public class RESTResources {
 			Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "getModels: something went seriously wrong: " + e);
 			logger.printStackTrace(e);
 			return Response.serverError().entity("Server error!").build();
-		} finally {
-			try {
-				connection.close();
-			} catch (SQLException e) {
-				logger.printStackTrace(e);
-			}
 		}
-		Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "getModels: created list of models, now converting to JSONObject and returning");
+		Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "getModels: created list of models, now converting to JSONObject and returning");
 
 		JSONArray jsonModelList = new JSONArray();
 		jsonModelList.addAll(modelIds);
@@ -251,61 +315,105 @@ public class RESTResources {
 		return Response.ok(jsonModelList.toJSONString(), MediaType.APPLICATION_JSON).build();
 	}
 
+	/**
+	 * Retrieves a page of the models with the given type from the model catalog.
+	 * 
+	 * @param modelType Type of the models, e.g. "microservice", "frontend-component" or "application".
+	 * @param offset Number of models to skip.
+	 * @param limit Maximum number of models to return (default 100, at most 1000).
+	 * @return Response containing a JSON array with modelId, type, versionedModelId, componentName and
+	 *         commitId of every model.
+	 */
 	@SuppressWarnings("unchecked")
 	@GET
 	@Path("/models/type/{modelType}")
 	@Produces(MediaType.APPLICATION_JSON)
-	@ApiOperation(value = "Retrieves a list of models from the database.", notes = "Retrieves a list of all models stored in the database. Returns a list of model names.")
+	@ApiOperation(value = "Retrieves a list of models with the given type from the database.", notes = "Retrieves a page of the models with the given type. Returns a list of catalog entries (modelId, type, versionedModelId, componentName, commitId).")
 	@ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "OK, model list is returned"),
-			@ApiResponse(code = HttpURLConnection.HTTP_NOT_FOUND, message = "No models in the database"),
 			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error") })
-	public Response getModelsByType(@PathParam("modelType") String modelType) {
+	public Response getModelsByType(@PathParam("modelType") String modelType, @QueryParam("offset") int offset,
+			@QueryParam("limit") int limit) {
 
-		ArrayList<String> modelNames = new ArrayList<String>();
-		Connection connection = null;
+		List<ModelCatalog.Entry> entries;
 		try {
-			connection = dbm.getConnection();
-			String sql = "select `ModelAttributes`.`modelName` from `AttributeToModelAttributes`, `Attribute`, `ModelAttributes`\n" +
-					"where `AttributeToModelAttributes`.`attributeId` = `Attribute`.`attributeId`\n" +
-					"and `AttributeToModelAttributes`.`modelAttributesName` = `ModelAttributes`.`modelName`\n" +
-					"and `Attribute`.`name` = 'type'\n" +
-					"and `Attribute`.`value` = '" + modelType + "';";
-			// search for all models
-			PreparedStatement statement = connection.prepareStatement(sql);
-			Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "getModels: retrieving all models..!");
-
-			ResultSet queryResult = statement.executeQuery();
-			while (queryResult.next()) {
-				modelNames.add(queryResult.getString(1));
-			}
-			if (modelNames.isEmpty()) {
-				Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "getModels: retrieving all models..");
-				return Response.ok(new JSONArray().toJSONString(), MediaType.APPLICATION_JSON).build();
-			}
-			connection.close();
+			Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "getModelsByType: retrieving models of type " + modelType);
+			entries = repository.findModelsByType(modelType, offset, pageSize(limit));
 		} catch (SQLException e) {
-			Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "getModels: exception fetching model: " + e);
+			Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "getModelsByType: exception fetching models: " + e);
 			logger.printStackTrace(e);
 			return Response.serverError().entity("Database error!").build();
 		} catch (Exception e) {
-			Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "getModels: something went seriously wrong: " + e);
+			Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "getModelsByType: something went seriously wrong: " + e);
 			logger.printStackTrace(e);
 			return Response.serverError().entity("Server error!").build();
-		} finally {
-			try {
-				connection.close();
-			} catch (SQLException e) {
-				logger.printStackTrace(e);
-			}
 		}
-		Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE,
-				"getModels: created list of models, now converting to JSONObject and returning");
-		JSONArray jsonModelList = new JSONArray();
-		jsonModelList.addAll(modelNames);
 
+		JSONArray jsonModelList = new JSONArray();
+		for (ModelCatalog.Entry entry : entries) {
+			jsonModelList.add(entry.toJSONObject());
+		}
 		return Response.ok(jsonModelList.toJSONString(), MediaType.APPLICATION_JSON).build();
 	}
 
+	/**
+	 * Searches the node attributes of all committed models, e.g. to find the components that declare
+	 * a given HTTP path or schema. The models of earlier commits are searched as well, the commitId of
+	 * a match tells which commit it belongs to.
+	 * 
+	 * @param name Name of the attribute (optional).
+	 * @param value Searched value of the attribute.
+	 * @param match "exact" (default) or "prefix".
+	 * @param nodeType Type of the node containing the attribute (optional).
+	 * @param offset Number of matches to skip.
+	 * @param limit Maximum number of matches to return (default 100, at most 1000).
+	 * @return Response containing a JSON array with modelId, versionedModelId, commitId, componentName,
+	 *         nodeId, nodeType, name and value of every match.
+	 */
+	@SuppressWarnings("unchecked")
+	@GET
+	@Path("/attributes/search")
+	@Produces(MediaType.APPLICATION_JSON)
+	@ApiOperation(value = "Searches the node attributes of all committed models.", notes = "Returns the node attributes with the given value (exact or prefix match) together with the model, commit and component they belong to. The models of earlier commits are searched as well.")
+	@ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "OK, matches are returned"),
+			@ApiResponse(code = HttpURLConnection.HTTP_BAD_REQUEST, message = "Value or match type missing or invalid"),
+			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error") })
+	public Response searchAttributes(@QueryParam("name") String name, @QueryParam("value") String value,
+			@QueryParam("match") String match, @QueryParam("nodeType") String nodeType,
+			@QueryParam("offset") int offset, @QueryParam("limit") int limit) {
+		if (value == null || value.isEmpty()) {
+			return Response.status(HttpURLConnection.HTTP_BAD_REQUEST).entity("Parameter value is missing.").build();
+		}
+		boolean prefix = "prefix".equals(match);
+		if (!prefix && match != null && !match.equals("exact")) {
+			return Response.status(HttpURLConnection.HTTP_BAD_REQUEST).entity("Parameter match needs to be exact or prefix.").build();
+		}
+
+		List<AttributeIndex.Match> matches;
+		try {
+			matches = repository.searchAttributes(name, value, prefix, nodeType, offset, pageSize(limit));
+		} catch (SQLException e) {
+			Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "searchAttributes: exception searching attributes: " + e);
+			logger.printStackTrace(e);
+			return Response.serverError().entity("Database error!").build();
+		}
+
+		JSONArray result = new JSONArray();
+		for (AttributeIndex.Match m : matches) {
+			result.add(m.toJSONObject());
+		}
+		return Response.ok(result.toJSONString(), MediaType.APPLICATION_JSON).build();
+	}
+
+	/**
+	 * Returns the page size to use for the given limit query parameter.
+	 * @param limit Requested limit (0 if not set).
+	 * @return DEFAULT_PAGE_SIZE if no limit was requested, otherwise the limit (at most MAX_PAGE_SIZE).
+	 */
+	private static int pageSize(int limit) {
+		if (limit < 1) return DEFAULT_PAGE_SIZE;
+		return Math.min(limit, MAX_PAGE_SIZE);
+	}
+
 	/**
 	 * 
 	 * Deletes a model.
@@ -324,12 +432,8 @@ public class RESTResources {
 			@ApiResponse(code = HttpURLConnection.HTTP_NOT_FOUND, message = "Model does not exist"),
 			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error") })
 	public Response deleteModel(@PathParam("modelId") int modelId) {
-		Connection connection = null;
 		Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "deleteModel: trying to delete model with id: " + modelId);
 		try {
-			connection = dbm.getConnection();
-			Model model = new Model(modelId, connection);
-
 			// call code generation service
 			if (!codeGenerationService.isEmpty()) {
 				/*try {
@@ -340,7 +444,8 @@ public class RESTResources {
 				}*/
 			}
 
-			model.deleteFromDatabase(connection);
+			repository.deleteModel(modelId);
+			service.getCommunicationViewCache().invalidateModel(modelId);
 			Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "deleteModel: deleted model " + modelId);
 			return Response.ok("Model deleted!").build();
 		} catch (ModelNotFoundException e) {
@@ -350,12 +455,6 @@ public class RESTResources {
 			Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "deleteModel: exception deleting model: " + e);
 			logger.printStackTrace(e);
 			return Response.serverError().entity("Internal server error...").build();
-		} finally {
-			try {
-				connection.close();
-			} catch (SQLException e) {
-				logger.printStackTrace(e);
-			}
 		}
 	}
 	
@@ -376,12 +475,9 @@ public class RESTResources {
 		Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE,
 				"getVersionedModelById: searching for versionedModel with id " + versionedModelId);
 		
-		Connection connection = null;
 		try {
-			connection = dbm.getConnection();
-			
 			// load versioned model by id
-			VersionedModel versionedModel = new VersionedModel(versionedModelId, connection);
+			VersionedModel versionedModel = repository.findVersionedModel(versionedModelId);
 			
 			// if no VersionedModelNotFoundException was thrown, then the model exists
 			// return it
@@ -393,19 +489,16 @@ public class RESTResources {
 		} catch (SQLException e) {
 			logger.printStackTrace(e);
 			return Response.serverError().entity("Internal server error.").build();
-		} finally {
-			try {
-			    connection.close();
-			} catch (SQLException e) {
-				logger.printStackTrace(e);
-			}
-		}		
+		}
 	}
 	
 	/**
 	 * Posts a commit to the versioned model.
 	 * @param versionedModelId Id of the versioned model, where the commit should be added to.
 	 * @param inputCommit Input commit as JSON, also containing the model (and test model) that should be connected to the commit.
+	 * @param ifMatch Revision the commit is based on (as returned in the ETag), only used if the input commit
+	 * does not contain it in the "revision" attribute. Commits without a revision are not checked for
+	 * concurrent changes.
 	 * @return Response with status code (and possibly error message).
 	 */
 	@POST
@@ -416,55 +509,52 @@ public class RESTResources {
 			@ApiResponse(code = HttpURLConnection.HTTP_UNAUTHORIZED, message = "User is not authorized."),
 			@ApiResponse(code = HttpURLConnection.HTTP_BAD_REQUEST, message = "Parse error."),
 			@ApiResponse(code = HttpURLConnection.HTTP_FORBIDDEN, message = "USer is not allowed to commit to the versioned model."),
+			@ApiResponse(code = HttpURLConnection.HTTP_CONFLICT, message = "Versioned model got changed concurrently."),
 			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error.")
 	})
-	public Response postCommitToVersionedModel(@PathParam("id") int versionedModelId, String inputCommit) {
+	public Response postCommitToVersionedModel(@PathParam("id") int versionedModelId, String inputCommit,
+			@HeaderParam("If-Match") String ifMatch) {
 		Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE,
 				"postCommitToVersionedModel: posting commit to versioned model with id " + versionedModelId);
 		
 		JSONObject body = (JSONObject) JSONValue.parse(inputCommit);
 		String projectName = (String) body.get("projectName");
 		
+		// the client may send the revision its commit is based on, then the commit fails if the versioned
+		// model got changed in the meantime
+		int expectedRevision;
+		try {
+			expectedRevision = getExpectedRevision(body, ifMatch);
+		} catch (NumberFormatException | ClassCastException e) {
+			return Response.status(HttpURLConnection.HTTP_BAD_REQUEST).entity("Invalid revision.").build();
+		}
+		
 		// request project from project service to check if the versioned model belongs to the project
+		// and check if user is a project member (the lookups are independent, so they run concurrently)
+		ProjectServiceCache projectService = service.getProjectServiceCache();
 		JSONObject projectMetadataJSON;
 		JSONObject projectChatInfoJSON;
-		try {
-			projectMetadataJSON = (JSONObject) Context.get()
-					.invoke(ModelPersistenceService.PROJECT_SERVICE, "getProjectMetadataRMI", "CAE", projectName);
-			projectChatInfoJSON = (JSONObject) Context.get()
-					.invoke(ModelPersistenceService.PROJECT_SERVICE, "getProjectChatInfo", "CAE", projectName);
-		} catch (ServiceNotFoundException | ServiceNotAvailableException | InternalServiceException
-				| ServiceMethodNotFoundException | ServiceInvocationFailedException | ServiceAccessDeniedException
-				| ServiceNotAuthorizedException e) {
+		boolean projectMember;
+		try (ServiceCalls calls = ServiceCalls.inCurrentContext()) {
+			ServiceCalls.Call<JSONObject> metadataCall = calls.submit("getProjectMetadataRMI",
+					() -> projectService.getProjectMetadata(projectName));
+			ServiceCalls.Call<JSONObject> chatInfoCall = calls.submit("getProjectChatInfo",
+					() -> projectService.getProjectChatInfo(projectName));
+			ServiceCalls.Call<Boolean> accessCall = calls.submit("hasAccessToProject",
+					() -> projectService.hasAccessToProject(projectName));
+			calls.awaitAll();
+			projectMetadataJSON = metadataCall.get();
+			projectChatInfoJSON = chatInfoCall.get();
+			projectMember = accessCall.get();
+		} catch (ServiceCallException e) {
 			return Response.serverError().entity("Internal server error: " + e.getMessage()).build();
 		}
 		
-		JSONArray componentsJSON = (JSONArray) projectMetadataJSON.get("components");
-		boolean included = false;
-		for(Object o : componentsJSON) {
-			JSONObject componentJSON = (JSONObject) o;
-			int compVersionedModelId = ((Long) componentJSON.get("versionedModelId")).intValue();
-			if(compVersionedModelId == versionedModelId) {
-				included = true;
-				break;
-			}
-		}
-		
-		if(!included) {
+		if(!isComponentOfProject(projectMetadataJSON, versionedModelId)) {
 			return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
 					.entity("The versioned model does not belong to the given project.").build();
 		}
 		
-		// check if user is a project member
-		boolean projectMember;
-		try {
-			projectMember = (boolean) Context.get().invoke(ModelPersistenceService.PROJECT_SERVICE, "hasAccessToProject", "CAE", projectName);
-		} catch (ServiceNotFoundException | ServiceNotAvailableException | InternalServiceException
-				| ServiceMethodNotFoundException | ServiceInvocationFailedException | ServiceAccessDeniedException
-				| ServiceNotAuthorizedException e) {
-			return Response.serverError().entity("Internal server error: " + e.getMessage()).build();
-		}
-		
 		if(!projectMember) {
 			// user does not have the permission to commit to the versioned model, or an error occurred
 			return Response.status(HttpURLConnection.HTTP_FORBIDDEN)
@@ -473,14 +563,21 @@ public class RESTResources {
 		
 		// now we know, that the user is a project member and has the permission to commit to the versioned model
 		
+		// commits to the same versioned model are serialized on this node, the revision check below
+		// detects concurrent commits of other nodes (and commits based on an outdated revision)
+		service.getVersionedModelLocks().lock(versionedModelId);
 		Connection connection = null;
+		int workingCopyRevision = -1;
+		boolean committed = false;
 		try {
 			connection = dbm.getConnection();
 
-			// there always exists a commit for "uncommited changes"
-			// that one needs to be removed first
 			connection.setAutoCommit(false);
 			
+			// without a revision from the client, the commit is based on whatever is stored
+			int revision = expectedRevision < 0 ? VersionedModel.increaseRevision(connection, versionedModelId)
+					: VersionedModel.increaseRevision(connection, versionedModelId, expectedRevision);
+			
 			// The codegen service and metadatadocservice already require the model to have
 			// a "type" attribute
 			// this "type" attribute is included in the request body
@@ -491,20 +588,19 @@ public class RESTResources {
 			
 			boolean testModelIncluded = type.equals("microservice");
 
-			VersionedModel versionedModel = new VersionedModel(versionedModelId, connection);
-			Commit uncommitedChanges = versionedModel.getCommitForUncommitedChanges();
-			uncommitedChanges.delete(connection);
-
 			// now create a new commit
 			Commit commit = new Commit(inputCommit, testModelIncluded, false);
 			commit.persist(versionedModelId, connection, false);
 
-			// now create new commit for uncommited changes
-			Commit uncommitedChangesNew = new Commit(inputCommit, testModelIncluded, true);
-			uncommitedChangesNew.persist(versionedModelId, connection, false);
+			// the committed model also is the new state of the uncommited changes (autosaves that were not
+			// written yet are discarded once the commit succeeded, they have a lower revision anyway)
+			workingCopyRevision = service.getWorkingCopySaver().beginReplace(versionedModelId,
+					WorkingCopy.getRevision(connection, versionedModelId));
+			WorkingCopy.save(connection, versionedModelId, (JSONObject) commitJson.get("model"),
+					testModelIncluded ? (JSONObject) commitJson.get("testModel") : null, workingCopyRevision);
 
-			// reload versionedModel from database
-			versionedModel = new VersionedModel(versionedModelId, connection);
+			// load versionedModel from database
+			VersionedModel versionedModel = new VersionedModel(versionedModelId, connection);
 
 			// get model
 			Model model = commit.getModel();
@@ -518,6 +614,7 @@ public class RESTResources {
 			if (type.equals("frontend"))
 				type = "frontend-component";
 			// the other types "microservice" and "application" do not need to be converted
+			ModelCatalog.describe(connection, model.getId(), type, componentName);
 
 			// these model attributes are not persisted to the database, since model.persist
 			// already got called
@@ -528,9 +625,16 @@ public class RESTResources {
 
 			model.getAttributes().add(new EntityAttribute("syncmetaid", "componentName", componentName));
 
+			// only the stages whose inputs changed since the previous manual commit need to run
+			RegenerationPlan plan = RegenerationPlan.forCommit(connection, versionedModelId, commit, type, componentName);
+
 			// call code generation service
 			String commitSha = "";
-			if (!codeGenerationService.isEmpty()) {
+			if (!codeGenerationService.isEmpty() && !plan.needsCodeGeneration()) {
+				// the repository already contains the code of this model
+				commitSha = plan.getPreviousSha();
+				plan.skip(RegenerationPlan.Stage.CODE_GENERATION, "model unchanged");
+			} else if (!codeGenerationService.isEmpty()) {
 				try {
 					// get user input metadata doc if available
 					String metadataDocString = model.getMetadataDoc();
@@ -549,6 +653,7 @@ public class RESTResources {
 						// not the first commit
 						commitSha = callCodeGenerationService("updateRepositoryOfModel", metadataDocString, versionedModel, commit);
 					}
+					plan.ran(RegenerationPlan.Stage.CODE_GENERATION);
 				} catch (CGSInvocationException e) {
 					try {
 						connection.rollback();
@@ -558,28 +663,47 @@ public class RESTResources {
 				}
 			}
 
-			String oldSwaggerDoc = metadataDocService.getByVersionedModelId(versionedModel.getId()).getDocString();
+			MetadataDoc oldMetadataDoc = metadataDocService.getByVersionedModelId(versionedModel.getId());
+			String oldSwaggerDoc = oldMetadataDoc.getDocString();
 
 			// generate metadata swagger doc after model valid in code generation
-			String swaggerDoc = metadataDocService.modelToSwagger(versionedModel.getId(), componentName, model, metadataVersion);
+			String swaggerDoc = oldSwaggerDoc;
+			if (plan.needsSwagger(oldSwaggerDoc, Objects.equals(metadataVersion, oldMetadataDoc.getVersion()))) {
+				swaggerDoc = metadataDocService.modelToSwagger(versionedModel.getId(), componentName, model, metadataVersion);
+			}
 
 			String channelId = (String) projectChatInfoJSON.get("channelId");
 
-			if(oldSwaggerDoc != null && swaggerDoc != null) {
-				Context.getCurrent().invoke("i5.las2peer.services.apiTestingBot.APITestingBot", "sendAPIDocChangesMessage",
-						oldSwaggerDoc, swaggerDoc, "CAEBot", "RocketChat", channelId);
+			if (plan.needsAPIChangesMessage(oldSwaggerDoc, swaggerDoc)) {
+				// sent by the outbox once the commit is stored
+				ExternalCalls.sendAPIDocChangesMessage(connection, commit.getId(), oldSwaggerDoc, swaggerDoc, channelId);
 			}
 
 			// generate test cases
-			generateTestSuggestions(swaggerDoc, versionedModel.getId());
+			if (plan.needsTestSuggestions(oldSwaggerDoc, swaggerDoc)) {
+				generateTestSuggestions(swaggerDoc, versionedModel.getId());
+			}
 
 			// now persist the sha given by code generation service
 			commit.persistSha(commitSha, connection);
 
 			// everything went well -> commit database changes
 			connection.commit();
-
-			return Response.ok(commitSha).build();
+			committed = true;
+			service.getCommunicationViewCache().invalidateVersionedModel(versionedModelId);
+			service.getOutboxDispatcher().wakeUp();
+
+			recordRegenerationPlan(plan);
+			return Response.ok(commitSha).tag(String.valueOf(revision))
+					.header("X-Model-Changed", String.valueOf(plan.isModelChanged()))
+					.header("X-Skipped-Stages", String.join(",", plan.getSkippedStages())).build();
+		} catch (RevisionConflictException e) {
+			try {
+				connection.rollback();
+			} catch (SQLException e1) {
+			}
+			return Response.status(HttpURLConnection.HTTP_CONFLICT)
+					.entity("The versioned model got changed in the meantime, please reload it: " + e.getMessage()).build();
 		} catch (SQLException e) {
 			try {
 				connection.rollback();
@@ -607,16 +731,127 @@ public class RESTResources {
 			} catch (SQLException e) {
 				logger.printStackTrace(e);
 			}
+			if(workingCopyRevision >= 0) {
+				service.getWorkingCopySaver().endReplace(versionedModelId, workingCopyRevision, committed);
+			}
+			service.getVersionedModelLocks().unlock(versionedModelId);
+		}
+	}
+
+	/**
+	 * Saves the uncommited changes (working copy) of the versioned model, e.g. autosaves of the modeling
+	 * editor. Saves are coalesced and written to the database after a short delay, thus this can be
+	 * called frequently.
+	 * @param versionedModelId Id of the versioned model.
+	 * @param inputWorkingCopy JSON containing the projectName, the model and (for microservices) the test model.
+	 * @return Response containing the revision of the saved working copy.
+	 */
+	@PUT
+	@Path("/versionedModels/{id}/workingcopy")
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@ApiOperation(value = "Saves the uncommited changes of the versioned model.")
+	@ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "OK, saved working copy. Returns its revision."),
+			@ApiResponse(code = HttpURLConnection.HTTP_BAD_REQUEST, message = "Parse error."),
+			@ApiResponse(code = HttpURLConnection.HTTP_FORBIDDEN, message = "User is not allowed to change the versioned model."),
+			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error.")
+	})
+	@SuppressWarnings("unchecked")
+	public Response putWorkingCopy(@PathParam("id") int versionedModelId, String inputWorkingCopy) {
+		JSONObject body;
+		try {
+			body = (JSONObject) JSONValue.parseWithException(inputWorkingCopy);
+		} catch (ParseException | ClassCastException e) {
+			return Response.status(HttpURLConnection.HTTP_BAD_REQUEST).entity("Parse error.").build();
+		}
+		String projectName = (String) body.get("projectName");
+		if(projectName == null || !(body.get("model") instanceof JSONObject)) {
+			return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+					.entity("Attributes 'projectName' and 'model' are required.").build();
+		}
+
+		// check if the versioned model belongs to the project and if the user is a project member
+		ProjectServiceCache projectService = service.getProjectServiceCache();
+		try (ServiceCalls calls = ServiceCalls.inCurrentContext()) {
+			ServiceCalls.Call<JSONObject> metadataCall = calls.submit("getProjectMetadataRMI",
+					() -> projectService.getProjectMetadata(projectName));
+			ServiceCalls.Call<Boolean> accessCall = calls.submit("hasAccessToProject",
+					() -> projectService.hasAccessToProject(projectName));
+			calls.awaitAll();
+			if(!isComponentOfProject(metadataCall.get(), versionedModelId)) {
+				return Response.status(HttpURLConnection.HTTP_BAD_REQUEST)
+						.entity("The versioned model does not belong to the given project.").build();
+			}
+			if(!accessCall.get()) {
+				return Response.status(HttpURLConnection.HTTP_FORBIDDEN)
+						.entity("User is not allowed to change the versioned model (or an error occurred).").build();
+			}
+		} catch (ServiceCallException e) {
+			return Response.serverError().entity("Internal server error: " + e.getMessage()).build();
+		}
+
+		try {
+			int revision = service.getWorkingCopySaver().save(versionedModelId, (JSONObject) body.get("model"),
+					(JSONObject) body.get("testModel"));
+			JSONObject result = new JSONObject();
+			result.put("revision", revision);
+			return Response.ok(result.toJSONString()).tag(String.valueOf(revision)).build();
+		} catch (SQLException e) {
+			logger.printStackTrace(e);
+			return Response.serverError().entity("Internal server error.").build();
 		}
 	}
 
+	/**
+	 * Checks whether the versioned model is the one of a component of the project.
+	 * @param projectMetadata Metadata of the project.
+	 * @param versionedModelId Id of the versioned model.
+	 * @return Whether one of the components of the project uses the versioned model.
+	 */
+	private static boolean isComponentOfProject(JSONObject projectMetadata, int versionedModelId) {
+		JSONArray componentsJSON = (JSONArray) projectMetadata.get("components");
+		for(Object o : componentsJSON) {
+			JSONObject componentJSON = (JSONObject) o;
+			int compVersionedModelId = ((Long) componentJSON.get("versionedModelId")).intValue();
+			if(compVersionedModelId == versionedModelId) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the revision a commit is based on: the "revision" attribute of the commit or else the
+	 * If-Match header (e.g. the ETag returned by the previous commit).
+	 * @param commitJson Commit as JSON.
+	 * @param ifMatch Value of the If-Match header, may be null.
+	 * @return Revision the commit is based on, -1 if the client did not send it.
+	 */
+	private static int getExpectedRevision(JSONObject commitJson, String ifMatch) {
+		if(commitJson.get("revision") != null) {
+			return ((Number) commitJson.get("revision")).intValue();
+		}
+		if(ifMatch == null || ifMatch.trim().isEmpty()) {
+			return -1;
+		}
+		String tag = ifMatch.trim();
+		if(tag.startsWith("W/")) tag = tag.substring(2);
+		return Integer.parseInt(tag.replace("\"", ""));
+	}
+
+	/**
+	 * Lists the test cases that got suggested for the versioned model and that were not accepted or dismissed yet.
+	 * @param versionedModelId Id of the versioned model.
+	 * @param offset Number of suggestions to skip.
+	 * @param limit Maximum number of suggestions to return (all suggestions if not set).
+	 * @return Response containing a JSON array of test cases and their descriptions.
+	 */
 	@GET
 	@Path("/versionedModels/{id}/testsuggestions")
-	public Response getTestSuggestions(@PathParam("id") int versionedModelId) {
+	public Response getTestSuggestions(@PathParam("id") int versionedModelId, @QueryParam("offset") int offset,
+			@QueryParam("limit") int limit) {
 		try {
-			Connection connection = dbm.getConnection();
-			Map<TestCase, String> testCases = getTestSuggestionsByVersionedModel(connection, versionedModelId, false);
-			connection.close();
+			Map<TestCase, String> testCases = repository.findTestSuggestions(versionedModelId, false, offset, limit);
 
 			JSONArray arr = new JSONArray();
 			for(Map.Entry<TestCase, String> entry : testCases.entrySet()) {
@@ -636,15 +871,7 @@ public class RESTResources {
 	@Path("/versionedModels/{id}/testsuggestions/{testModelId}")
 	public Response dismissTestSuggestion(@PathParam("id") int versionedModelId, @PathParam("testModelId") int testModelId) {
 		try {
-			Connection connection = dbm.getConnection();
-
-			PreparedStatement statement = connection.prepareStatement("UPDATE VersionedModelToTestSuggestion SET `suggest`='0' WHERE `versionedModelId`=? AND `testModelId`=?;");
-			statement.setInt(1, versionedModelId);
-			statement.setInt(2, testModelId);
-			statement.executeUpdate();
-			statement.close();
-
-			connection.close();
+			repository.dismissTestSuggestion(versionedModelId, testModelId);
 			return Response.status(HttpURLConnection.HTTP_OK).build();
 		} catch(SQLException e) {
 			return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
@@ -796,89 +1023,113 @@ public class RESTResources {
 			@ApiResponse(code = HttpURLConnection.HTTP_NOT_FOUND, message = "Model does not exist"),
 			@ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "Internal server error") })
 	public Response getCAECommunicationModel(@PathParam("modelId") int modelId) {
-		// load the application model from the database
-		SimpleModel appModel;
 		Connection connection = null;
 		try {
 			connection = dbm.getConnection();
-			Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE,
-					"getCAECommunicationModel: Loading model " + modelId + " from the database");
-			appModel = (SimpleModel) new Model(modelId, connection).getMinifiedRepresentation();
-		} catch (SQLException e) {
-			// model might not exist
-			logger.printStackTrace(e);
-			Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "getCAECommunicationModel: model " + modelId + " not found");
-			return Response.status(404).entity("Model " + modelId + " does not exist!").build();
-		} finally {
+			// load the application model from the database
+			SimpleModel appModel;
 			try {
-				connection.close();
+				Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE,
+						"getCAECommunicationModel: Loading model " + modelId + " from the database");
+				appModel = (SimpleModel) new Model(modelId, connection).getMinifiedRepresentation(connection);
 			} catch (SQLException e) {
+				// model might not exist
 				logger.printStackTrace(e);
+				Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR, "getCAECommunicationModel: model " + modelId + " not found");
+				return Response.status(404).entity("Model " + modelId + " does not exist!").build();
 			}
-		}
-		// load submodules of application model from the database
-		Serializable[] modelsToSend = null;
-		for (SimpleEntityAttribute attribute : appModel.getAttributes()) {
-			if (attribute.getName().equals("type") && attribute.getValue().equals("application")) {
-				modelsToSend = new SimpleModel[appModel.getNodes().size() + 1];
-				modelsToSend[0] = appModel; // first is always "application"
-											// model itself
-				int modelsToSendIndex = 1;
-				// iterate through the nodes and add corresponding models to
-				// array
-				for (SimpleNode node : appModel.getNodes()) {
-					// send application models only have one attribute with
-					// its label
-					// TODO: here subModelName got changed to subModelId -> check if it works
-					int subModelId = Integer.valueOf(node.getAttributes().get(0).getValue());
-					try {
-						connection = dbm.getConnection();
-						modelsToSend[modelsToSendIndex] = new Model(subModelId, connection)
-								.getMinifiedRepresentation();
-					} catch (SQLException e) {
-						// model might not exist
-						logger.printStackTrace(e);
-						Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR,
-								"getCAECommunicationModel: Error loading application component: " + subModelId);
-						return Response.serverError().entity("Internal server error...").build();
-					} finally {
-						try {
-							connection.close();
-						} catch (SQLException e) {
-							logger.printStackTrace(e);
-						}
-					}
-					modelsToSendIndex++;
+			boolean isApplication = false;
+			for (SimpleEntityAttribute attribute : appModel.getAttributes()) {
+				if (attribute.getName().equals("type") && attribute.getValue().equals("application")) {
+					isApplication = true;
 				}
-				// invoke code generation service
-				try {
-					Serializable[] payload = { modelsToSend };
-
-					Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE,
-							"getCAECommunicationModel: Invoking code generation service now..");
-					SimpleModel communicationModel = (SimpleModel) Context.getCurrent().invoke(codeGenerationService,
-							"getCommunicationViewOfApplicationModel", payload);
-
-					Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE,
-							"getCAECommunicationModel: Got communication model from code generation service..");
-
-					Model returnModel = new Model(communicationModel);
-					Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE, "getCAECommunicationModel: Created model " + modelId
-							+ "from simple model, now converting to JSONObject and returning");
+			}
+			if (!isApplication) {
+				Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR,
+						"getCAECommunicationModel: model " + modelId + " is not an application");
+				return Response.serverError().entity("Internal server error...").build();
+			}
 
-					JSONObject jsonModel = returnModel.toJSONObject();
-					return Response.ok(jsonModel.toJSONString()).build();
-				} catch (Exception e) {
+			// nodes of application models only have one attribute, which contains the id of the sub-model
+			List<Integer> subModelIds = new ArrayList<>();
+			for (SimpleNode node : appModel.getNodes()) {
+				subModelIds.add(Integer.valueOf(node.getAttributes().get(0).getValue()));
+			}
+			CommunicationViewCache cache = service.getCommunicationViewCache();
+			String cacheKey = CommunicationViewCache.key(modelId, subModelIds);
+			String cachedView = cache.get(cacheKey);
+			if (cachedView != null) {
+				service.getMetrics().increment("communicationView.cacheHit");
+				return Response.ok(cachedView).build();
+			}
+			service.getMetrics().increment("communicationView.cacheMiss");
+
+			// load all sub-models at once instead of one by one
+			Map<Integer, Model> subModels = Model.loadAll(connection, subModelIds);
+			Serializable[] modelsToSend = new SimpleModel[subModelIds.size() + 1];
+			modelsToSend[0] = appModel; // first is always "application" model itself
+			int modelsToSendIndex = 1;
+			for (int subModelId : subModelIds) {
+				Model subModel = subModels.get(subModelId);
+				if (subModel == null) {
 					Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR,
-							"getCAECommunicationModel: Internal error " + e.getMessage());
-					logger.printStackTrace(e);
+							"getCAECommunicationModel: Error loading application component: " + subModelId);
 					return Response.serverError().entity("Internal server error...").build();
 				}
+				modelsToSend[modelsToSendIndex++] = subModel.getMinifiedRepresentation(connection);
+			}
+
+			// invoke code generation service
+			Serializable[] payload = { modelsToSend };
+			Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE,
+					"getCAECommunicationModel: Invoking code generation service now..");
+			SimpleModel communicationModel = (SimpleModel) Context.getCurrent().invoke(codeGenerationService,
+					"getCommunicationViewOfApplicationModel", payload);
+			Context.get().monitorEvent(MonitoringEvent.SERVICE_MESSAGE,
+					"getCAECommunicationModel: Got communication model from code generation service..");
+
+			String view = new Model(communicationModel).toJSONObject().toJSONString();
+			Set<Integer> modelIds = new HashSet<>(subModelIds);
+			modelIds.add(modelId);
+			cache.put(cacheKey, view, modelIds, ModelCatalog.findVersionedModelIds(connection, modelIds));
+			return Response.ok(view).build();
+		} catch (Exception e) {
+			Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR,
+					"getCAECommunicationModel: Internal error " + e.getMessage());
+			logger.printStackTrace(e);
+			return Response.serverError().entity("Internal server error...").build();
+		} finally {
+			try {
+				if (connection != null) {
+					connection.close();
+				}
+			} catch (SQLException e) {
+				logger.printStackTrace(e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the minified representation of the given model and loads its wireframe before, if needed.
+	 * @param model Model that should be minified.
+	 * @return Minified representation of the model.
+	 * @throws CGSInvocationException If the wireframe of the model could not be loaded.
+	 */
+	private Serializable getMinifiedRepresentation(Model model) throws CGSInvocationException {
+		Connection connection = null;
+		try {
+			connection = dbm.getConnection();
+			return model.getMinifiedRepresentation(connection);
+		} catch (SQLException e) {
+			logger.printStackTrace(e);
+			throw new CGSInvocationException("Error loading wireframe of model: " + model.getId());
+		} finally {
+			try {
+				if (connection != null) connection.close();
+			} catch (SQLException e) {
+				logger.printStackTrace(e);
 			}
 		}
-		Context.get().monitorEvent(MonitoringEvent.SERVICE_ERROR,
-				"getCAECommunicationModel: model " + modelId + " is not an application");
-		return Response.serverError().entity("Internal server error...").build();
 	}
 
 	/**
@@ -913,7 +1164,7 @@ public class RESTResources {
 		ArrayList<SimpleModel> modelsToSendList = new ArrayList<>();
 		HashMap<String, String> extDependenciesToSend = new HashMap<>();
 		
-		SimpleModel simpleModel = (SimpleModel) model.getMinifiedRepresentation();
+		SimpleModel simpleModel = (SimpleModel) getMinifiedRepresentation(model);
 		boolean isApplication = false;
 		
 	    String modelType = null;
@@ -1096,7 +1347,7 @@ public class RESTResources {
 				try {
 					connection = dbm.getConnection();
 					logger.info("Modelname: " + m.getId());
-					SimpleModel s = (SimpleModel) m.getMinifiedRepresentation();
+					SimpleModel s = (SimpleModel) m.getMinifiedRepresentation(connection);
 					// s now has the id of the model as id, not the versioned model id
 					// thus we create a new SimpleModel and use the versioned model id as the model id
 					SimpleModel s2 = new SimpleModel(String.valueOf(versionedModelId), s.getNodes(), s.getEdges(), s.getAttributes());
@@ -1135,7 +1386,7 @@ public class RESTResources {
 				// the old model does not contain attributes for type and versionedModelId
 				old.getAttributes().add(new EntityAttribute("syncmetaid", "versionedModelId", String.valueOf(versionedModel.getId())));
 				
-				oldModel = (SimpleModel) old.getMinifiedRepresentation();
+				oldModel = (SimpleModel) getMinifiedRepresentation(old);
 				
 				modelsToSendList.add(oldModel);
 			}
@@ -1199,7 +1450,7 @@ public class RESTResources {
         // check if calling agent is member of the project
         boolean hasAccess;
 		try {
-			hasAccess = (boolean) Context.get().invoke(ModelPersistenceService.PROJECT_SERVICE, "hasAccessToProject", "CAE", projectName);
+			hasAccess = service.getProjectServiceCache().hasAccessToProject(projectName);
 		} catch (ServiceNotFoundException | ServiceNotAvailableException | InternalServiceException
 				| ServiceMethodNotFoundException | ServiceInvocationFailedException | ServiceAccessDeniedException
 				| ServiceNotAuthorizedException e) {
@@ -1214,78 +1465,90 @@ public class RESTResources {
         
         // user is project member
         // create new component
-        Component component;
         Connection connection = null;
 		try {
-			component = new Component(inputComponent);
+			Component component = new Component(inputComponent);
 			boolean isMicroservice = component.getType().equals(Component.TYPE_MICROSERVICE);
 			connection = this.dbm.getConnection();
+			connection.setAutoCommit(false);
 			component.createEmptyVersionedModel(connection, isMicroservice);
 			
 			// create category in requirements bazaar
+			// (stays in the request: the category is part of the metadata and needs the access token of the user)
 			if(!this.service.isCategoryCreationDisabled()) {
 			    String categoryName = projectName + "-" + component.getName();
 				ReqBazCategory reqBazCategory = ReqBazHelper.getInstance().createCategory(categoryName, accessToken,
 						username, sub);
 				component.setReqBazCategory(reqBazCategory);
 			}
-			
+
+			String prefix = component.getType().equals(Component.TYPE_FRONTEND) ? "frontendComponent" :
+					(component.getType().equals(Component.TYPE_MICROSERVICE) ? "microservice" : "application");
+			String repoName = prefix + "-" + component.getVersionedModelId();
+			ProjectServiceCache projectService = service.getProjectServiceCache();
+			try (ServiceCalls calls = ServiceCalls.inCurrentContext()) {
+				// chat info and current metadata are independent => request them concurrently
+				ServiceCalls.Call<JSONObject> chatInfoCall = calls.submit("getProjectChatInfo",
+						() -> projectService.getProjectChatInfo(projectName));
+				ServiceCalls.Call<JSONObject> metadataCall = calls.submit("getProjectMetadataRMI",
+						() -> projectService.getCurrentProjectMetadata(projectName));
+
+				// create GitHub repository and add RocketChat webhook (sent by the outbox once the component is stored)
+				if(!codeGenerationService.isEmpty()) {
+					String channelId = (String) chatInfoCall.get().get("channelId");
+					ExternalCalls.createRepo(connection, repoName);
+					ExternalCalls.addWebhook(connection, repoName, channelId);
+				}
+
+				// get current metadata
+				JSONObject oldMetadata = metadataCall.get();
+				JSONObject newMetadata = (JSONObject) JSONValue.parse(oldMetadata.toJSONString());
+				// update project metadata
+		        JSONArray components = (JSONArray) newMetadata.get("components");
+		        components.add(component.toJSONObject());
+		        // send update metadata back to project service
+		        JSONObject o = new JSONObject();
+				o.put("projectName", projectName);
+				o.put("oldMetadata", oldMetadata);
+				o.put("newMetadata", newMetadata);
+		        boolean success = projectService.changeMetadata(projectName, o);
+		        if(success) {
+		        	// the component and its calls are only stored if it got added to the project
+		        	connection.commit();
+		        	service.getOutboxDispatcher().wakeUp();
+		            return Response.status(HttpURLConnection.HTTP_OK).build();
+		        } else {
+		        	connection.rollback();
+		        	return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR)
+		        			.entity("Request to project service was not successful.").build();
+		        }
+			}
 		} catch (ParseException e) {
 			return Response.status(HttpURLConnection.HTTP_BAD_REQUEST).build();
-		} catch (SQLException e) {
-			return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
 		} catch (ReqBazException e) {
+			try {
+				connection.rollback();
+			} catch (SQLException e1) {
+			}
 			return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR)
 					.entity("Requirements Bazaar: Category creation failed.").build();
+		} catch (SQLException | ServiceNotFoundException | ServiceNotAvailableException | InternalServiceException
+				| ServiceMethodNotFoundException | ServiceInvocationFailedException | ServiceAccessDeniedException
+				| ServiceNotAuthorizedException | ServiceCallException e) {
+			try {
+				if(connection != null) connection.rollback();
+			} catch (SQLException e1) {
+			}
+			return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
 		} finally {
 			if(connection != null)
 				try {
+					connection.setAutoCommit(true);
 					connection.close();
 				} catch (SQLException e) {
-					return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
+					logger.printStackTrace(e);
 				}
 		}
-
-		// create GitHub repository
-		String prefix = component.getType().equals(Component.TYPE_FRONTEND) ? "frontendComponent" :
-				(component.getType().equals(Component.TYPE_MICROSERVICE) ? "microservice" : "application");
-		String repoName = prefix + "-" + component.getVersionedModelId();
-		try {
-			Context.get().invoke(codeGenerationService, "createRepo", repoName);
-
-			JSONObject chatInfo = (JSONObject) Context.get().invoke(PROJECT_SERVICE, "getProjectChatInfo", "CAE", projectName);
-            String channelId = (String) chatInfo.get("channelId");
-			// add RocketChat webhook
-			String webhookUrl = RocketChatHelper.getIntegrationWebhookUrl(service.getRocketChatConfig(), channelId);
-			Context.get().invoke(codeGenerationService, "addWebhook", repoName, webhookUrl);
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-
-		try {
-			// get current metadata
-			JSONObject oldMetadata = (JSONObject) Context.get().invoke(ModelPersistenceService.PROJECT_SERVICE, "getProjectMetadataRMI", "CAE", projectName);
-			JSONObject newMetadata = (JSONObject) JSONValue.parse(oldMetadata.toJSONString());
-			// update project metadata
-	        JSONArray components = (JSONArray) newMetadata.get("components");
-	        components.add(component.toJSONObject());
-	        // send update metadata back to project service
-	        JSONObject o = new JSONObject();
-			o.put("projectName", projectName);
-			o.put("oldMetadata", oldMetadata);
-			o.put("newMetadata", newMetadata);
-	        boolean success = (boolean) Context.get().invoke(ModelPersistenceService.PROJECT_SERVICE, "changeMetadataRMI", "CAE", o.toJSONString());
-	        if(success) {
-	            return Response.status(HttpURLConnection.HTTP_OK).build();
-	        } else {
-	        	return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR)
-	        			.entity("Request to project service was not successful.").build();
-	        }
-		} catch (ServiceNotFoundException | ServiceNotAvailableException | InternalServiceException
-				| ServiceMethodNotFoundException | ServiceInvocationFailedException | ServiceAccessDeniedException
-				| ServiceNotAuthorizedException e) {
-			return Response.status(HttpURLConnection.HTTP_INTERNAL_ERROR).build();
-		}
 	}
 	
 	/**
@@ -1323,7 +1586,7 @@ public class RESTResources {
 		// check if calling agent is member of the project
         boolean hasAccess;
 		try {
-			hasAccess = (boolean) Context.get().invoke(ModelPersistenceService.PROJECT_SERVICE, "hasAccessToProject", "CAE", projectName);
+			hasAccess = service.getProjectServiceCache().hasAccessToProject(projectName);
 		} catch (ServiceNotFoundException | ServiceNotAvailableException | InternalServiceException
 				| ServiceMethodNotFoundException | ServiceInvocationFailedException | ServiceAccessDeniedException
 				| ServiceNotAuthorizedException e) {
@@ -1338,7 +1601,7 @@ public class RESTResources {
         
 		try {
 			// get current metadata
-			JSONObject oldMetadata = (JSONObject) Context.get().invoke(ModelPersistenceService.PROJECT_SERVICE, "getProjectMetadataRMI", "CAE", projectName);
+			JSONObject oldMetadata = service.getProjectServiceCache().getCurrentProjectMetadata(projectName);
 			JSONObject newMetadata = (JSONObject) JSONValue.parse(oldMetadata.toJSONString());
 	     	JSONArray components = (JSONArray) newMetadata.get("components");
 	     	Object objectToRemove = null;
@@ -1368,7 +1631,7 @@ public class RESTResources {
 			o.put("projectName", projectName);
 			o.put("oldMetadata", oldMetadata);
 			o.put("newMetadata", newMetadata);
-	     	boolean success = (boolean) Context.get().invoke(ModelPersistenceService.PROJECT_SERVICE, "changeMetadataRMI", "CAE", o.toJSONString());
+	     	boolean success = service.getProjectServiceCache().changeMetadata(projectName, o);
 	        if(success) {
 	            return Response.status(HttpURLConnection.HTTP_OK).build();
 	        } else {
@@ -1405,7 +1668,7 @@ public class RESTResources {
 		// check if calling agent is member of the project
         boolean hasAccess;
 		try {
-			hasAccess = (boolean) Context.get().invoke(ModelPersistenceService.PROJECT_SERVICE, "hasAccessToProject", "CAE", projectName);
+			hasAccess = service.getProjectServiceCache().hasAccessToProject(projectName);
 		} catch (ServiceNotFoundException | ServiceNotAvailableException | InternalServiceException
 				| ServiceMethodNotFoundException | ServiceInvocationFailedException | ServiceAccessDeniedException
 				| ServiceNotAuthorizedException e) {
@@ -1417,7 +1680,7 @@ public class RESTResources {
         
         try {
         	// get current metadata
-			JSONObject metadata = (JSONObject) Context.get().invoke(ModelPersistenceService.PROJECT_SERVICE, "getProjectMetadataRMI", "CAE", projectName);
+			JSONObject metadata = service.getProjectServiceCache().getProjectMetadata(projectName);
 		    
 			JSONObject result = new JSONObject();
 			
@@ -1532,10 +1795,9 @@ public class RESTResources {
 		SemanticCheckResponse result;
 		EntityAttribute semcheckAttr = findSemcheckAttribute(model);
 		try {
-			result = (SemanticCheckResponse) Context.getCurrent().invoke(semanticCheckService, "doSemanticCheck",
-					model.getMinifiedRepresentation());
+			result = invokeSemanticCheck(model);
 		} catch (Exception e) {
-			System.out.println(e);
+			logger.printStackTrace(e);
 			throw new InternalServerErrorException("could not execute semantic check service");
 		}
 		if (result == null) {
@@ -1556,10 +1818,9 @@ public class RESTResources {
 	private void doSemanticCheck(Model model) {
 		SemanticCheckResponse result;
 		try {
-			result = (SemanticCheckResponse) Context.getCurrent().invoke(semanticCheckService, "doSemanticCheck",
-					model.getMinifiedRepresentation());
+			result = invokeSemanticCheck(model);
 		} catch (Exception e) {
-			System.out.println(e);
+			logger.printStackTrace(e);
 			throw new InternalServerErrorException("could not execute semantic check service");
 		}
 		if (result == null) {
@@ -1569,6 +1830,42 @@ public class RESTResources {
 		}
 	}
 
+	/**
+	 * Calls the semantic check service, unless the result for the same model is cached already.
+	 * @param model Model that should be checked.
+	 * @return Result of the semantic check.
+	 * @throws Exception If the semantic check service could not be called.
+	 */
+	private SemanticCheckResponse invokeSemanticCheck(Model model) throws Exception {
+		return service.getSemanticCheckCache().check(model.getMinifiedRepresentation(),
+				minifiedModel -> (SemanticCheckResponse) Context.getCurrent().invoke(semanticCheckService,
+						"doSemanticCheck", minifiedModel));
+	}
+
+	/**
+	 * Invalidates the cached results of the semantic check service, e.g. after a new version of the
+	 * semantic check service got deployed.
+	 * 
+	 * Only allowed for authenticated agents, since invalidating the cache makes the following commits
+	 * call the semantic check service again. The version of the semantic check service, which the
+	 * results are bound to, can only be changed in the service configuration.
+	 * 
+	 * @return Response containing the current version.
+	 */
+	@DELETE
+	@Path("/semantics/cache")
+	@ApiOperation(value = "Invalidates the cached semantic check results")
+	@ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "OK, cache invalidated"),
+			@ApiResponse(code = HttpURLConnection.HTTP_UNAUTHORIZED, message = "User is not authenticated.") })
+	public Response invalidateSemanticCheckCache() {
+		if (Context.get().getMainAgent() instanceof AnonymousAgent) {
+			return Response.status(HttpURLConnection.HTTP_UNAUTHORIZED).entity("User is not authenticated.").build();
+		}
+		SemanticCheckCache cache = service.getSemanticCheckCache();
+		cache.invalidateAll();
+		return Response.ok(cache.getServiceVersion()).build();
+	}
+
 	private EntityAttribute findSemcheckAttribute(Model model) {
 		EntityAttribute res = null;
 		for (EntityAttribute a : model.getAttributes()) {
@@ -1754,6 +2051,21 @@ public class RESTResources {
 
 	}
 
+	/**
+	 * Counts the decisions of the commit pipeline in the service metrics and reports them to the monitoring.
+	 * @param plan Plan of a commit that got persisted.
+	 */
+	private void recordRegenerationPlan(RegenerationPlan plan) {
+		ServiceMetrics metrics = service.getMetrics();
+		metrics.increment(plan.isModelChanged() ? "commit.modelChanged" : "commit.modelUnchanged");
+		for (RegenerationPlan.Stage stage : RegenerationPlan.Stage.values()) {
+			if (plan.isSkipped(stage)) {
+				metrics.increment("commit." + stage.getName() + ".skipped");
+			}
+		}
+		Context.get().monitorEvent(MonitoringEvent.SERVICE_CUSTOM_MESSAGE_1, plan.toJSONObject().toJSONString());
+	}
+
 	/**
 	 * Calls API test generation service to generate test cases.
 	 * Stores the suggested test cases to the database afterwards.
@@ -1766,10 +2078,8 @@ public class RESTResources {
 		Map<TestCase, String> testCasesMap = testCasesArrayToMap(arr);
 
 		try {
-			Connection connection = dbm.getConnection();
-
 			// get existing suggestions from database
-			List<TestCase> storedTestCases = getTestSuggestionsByVersionedModel(connection, versionedModelId, true).keySet().stream().toList();
+			List<TestCase> storedTestCases = repository.findTestSuggestions(versionedModelId, true, 0, 0).keySet().stream().toList();
 
 			// split every test case into separate testmodel
 			for(Map.Entry<TestCase, String> entry : testCasesMap.entrySet()) {
@@ -1783,11 +2093,8 @@ public class RESTResources {
 				}
 
 				TestModel m = new TestModel(Arrays.stream(new TestCase[] { t }).toList());
-				m.persist(connection);
-
-				ModelPersistenceService.storeTestSuggestionToDB(connection, versionedModelId, m, description);
+				repository.addTestSuggestion(versionedModelId, m, description);
 			}
-			connection.close();
 		} catch (SQLException e) {
 			throw new RuntimeException(e);
 		}
@@ -1803,36 +2110,4 @@ public class RESTResources {
 		}
 		return testCasesMap;
 	}
-
-	/**
-	 * Loads test suggestions from database.
-	 * @param connection Database connection
-	 * @param versionedModelId Id of versioned model for which test suggestions should be loaded.
-	 * @param includeAlreadySuggestedTests Whether already accepted/declined test cases should be included in result.
-	 * @return Map containing test cases and their descriptions.
-	 * @throws SQLException
-	 */
-	private Map<TestCase, String> getTestSuggestionsByVersionedModel(Connection connection, int versionedModelId, boolean includeAlreadySuggestedTests) throws SQLException {
-		Map<TestCase, String> testCases = new HashMap<>();
-
-		// load test suggestions from database
-		PreparedStatement statement = connection.prepareStatement("SELECT * FROM VersionedModelToTestSuggestion WHERE versionedModelId = ?;");
-		statement.setInt(1, versionedModelId);
-
-		ResultSet queryResult = statement.executeQuery();
-		while(queryResult.next()) {
-			int testModelId = queryResult.getInt("testModelId");
-			boolean suggest = queryResult.getBoolean("suggest");
-			String description = queryResult.getString("description");
-			if(suggest || includeAlreadySuggestedTests) {
-				TestModel testModel = new TestModel(connection, testModelId);
-				TestCase testCase = testModel.getTestCases().get(0);
-				testCase.setId(testModelId);
-				testCases.put(testCase, description);
-			}
-		}
-		statement.close();
-
-		return testCases;
-	}
 }
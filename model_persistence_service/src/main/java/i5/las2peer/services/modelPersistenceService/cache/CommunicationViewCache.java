@@ -0,0 +1,88 @@
+package i5.las2peer.services.modelPersistenceService.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Caches the communication views of application models, which get computed by the code generation
+ * service from the application model and all of its sub-models (see GET /models/commView/{modelId}).
+ * Views are keyed by the application model and the set of sub-model ids it references.
+ * An entry gets invalidated when one of its models gets deleted or a new commit of one of the
+ * versioned models of its models gets persisted.
+ */
+public class CommunicationViewCache {
+
+	private static final long TTL_MILLIS = 30 * 60 * 1000L;
+	private static final int MAX_ENTRIES = 200;
+
+	private final ExpiringCache<String, Entry> views = new ExpiringCache<>(MAX_ENTRIES, TTL_MILLIS);
+
+	/**
+	 * Returns the key of the view of the given application model.
+	 * @param applicationModelId Id of the application model.
+	 * @param subModelIds Ids of the sub-models referenced by the application model.
+	 * @return Key of the view, independent of the order of the sub-model ids.
+	 */
+	public static String key(int applicationModelId, Collection<Integer> subModelIds) {
+		List<Integer> sorted = new ArrayList<>(new HashSet<>(subModelIds));
+		Collections.sort(sorted);
+		return applicationModelId + ":" + sorted;
+	}
+
+	/**
+	 * Returns the cached view.
+	 * @param key Key of the view (see {@link #key(int, Collection)}).
+	 * @return JSON representation of the view, null if it is not cached.
+	 */
+	public String get(String key) {
+		Entry entry = this.views.get(key);
+		return entry == null ? null : entry.view;
+	}
+
+	/**
+	 * Caches a view.
+	 * @param key Key of the view (see {@link #key(int, Collection)}).
+	 * @param view JSON representation of the view.
+	 * @param modelIds Ids of the application model and all of its sub-models.
+	 * @param versionedModelIds Ids of the versioned models the models belong to.
+	 */
+	public void put(String key, String view, Collection<Integer> modelIds, Collection<Integer> versionedModelIds) {
+		this.views.put(key, new Entry(view, new HashSet<>(modelIds), new HashSet<>(versionedModelIds)));
+	}
+
+	/**
+	 * Removes all views that contain a model of the given versioned model.
+	 * @param versionedModelId Id of the versioned model.
+	 */
+	public void invalidateVersionedModel(int versionedModelId) {
+		this.views.invalidateValuesIf(entry -> entry.versionedModelIds.contains(versionedModelId));
+	}
+
+	/**
+	 * Removes all views that contain the given model.
+	 * @param modelId Id of the model.
+	 */
+	public void invalidateModel(int modelId) {
+		this.views.invalidateValuesIf(entry -> entry.modelIds.contains(modelId));
+	}
+
+	public int size() {
+		return this.views.size();
+	}
+
+	private static class Entry {
+		private final String view;
+		private final Set<Integer> modelIds;
+		private final Set<Integer> versionedModelIds;
+
+		private Entry(String view, Set<Integer> modelIds, Set<Integer> versionedModelIds) {
+			this.view = view;
+			this.modelIds = modelIds;
+			this.versionedModelIds = versionedModelIds;
+		}
+	}
+}
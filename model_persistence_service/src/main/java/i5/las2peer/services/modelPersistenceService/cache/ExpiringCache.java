@@ -0,0 +1,117 @@
+package i5.las2peer.services.modelPersistenceService.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Small in-memory cache that holds at most a fixed number of entries. If the cache is full, the
+ * least recently used entry gets evicted. Entries can additionally expire after a fixed time to live.
+ * All methods are synchronized, so one instance can be shared between requests.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the cached values.
+ */
+public class ExpiringCache<K, V> {
+
+	private final int maxEntries;
+	private final long timeToLiveMillis;
+	private final LinkedHashMap<K, CacheEntry<V>> entries;
+
+	/**
+	 * Creates a new cache.
+	 * @param maxEntries Maximum number of entries that are kept in the cache.
+	 * @param timeToLiveMillis Time (in ms) after which an entry expires. Values smaller than 1 disable expiration.
+	 */
+	public ExpiringCache(int maxEntries, long timeToLiveMillis) {
+		this.maxEntries = maxEntries;
+		this.timeToLiveMillis = timeToLiveMillis;
+		// access order => iteration starts with least recently used entry
+		this.entries = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+				return size() > ExpiringCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached value for the given key.
+	 * @param key Key of the entry.
+	 * @return Cached value or null, if there is no (unexpired) entry for the given key.
+	 */
+	public synchronized V get(K key) {
+		CacheEntry<V> entry = this.entries.get(key);
+		if(entry == null) return null;
+		if(entry.isExpired()) {
+			this.entries.remove(key);
+			return null;
+		}
+		return entry.value;
+	}
+
+	/**
+	 * Stores the given value in the cache. An existing entry for the same key gets replaced.
+	 * @param key Key of the entry.
+	 * @param value Value that should be cached (must not be null).
+	 */
+	public synchronized void put(K key, V value) {
+		long expiresAt = this.timeToLiveMillis > 0 ? System.currentTimeMillis() + this.timeToLiveMillis : Long.MAX_VALUE;
+		this.entries.put(key, new CacheEntry<>(value, expiresAt));
+	}
+
+	/**
+	 * Removes the entry with the given key (if it exists).
+	 * @param key Key of the entry that should be removed.
+	 */
+	public synchronized void invalidate(K key) {
+		this.entries.remove(key);
+	}
+
+	/**
+	 * Removes all entries whose key matches the given predicate.
+	 * @param keyPredicate Predicate that decides which entries get removed.
+	 */
+	public synchronized void invalidateIf(Predicate<K> keyPredicate) {
+		this.entries.keySet().removeIf(keyPredicate);
+	}
+
+	/**
+	 * Removes all entries whose value matches the given predicate.
+	 * @param valuePredicate Predicate that decides which entries get removed.
+	 */
+	public synchronized void invalidateValuesIf(Predicate<V> valuePredicate) {
+		this.entries.values().removeIf(entry -> valuePredicate.test(entry.value));
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public synchronized void clear() {
+		this.entries.clear();
+	}
+
+	/**
+	 * Number of entries that are currently stored (including expired ones that were not removed yet).
+	 * @return Number of entries.
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	private static class CacheEntry<V> {
+		private final V value;
+		private final long expiresAt;
+
+		private CacheEntry(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+		private boolean isExpired() {
+			return System.currentTimeMillis() > this.expiresAt;
+		}
+	}
+}
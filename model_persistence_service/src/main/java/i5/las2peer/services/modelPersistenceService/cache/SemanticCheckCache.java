@@ -0,0 +1,137 @@
+package i5.las2peer.services.modelPersistenceService.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import i5.cae.semanticCheck.SemanticCheckResponse;
+import i5.las2peer.services.modelPersistenceService.metrics.ServiceMetrics;
+import i5.las2peer.services.modelPersistenceService.model.ContentHash;
+
+/**
+ * Memoizes the results of the semantic check service. Results are keyed by the content hash of the
+ * minified model representation that is sent to the service, so checking an unchanged model again (e.g.
+ * via the validation button of the editor) does not call the service again. Concurrent checks of the
+ * same model are coalesced into a single call.
+ * The cache is bound to a version of the semantic check service: if the version changes (see
+ * {@link #setServiceVersion(String)}), all results get invalidated, because the new version might
+ * check differently.
+ */
+public class SemanticCheckCache {
+
+	private static final long TTL_MILLIS = 10 * 60 * 1000L;
+	private static final int MAX_ENTRIES = 500;
+
+	private final ExpiringCache<String, SemanticCheckResponse> results = new ExpiringCache<>(MAX_ENTRIES, TTL_MILLIS);
+
+	/**
+	 * Checks that are currently running, by key.
+	 */
+	private final ConcurrentHashMap<String, CompletableFuture<SemanticCheckResponse>> pendingChecks = new ConcurrentHashMap<>();
+
+	private final ServiceMetrics metrics;
+
+	private volatile String serviceVersion;
+
+	/**
+	 * Creates a new cache.
+	 * @param serviceVersion Version (or identifier) of the semantic check service whose results get cached.
+	 * @param metrics Metrics in which hits and misses of the cache get counted.
+	 */
+	public SemanticCheckCache(String serviceVersion, ServiceMetrics metrics) {
+		this.serviceVersion = serviceVersion;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Returns the result of the semantic check of the given minified model. The check only gets called
+	 * if there is no cached result for the model.
+	 * @param minifiedModel Minified representation of the model (see Model.getMinifiedRepresentation()).
+	 * @param check Calls the semantic check service.
+	 * @return Result of the check, null if the service returned no result (null results are not cached).
+	 * @throws Exception If the check failed.
+	 */
+	public SemanticCheckResponse check(Serializable minifiedModel, Check check) throws Exception {
+		String key = key(minifiedModel);
+		SemanticCheckResponse cached = this.results.get(key);
+		if(cached != null) {
+			this.metrics.increment("semanticCheck.cacheHit");
+			return cached;
+		}
+		this.metrics.increment("semanticCheck.cacheMiss");
+
+		CompletableFuture<SemanticCheckResponse> future = new CompletableFuture<>();
+		CompletableFuture<SemanticCheckResponse> running = this.pendingChecks.putIfAbsent(key, future);
+		if(running != null) {
+			try {
+				return running.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				// running check failed, try again below
+			}
+			return check.run(minifiedModel);
+		}
+
+		try {
+			SemanticCheckResponse result = check.run(minifiedModel);
+			if(result != null && key.startsWith(this.serviceVersion + "/")) {
+				this.results.put(key, result);
+			}
+			future.complete(result);
+			return result;
+		} finally {
+			if(!future.isDone()) {
+				future.completeExceptionally(new IllegalStateException("Semantic check failed."));
+			}
+			this.pendingChecks.remove(key, future);
+		}
+	}
+
+	/**
+	 * Sets the version of the semantic check service. If it differs from the current one, all cached results
+	 * get invalidated.
+	 * @param serviceVersion Version (or identifier) of the semantic check service.
+	 */
+	public synchronized void setServiceVersion(String serviceVersion) {
+		if(!serviceVersion.equals(this.serviceVersion)) {
+			this.serviceVersion = serviceVersion;
+			this.results.clear();
+		}
+	}
+
+	public String getServiceVersion() {
+		return this.serviceVersion;
+	}
+
+	/**
+	 * Removes all cached results.
+	 */
+	public void invalidateAll() {
+		this.results.clear();
+	}
+
+	public int size() {
+		return this.results.size();
+	}
+
+	private String key(Serializable minifiedModel) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try(ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(minifiedModel);
+		}
+		return this.serviceVersion + "/" + ContentHash.of(bytes.toByteArray());
+	}
+
+	/**
+	 * Call of the semantic check service.
+	 */
+	@FunctionalInterface
+	public interface Check {
+		SemanticCheckResponse run(Serializable minifiedModel) throws Exception;
+	}
+}
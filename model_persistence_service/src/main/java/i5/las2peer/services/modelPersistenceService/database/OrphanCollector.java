@@ -0,0 +1,379 @@
+package i5.las2peer.services.modelPersistenceService.database;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+
+import i5.las2peer.logging.L2pLogger;
+import i5.las2peer.services.modelPersistenceService.database.migration.SchemaMigrator;
+import i5.las2peer.services.modelPersistenceService.model.Model;
+
+/**
+ * Removes rows of the model storage that are not referenced anymore (e.g. the models of the commits
+ * for uncommited changes, or nodes, edges and attributes of models that were deleted before deletes
+ * were cascaded). Orphans are searched and deleted in bounded batches with a pause between the batches,
+ * so that the collector does not block the requests of the service.
+ *
+ * A row is only collected if it already existed at the previous run (its id is not higher than the
+ * highest id seen back then). Thus, rows that are written in multiple steps (e.g. a suggested test model
+ * that gets linked right after it got stored) are never collected in between.
+ *
+ * Usage as tool: java -cp "lib/*:service/*" i5.las2peer.services.modelPersistenceService.database.OrphanCollector
+ * [--dry-run] [--compact] [properties file]
+ */
+public class OrphanCollector {
+
+	public static final int DEFAULT_BATCH_SIZE = 500;
+	public static final long DEFAULT_PAUSE_MILLIS = 200;
+
+	private static final String LOCK_NAME = "commedit.orphanCollection";
+	private static final String DEFAULT_PROPERTIES_FILE = "etc/i5.las2peer.services.modelPersistenceService.ModelPersistenceService.properties";
+	private static final long TOOL_GRACE_MILLIS = 60 * 1000L;
+
+	/**
+	 * Tables that are collected, in this order. Deleting models and nodes/edges can orphan further rows,
+	 * thus these are collected first.
+	 */
+	private static final List<Target> TARGETS = Collections.unmodifiableList(Arrays.asList(
+			new Target("Model", "modelId", "NOT EXISTS (SELECT 1 FROM CommitToModel r WHERE r.modelId = t.modelId)"),
+			new Target("Node", "nodeId", "NOT EXISTS (SELECT 1 FROM NodeToModel r WHERE r.nodeId = t.nodeId)"),
+			new Target("Edge", "edgeId", "NOT EXISTS (SELECT 1 FROM EdgeToModel r WHERE r.edgeId = t.edgeId)"),
+			new Target("Attribute", "attributeId", "NOT EXISTS (SELECT 1 FROM AttributeToNode r WHERE r.attributeId = t.attributeId) "
+					+ "AND NOT EXISTS (SELECT 1 FROM AttributeToEdge r WHERE r.attributeId = t.attributeId) "
+					+ "AND NOT EXISTS (SELECT 1 FROM AttributeToModel r WHERE r.attributeId = t.attributeId)"),
+			new Target("Wireframe", "wireframeId", "NOT EXISTS (SELECT 1 FROM ModelToWireframe r WHERE r.wireframeId = t.wireframeId)"),
+			new Target("TestModel", "modelId", "NOT EXISTS (SELECT 1 FROM CommitToTestModel r WHERE r.testModelId = t.modelId) "
+					+ "AND NOT EXISTS (SELECT 1 FROM VersionedModelToTestSuggestion r WHERE r.testModelId = t.modelId)")));
+
+	private final DatabaseManager dbm;
+	private final int batchSize;
+	private final long pauseMillis;
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * Highest id per table at the previous run, null if there was no run yet.
+	 */
+	private Map<String, Integer> watermarks;
+	private volatile Result lastResult;
+
+	public OrphanCollector(DatabaseManager dbm) {
+		this(dbm, DEFAULT_BATCH_SIZE, DEFAULT_PAUSE_MILLIS);
+	}
+
+	/**
+	 * @param dbm DatabaseManager
+	 * @param batchSize Maximum number of rows that are deleted with one statement.
+	 * @param pauseMillis Pause between two batches.
+	 */
+	public OrphanCollector(DatabaseManager dbm, int batchSize, long pauseMillis) {
+		this.dbm = dbm;
+		this.batchSize = batchSize;
+		this.pauseMillis = pauseMillis;
+	}
+
+	/**
+	 * Runs the collector periodically in a background thread.
+	 * @param intervalMinutes Time between two runs.
+	 * @param logger Logger used to report the reclaimed rows.
+	 */
+	public synchronized void start(long intervalMinutes, L2pLogger logger) {
+		if(this.scheduler != null) return;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "orphan-collector");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+		this.scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				Result result = collect(false);
+				if(result != null && result.getTotal() > 0) {
+					logger.info("Orphan collection: " + result);
+				}
+			} catch (SQLException e) {
+				logger.printStackTrace(e);
+			}
+		}, 0, intervalMinutes, TimeUnit.MINUTES);
+	}
+
+	public synchronized void stop() {
+		if(this.scheduler != null) {
+			this.scheduler.shutdownNow();
+			this.scheduler = null;
+		}
+	}
+
+	/**
+	 * Searches for orphaned rows that already existed at the previous run and deletes them. The first
+	 * run only records the current highest ids.
+	 * @param dryRun If true, the orphans are only counted but not deleted.
+	 * @return Number of orphaned rows per table, or null if another service instance is collecting right now.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public synchronized Result collect(boolean dryRun) throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			if(!lock(connection)) return null;
+			try {
+				Map<String, Integer> limits = this.watermarks;
+				this.watermarks = readWatermarks(connection);
+				Result result = new Result(dryRun);
+				long start = System.currentTimeMillis();
+				if(limits != null) {
+					for(Target target : TARGETS) {
+						Integer limit = limits.get(target.table);
+						int count = limit == null ? 0 : collect(connection, target, limit, dryRun);
+						result.counts.put(target.table, count);
+						if(Thread.currentThread().isInterrupted()) break;
+					}
+				}
+				result.durationMillis = System.currentTimeMillis() - start;
+				this.lastResult = result;
+				return result;
+			} finally {
+				unlock(connection);
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Records the current highest ids, so that the next run collects the orphans that exist now.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public synchronized void recordWatermarks() throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			this.watermarks = readWatermarks(connection);
+		} finally {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Rebuilds the given tables, so that the space of the deleted rows is given back. Rebuilding locks
+	 * the table for a short time, thus this is only done by the tool and not by the background runs.
+	 * @param result Result of a run, only the tables with deleted rows are rebuilt.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public void compact(Result result) throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			for(Map.Entry<String, Integer> entry : result.counts.entrySet()) {
+				if(entry.getValue() == 0) continue;
+				Statement statement = connection.createStatement();
+				statement.execute("OPTIMIZE TABLE " + entry.getKey() + ";");
+				statement.close();
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+	/**
+	 * @return Result of the latest run, null if there was no run yet.
+	 */
+	public Result getLastResult() {
+		return this.lastResult;
+	}
+
+	private int collect(Connection connection, Target target, int limit, boolean dryRun) throws SQLException {
+		int collected = 0;
+		int lastId = 0;
+		while(true) {
+			List<Integer> ids = nextBatch(connection, target, lastId, limit);
+			if(ids.isEmpty()) break;
+			lastId = ids.get(ids.size() - 1);
+
+			if(dryRun) {
+				collected += ids.size();
+			} else if(target.table.equals("Model")) {
+				// deletes the nodes, edges, attributes and wireframe of the models as well
+				collected += Model.deleteAll(connection, ids, true);
+			} else {
+				collected += delete(connection, target, ids);
+			}
+			if(ids.size() < this.batchSize) break;
+
+			try {
+				Thread.sleep(this.pauseMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		return collected;
+	}
+
+	private List<Integer> nextBatch(Connection connection, Target target, int lastId, int limit) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT t." + target.idColumn + " FROM " + target.table
+				+ " t WHERE t." + target.idColumn + " > ? AND t." + target.idColumn + " <= ? AND " + target.orphanCondition
+				+ " ORDER BY t." + target.idColumn + " LIMIT ?;");
+		statement.setInt(1, lastId);
+		statement.setInt(2, limit);
+		statement.setInt(3, this.batchSize);
+		ResultSet queryResult = statement.executeQuery();
+		List<Integer> ids = new ArrayList<>();
+		while(queryResult.next()) {
+			ids.add(queryResult.getInt(1));
+		}
+		statement.close();
+		return ids;
+	}
+
+	private static int delete(Connection connection, Target target, List<Integer> ids) throws SQLException {
+		// the orphan condition is checked again, in case a row got referenced in the meantime
+		PreparedStatement statement = connection.prepareStatement("DELETE t FROM " + target.table + " t WHERE t."
+				+ target.idColumn + " IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ") AND "
+				+ target.orphanCondition + ";");
+		try {
+			for(int i = 0; i < ids.size(); i++) {
+				statement.setInt(i + 1, ids.get(i));
+			}
+			return statement.executeUpdate();
+		} finally {
+			statement.close();
+		}
+	}
+
+	private static Map<String, Integer> readWatermarks(Connection connection) throws SQLException {
+		Map<String, Integer> watermarks = new HashMap<>();
+		for(Target target : TARGETS) {
+			PreparedStatement statement = connection.prepareStatement("SELECT MAX(" + target.idColumn + ") FROM " + target.table + ";");
+			ResultSet queryResult = statement.executeQuery();
+			if(queryResult.next()) {
+				watermarks.put(target.table, queryResult.getInt(1));
+			}
+			statement.close();
+		}
+		return watermarks;
+	}
+
+	private static boolean lock(Connection connection) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, 0);");
+		statement.setString(1, LOCK_NAME);
+		ResultSet queryResult = statement.executeQuery();
+		boolean locked = queryResult.next() && queryResult.getInt(1) == 1;
+		statement.close();
+		return locked;
+	}
+
+	private static void unlock(Connection connection) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?);");
+		statement.setString(1, LOCK_NAME);
+		statement.executeQuery();
+		statement.close();
+	}
+
+	public static void main(String[] args) throws IOException, SQLException, InterruptedException {
+		boolean dryRun = false;
+		boolean compact = false;
+		String propertiesFile = DEFAULT_PROPERTIES_FILE;
+		for(String arg : args) {
+			if(arg.equals("--dry-run")) dryRun = true;
+			else if(arg.equals("--compact")) compact = true;
+			else propertiesFile = arg;
+		}
+
+		Properties properties = new Properties();
+		try(Reader reader = new FileReader(propertiesFile)) {
+			properties.load(reader);
+		}
+		DatabaseManager dbm = new DatabaseManager(properties.getProperty("jdbcDriverClassName"),
+				properties.getProperty("jdbcLogin"), properties.getProperty("jdbcPass"),
+				properties.getProperty("jdbcUrl"), properties.getProperty("jdbcSchema"));
+		new SchemaMigrator(dbm).migrate();
+
+		OrphanCollector collector = new OrphanCollector(dbm);
+		// rows that are written right now by a running service are not collected
+		collector.recordWatermarks();
+		Thread.sleep(TOOL_GRACE_MILLIS);
+		Result result = collector.collect(dryRun);
+		if(result == null) {
+			System.out.println("Another service instance is collecting orphans right now.");
+			return;
+		}
+		System.out.println((dryRun ? "Found " : "Deleted ") + result);
+		if(compact && !dryRun) {
+			collector.compact(result);
+		}
+	}
+
+	private static class Target {
+		private final String table;
+		private final String idColumn;
+		private final String orphanCondition;
+
+		private Target(String table, String idColumn, String orphanCondition) {
+			this.table = table;
+			this.idColumn = idColumn;
+			this.orphanCondition = orphanCondition;
+		}
+	}
+
+	/**
+	 * Number of orphaned rows per table that were found (dry run) or deleted by a run.
+	 */
+	public static class Result {
+		private final boolean dryRun;
+		private final Map<String, Integer> counts = new LinkedHashMap<>();
+		private long durationMillis;
+
+		private Result(boolean dryRun) {
+			this.dryRun = dryRun;
+		}
+
+		public boolean isDryRun() {
+			return this.dryRun;
+		}
+
+		public Map<String, Integer> getCounts() {
+			return Collections.unmodifiableMap(this.counts);
+		}
+
+		public int getTotal() {
+			int total = 0;
+			for(int count : this.counts.values()) {
+				total += count;
+			}
+			return total;
+		}
+
+		public long getDurationMillis() {
+			return this.durationMillis;
+		}
+
+		@SuppressWarnings("unchecked")
+		public JSONObject toJSONObject() {
+			JSONObject json = new JSONObject();
+			json.put("dryRun", this.dryRun);
+			json.put("counts", new JSONObject(this.counts));
+			json.put("durationMillis", this.durationMillis);
+			return json;
+		}
+
+		@Override
+		public String toString() {
+			return this.getTotal() + " orphaned rows " + this.counts + " in " + this.durationMillis + " ms";
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package i5.las2peer.services.modelPersistenceService.database.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A single versioned change of the database schema.
+ * A migration consists of steps that get applied in order. Steps should be idempotent (e.g. an index
+ * only gets created if it does not exist yet), because DDL statements cannot be rolled back in MySQL
+ * and a migration that failed halfway gets applied again on the next start.
+ */
+public class Migration {
+
+	private final int version;
+	private final String description;
+	private final Step[] steps;
+
+	/**
+	 * Creates a new migration.
+	 * @param version Version of the schema after the migration got applied. Versions need to be increasing.
+	 * @param description Short description of the migration.
+	 * @param steps Steps of the migration, applied in the given order.
+	 */
+	public Migration(int version, String description, Step... steps) {
+		this.version = version;
+		this.description = description;
+		this.steps = steps;
+	}
+
+	/**
+	 * Applies all steps of the migration.
+	 * @param connection Connection object
+	 * @throws SQLException If one of the steps failed.
+	 */
+	public void apply(Connection connection) throws SQLException {
+		for(Step step : this.steps) {
+			step.apply(connection);
+		}
+	}
+
+	public int getVersion() {
+		return this.version;
+	}
+
+	public String getDescription() {
+		return this.description;
+	}
+
+	/**
+	 * Step that executes the given SQL statement.
+	 * @param sql SQL statement (e.g. CREATE TABLE IF NOT EXISTS ...).
+	 * @return Step executing the statement.
+	 */
+	public static Step sql(String sql) {
+		return connection -> {
+			Statement statement = connection.createStatement();
+			statement.execute(sql);
+			statement.close();
+		};
+	}
+
+	/**
+	 * Step that creates an index, if no index with the given name exists on the table yet.
+	 * MySQL does not support CREATE INDEX IF NOT EXISTS, thus the existence gets checked first.
+	 * @param table Name of the table.
+	 * @param indexName Name of the index.
+	 * @param columns Comma separated list of the indexed columns.
+	 * @return Step creating the index.
+	 */
+	public static Step createIndex(String table, String indexName, String columns) {
+		return connection -> {
+			if(indexExists(connection, table, indexName)) return;
+			Statement statement = connection.createStatement();
+			statement.execute("CREATE INDEX " + indexName + " ON " + table + " (" + columns + ");");
+			statement.close();
+		};
+	}
+
+	/**
+	 * Step that adds a column to a table, if the table does not have a column with the given name yet.
+	 * @param table Name of the table.
+	 * @param column Name of the column.
+	 * @param definition Definition of the column (e.g. INT NOT NULL DEFAULT 0).
+	 * @return Step adding the column.
+	 */
+	public static Step addColumn(String table, String column, String definition) {
+		return connection -> {
+			PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM information_schema.COLUMNS "
+					+ "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ? LIMIT 1;");
+			statement.setString(1, table);
+			statement.setString(2, column);
+			boolean exists = statement.executeQuery().next();
+			statement.close();
+			if(exists) return;
+			Statement alter = connection.createStatement();
+			alter.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition + ";");
+			alter.close();
+		};
+	}
+
+	/**
+	 * Checks whether the table has an index with the given name.
+	 * @param connection Connection object
+	 * @param table Name of the table.
+	 * @param indexName Name of the index.
+	 * @return Whether the index exists.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static boolean indexExists(Connection connection, String table, String indexName) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM information_schema.STATISTICS "
+				+ "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ? LIMIT 1;");
+		statement.setString(1, table);
+		statement.setString(2, indexName);
+		ResultSet queryResult = statement.executeQuery();
+		boolean exists = queryResult.next();
+		statement.close();
+		return exists;
+	}
+
+	/**
+	 * A single step of a migration.
+	 */
+	@FunctionalInterface
+	public interface Step {
+		void apply(Connection connection) throws SQLException;
+	}
+}
@@ -0,0 +1,101 @@
+package i5.las2peer.services.modelPersistenceService.database.migration;
+
+import static i5.las2peer.services.modelPersistenceService.database.migration.Migration.addColumn;
+import static i5.las2peer.services.modelPersistenceService.database.migration.Migration.createIndex;
+import static i5.las2peer.services.modelPersistenceService.database.migration.Migration.sql;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import i5.las2peer.services.modelPersistenceService.testmodel.TestSuggestionLoader;
+
+/**
+ * All migrations of the commedit schema, ordered by version.
+ * The SQL files in the database folder create the initial schema, every later change of the schema
+ * gets added here as a new migration (never change a migration that got released already).
+ */
+public class SchemaMigrations {
+
+	public static final List<Migration> MIGRATIONS = Collections.unmodifiableList(Arrays.asList(
+			new Migration(1, "Indexes for commit history and model loading",
+					// commit history of a versioned model (ordered by commitId)
+					createIndex("CommitToVersionedModel", "commitToVersionedModelHistoryIndex", "versionedModelId, commitId"),
+					// commit by sha (e.g. when tagging a commit)
+					createIndex("Commit", "commitShaIndex", "sha"),
+					createIndex("CommitToModel", "commitToModelCommitIndex", "commitId, modelId"),
+					createIndex("CommitToTestModel", "commitToTestModelCommitIndex", "commitId, testModelId"),
+					createIndex("VersionTag", "versionTagCommitIndex", "commitId, tag"),
+					// loading a model with its nodes, edges and attributes
+					createIndex("NodeToModel", "nodeToModelModelIndex", "modelId, nodeId"),
+					createIndex("EdgeToModel", "edgeToModelModelIndex", "modelId, edgeId"),
+					createIndex("AttributeToModel", "attributeToModelModelIndex", "modelId, attributeId"),
+					createIndex("AttributeToNode", "attributeToNodeNodeIndex", "nodeId, attributeId"),
+					createIndex("AttributeToEdge", "attributeToEdgeEdgeIndex", "edgeId, attributeId"),
+					createIndex("ModelToWireframe", "modelToWireframeModelIndex", "modelId, wireframeId"),
+					// test suggestions of a versioned model
+					createIndex("VersionedModelToTestSuggestion", "versionedModelToTestSuggestionIndex", "versionedModelId, suggest")),
+			new Migration(2, "Revision of versioned models for optimistic concurrency control",
+					addColumn("VersionedModel", "revision", "INT NOT NULL DEFAULT 0")),
+			new Migration(3, "Uncommited changes as working copy document",
+					sql("CREATE TABLE IF NOT EXISTS WorkingCopy (versionedModelId INT NOT NULL, model LONGTEXT NOT NULL, "
+							+ "testModel LONGTEXT, updatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+							+ "CONSTRAINT workingCopyPK PRIMARY KEY (versionedModelId), "
+							+ "CONSTRAINT workingCopyVersionedModelFK FOREIGN KEY (versionedModelId) REFERENCES VersionedModel(id) ON DELETE CASCADE);")),
+			new Migration(4, "Revision of working copies for autosaving",
+					addColumn("WorkingCopy", "revision", "INT NOT NULL DEFAULT 0")),
+			new Migration(5, "Models stored as JSON document",
+					sql("CREATE TABLE IF NOT EXISTS ModelDocument (modelId INT NOT NULL, document LONGTEXT NOT NULL, "
+							+ "CONSTRAINT modelDocumentPK PRIMARY KEY (modelId), "
+							+ "CONSTRAINT modelDocumentModelFK FOREIGN KEY (modelId) REFERENCES Model(modelId) ON DELETE CASCADE);")),
+			new Migration(6, "Model catalog for listing models by type or versioned model",
+					sql("CREATE TABLE IF NOT EXISTS ModelCatalog (modelId INT NOT NULL, type VARCHAR(255), "
+							+ "versionedModelId INT, componentName VARCHAR(255), commitId INT, "
+							+ "CONSTRAINT modelCatalogPK PRIMARY KEY (modelId), "
+							+ "CONSTRAINT modelCatalogModelFK FOREIGN KEY (modelId) REFERENCES Model(modelId) ON DELETE CASCADE);"),
+					createIndex("ModelCatalog", "modelCatalogTypeIndex", "type, modelId"),
+					createIndex("ModelCatalog", "modelCatalogVersionedModelIndex", "versionedModelId, modelId"),
+					// existing models: the type is not known, but the commit and versioned model are
+					sql("INSERT IGNORE INTO ModelCatalog (modelId) SELECT modelId FROM Model;"),
+					sql("UPDATE ModelCatalog c JOIN CommitToModel cm ON cm.modelId = c.modelId "
+							+ "JOIN CommitToVersionedModel cv ON cv.commitId = cm.commitId "
+							+ "SET c.commitId = cm.commitId, c.versionedModelId = cv.versionedModelId;")),
+			new Migration(7, "Index of the node attribute values of committed models",
+					sql("CREATE TABLE IF NOT EXISTS AttributeIndex (id INT NOT NULL AUTO_INCREMENT, modelId INT NOT NULL, "
+							+ "nodeSyncMetaId VARCHAR(255) NOT NULL, nodeType VARCHAR(255) NOT NULL, "
+							// binary collation => values are searched case-sensitively (e.g. paths)
+							+ "name VARCHAR(255) NOT NULL, value VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL, "
+							+ "CONSTRAINT attributeIndexPK PRIMARY KEY (id), "
+							+ "CONSTRAINT attributeIndexModelFK FOREIGN KEY (modelId) REFERENCES Model(modelId) ON DELETE CASCADE);"),
+					createIndex("AttributeIndex", "attributeIndexNameValueIndex", "name, value, nodeType"),
+					createIndex("AttributeIndex", "attributeIndexValueIndex", "value, nodeType"),
+					// index the models that were committed before (normalized storage only), but not the
+					// uncommited changes, which old versioned models store as commit without message
+					sql("DELETE FROM AttributeIndex;"),
+					sql("INSERT INTO AttributeIndex (modelId, nodeSyncMetaId, nodeType, name, value) "
+							+ "SELECT cm.modelId, n.syncMetaId, n.type, a.name, a.value FROM CommitToModel cm "
+							+ "JOIN Commit c ON c.id = cm.commitId "
+							+ "JOIN NodeToModel nm ON nm.modelId = cm.modelId JOIN Node n ON n.nodeId = nm.nodeId "
+							+ "JOIN AttributeToNode an ON an.nodeId = n.nodeId JOIN Attribute a ON a.attributeId = an.attributeId "
+							+ "WHERE c.message IS NOT NULL AND CHAR_LENGTH(a.value) <= 255;")),
+			new Migration(8, "Content hash of the model of a commit",
+					addColumn("Commit", "modelHash", "CHAR(64)")),
+			new Migration(9, "Outbox of the calls to external services",
+					sql("CREATE TABLE IF NOT EXISTS Outbox (id INT NOT NULL AUTO_INCREMENT, idempotencyKey VARCHAR(255) NOT NULL, "
+							+ "target VARCHAR(64) NOT NULL, action VARCHAR(64) NOT NULL, payload LONGTEXT NOT NULL, "
+							+ "status VARCHAR(16) NOT NULL DEFAULT 'pending', attempts INT NOT NULL DEFAULT 0, "
+							+ "nextAttemptAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP, lastError TEXT, result TEXT, "
+							+ "createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+							+ "CONSTRAINT outboxPK PRIMARY KEY (id), "
+							+ "CONSTRAINT outboxIdempotencyKeyUnique UNIQUE (idempotencyKey));"),
+					// due entries of a target
+					createIndex("Outbox", "outboxDueIndex", "target, status, nextAttemptAt")),
+			new Migration(10, "JSON snapshots of suggested test cases",
+					sql("CREATE TABLE IF NOT EXISTS TestSuggestionCase (testModelId INT NOT NULL, testCaseJSON MEDIUMTEXT NOT NULL, "
+							+ "CONSTRAINT testSuggestionCasePK PRIMARY KEY (testModelId), "
+							+ "CONSTRAINT testSuggestionCaseModelFK FOREIGN KEY (testModelId) REFERENCES TestModel(modelId) ON DELETE CASCADE);"),
+					// suggestions stored before: the snapshot is created from the stored test model
+					TestSuggestionLoader::storeMissingSnapshots)
+	));
+
+}
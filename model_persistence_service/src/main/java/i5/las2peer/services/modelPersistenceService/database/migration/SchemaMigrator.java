@@ -0,0 +1,124 @@
+package i5.las2peer.services.modelPersistenceService.database.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import i5.las2peer.services.modelPersistenceService.database.DatabaseManager;
+
+/**
+ * Applies the migrations that were not applied to the database yet.
+ * The applied versions are stored in the SchemaVersion table. A named database lock ensures that
+ * only one service instance migrates the schema at a time, if multiple instances start concurrently.
+ */
+public class SchemaMigrator {
+
+	private static final String LOCK_NAME = "commedit.schemaMigration";
+	private static final int LOCK_TIMEOUT_SECONDS = 300;
+
+	private final DatabaseManager dbm;
+	private final List<Migration> migrations;
+
+	/**
+	 * Creates a migrator that applies the migrations of {@link SchemaMigrations}.
+	 * @param dbm DatabaseManager
+	 */
+	public SchemaMigrator(DatabaseManager dbm) {
+		this(dbm, SchemaMigrations.MIGRATIONS);
+	}
+
+	/**
+	 * Creates a migrator that applies the given migrations.
+	 * @param dbm DatabaseManager
+	 * @param migrations Migrations ordered by version.
+	 */
+	public SchemaMigrator(DatabaseManager dbm, List<Migration> migrations) {
+		this.dbm = dbm;
+		this.migrations = migrations;
+	}
+
+	/**
+	 * Applies all migrations whose version is higher than the current version of the schema.
+	 * @return Number of migrations that got applied.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public int migrate() throws SQLException {
+		Connection connection = null;
+		try {
+			connection = this.dbm.getConnection();
+			lock(connection);
+			try {
+				createVersionTable(connection);
+				int currentVersion = getCurrentVersion(connection);
+				int applied = 0;
+				for(Migration migration : this.migrations) {
+					if(migration.getVersion() <= currentVersion) continue;
+					migration.apply(connection);
+					storeVersion(migration, connection);
+					currentVersion = migration.getVersion();
+					applied++;
+				}
+				return applied;
+			} finally {
+				unlock(connection);
+			}
+		} finally {
+			if(connection != null) connection.close();
+		}
+	}
+
+	/**
+	 * Returns the version of the schema, i.e. the highest version of the applied migrations.
+	 * @param connection Connection object
+	 * @return Version of the schema, 0 if no migration got applied yet.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static int getCurrentVersion(Connection connection) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT MAX(version) FROM SchemaVersion;");
+		ResultSet queryResult = statement.executeQuery();
+		int version = 0;
+		if(queryResult.next()) {
+			version = queryResult.getInt(1);
+		}
+		statement.close();
+		return version;
+	}
+
+	private static void createVersionTable(Connection connection) throws SQLException {
+		Statement statement = connection.createStatement();
+		statement.execute("CREATE TABLE IF NOT EXISTS SchemaVersion (version INT NOT NULL, description VARCHAR(255), "
+				+ "appliedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP, CONSTRAINT schemaVersionPK PRIMARY KEY (version));");
+		statement.close();
+	}
+
+	private static void storeVersion(Migration migration, Connection connection) throws SQLException {
+		PreparedStatement statement = connection
+				.prepareStatement("INSERT INTO SchemaVersion (version, description) VALUES (?, ?);");
+		statement.setInt(1, migration.getVersion());
+		statement.setString(2, migration.getDescription());
+		statement.executeUpdate();
+		statement.close();
+	}
+
+	private static void lock(Connection connection) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, ?);");
+		statement.setString(1, LOCK_NAME);
+		statement.setInt(2, LOCK_TIMEOUT_SECONDS);
+		ResultSet queryResult = statement.executeQuery();
+		boolean locked = queryResult.next() && queryResult.getInt(1) == 1;
+		statement.close();
+		if(!locked) {
+			throw new SQLException("Could not get the lock for migrating the database schema.");
+		}
+	}
+
+	private static void unlock(Connection connection) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?);");
+		statement.setString(1, LOCK_NAME);
+		statement.executeQuery();
+		statement.close();
+	}
+}
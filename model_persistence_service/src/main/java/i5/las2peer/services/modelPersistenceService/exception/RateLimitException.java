@@ -0,0 +1,27 @@
+package i5.las2peer.services.modelPersistenceService.exception;
+
+import java.io.IOException;
+
+/**
+ * Thrown if a request to the GitHub API is not sent, because the rate limit of the token is (nearly)
+ * exhausted. It is an IOException, so that callers of the API clients handle it like a failed request.
+ */
+public class RateLimitException extends IOException {
+
+	private static final long serialVersionUID = 4283513018871962402L;
+
+	private final long retryAfterSeconds;
+
+	public RateLimitException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	/**
+	 * Returns the number of seconds after which the request may succeed again.
+	 * @return Seconds until the rate limit gets reset.
+	 */
+	public long getRetryAfterSeconds() {
+		return this.retryAfterSeconds;
+	}
+}
@@ -0,0 +1,16 @@
+package i5.las2peer.services.modelPersistenceService.exception;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown if a versioned model got changed concurrently, i.e. its revision is not the expected one.
+ */
+public class RevisionConflictException extends SQLException {
+
+	private static final long serialVersionUID = -4109842530170311847L;
+
+	public RevisionConflictException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,19 @@
+package i5.las2peer.services.modelPersistenceService.exception;
+
+/**
+ * 
+ * Exception thrown when a call to another service that was started via
+ * {@link i5.las2peer.services.modelPersistenceService.invocation.ServiceCalls} failed, timed out or got cancelled.
+ * 
+ */
+public class ServiceCallException extends Exception {
+	private static final long serialVersionUID = 6514950436416927021L;
+
+	public ServiceCallException(String message) {
+		super(message);
+	}
+
+	public ServiceCallException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
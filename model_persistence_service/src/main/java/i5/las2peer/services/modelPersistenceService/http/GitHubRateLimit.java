@@ -0,0 +1,170 @@
+package i5.las2peer.services.modelPersistenceService.http;
+
+import java.net.http.HttpHeaders;
+import java.util.OptionalLong;
+
+import org.json.simple.JSONObject;
+
+import i5.las2peer.services.modelPersistenceService.exception.RateLimitException;
+import i5.las2peer.services.modelPersistenceService.metrics.ServiceMetrics;
+
+/**
+ * Tracks the remaining request budget of a GitHub token from the X-RateLimit-* headers of its
+ * responses and decides whether a request may be sent.
+ * Low priority requests (e.g. the coverage overlay of the editor) are shed once the remaining budget
+ * falls below a reserve, so that the budget is left for high priority requests. If the limit is
+ * exhausted or GitHub asked to back off (secondary rate limit, Retry-After header), high priority
+ * requests wait if the limit gets reset within a few seconds, otherwise all requests are rejected
+ * until the reset instead of failing at GitHub and prolonging the block.
+ * One instance should be shared by all clients that use the same token.
+ */
+public class GitHubRateLimit {
+
+	public enum Priority {
+		HIGH,
+		LOW
+	}
+
+	/**
+	 * Share of the limit that is reserved for high priority requests.
+	 */
+	private static final double LOW_PRIORITY_RESERVE = 0.1;
+
+	/**
+	 * Maximum time a high priority request waits for the reset of the limit.
+	 */
+	private static final long MAX_WAIT_MILLIS = 5000;
+
+	private final ServiceMetrics metrics;
+
+	/**
+	 * Values of the last response, -1 as long as they are unknown.
+	 */
+	private long limit = -1;
+	private long remaining = -1;
+	private long resetAtMillis = -1;
+
+	/**
+	 * Time until which no request should be sent (exhausted limit or Retry-After).
+	 */
+	private long blockedUntilMillis = 0;
+
+	/**
+	 * Creates a new tracker.
+	 * @param metrics Metrics in which sent, shed and rate limited requests get counted.
+	 */
+	public GitHubRateLimit(ServiceMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Needs to be called before a request is sent. Reserves one request of the budget.
+	 * @param priority Priority of the request.
+	 * @throws RateLimitException If the request should not be sent.
+	 */
+	public void acquire(Priority priority) throws RateLimitException {
+		long waitMillis = reserve(priority);
+		if(waitMillis > 0) {
+			try {
+				Thread.sleep(waitMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RateLimitException("Waiting for the GitHub rate limit got interrupted.", 1);
+			}
+		}
+		this.metrics.increment("github.requests");
+	}
+
+	/**
+	 * Reserves a request of the budget.
+	 * @param priority Priority of the request.
+	 * @return Time (in ms) the request needs to wait before it can be sent.
+	 * @throws RateLimitException If the request should not be sent.
+	 */
+	private synchronized long reserve(Priority priority) throws RateLimitException {
+		long now = System.currentTimeMillis();
+		if(this.resetAtMillis != -1 && now >= this.resetAtMillis) {
+			// new window, the budget is unknown until the next response
+			this.remaining = -1;
+			this.resetAtMillis = -1;
+		}
+		long blockedUntil = Math.max(this.blockedUntilMillis, this.remaining == 0 ? this.resetAtMillis : 0);
+		if(blockedUntil > now) {
+			long waitMillis = blockedUntil - now;
+			if(priority == Priority.HIGH && waitMillis <= MAX_WAIT_MILLIS) {
+				return waitMillis;
+			}
+			shed(priority, waitMillis);
+		}
+		if(priority == Priority.LOW && this.remaining != -1 && this.remaining <= getLowPriorityReserve()) {
+			shed(priority, this.resetAtMillis == -1 ? 60000 : this.resetAtMillis - now);
+		}
+		if(this.remaining > 0) {
+			// responses might arrive out of order, so count the request right away
+			this.remaining--;
+		}
+		return 0;
+	}
+
+	private void shed(Priority priority, long retryAfterMillis) throws RateLimitException {
+		this.metrics.increment("github.shed." + priority.name().toLowerCase());
+		long retryAfterSeconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+		throw new RateLimitException("GitHub rate limit nearly exhausted, " + priority.name().toLowerCase()
+				+ " priority request not sent (retry in " + retryAfterSeconds + "s).", retryAfterSeconds);
+	}
+
+	/**
+	 * Updates the budget from the headers of a GitHub API response.
+	 * @param statusCode Status code of the response.
+	 * @param headers Headers of the response.
+	 */
+	public synchronized void update(int statusCode, HttpHeaders headers) {
+		long now = System.currentTimeMillis();
+		OptionalLong limit = headers.firstValueAsLong("X-RateLimit-Limit");
+		OptionalLong remaining = headers.firstValueAsLong("X-RateLimit-Remaining");
+		OptionalLong reset = headers.firstValueAsLong("X-RateLimit-Reset");
+		if(limit.isPresent()) this.limit = limit.getAsLong();
+		if(remaining.isPresent()) this.remaining = remaining.getAsLong();
+		if(reset.isPresent()) this.resetAtMillis = reset.getAsLong() * 1000;
+
+		if(statusCode == 304) {
+			this.metrics.increment("github.notModified");
+		}
+		if(statusCode == 403 || statusCode == 429) {
+			OptionalLong retryAfter = headers.firstValueAsLong("Retry-After");
+			if(retryAfter.isPresent()) {
+				// secondary rate limit
+				this.blockedUntilMillis = Math.max(this.blockedUntilMillis, now + retryAfter.getAsLong() * 1000);
+				this.metrics.increment("github.rateLimited");
+			} else if(this.remaining == 0) {
+				this.blockedUntilMillis = Math.max(this.blockedUntilMillis, this.resetAtMillis);
+				this.metrics.increment("github.rateLimited");
+			}
+		}
+	}
+
+	private long getLowPriorityReserve() {
+		return this.limit == -1 ? 0 : Math.max(1, (long) (this.limit * LOW_PRIORITY_RESERVE));
+	}
+
+	/**
+	 * Returns the current budget, e.g. {"limit": 5000, "remaining": 4321, "resetAt": 1700000000, ...}.
+	 * Values that are not known yet (no response so far) are -1.
+	 * @return JSON representation of the budget.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized JSONObject toJSONObject() {
+		JSONObject json = new JSONObject();
+		json.put("limit", this.limit);
+		json.put("remaining", this.remaining);
+		json.put("resetAt", this.resetAtMillis == -1 ? -1 : this.resetAtMillis / 1000);
+		json.put("lowPriorityReserve", getLowPriorityReserve());
+		json.put("blockedUntil", this.blockedUntilMillis > System.currentTimeMillis() ? this.blockedUntilMillis / 1000 : -1);
+		json.put("requests", this.metrics.get("github.requests"));
+		json.put("notModified", this.metrics.get("github.notModified"));
+		json.put("shedLowPriority", this.metrics.get("github.shed.low"));
+		json.put("shedHighPriority", this.metrics.get("github.shed.high"));
+		json.put("rateLimited", this.metrics.get("github.rateLimited"));
+		return json;
+	}
+}
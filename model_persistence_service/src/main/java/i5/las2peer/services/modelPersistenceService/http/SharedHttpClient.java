@@ -0,0 +1,157 @@
+package i5.las2peer.services.modelPersistenceService.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * HTTP client that is shared by the helpers calling external APIs (GitHub, Requirements Bazaar).
+ * All requests go through one underlying HttpClient, so connections are kept alive and reused
+ * instead of opening a new connection per call. Every request gets a timeout, and JSON responses
+ * are parsed directly from the response stream instead of reading the body into a string first.
+ * Timeouts can be configured with {@link #configure(int, int)} (done on service start).
+ */
+public class SharedHttpClient {
+
+	public static final int DEFAULT_CONNECT_TIMEOUT_SECONDS = 10;
+	public static final int DEFAULT_REQUEST_TIMEOUT_SECONDS = 30;
+
+	/**
+	 * Maximum number of characters of an error response that get read.
+	 */
+	private static final int MAX_ERROR_BODY_LENGTH = 4096;
+
+	private static final Pattern NEXT_LINK = Pattern.compile("^<([^>]*)>\\s*;.*\\brel=\"?next\"?(\\s*;.*)?$");
+
+	private static volatile SharedHttpClient instance = new SharedHttpClient(DEFAULT_CONNECT_TIMEOUT_SECONDS,
+			DEFAULT_REQUEST_TIMEOUT_SECONDS);
+
+	private final HttpClient httpClient;
+	private final Duration requestTimeout;
+
+	/**
+	 * Creates a new client.
+	 * @param connectTimeoutSeconds Timeout (in seconds) for establishing a connection.
+	 * @param requestTimeoutSeconds Timeout (in seconds) until the response headers need to be received.
+	 */
+	public SharedHttpClient(int connectTimeoutSeconds, int requestTimeoutSeconds) {
+		this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+				.followRedirects(HttpClient.Redirect.NORMAL).build();
+		this.requestTimeout = Duration.ofSeconds(requestTimeoutSeconds);
+	}
+
+	public static SharedHttpClient getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Replaces the shared client by one with the given timeouts. Values smaller than 1 keep the default.
+	 * @param connectTimeoutSeconds Timeout (in seconds) for establishing a connection.
+	 * @param requestTimeoutSeconds Timeout (in seconds) until the response headers need to be received.
+	 */
+	public static void configure(int connectTimeoutSeconds, int requestTimeoutSeconds) {
+		instance = new SharedHttpClient(connectTimeoutSeconds > 0 ? connectTimeoutSeconds : DEFAULT_CONNECT_TIMEOUT_SECONDS,
+				requestTimeoutSeconds > 0 ? requestTimeoutSeconds : DEFAULT_REQUEST_TIMEOUT_SECONDS);
+	}
+
+	/**
+	 * Creates a request builder for the given url, which already has the request timeout set.
+	 * @param url Url of the request.
+	 * @return Request builder.
+	 */
+	public HttpRequest.Builder request(String url) {
+		return HttpRequest.newBuilder(URI.create(url)).timeout(this.requestTimeout);
+	}
+
+	/**
+	 * Sends the given request. The body of the response needs to be consumed or closed by the caller
+	 * (e.g. using {@link #readJSON(HttpResponse)}), otherwise the connection cannot be reused.
+	 * @param request Request to send.
+	 * @return Response with the body as stream.
+	 * @throws IOException If the request failed or timed out.
+	 */
+	public HttpResponse<InputStream> send(HttpRequest request) throws IOException {
+		try {
+			return this.httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Request to " + request.uri() + " got interrupted.", e);
+		}
+	}
+
+	/**
+	 * Parses the body of the given response as JSON while it is read from the connection.
+	 * @param response Response whose body should be parsed.
+	 * @return Parsed JSON (JSONObject, JSONArray or value).
+	 * @throws IOException If the body could not be read.
+	 * @throws ParseException If the body is no valid JSON.
+	 */
+	public static Object readJSON(HttpResponse<InputStream> response) throws IOException, ParseException {
+		try(Reader reader = new InputStreamReader(response.body(), StandardCharsets.UTF_8)) {
+			return new JSONParser().parse(reader);
+		}
+	}
+
+	/**
+	 * Reads (the beginning of) the body of the given response, e.g. to include it in an error message.
+	 * @param response Response whose body should be read.
+	 * @return Body as string, cut after a few kilobytes.
+	 * @throws IOException If the body could not be read.
+	 */
+	public static String readErrorBody(HttpResponse<InputStream> response) throws IOException {
+		try(Reader reader = new InputStreamReader(response.body(), StandardCharsets.UTF_8)) {
+			StringBuilder body = new StringBuilder();
+			char[] buffer = new char[1024];
+			for(int read; body.length() < MAX_ERROR_BODY_LENGTH && (read = reader.read(buffer)) != -1;) {
+				body.append(buffer, 0, read);
+			}
+			return body.length() > MAX_ERROR_BODY_LENGTH ? body.substring(0, MAX_ERROR_BODY_LENGTH) : body.toString();
+		}
+	}
+
+	/**
+	 * Discards the body of the given response, so that the connection can be reused.
+	 * @param response Response whose body is not needed.
+	 * @throws IOException If the body could not be closed.
+	 */
+	public static void discard(HttpResponse<InputStream> response) throws IOException {
+		response.body().close();
+	}
+
+	/**
+	 * Returns the url of the next page from the Link header of the given response, as used by the
+	 * GitHub API, e.g. {@code <https://api.github.com/...?page=2>; rel="next", <...>; rel="last"}.
+	 * @param response Response of a paginated request.
+	 * @return Url of the next page, null if this is the last page.
+	 */
+	public static String getNextLink(HttpResponse<?> response) {
+		return response.headers().firstValue("Link").map(SharedHttpClient::getNextLink).orElse(null);
+	}
+
+	/**
+	 * Returns the url of the next page from the given Link header value.
+	 * @param linkHeader Value of the Link header.
+	 * @return Url of the next page, null if there is none.
+	 */
+	public static String getNextLink(String linkHeader) {
+		for(String link : linkHeader.split(",")) {
+			Matcher matcher = NEXT_LINK.matcher(link.trim());
+			if(matcher.matches()) {
+				return matcher.group(1);
+			}
+		}
+		return null;
+	}
+}
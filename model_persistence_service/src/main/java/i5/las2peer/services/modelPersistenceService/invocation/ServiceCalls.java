@@ -0,0 +1,164 @@
+package i5.las2peer.services.modelPersistenceService.invocation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import i5.las2peer.api.Context;
+import i5.las2peer.services.modelPersistenceService.exception.ServiceCallException;
+
+/**
+ * Runs independent calls to other services (e.g. RMI calls via Context.invoke) concurrently.
+ * Every call gets a timeout. If a call fails or times out, the calls that are still running can be
+ * cancelled, which interrupts them. Thus, the time a request handler needs for its calls is the
+ * maximum of the single calls instead of their sum.
+ *
+ * Usage: submit all independent calls first, then get their results. Closing the ServiceCalls object
+ * cancels all calls that did not finish yet.
+ */
+public class ServiceCalls implements AutoCloseable {
+
+	/**
+	 * Timeout that is used if no timeout is given for a call.
+	 */
+	public static final long DEFAULT_TIMEOUT_MILLIS = 30 * 1000L;
+
+	private final Executor executor;
+	private final List<Call<?>> calls = new ArrayList<>();
+
+	/**
+	 * Creates a new ServiceCalls object that runs the calls with the given executor.
+	 * @param executor Executor used to run the calls.
+	 */
+	public ServiceCalls(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Creates a new ServiceCalls object that runs the calls with the executor of the current las2peer
+	 * context, so that the calls can use Context.get() (e.g. to invoke other services as the current agent).
+	 * @return ServiceCalls object bound to the current context.
+	 */
+	public static ServiceCalls inCurrentContext() {
+		return new ServiceCalls(Context.get().getExecutor());
+	}
+
+	/**
+	 * Starts the given call with the default timeout.
+	 * @param name Name of the call (used in error messages).
+	 * @param task The call itself.
+	 * @param <T> Type of the result.
+	 * @return Call object that can be used to get the result.
+	 */
+	public <T> Call<T> submit(String name, Callable<T> task) {
+		return submit(name, DEFAULT_TIMEOUT_MILLIS, task);
+	}
+
+	/**
+	 * Starts the given call.
+	 * @param name Name of the call (used in error messages).
+	 * @param timeoutMillis Time (in ms, starting now) after which the call gets cancelled.
+	 * @param task The call itself.
+	 * @param <T> Type of the result.
+	 * @return Call object that can be used to get the result.
+	 */
+	public <T> Call<T> submit(String name, long timeoutMillis, Callable<T> task) {
+		Call<T> call = new Call<>(name, timeoutMillis, task);
+		synchronized (this.calls) {
+			this.calls.add(call);
+		}
+		this.executor.execute(call.future);
+		return call;
+	}
+
+	/**
+	 * Waits until all submitted calls finished. If one of the calls fails, the remaining ones get cancelled.
+	 * @throws ServiceCallException If one of the calls failed or timed out.
+	 */
+	public void awaitAll() throws ServiceCallException {
+		List<Call<?>> submitted;
+		synchronized (this.calls) {
+			submitted = new ArrayList<>(this.calls);
+		}
+		try {
+			for (Call<?> call : submitted) {
+				call.get();
+			}
+		} catch (ServiceCallException e) {
+			cancelAll();
+			throw e;
+		}
+	}
+
+	/**
+	 * Cancels all calls that did not finish yet.
+	 */
+	public void cancelAll() {
+		synchronized (this.calls) {
+			for (Call<?> call : this.calls) {
+				call.cancel();
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		cancelAll();
+	}
+
+	/**
+	 * A single call that was submitted.
+	 * @param <T> Type of the result.
+	 */
+	public static class Call<T> {
+		private final String name;
+		private final long deadlineNanos;
+		private final FutureTask<T> future;
+
+		private Call(String name, long timeoutMillis, Callable<T> task) {
+			this.name = name;
+			this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+			this.future = new FutureTask<>(task);
+		}
+
+		/**
+		 * Waits for the result of the call (at most until the timeout of the call is reached).
+		 * @return Result of the call.
+		 * @throws ServiceCallException If the call failed, timed out or got cancelled.
+		 */
+		public T get() throws ServiceCallException {
+			try {
+				return this.future.get(Math.max(0, this.deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+			} catch (TimeoutException e) {
+				cancel();
+				throw new ServiceCallException(this.name + " timed out.");
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				throw new ServiceCallException(this.name + " failed: " + cause.getMessage(), cause);
+			} catch (CancellationException e) {
+				throw new ServiceCallException(this.name + " got cancelled.");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				cancel();
+				throw new ServiceCallException(this.name + " got interrupted.");
+			}
+		}
+
+		/**
+		 * Cancels the call, if it did not finish yet. A running call gets interrupted.
+		 */
+		public void cancel() {
+			this.future.cancel(true);
+		}
+
+		public boolean isDone() {
+			return this.future.isDone();
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package i5.las2peer.services.modelPersistenceService.invocation;
+
+import java.util.concurrent.Executor;
+
+import i5.las2peer.api.security.ServiceAgent;
+import i5.las2peer.execution.ExecutionContext;
+import i5.las2peer.p2p.Node;
+import i5.las2peer.security.ServiceAgentImpl;
+
+/**
+ * Execution context that belongs to the service itself instead of a request: its main agent is the
+ * service agent and it lives as long as the service runs. Used for calls to other services that are
+ * done in the background (e.g. by the outbox), where the context of the request that caused the call
+ * is already gone.
+ */
+public class ServiceContext {
+
+	/**
+	 * Returns an executor that runs tasks in a context of the given service agent, so that they can
+	 * use Context.get() (e.g. to invoke other services).
+	 * @param agent Agent of the running service.
+	 * @return Executor bound to the service context.
+	 */
+	public static Executor executorOf(ServiceAgent agent) {
+		ServiceAgentImpl serviceAgent = (ServiceAgentImpl) agent;
+		Node node = serviceAgent.getRunningAtNode();
+		ExecutionContext context = new ExecutionContext(serviceAgent, node.getAgentContext(serviceAgent), node);
+		return context.getExecutor();
+	}
+}
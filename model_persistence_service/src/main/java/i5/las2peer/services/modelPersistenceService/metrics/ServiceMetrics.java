@@ -0,0 +1,57 @@
+package i5.las2peer.services.modelPersistenceService.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Counters of the service (e.g. how often a stage of the commit pipeline got skipped).
+ * Counters are created on first use and only live in memory, they start at zero when the service starts.
+ * All methods can be called concurrently.
+ */
+public class ServiceMetrics {
+
+	private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+	/**
+	 * Increases the counter with the given name by one.
+	 * @param name Name of the counter, e.g. "commit.codeGeneration.skipped".
+	 */
+	public void increment(String name) {
+		add(name, 1);
+	}
+
+	/**
+	 * Increases the counter with the given name.
+	 * @param name Name of the counter.
+	 * @param value Value to add.
+	 */
+	public void add(String name, long value) {
+		this.counters.computeIfAbsent(name, key -> new LongAdder()).add(value);
+	}
+
+	/**
+	 * Returns the current value of the counter with the given name.
+	 * @param name Name of the counter.
+	 * @return Value of the counter, 0 if it was not used yet.
+	 */
+	public long get(String name) {
+		LongAdder counter = this.counters.get(name);
+		return counter == null ? 0 : counter.sum();
+	}
+
+	/**
+	 * Returns the values of all counters.
+	 * @return JSONObject containing the value of every counter by its name.
+	 */
+	@SuppressWarnings("unchecked")
+	public JSONObject toJSONObject() {
+		JSONObject json = new JSONObject();
+		for(Map.Entry<String, LongAdder> counter : this.counters.entrySet()) {
+			json.put(counter.getKey(), counter.getValue().sum());
+		}
+		return json;
+	}
+}
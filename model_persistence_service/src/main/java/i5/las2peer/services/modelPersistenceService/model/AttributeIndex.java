@@ -0,0 +1,163 @@
+package i5.las2peer.services.modelPersistenceService.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.simple.JSONObject;
+
+import i5.las2peer.services.modelPersistenceService.model.node.Node;
+
+/**
+ * Secondary index over the node attributes of committed models (table AttributeIndex).
+ * Every row maps (attribute name, value, node type) to the model and the syncMetaId of the node, so
+ * that e.g. the components declaring a given HTTP path or schema can be found without loading and
+ * scanning every model. The rows of a model get added when the model is committed and are deleted
+ * together with the model (foreign key with ON DELETE CASCADE).
+ * The models of all commits stay indexed, so searches also find attributes that were changed or removed
+ * by later commits. Matches contain the commit id, which tells the callers whether a match is current.
+ * Values longer than MAX_VALUE_LENGTH (e.g. code snippets) are not indexed. Values are compared
+ * case-sensitively (the value column has a binary collation).
+ */
+public class AttributeIndex {
+
+	public static final int MAX_VALUE_LENGTH = 255;
+
+	/**
+	 * Adds the node attributes of the given (already persisted) model to the index.
+	 * @param connection Connection object
+	 * @param model Model that got committed.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static void add(Connection connection, Model model) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"INSERT INTO AttributeIndex (modelId, nodeSyncMetaId, nodeType, name, value) VALUES (?, ?, ?, ?, ?);");
+		int rows = 0;
+		for(Node node : model.getNodes()) {
+			for(EntityAttribute attribute : node.getAttributes()) {
+				if(!isIndexed(attribute.getValue())) continue;
+				statement.setInt(1, model.getId());
+				statement.setString(2, node.getSyncMetaId());
+				statement.setString(3, node.getType());
+				statement.setString(4, attribute.getName());
+				statement.setString(5, attribute.getValue());
+				statement.addBatch();
+				rows++;
+			}
+		}
+		if(rows > 0) {
+			statement.executeBatch();
+		}
+		statement.close();
+	}
+
+	/**
+	 * Searches the index for node attributes with the given value (in the models of all commits).
+	 * @param connection Connection object
+	 * @param name Name of the attribute (e.g. "path"), null to search all attributes.
+	 * @param value Value of the attribute, or the beginning of it if prefix is set.
+	 * @param prefix Whether the value should be matched as prefix instead of exactly.
+	 * @param nodeType Type of the node (e.g. "HTTP Method"), null to search all node types.
+	 * @param offset Number of matches to skip.
+	 * @param limit Maximum number of matches to return.
+	 * @return Matching attributes together with the model, versioned model and component they belong to.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static List<Match> search(Connection connection, String name, String value, boolean prefix, String nodeType,
+			int offset, int limit) throws SQLException {
+		String sql = "SELECT i.modelId, c.versionedModelId, c.commitId, c.componentName, i.nodeSyncMetaId, i.nodeType, "
+				+ "i.name, i.value FROM AttributeIndex i LEFT JOIN ModelCatalog c ON c.modelId = i.modelId WHERE ";
+		sql += prefix ? "i.value LIKE ? ESCAPE '!'" : "i.value = ?";
+		if(name != null) sql += " AND i.name = ?";
+		if(nodeType != null) sql += " AND i.nodeType = ?";
+		sql += " ORDER BY i.id LIMIT ? OFFSET ?;";
+
+		PreparedStatement statement = connection.prepareStatement(sql);
+		int index = 1;
+		statement.setString(index++, prefix ? escapeLike(value) + "%" : value);
+		if(name != null) statement.setString(index++, name);
+		if(nodeType != null) statement.setString(index++, nodeType);
+		statement.setInt(index++, limit);
+		statement.setInt(index, Math.max(offset, 0));
+
+		List<Match> matches = new ArrayList<>();
+		ResultSet queryResult = statement.executeQuery();
+		while(queryResult.next()) {
+			int versionedModelId = queryResult.getInt(2);
+			Integer versionedModel = queryResult.wasNull() ? null : versionedModelId;
+			int commitId = queryResult.getInt(3);
+			Integer commit = queryResult.wasNull() ? null : commitId;
+			matches.add(new Match(queryResult.getInt(1), versionedModel, commit, queryResult.getString(4),
+					queryResult.getString(5), queryResult.getString(6), queryResult.getString(7), queryResult.getString(8)));
+		}
+		statement.close();
+		return matches;
+	}
+
+	private static boolean isIndexed(String value) {
+		return value != null && value.length() <= MAX_VALUE_LENGTH;
+	}
+
+	private static String escapeLike(String value) {
+		return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+	}
+
+	/**
+	 * Node attribute found in the index.
+	 */
+	public static class Match {
+		private final int modelId;
+		private final Integer versionedModelId;
+		private final Integer commitId;
+		private final String componentName;
+		private final String nodeSyncMetaId;
+		private final String nodeType;
+		private final String name;
+		private final String value;
+
+		public Match(int modelId, Integer versionedModelId, Integer commitId, String componentName,
+				String nodeSyncMetaId, String nodeType, String name, String value) {
+			this.modelId = modelId;
+			this.versionedModelId = versionedModelId;
+			this.commitId = commitId;
+			this.componentName = componentName;
+			this.nodeSyncMetaId = nodeSyncMetaId;
+			this.nodeType = nodeType;
+			this.name = name;
+			this.value = value;
+		}
+
+		public int getModelId() {
+			return modelId;
+		}
+
+		public Integer getVersionedModelId() {
+			return versionedModelId;
+		}
+
+		public Integer getCommitId() {
+			return commitId;
+		}
+
+		public String getNodeSyncMetaId() {
+			return nodeSyncMetaId;
+		}
+
+		@SuppressWarnings("unchecked")
+		public JSONObject toJSONObject() {
+			JSONObject json = new JSONObject();
+			json.put("modelId", this.modelId);
+			json.put("versionedModelId", this.versionedModelId);
+			json.put("commitId", this.commitId);
+			json.put("componentName", this.componentName);
+			json.put("nodeId", this.nodeSyncMetaId);
+			json.put("nodeType", this.nodeType);
+			json.put("name", this.name);
+			json.put("value", this.value);
+			return json;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package i5.las2peer.services.modelPersistenceService.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.json.simple.JSONValue;
+
+/**
+ * Content hashes (SHA-256, hex encoded) of the model entities.
+ * Entities are hashed Merkle-style: the hash of a node, edge or model is computed from its own fields and
+ * the hashes of its children. Children are combined order-independently (their hashes get sorted), so
+ * that the hash does not depend on the order in which nodes, edges or attributes appear in the JSON.
+ * Two entities with equal hash have equal content, thus comparing the hashes of the children tells
+ * which parts of a model changed.
+ */
+public class ContentHash {
+
+	/**
+	 * Hashes the given parts. Every part is prefixed with its length, so that e.g. ("ab", "c") and
+	 * ("a", "bc") get different hashes. Null parts are allowed.
+	 * @param parts Parts to hash.
+	 * @return Hex encoded SHA-256 hash.
+	 */
+	public static String of(String... parts) {
+		MessageDigest digest = newDigest();
+		for(String part : parts) {
+			if(part == null) {
+				digest.update("-1:".getBytes(StandardCharsets.UTF_8));
+				continue;
+			}
+			byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+			digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+			digest.update(bytes);
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Hashes the given bytes (e.g. a serialized object).
+	 * @param bytes Bytes to hash.
+	 * @return Hex encoded SHA-256 hash.
+	 */
+	public static String of(byte[] bytes) {
+		return toHex(newDigest().digest(bytes));
+	}
+
+	/**
+	 * Hashes the given JSON value (e.g. a parsed JSONObject) independent of the order of the keys of its
+	 * objects, which is not defined for parsed JSON. The order of array elements matters.
+	 * @param json JSON value, may be null.
+	 * @return Hex encoded SHA-256 hash.
+	 */
+	public static String ofJSON(Object json) {
+		StringBuilder canonical = new StringBuilder();
+		appendCanonicalJSON(canonical, json);
+		return of(canonical.toString());
+	}
+
+	private static void appendCanonicalJSON(StringBuilder canonical, Object json) {
+		if(json instanceof Map) {
+			TreeMap<String, Object> sorted = new TreeMap<>();
+			for(Map.Entry<?, ?> entry : ((Map<?, ?>) json).entrySet()) {
+				sorted.put(String.valueOf(entry.getKey()), entry.getValue());
+			}
+			canonical.append('{');
+			boolean first = true;
+			for(Map.Entry<String, Object> entry : sorted.entrySet()) {
+				if(!first) canonical.append(',');
+				first = false;
+				canonical.append(JSONValue.toJSONString(entry.getKey())).append(':');
+				appendCanonicalJSON(canonical, entry.getValue());
+			}
+			canonical.append('}');
+		} else if(json instanceof List) {
+			canonical.append('[');
+			boolean first = true;
+			for(Object element : (List<?>) json) {
+				if(!first) canonical.append(',');
+				first = false;
+				appendCanonicalJSON(canonical, element);
+			}
+			canonical.append(']');
+		} else {
+			canonical.append(JSONValue.toJSONString(json));
+		}
+	}
+
+	/**
+	 * Combines the hashes of the given children independent of their order.
+	 * @param hashes Hashes of the children.
+	 * @return Hash of the (sorted) child hashes.
+	 */
+	public static String unordered(Collection<String> hashes) {
+		List<String> sorted = new ArrayList<>(hashes);
+		Collections.sort(sorted);
+		return of(sorted.toArray(new String[0]));
+	}
+
+	/**
+	 * Combines the content hashes of the given attributes independent of their order.
+	 * @param attributes Attributes of an entity.
+	 * @return Hash of the attributes.
+	 */
+	public static String ofAttributes(Collection<EntityAttribute> attributes) {
+		List<String> hashes = new ArrayList<>(attributes.size());
+		for(EntityAttribute attribute : attributes) {
+			hashes.add(attribute.getContentHash());
+		}
+		return unordered(hashes);
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform needs to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for(byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+}
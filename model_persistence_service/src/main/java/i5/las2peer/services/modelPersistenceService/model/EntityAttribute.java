@@ -24,6 +24,7 @@ public class EntityAttribute {
 							   // according to its metamodel
 	private String name;
 	private String value;
+	private String contentHash;
 
 	/**
 	 * 
@@ -44,6 +45,7 @@ public class EntityAttribute {
 		this.name = (String) jsonAttribute.get("name");
 		this.value = (String) (jsonAttribute.get("value") + ""); // only store
 																	// strings
+		this.contentHash = ContentHash.of("attribute", this.name, this.value);
 	}
 	
 	/**
@@ -56,6 +58,20 @@ public class EntityAttribute {
 		this.syncMetaId = syncMetaId;
 		this.name = name;
 		this.value = value;
+		this.contentHash = ContentHash.of("attribute", this.name, this.value);
+	}
+
+	/**
+	 * Creates an EntityAttribute from an already loaded row of the Attribute table
+	 * (e.g. when loading many models at once).
+	 * @param attributeId the id of the attribute given by the database
+	 * @param syncMetaId the id of the object created by SyncMeta
+	 * @param name name of the attribute
+	 * @param value value of the attribute
+	 */
+	public EntityAttribute(int attributeId, String syncMetaId, String name, String value) {
+		this(syncMetaId, name, value);
+		this.id = attributeId;
 	}
 
 	/**
@@ -87,6 +103,7 @@ public class EntityAttribute {
 		} else {
 			throw new SQLException("Could not find attribute");
 		}
+		this.contentHash = ContentHash.of("attribute", this.name, this.value);
 	}
 
 	/**
@@ -102,6 +119,7 @@ public class EntityAttribute {
 		this.syncMetaId = attribute.getSyncMetaId();
 		this.name = attribute.getName();
 		this.value = attribute.getValue();
+		this.contentHash = ContentHash.of("attribute", this.name, this.value);
 	}
 
 	public int getId() {
@@ -120,6 +138,14 @@ public class EntityAttribute {
 		return value;
 	}
 
+	/**
+	 * Returns the content hash of the attribute (computed from name and value).
+	 * @return Hex encoded SHA-256 hash.
+	 */
+	public String getContentHash() {
+		return contentHash;
+	}
+
 	/**
 	 * 
 	 * Persists an EntityAttribute.
@@ -1,5 +1,7 @@
 package i5.las2peer.services.modelPersistenceService.model;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.io.Serializable;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -7,8 +9,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.json.simple.JSONObject;
@@ -20,6 +25,7 @@ import i5.cae.simpleModel.SimpleModel;
 import i5.cae.simpleModel.edge.SimpleEdge;
 import i5.cae.simpleModel.node.SimpleNode;
 import i5.las2peer.logging.L2pLogger;
+import i5.las2peer.services.modelPersistenceService.exception.ModelNotFoundException;
 import i5.las2peer.services.modelPersistenceService.model.edge.Edge;
 import i5.las2peer.services.modelPersistenceService.model.node.Node;
 import i5.las2peer.services.modelPersistenceService.model.node.NodePosition;
@@ -40,6 +46,11 @@ public class Model {
 	private String wireframeModel;
 	private final L2pLogger logger = L2pLogger.getInstance(Model.class.getName());
 
+	/**
+	 * How models get stored, configured by the service on startup.
+	 */
+	private static volatile ModelStorageMode storageMode = ModelStorageMode.NORMALIZED;
+
 	/**
 	 * 
 	 * Creates a new model from a given JSON representation.
@@ -54,6 +65,29 @@ public class Model {
 	public Model(String jsonModel) throws ParseException {
 
 		JSONObject completeJsonModel = (JSONObject) JSONValue.parseWithException(jsonModel);
+		this.readJSON(completeJsonModel);
+	}
+
+	/**
+	 * Creates a model with the given id from its JSON representation.
+	 * Used by storage backends that keep models as documents instead of database rows.
+	 * 
+	 * @param modelId
+	 *            the id of the stored model
+	 * @param jsonModel
+	 *            the (SyncMeta-compatible) JSON representation of the model
+	 * 
+	 */
+	public Model(int modelId, JSONObject jsonModel) {
+		this.id = modelId;
+		this.readJSON(jsonModel);
+	}
+
+	/**
+	 * Reads attributes, wireframe, nodes, edges and metadata doc from the given JSON representation.
+	 * @param completeJsonModel JSON representation of the model.
+	 */
+	private void readJSON(JSONObject completeJsonModel) {
 
 		// attributes
 		JSONObject jsonAttributes = (JSONObject)((JSONObject) completeJsonModel.get("attributes")).get("attributes");
@@ -116,6 +150,50 @@ public class Model {
 	public Model(int modelId, Connection connection) throws SQLException {
 		this.id = modelId;
 		
+		// models stored as document do not need to be assembled from the normalized tables
+		if(!this.loadDocument(connection)) {
+			this.loadNormalized(connection);
+		}
+
+        // only the id of the wireframe is loaded, the (large) XML gets loaded lazily if needed
+        PreparedStatement statement = connection.prepareStatement("SELECT wireframeId FROM ModelToWireframe WHERE modelId = ?;");
+        statement.setInt(1, this.id);
+        ResultSet queryResult = statement.executeQuery();
+        while (queryResult.next()) {
+            this.wireframeId = queryResult.getInt(1);
+        }
+        statement.close();
+	}
+
+	/**
+	 * Loads the model from its JSON document, if it was stored as document.
+	 * @param connection a Connection Object
+	 * @return Whether a document of the model exists.
+	 * @throws SQLException if something with the database has gone wrong
+	 */
+	private boolean loadDocument(Connection connection) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT document FROM ModelDocument WHERE modelId = ?;");
+		statement.setInt(1, this.id);
+		try {
+			ResultSet queryResult = statement.executeQuery();
+			if (!queryResult.next()) {
+				return false;
+			}
+			this.readJSON((JSONObject) JSONValue.parseWithException(queryResult.getString(1)));
+			return true;
+		} catch (ParseException e) {
+			throw new SQLException("Document of model " + this.id + " is invalid.", e);
+		} finally {
+			statement.close();
+		}
+	}
+
+	/**
+	 * Loads the model from the normalized tables.
+	 * @param connection a Connection Object
+	 * @throws SQLException if something with the database has gone wrong
+	 */
+	private void loadNormalized(Connection connection) throws SQLException {
 		PreparedStatement statement;
 		// create empty node and edge lists
 		this.nodes = new ArrayList<Node>();
@@ -152,16 +230,77 @@ public class Model {
 			this.edges.add(new Edge(queryResult.getInt(1), connection));
 		}
 		statement.close();
+	}
 
-        statement = connection
-        		.prepareStatement("SELECT wireframeXML FROM Wireframe, ModelToWireframe " + 
-                                  "WHERE Wireframe.wireframeId = ModelToWireframe.wireframeId AND modelId = ?;");
-        statement.setInt(1, this.id);
-        queryResult = statement.executeQuery();
-        while (queryResult.next()) {
-            this.wireframeModel = queryResult.getString(1);
-        }
-        statement.close();
+	/**
+	 * Creates a model from its already loaded entities (see {@link #loadAll(Connection, Collection)}).
+	 */
+	private Model(int modelId, ArrayList<EntityAttribute> attributes, ArrayList<Node> nodes, ArrayList<Edge> edges) {
+		this.id = modelId;
+		this.attributes = attributes;
+		this.nodes = nodes;
+		this.edges = edges;
+	}
+
+	/**
+	 * Loads the wireframe XML of a model that was loaded from the database. Needs to be called before
+	 * the JSON representation of the model is created, if it should contain the wireframe. The whole XML
+	 * is read into a String, because the JSON representation contains it. Callers that only need the
+	 * parsed wireframe use {@link #loadParsedWireframe(Connection)} instead.
+	 * 
+	 * @param connection
+	 *            a Connection Object
+	 * 
+	 * @throws SQLException
+	 *             if the wireframe could not be loaded
+	 */
+	public void loadWireframe(Connection connection) throws SQLException {
+		if (this.wireframeModel != null || this.wireframeId == -1) {
+			return;
+		}
+		PreparedStatement statement = connection.prepareStatement("SELECT wireframeXML FROM Wireframe WHERE wireframeId = ?;");
+		statement.setInt(1, this.wireframeId);
+		try {
+			ResultSet queryResult = statement.executeQuery();
+			if (queryResult.next()) {
+				this.wireframeModel = queryResult.getString(1);
+			}
+		} finally {
+			statement.close();
+		}
+	}
+
+	/**
+	 * Makes sure that the parsed wireframe of this model is available for
+	 * {@link #getMinifiedRepresentation()}. If the wireframe is neither cached nor loaded yet, it gets
+	 * parsed directly from the database stream without loading the XML as a String.
+	 * 
+	 * @param connection
+	 *            a Connection Object
+	 * 
+	 * @throws SQLException
+	 *             if the wireframe could not be loaded
+	 */
+	public void loadParsedWireframe(Connection connection) throws SQLException {
+		if (this.wireframeId == -1 || this.wireframeModel != null || WireframeModel.getCached(this.wireframeId) != null) {
+			return;
+		}
+		PreparedStatement statement = connection.prepareStatement("SELECT wireframeXML FROM Wireframe WHERE wireframeId = ?;");
+		statement.setInt(1, this.wireframeId);
+		try {
+			ResultSet queryResult = statement.executeQuery();
+			if (queryResult.next()) {
+				Reader xml = queryResult.getCharacterStream(1);
+				if (xml != null) {
+					WireframeModel.cache(this.wireframeId, new WireframeModel(xml));
+					xml.close();
+				}
+			}
+		} catch (IOException e) {
+			throw new SQLException("Could not read wireframe " + this.wireframeId, e);
+		} finally {
+			statement.close();
+		}
 	}
 
 	/**
@@ -209,6 +348,14 @@ public class Model {
 		}
 	}
 
+	public static void setStorageMode(ModelStorageMode mode) {
+		storageMode = mode;
+	}
+
+	public static ModelStorageMode getStorageMode() {
+		return storageMode;
+	}
+
 	public int getId() {
 		return id;
 	}
@@ -231,6 +378,32 @@ public class Model {
 
 	public String getWireframeModelAsString() {return wireframeModel; }
 
+	/**
+	 * Returns the content hash of the model. It combines the hashes of the model attributes, nodes and
+	 * edges (independent of their order), i.e. exactly the parts that every way of creating a model
+	 * provides (parsed from JSON, {@link #Model(int, Connection)} and {@link #loadAll(Connection, Collection)}),
+	 * so that the hash does not depend on how the model was created. The metadata doc and the wireframe
+	 * are not part of it, since models loaded from the database do not contain them (see
+	 * {@link #loadWireframe(Connection)}). The hash gets computed on every call, thus it includes
+	 * attributes that got added after the model was created (e.g. the type before calling the code
+	 * generation).
+	 * @return Hex encoded SHA-256 hash.
+	 */
+	public String getContentHash() {
+		List<String> nodeHashes = new ArrayList<>(this.nodes.size());
+		for (Node node : this.nodes) {
+			nodeHashes.add(node.getContentHash());
+		}
+		List<String> edgeHashes = new ArrayList<>(this.edges.size());
+		for (Edge edge : this.edges) {
+			edgeHashes.add(edge.getContentHash());
+		}
+		String attributesHash = ContentHash.ofAttributes(
+				this.attributes != null ? this.attributes : new ArrayList<EntityAttribute>());
+		return ContentHash.of("model", attributesHash, ContentHash.unordered(nodeHashes),
+				ContentHash.unordered(edgeHashes));
+	}
+
 	/**
 	 * 
 	 * Returns the JSON representation of this model. The representation is
@@ -339,44 +512,31 @@ public class Model {
 			this.id = genKeys.getInt(1);
 			statement.close();
 
-			// store the model attributes
-			for (int i = 0; i < this.attributes.size(); i++) {
-				this.attributes.get(i).persist(connection);
-				// AttributeToModelAttributes entry ("connect" them)
-				statement = connection.prepareStatement(
-						"INSERT INTO AttributeToModel (attributeId, modelId) VALUES (?, ?);");
-				statement.setInt(1, this.attributes.get(i).getId());
-				statement.setInt(2, this.id);
-				statement.executeUpdate();
-				statement.close();
-			}
+			ModelCatalog.add(connection, this);
 
-			// now to the nodes
-			for (int i = 0; i < this.nodes.size(); i++) {
-				nodes.get(i).persist(connection);
-				// nodeToModel entry ("connect" them)
-				statement = connection.prepareStatement("INSERT INTO NodeToModel (nodeId, modelId) VALUES (?, ?);");
-				statement.setInt(1, nodes.get(i).getId());
-				statement.setInt(2, this.id);
+			if (storageMode.writesDocument()) {
+				statement = connection.prepareStatement("INSERT INTO ModelDocument (modelId, document) VALUES (?, ?);");
+				statement.setInt(1, this.id);
+				statement.setString(2, this.toDocument().toJSONString());
 				statement.executeUpdate();
 				statement.close();
 			}
 
-			// and edges
-			for (int i = 0; i < this.edges.size(); i++) {
-				edges.get(i).persist(connection);
-				// EdgeToModel entry ("connect" them)
-				statement = connection.prepareStatement("INSERT INTO EdgeToModel (edgeId, modelId) VALUES (?, ?);");
-				statement.setInt(1, edges.get(i).getId());
-				statement.setInt(2, this.id);
-				statement.executeUpdate();
-				statement.close();
+			if (storageMode.writesNormalized()) {
+				this.persistNormalized(connection);
 			}
 
 			//Add wireframe data
-			if(this.getWireframeModelAsString() != null) {
-				statement = connection.prepareStatement("INSERT INTO Wireframe (wireframeXML) VALUES (?);", Statement.RETURN_GENERATED_KEYS);
-				statement.setString(1, this.getWireframeModelAsString());
+			if(this.getWireframeModelAsString() != null || this.wireframeId != -1) {
+				if(this.getWireframeModelAsString() != null) {
+					statement = connection.prepareStatement("INSERT INTO Wireframe (wireframeXML) VALUES (?);", Statement.RETURN_GENERATED_KEYS);
+					statement.setString(1, this.getWireframeModelAsString());
+				} else {
+					// wireframe XML was not loaded => copy it inside the database
+					statement = connection.prepareStatement("INSERT INTO Wireframe (wireframeXML) SELECT wireframeXML FROM Wireframe WHERE wireframeId = ?;",
+							Statement.RETURN_GENERATED_KEYS);
+					statement.setInt(1, this.wireframeId);
+				}
 				statement.executeUpdate();
 				// get the generated id and close statement
 				ResultSet gen = statement.getGeneratedKeys();
@@ -392,6 +552,7 @@ public class Model {
 				// execute query
 				statement.executeUpdate();
 				statement.close();
+				this.wireframeId = wireframeId;
 
 			}
 
@@ -408,6 +569,63 @@ public class Model {
 		}
 	}
 
+	/**
+	 * Stores the attributes, nodes and edges of the model in the normalized tables.
+	 * @param connection a Connection Object
+	 * @throws SQLException if something with the database has gone wrong
+	 */
+	private void persistNormalized(Connection connection) throws SQLException {
+		PreparedStatement statement;
+		// store the model attributes
+		for (int i = 0; i < this.attributes.size(); i++) {
+			this.attributes.get(i).persist(connection);
+			// AttributeToModelAttributes entry ("connect" them)
+			statement = connection.prepareStatement(
+					"INSERT INTO AttributeToModel (attributeId, modelId) VALUES (?, ?);");
+			statement.setInt(1, this.attributes.get(i).getId());
+			statement.setInt(2, this.id);
+			statement.executeUpdate();
+			statement.close();
+		}
+
+		// now to the nodes
+		for (int i = 0; i < this.nodes.size(); i++) {
+			nodes.get(i).persist(connection);
+			// nodeToModel entry ("connect" them)
+			statement = connection.prepareStatement("INSERT INTO NodeToModel (nodeId, modelId) VALUES (?, ?);");
+			statement.setInt(1, nodes.get(i).getId());
+			statement.setInt(2, this.id);
+			statement.executeUpdate();
+			statement.close();
+		}
+
+		// and edges
+		for (int i = 0; i < this.edges.size(); i++) {
+			edges.get(i).persist(connection);
+			// EdgeToModel entry ("connect" them)
+			statement = connection.prepareStatement("INSERT INTO EdgeToModel (edgeId, modelId) VALUES (?, ?);");
+			statement.setInt(1, edges.get(i).getId());
+			statement.setInt(2, this.id);
+			statement.executeUpdate();
+			statement.close();
+		}
+	}
+
+	/**
+	 * Returns the JSON document that gets stored for the model. The wireframe is not included, because
+	 * it is stored separately (and only loaded if needed).
+	 * @return JSON document of the model.
+	 */
+	@SuppressWarnings("unchecked")
+	JSONObject toDocument() {
+		JSONObject document = this.toJSONObject();
+		document.remove("wireframe");
+		if (this.metadataDoc != null) {
+			document.put("metadataDoc", this.metadataDoc);
+		}
+		return document;
+	}
+
 	/**
 	 * 
 	 * Deletes a model from the database;
@@ -419,56 +637,253 @@ public class Model {
 	 * 
 	 */
 	public boolean deleteFromDatabase(Connection connection) {
-
-		// first test if model contains something
-		// (was "created" either by database access or JSONObject)
-		if (this.getAttributes() == null) {
+		// model was never persisted (or is already deleted)
+		if (this.id == -1) {
 			return false;
 		}
-		// test, if was model is already "loaded" (synchronized)
-		if (this.id == -1) {
-			// model not loaded, try loading it and call delete again
-			Model model;
-			try {
-				model = new Model(this.id, connection);
-			} catch (SQLException e) {
+		try {
+			if (deleteAll(connection, Collections.singletonList(this.id), true) == 0) {
 				return false;
 			}
-			model.deleteFromDatabase(connection);
-		}
-		// actually delete the model
-		else {
-			// delete model
-			PreparedStatement statement;
-			try {
-				connection.setAutoCommit(false);
-				statement = connection.prepareStatement("DELETE FROM Model WHERE modelId = ?;");
-				statement.setInt(1, this.id);
-				statement.executeUpdate();
-				statement.close();
+		} catch (SQLException e) {
+			logger.printStackTrace(e);
+			return false;
+		}
+		this.id = -1; // model does not exist in the database anymore
+		return true;
+	}
 
-				if(this.getWireframeModelAsString() != null){
-					//delete the wireframe in the wireframe xml
-					statement = connection.prepareStatement("DELETE FROM Wireframe WHERE wireframeId = ?;");
-					statement.setInt(1, this.wireframeId);
-					statement.executeUpdate();
-					statement.close();
-				}
+	/**
+	 * 
+	 * Deletes the model with the given id (including its nodes, edges,
+	 * attributes and wireframe) without loading it first.
+	 * 
+	 * @param connection
+	 *            a Connection object
+	 * @param modelId
+	 *            the id of the model
+	 * 
+	 * @throws SQLException
+	 *             if something with the database has gone wrong
+	 *             (ModelNotFoundException if the model does not exist)
+	 * 
+	 */
+	public static void delete(Connection connection, int modelId) throws SQLException {
+		if (deleteAll(connection, Collections.singletonList(modelId), true) == 0) {
+			throw new ModelNotFoundException("Model " + modelId + " does not exist.");
+		}
+	}
+
+	/**
+	 * 
+	 * Loads the models with the given ids. In contrast to loading the models one by
+	 * one (which needs queries per node and edge), the number of queries does not
+	 * depend on the number or size of the models: models stored as document are
+	 * loaded with a single query, the normalized ones with one query per table.
+	 * Like {@link #Model(int, Connection)}, only the ids of the wireframes are loaded.
+	 * 
+	 * @param connection
+	 *            a Connection object
+	 * @param modelIds
+	 *            the ids of the models
+	 * 
+	 * @return the loaded models by id (ids of models that do not exist are missing)
+	 * 
+	 * @throws SQLException
+	 *             if something with the database has gone wrong
+	 * 
+	 */
+	public static Map<Integer, Model> loadAll(Connection connection, Collection<Integer> modelIds) throws SQLException {
+		Map<Integer, Model> models = new HashMap<>();
+		if (modelIds.isEmpty()) {
+			return models;
+		}
+		String ids = "(" + String.join(",", Collections.nCopies(modelIds.size(), "?")) + ")";
+
+		// models stored as document
+		PreparedStatement statement = connection.prepareStatement("SELECT modelId, document FROM ModelDocument WHERE modelId IN " + ids + ";");
+		setIds(statement, modelIds);
+		ResultSet queryResult = statement.executeQuery();
+		try {
+			while (queryResult.next()) {
+				models.put(queryResult.getInt(1),
+						new Model(queryResult.getInt(1), (JSONObject) JSONValue.parseWithException(queryResult.getString(2))));
+			}
+		} catch (ParseException e) {
+			throw new SQLException("Document of a model is invalid.", e);
+		} finally {
+			statement.close();
+		}
+
+		// normalized models: collect the rows of all models, then assemble them
+		Map<Integer, ArrayList<EntityAttribute>> modelAttributes = new HashMap<>();
+		statement = connection.prepareStatement("SELECT am.modelId, a.attributeId, a.syncMetaId, a.name, a.value FROM AttributeToModel am "
+				+ "JOIN Attribute a ON a.attributeId = am.attributeId WHERE am.modelId IN " + ids + ";");
+		loadAttributes(statement, modelIds, modelAttributes);
+		Map<Integer, ArrayList<EntityAttribute>> nodeAttributes = new HashMap<>();
+		statement = connection.prepareStatement("SELECT an.nodeId, a.attributeId, a.syncMetaId, a.name, a.value FROM NodeToModel nm "
+				+ "JOIN AttributeToNode an ON an.nodeId = nm.nodeId JOIN Attribute a ON a.attributeId = an.attributeId "
+				+ "WHERE nm.modelId IN " + ids + ";");
+		loadAttributes(statement, modelIds, nodeAttributes);
+		Map<Integer, ArrayList<EntityAttribute>> edgeAttributes = new HashMap<>();
+		statement = connection.prepareStatement("SELECT ae.edgeId, a.attributeId, a.syncMetaId, a.name, a.value FROM EdgeToModel em "
+				+ "JOIN AttributeToEdge ae ON ae.edgeId = em.edgeId JOIN Attribute a ON a.attributeId = ae.attributeId "
+				+ "WHERE em.modelId IN " + ids + ";");
+		loadAttributes(statement, modelIds, edgeAttributes);
+
+		Map<Integer, ArrayList<Node>> nodes = new HashMap<>();
+		statement = connection.prepareStatement("SELECT nm.modelId, n.nodeId, n.syncMetaId, n.type, n.pLeft, n.pTop, n.pWidth, n.pHeight, n.pZIndex "
+				+ "FROM NodeToModel nm JOIN Node n ON n.nodeId = nm.nodeId WHERE nm.modelId IN " + ids + ";");
+		setIds(statement, modelIds);
+		queryResult = statement.executeQuery();
+		while (queryResult.next()) {
+			int nodeId = queryResult.getInt(2);
+			NodePosition position = new NodePosition(queryResult.getInt(5), queryResult.getInt(6), queryResult.getInt(7),
+					queryResult.getInt(8), queryResult.getInt(9));
+			nodes.computeIfAbsent(queryResult.getInt(1), id -> new ArrayList<>()).add(new Node(nodeId, queryResult.getString(3),
+					queryResult.getString(4), position, nodeAttributes.getOrDefault(nodeId, new ArrayList<>())));
+		}
+		statement.close();
+
+		Map<Integer, ArrayList<Edge>> edges = new HashMap<>();
+		statement = connection.prepareStatement("SELECT em.modelId, e.edgeId, e.syncMetaId, e.sourceNode, e.targetNode, e.labelValue, e.type "
+				+ "FROM EdgeToModel em JOIN Edge e ON e.edgeId = em.edgeId WHERE em.modelId IN " + ids + ";");
+		setIds(statement, modelIds);
+		queryResult = statement.executeQuery();
+		while (queryResult.next()) {
+			int edgeId = queryResult.getInt(2);
+			edges.computeIfAbsent(queryResult.getInt(1), id -> new ArrayList<>()).add(new Edge(edgeId, queryResult.getString(3),
+					queryResult.getString(4), queryResult.getString(5), queryResult.getString(6), queryResult.getString(7),
+					edgeAttributes.getOrDefault(edgeId, new ArrayList<>())));
+		}
+		statement.close();
+
+		statement = connection.prepareStatement("SELECT modelId FROM Model WHERE modelId IN " + ids + ";");
+		setIds(statement, modelIds);
+		queryResult = statement.executeQuery();
+		while (queryResult.next()) {
+			int modelId = queryResult.getInt(1);
+			if (!models.containsKey(modelId)) {
+				models.put(modelId, new Model(modelId, modelAttributes.getOrDefault(modelId, new ArrayList<>()),
+						nodes.getOrDefault(modelId, new ArrayList<>()), edges.getOrDefault(modelId, new ArrayList<>())));
+			}
+		}
+		statement.close();
+
+		// only the ids of the wireframes, like when loading a single model
+		statement = connection.prepareStatement("SELECT modelId, wireframeId FROM ModelToWireframe WHERE modelId IN " + ids + ";");
+		setIds(statement, modelIds);
+		queryResult = statement.executeQuery();
+		while (queryResult.next()) {
+			Model model = models.get(queryResult.getInt(1));
+			if (model != null) {
+				model.wireframeId = queryResult.getInt(2);
+			}
+		}
+		statement.close();
+		return models;
+	}
+
+	private static void loadAttributes(PreparedStatement statement, Collection<Integer> modelIds,
+			Map<Integer, ArrayList<EntityAttribute>> attributesByOwner) throws SQLException {
+		try {
+			setIds(statement, modelIds);
+			ResultSet queryResult = statement.executeQuery();
+			while (queryResult.next()) {
+				attributesByOwner.computeIfAbsent(queryResult.getInt(1), id -> new ArrayList<>()).add(new EntityAttribute(
+						queryResult.getInt(2), queryResult.getString(3), queryResult.getString(4), queryResult.getString(5)));
+			}
+		} finally {
+			statement.close();
+		}
+	}
 
-				// we got here without errors, so commit now
+	/**
+	 * 
+	 * Deletes the models with the given ids. The foreign keys only cascade from
+	 * the models to the link tables, thus the nodes, edges, attributes and
+	 * wireframes are deleted explicitly. Every table is cleaned with a single
+	 * DELETE ... JOIN statement (for all given models), so the number of
+	 * statements does not depend on the size of the models.
+	 * 
+	 * @param connection
+	 *            a Connection object
+	 * @param modelIds
+	 *            the ids of the models
+	 * @param commit
+	 *            Whether the changes to the database should be commited.
+	 * 
+	 * @return the number of deleted models
+	 * 
+	 * @throws SQLException
+	 *             if something with the database has gone wrong
+	 * 
+	 */
+	public static int deleteAll(Connection connection, Collection<Integer> modelIds, boolean commit) throws SQLException {
+		if (modelIds.isEmpty()) {
+			return 0;
+		}
+		String ids = "(" + String.join(",", Collections.nCopies(modelIds.size(), "?")) + ")";
+		boolean autoCommitBefore = connection.getAutoCommit();
+		ArrayList<Integer> wireframeIds = new ArrayList<>();
+		int deleted;
+		try {
+			connection.setAutoCommit(false);
+
+			PreparedStatement statement = connection.prepareStatement("SELECT wireframeId FROM ModelToWireframe WHERE modelId IN " + ids + ";");
+			setIds(statement, modelIds);
+			ResultSet queryResult = statement.executeQuery();
+			while (queryResult.next()) {
+				wireframeIds.add(queryResult.getInt(1));
+			}
+			statement.close();
+
+			// attributes first, their link tables are removed together with the nodes and edges
+			executeDelete(connection, "DELETE a FROM Attribute a JOIN AttributeToNode an ON an.attributeId = a.attributeId "
+					+ "JOIN NodeToModel nm ON nm.nodeId = an.nodeId WHERE nm.modelId IN " + ids + ";", modelIds);
+			executeDelete(connection, "DELETE a FROM Attribute a JOIN AttributeToEdge ae ON ae.attributeId = a.attributeId "
+					+ "JOIN EdgeToModel em ON em.edgeId = ae.edgeId WHERE em.modelId IN " + ids + ";", modelIds);
+			executeDelete(connection, "DELETE a FROM Attribute a JOIN AttributeToModel am ON am.attributeId = a.attributeId "
+					+ "WHERE am.modelId IN " + ids + ";", modelIds);
+			executeDelete(connection, "DELETE n FROM Node n JOIN NodeToModel nm ON nm.nodeId = n.nodeId "
+					+ "WHERE nm.modelId IN " + ids + ";", modelIds);
+			executeDelete(connection, "DELETE e FROM Edge e JOIN EdgeToModel em ON em.edgeId = e.edgeId "
+					+ "WHERE em.modelId IN " + ids + ";", modelIds);
+			executeDelete(connection, "DELETE w FROM Wireframe w JOIN ModelToWireframe mw ON mw.wireframeId = w.wireframeId "
+					+ "WHERE mw.modelId IN " + ids + ";", modelIds);
+			// remaining link tables (and the model document) cascade from the model
+			deleted = executeDelete(connection, "DELETE FROM Model WHERE modelId IN " + ids + ";", modelIds);
+
+			if (commit) {
 				connection.commit();
-			} catch (SQLException e1) {
-				logger.printStackTrace(e1);
-				try {
-					connection.rollback();
-				} catch (SQLException e2) {
-					logger.printStackTrace(e2);
-				}
-				return false;
 			}
+		} catch (SQLException e) {
+			connection.rollback();
+			throw e;
+		} finally {
+			connection.setAutoCommit(autoCommitBefore);
+		}
+		for (int wireframeId : wireframeIds) {
+			WireframeModel.invalidate(wireframeId);
+		}
+		return deleted;
+	}
+
+	private static int executeDelete(Connection connection, String sql, Collection<Integer> modelIds) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(sql);
+		try {
+			setIds(statement, modelIds);
+			return statement.executeUpdate();
+		} finally {
+			statement.close();
+		}
+	}
+
+	private static void setIds(PreparedStatement statement, Collection<Integer> modelIds) throws SQLException {
+		int index = 1;
+		for (int modelId : modelIds) {
+			statement.setInt(index++, modelId);
 		}
-		this.id = -1; // model does not exist in the database anymore
-		return true;
 	}
 
 	/**
@@ -534,9 +949,9 @@ public class Model {
 		// since the model name does not exist anymore.
 		SimpleModel simpleModel = new SimpleModel(String.valueOf(this.id), simpleNodes, simpleEdges,
 				simpleModelAttributes);
-		if(this.getWireframeModelAsString() == null) return simpleModel;
+		WireframeModel wireframe = this.getParsedWireframe();
+		if(wireframe == null) return simpleModel;
 		try {
-			WireframeModel wireframe = new WireframeModel(this.getWireframeModelAsString());
 			SimpleModel extended = wireframe.extendSimpleModel(simpleModel);
 			return extended;
 		} catch(Exception e){
@@ -544,4 +959,39 @@ public class Model {
 		}
 	}
 
+	/**
+	 * Same as {@link #getMinifiedRepresentation()}, but loads the wireframe of the model before if
+	 * needed.
+	 * 
+	 * @param connection
+	 *            a Connection Object
+	 * 
+	 * @return a {@link java.io.Serializable} representation of a
+	 *         {@link SimpleModel}
+	 * 
+	 * @throws SQLException
+	 *             if the wireframe could not be loaded
+	 */
+	public Serializable getMinifiedRepresentation(Connection connection) throws SQLException {
+		this.loadParsedWireframe(connection);
+		return this.getMinifiedRepresentation();
+	}
+
+	/**
+	 * Returns the parsed wireframe of this model. Wireframes that were loaded from the database
+	 * are only parsed once and then taken from the cache of parsed wireframes.
+	 * @return Parsed wireframe or null, if the model has no (loaded) wireframe.
+	 */
+	private WireframeModel getParsedWireframe() {
+		if(this.wireframeId == -1) {
+			return this.getWireframeModelAsString() != null ? new WireframeModel(this.getWireframeModelAsString()) : null;
+		}
+		WireframeModel wireframe = WireframeModel.getCached(this.wireframeId);
+		if(wireframe == null && this.getWireframeModelAsString() != null) {
+			wireframe = new WireframeModel(this.getWireframeModelAsString());
+			WireframeModel.cache(this.wireframeId, wireframe);
+		}
+		return wireframe;
+	}
+
 }
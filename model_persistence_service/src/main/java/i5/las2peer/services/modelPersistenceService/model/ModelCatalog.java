@@ -0,0 +1,230 @@
+package i5.las2peer.services.modelPersistenceService.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Maintains the model catalog (table ModelCatalog), which contains one row per model with its type,
+ * versioned model, component name and commit. The catalog is indexed by type and by versioned model,
+ * so that listing models does not need to scan the attribute tables.
+ * A row gets added when the model is persisted, the versioned model and commit are set when the model
+ * is linked to a commit. The row gets deleted together with the model (foreign key with ON DELETE CASCADE).
+ */
+public class ModelCatalog {
+
+	/**
+	 * Adds the catalog row of a model that was just persisted. Type and component name are taken
+	 * from the model attributes "type" and "componentName", if the model has them.
+	 * @param connection Connection object
+	 * @param model Model that was persisted.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static void add(Connection connection, Model model) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"INSERT INTO ModelCatalog (modelId, type, componentName) VALUES (?, ?, ?);");
+		statement.setInt(1, model.getId());
+		setString(statement, 2, getAttributeValue(model, "type"));
+		setString(statement, 3, getAttributeValue(model, "componentName"));
+		statement.executeUpdate();
+		statement.close();
+	}
+
+	/**
+	 * Sets the versioned model and the commit the model belongs to.
+	 * @param connection Connection object
+	 * @param modelId Id of the model.
+	 * @param versionedModelId Id of the versioned model.
+	 * @param commitId Id of the commit containing the model.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static void link(Connection connection, int modelId, int versionedModelId, int commitId) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"UPDATE ModelCatalog SET versionedModelId = ?, commitId = ? WHERE modelId = ?;");
+		statement.setInt(1, versionedModelId);
+		statement.setInt(2, commitId);
+		statement.setInt(3, modelId);
+		statement.executeUpdate();
+		statement.close();
+	}
+
+	/**
+	 * Sets type and component name of the model (e.g. when they are not part of the model attributes,
+	 * but known from the commit).
+	 * @param connection Connection object
+	 * @param modelId Id of the model.
+	 * @param type Type of the model (e.g. "frontend-component"), may be null.
+	 * @param componentName Name of the component, may be null.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static void describe(Connection connection, int modelId, String type, String componentName) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"UPDATE ModelCatalog SET type = ?, componentName = ? WHERE modelId = ?;");
+		setString(statement, 1, type);
+		setString(statement, 2, componentName);
+		statement.setInt(3, modelId);
+		statement.executeUpdate();
+		statement.close();
+	}
+
+	/**
+	 * Returns a page of the ids of all models, ordered by id.
+	 * @param connection Connection object
+	 * @param offset Number of models to skip.
+	 * @param limit Maximum number of ids to return.
+	 * @return Ids of the models.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static List<Integer> findModelIds(Connection connection, int offset, int limit) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"SELECT modelId FROM ModelCatalog ORDER BY modelId LIMIT ? OFFSET ?;");
+		statement.setInt(1, limit);
+		statement.setInt(2, Math.max(offset, 0));
+		List<Integer> modelIds = new ArrayList<>();
+		ResultSet queryResult = statement.executeQuery();
+		while(queryResult.next()) {
+			modelIds.add(queryResult.getInt(1));
+		}
+		statement.close();
+		return modelIds;
+	}
+
+	/**
+	 * Returns a page of the catalog entries of the models with the given type, ordered by model id.
+	 * @param connection Connection object
+	 * @param type Type of the models (e.g. "microservice").
+	 * @param offset Number of models to skip.
+	 * @param limit Maximum number of entries to return.
+	 * @return Catalog entries of the models.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static List<Entry> findByType(Connection connection, String type, int offset, int limit) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"SELECT modelId, type, versionedModelId, componentName, commitId FROM ModelCatalog "
+				+ "WHERE type = ? ORDER BY modelId LIMIT ? OFFSET ?;");
+		statement.setString(1, type);
+		statement.setInt(2, limit);
+		statement.setInt(3, Math.max(offset, 0));
+		List<Entry> entries = new ArrayList<>();
+		ResultSet queryResult = statement.executeQuery();
+		while(queryResult.next()) {
+			entries.add(new Entry(queryResult.getInt(1), queryResult.getString(2), getInteger(queryResult, 3),
+					queryResult.getString(4), getInteger(queryResult, 5)));
+		}
+		statement.close();
+		return entries;
+	}
+
+	/**
+	 * Returns the ids of the versioned models the given models belong to.
+	 * @param connection Connection object
+	 * @param modelIds Ids of the models.
+	 * @return Ids of the versioned models (models that are not linked to a commit are ignored).
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static Set<Integer> findVersionedModelIds(Connection connection, Collection<Integer> modelIds) throws SQLException {
+		Set<Integer> versionedModelIds = new HashSet<>();
+		if(modelIds.isEmpty()) return versionedModelIds;
+		PreparedStatement statement = connection.prepareStatement(
+				"SELECT DISTINCT versionedModelId FROM ModelCatalog WHERE versionedModelId IS NOT NULL AND modelId IN ("
+				+ String.join(",", Collections.nCopies(modelIds.size(), "?")) + ");");
+		int index = 1;
+		for(int modelId : modelIds) {
+			statement.setInt(index++, modelId);
+		}
+		ResultSet queryResult = statement.executeQuery();
+		while(queryResult.next()) {
+			versionedModelIds.add(queryResult.getInt(1));
+		}
+		statement.close();
+		return versionedModelIds;
+	}
+
+	/**
+	 * Returns the value of the model attribute with the given name.
+	 * @param model Model
+	 * @param name Name of the attribute.
+	 * @return Value of the attribute, or null if the model does not have such an attribute.
+	 */
+	public static String getAttributeValue(Model model, String name) {
+		for(EntityAttribute attribute : model.getAttributes()) {
+			if(name.equals(attribute.getName())) {
+				return attribute.getValue();
+			}
+		}
+		return null;
+	}
+
+	private static void setString(PreparedStatement statement, int index, String value) throws SQLException {
+		if(value == null) {
+			statement.setNull(index, Types.VARCHAR);
+		} else {
+			statement.setString(index, value);
+		}
+	}
+
+	private static Integer getInteger(ResultSet resultSet, int index) throws SQLException {
+		int value = resultSet.getInt(index);
+		return resultSet.wasNull() ? null : value;
+	}
+
+	/**
+	 * Catalog row of a single model.
+	 */
+	public static class Entry {
+		private final int modelId;
+		private final String type;
+		private final Integer versionedModelId;
+		private final String componentName;
+		private final Integer commitId;
+
+		public Entry(int modelId, String type, Integer versionedModelId, String componentName, Integer commitId) {
+			this.modelId = modelId;
+			this.type = type;
+			this.versionedModelId = versionedModelId;
+			this.componentName = componentName;
+			this.commitId = commitId;
+		}
+
+		public int getModelId() {
+			return modelId;
+		}
+
+		public String getType() {
+			return type;
+		}
+
+		public Integer getVersionedModelId() {
+			return versionedModelId;
+		}
+
+		public String getComponentName() {
+			return componentName;
+		}
+
+		public Integer getCommitId() {
+			return commitId;
+		}
+
+		@SuppressWarnings("unchecked")
+		public JSONObject toJSONObject() {
+			JSONObject json = new JSONObject();
+			json.put("modelId", this.modelId);
+			json.put("type", this.type);
+			json.put("versionedModelId", this.versionedModelId);
+			json.put("componentName", this.componentName);
+			json.put("commitId", this.commitId);
+			return json;
+		}
+	}
+}
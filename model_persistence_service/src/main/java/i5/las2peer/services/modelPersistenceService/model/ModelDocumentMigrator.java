@@ -0,0 +1,98 @@
+package i5.las2peer.services.modelPersistenceService.model;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import i5.las2peer.services.modelPersistenceService.database.DatabaseManager;
+import i5.las2peer.services.modelPersistenceService.database.migration.SchemaMigrator;
+
+/**
+ * Tool that stores the models, which were stored in the normalized tables only, as JSON documents.
+ * Needed when a deployment switches the modelStorageMode to DOCUMENT (models without document are
+ * still loaded from the normalized tables, but slower). The normalized rows are kept.
+ *
+ * Usage: java -cp "lib/*:service/*" i5.las2peer.services.modelPersistenceService.model.ModelDocumentMigrator [properties file]
+ */
+public class ModelDocumentMigrator {
+
+	private static final String DEFAULT_PROPERTIES_FILE = "etc/i5.las2peer.services.modelPersistenceService.ModelPersistenceService.properties";
+	private static final int BATCH_SIZE = 100;
+
+	private final DatabaseManager dbm;
+
+	public ModelDocumentMigrator(DatabaseManager dbm) {
+		this.dbm = dbm;
+	}
+
+	/**
+	 * Creates the documents of all models that do not have one yet. Every batch of models is stored
+	 * in its own transaction, so that the migration can be interrupted and continued later.
+	 * @return Number of models that got migrated.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public int migrate() throws SQLException {
+		int migrated = 0;
+		Connection connection = this.dbm.getConnection();
+		try {
+			connection.setAutoCommit(false);
+			int lastModelId = 0;
+			while(true) {
+				List<Integer> modelIds = nextBatch(connection, lastModelId);
+				if(modelIds.isEmpty()) break;
+				for(int modelId : modelIds) {
+					Model model = new Model(modelId, connection);
+					PreparedStatement statement = connection.prepareStatement("INSERT IGNORE INTO ModelDocument (modelId, document) VALUES (?, ?);");
+					statement.setInt(1, modelId);
+					statement.setString(2, model.toDocument().toJSONString());
+					migrated += statement.executeUpdate();
+					statement.close();
+					lastModelId = modelId;
+				}
+				connection.commit();
+			}
+		} catch (SQLException e) {
+			connection.rollback();
+			throw e;
+		} finally {
+			connection.close();
+		}
+		return migrated;
+	}
+
+	private static List<Integer> nextBatch(Connection connection, int lastModelId) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT m.modelId FROM Model m "
+				+ "LEFT JOIN ModelDocument d ON d.modelId = m.modelId "
+				+ "WHERE d.modelId IS NULL AND m.modelId > ? ORDER BY m.modelId LIMIT ?;");
+		statement.setInt(1, lastModelId);
+		statement.setInt(2, BATCH_SIZE);
+		ResultSet queryResult = statement.executeQuery();
+		List<Integer> modelIds = new ArrayList<>();
+		while(queryResult.next()) {
+			modelIds.add(queryResult.getInt(1));
+		}
+		statement.close();
+		return modelIds;
+	}
+
+	public static void main(String[] args) throws IOException, SQLException {
+		Properties properties = new Properties();
+		try(Reader reader = new FileReader(args.length > 0 ? args[0] : DEFAULT_PROPERTIES_FILE)) {
+			properties.load(reader);
+		}
+		DatabaseManager dbm = new DatabaseManager(properties.getProperty("jdbcDriverClassName"),
+				properties.getProperty("jdbcLogin"), properties.getProperty("jdbcPass"),
+				properties.getProperty("jdbcUrl"), properties.getProperty("jdbcSchema"));
+		// the ModelDocument table gets created by the schema migrations
+		new SchemaMigrator(dbm).migrate();
+		int migrated = new ModelDocumentMigrator(dbm).migrate();
+		System.out.println("Stored " + migrated + " model(s) as JSON document.");
+	}
+}
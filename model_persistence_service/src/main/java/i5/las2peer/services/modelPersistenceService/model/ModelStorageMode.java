@@ -0,0 +1,45 @@
+package i5.las2peer.services.modelPersistenceService.model;
+
+/**
+ * Defines how models get stored in the database. Can be configured per deployment with the
+ * modelStorageMode property of the service.
+ */
+public enum ModelStorageMode {
+
+	/**
+	 * Models are split into the Model, Node, Edge and Attribute tables (and the tables linking them).
+	 */
+	NORMALIZED,
+
+	/**
+	 * Models are stored as a single JSON document in the ModelDocument table.
+	 */
+	DOCUMENT,
+
+	/**
+	 * Models are stored as JSON document and additionally split into the normalized tables
+	 * (e.g. to analyze them using SQL). Models are loaded from the document.
+	 */
+	DOCUMENT_AND_NORMALIZED;
+
+	public boolean writesDocument() {
+		return this != NORMALIZED;
+	}
+
+	public boolean writesNormalized() {
+		return this != DOCUMENT;
+	}
+
+	/**
+	 * Returns the storage mode with the given name (e.g. "document", case insensitive).
+	 * @param name Name of the storage mode.
+	 * @return Storage mode with the given name, NORMALIZED if the name is empty or unknown.
+	 */
+	public static ModelStorageMode fromName(String name) {
+		if(name == null || name.trim().isEmpty()) return NORMALIZED;
+		for(ModelStorageMode mode : values()) {
+			if(mode.name().equalsIgnoreCase(name.trim())) return mode;
+		}
+		return NORMALIZED;
+	}
+}
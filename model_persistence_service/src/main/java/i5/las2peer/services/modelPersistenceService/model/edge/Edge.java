@@ -13,6 +13,7 @@ import org.json.simple.JSONObject;
 
 import i5.cae.simpleModel.SimpleEntityAttribute;
 import i5.cae.simpleModel.edge.SimpleEdge;
+import i5.las2peer.services.modelPersistenceService.model.ContentHash;
 import i5.las2peer.services.modelPersistenceService.model.EntityAttribute;
 
 /**
@@ -111,6 +112,29 @@ public class Edge {
 		statement.close();
 	}
 
+	/**
+	 * Creates an edge from an already loaded row of the Edge table and its attributes
+	 * (e.g. when loading many models at once).
+	 * 
+	 * @param edgeId the edge id given by the database
+	 * @param syncMetaId the id of the edge created by SyncMeta
+	 * @param sourceNode the syncMetaId of the source node
+	 * @param targetNode the syncMetaId of the target node
+	 * @param labelValue the label of the edge
+	 * @param type the type of the edge
+	 * @param attributes the attributes of the edge
+	 */
+	public Edge(int edgeId, String syncMetaId, String sourceNode, String targetNode, String labelValue, String type,
+			ArrayList<EntityAttribute> attributes) {
+		this.id = edgeId;
+		this.syncMetaId = syncMetaId;
+		this.sourceNode = sourceNode;
+		this.targetNode = targetNode;
+		this.labelValue = labelValue;
+		this.type = type;
+		this.attributes = attributes;
+	}
+
 	/**
 	 * 
 	 * Creates an edge from a passed on
@@ -160,6 +184,16 @@ public class Edge {
 		return this.labelValue;
 	}
 
+	/**
+	 * Returns the content hash of the edge, computed from its id, source, target, type, label and
+	 * (current) attributes.
+	 * @return Hex encoded SHA-256 hash.
+	 */
+	public String getContentHash() {
+		return ContentHash.of("edge", this.syncMetaId, this.sourceNode, this.targetNode, this.type, this.labelValue,
+				ContentHash.ofAttributes(this.attributes));
+	}
+
 	/**
 	 * 
 	 * Returns the JSON representation of this edge. This representation is
@@ -259,12 +293,16 @@ public class Edge {
 	 * 
 	 */
 	public void deleteFromDatabase(Connection connection) throws SQLException {
-		PreparedStatement statement = connection.prepareStatement("DELETE FROM Edge WHERE edgeId = ?;");
+		// delete all attributes at once, the link rows are removed together with the edge
+		PreparedStatement statement = connection.prepareStatement(
+				"DELETE a FROM Attribute a JOIN AttributeToEdge l ON l.attributeId = a.attributeId WHERE l.edgeId = ?;");
+		statement.setInt(1, this.id);
+		statement.executeUpdate();
+		statement.close();
+
+		statement = connection.prepareStatement("DELETE FROM Edge WHERE edgeId = ?;");
 		statement.setInt(1, this.id);
 		statement.executeUpdate();
 		statement.close();
-		for (int i = 0; i < this.attributes.size(); i++) {
-			this.attributes.get(i).deleteFromDatabase(connection);
-		}
 	}
 }
@@ -13,6 +13,7 @@ import org.json.simple.JSONObject;
 
 import i5.cae.simpleModel.SimpleEntityAttribute;
 import i5.cae.simpleModel.node.SimpleNode;
+import i5.las2peer.services.modelPersistenceService.model.ContentHash;
 import i5.las2peer.services.modelPersistenceService.model.EntityAttribute;
 
 /**
@@ -102,6 +103,24 @@ public class Node {
 		statement.close();
 	}
 
+	/**
+	 * Creates a node from an already loaded row of the Node table and its attributes
+	 * (e.g. when loading many models at once).
+	 * 
+	 * @param nodeId the node id given by the database
+	 * @param syncMetaId the id of the node created by SyncMeta
+	 * @param type the type of the node
+	 * @param position the position of the node
+	 * @param attributes the attributes of the node
+	 */
+	public Node(int nodeId, String syncMetaId, String type, NodePosition position, ArrayList<EntityAttribute> attributes) {
+		this.id = nodeId;
+		this.syncMetaId = syncMetaId;
+		this.type = type;
+		this.position = position;
+		this.attributes = attributes;
+	}
+
 	/**
 	 * 
 	 * Creates a node from a passed on
@@ -144,6 +163,15 @@ public class Node {
 		return attributes;
 	}
 
+	/**
+	 * Returns the content hash of the node, computed from its id, type and (current) attributes. The
+	 * position is not part of the hash, since moving a node does not change the model.
+	 * @return Hex encoded SHA-256 hash.
+	 */
+	public String getContentHash() {
+		return ContentHash.of("node", this.syncMetaId, this.type, ContentHash.ofAttributes(this.attributes));
+	}
+
 	/**
 	 * 
 	 * Returns the JSON representation of this node. This representation is
@@ -285,12 +313,16 @@ public class Node {
 	 * 
 	 */
 	public void deleteFromDatabase(Connection connection) throws SQLException {
-		PreparedStatement statement = connection.prepareStatement("DELETE FROM Node WHERE nodeId = ?;");
+		// delete all attributes at once, the link rows are removed together with the node
+		PreparedStatement statement = connection.prepareStatement(
+				"DELETE a FROM Attribute a JOIN AttributeToNode l ON l.attributeId = a.attributeId WHERE l.nodeId = ?;");
+		statement.setInt(1, this.id);
+		statement.executeUpdate();
+		statement.close();
+
+		statement = connection.prepareStatement("DELETE FROM Node WHERE nodeId = ?;");
 		statement.setInt(1, this.id);
 		statement.executeUpdate();
 		statement.close();
-		for (int i = 0; i < this.attributes.size(); i++) {
-			this.attributes.get(i).deleteFromDatabase(connection);
-		}
 	}
 }
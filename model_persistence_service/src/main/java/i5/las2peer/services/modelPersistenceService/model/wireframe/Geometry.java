@@ -1,7 +1,5 @@
 package i5.las2peer.services.modelPersistenceService.model.wireframe;
 
-import org.w3c.dom.Node;
-
 import java.io.Serializable;
 
 public class Geometry implements Serializable{
@@ -10,11 +8,11 @@ public class Geometry implements Serializable{
     private String height;
     private String width;
 
-    Geometry(Node x, Node y, Node width, Node height){
-        this.x = x != null  ? x.getNodeValue() : "0";
-        this.y = y != null ?  y.getNodeValue() : "0";
-        this.width  = width != null ? width.getNodeValue() : "200";
-        this.height = height != null ? height.getNodeValue() : "200";
+    Geometry(String x, String y, String width, String height){
+        this.x = x != null  ? x : "0";
+        this.y = y != null ?  y : "0";
+        this.width  = width != null ? width : "200";
+        this.height = height != null ? height : "200";
     }
 
     String getX(){
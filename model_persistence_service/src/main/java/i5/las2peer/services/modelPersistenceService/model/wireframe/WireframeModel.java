@@ -3,93 +3,183 @@ package i5.las2peer.services.modelPersistenceService.model.wireframe;
 import i5.cae.simpleModel.SimpleEntityAttribute;
 import i5.cae.simpleModel.SimpleModel;
 import i5.cae.simpleModel.node.SimpleNode;
-import org.w3c.dom.*;
-import org.xml.sax.InputSource;
+import i5.las2peer.services.modelPersistenceService.cache.ExpiringCache;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
 import java.io.Serializable;
 import java.io.StringReader;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class WireframeModel implements Serializable {
-    private HashMap<String, UIControl> uiControls;
+    /**
+     * Parsed wireframes, keyed by the id of their row in the Wireframe table.
+     * Wireframe rows are never updated (a new row is created whenever a model gets persisted), so entries
+     * only need to be removed when the wireframe gets deleted.
+     */
+    private static final ExpiringCache<Integer, WireframeModel> PARSED_WIREFRAMES = new ExpiringCache<>(200, 0);
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXMLInputFactory();
+
+    private HashMap<String, UIControl> uiControls = new HashMap<>();
     private String width;
     private String height;
     private String id;
 
     public WireframeModel(String xml){
+        this(new StringReader(xml));
+    }
+
+    /**
+     * Parses the given wireframe XML in a single pass using StAX.
+     * @param xml Reader providing the wireframe XML. The reader does not get closed.
+     */
+    public WireframeModel(Reader xml){
         try {
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            InputSource is = new InputSource(new StringReader(xml));
-            Document doc = dBuilder.parse(is);
-
-            //Wireframe meta
-            Node meta = doc.getElementsByTagName("WireframeMeta").item(0);
-            NamedNodeMap metaAttrs = meta.getAttributes();
-            id = metaAttrs.getNamedItem("id") != null ? metaAttrs.getNamedItem("id").getNodeValue() : "";
-            width = metaAttrs.getNamedItem("width") != null ? metaAttrs.getNamedItem("width").getNodeValue() : "";
-            height = metaAttrs.getNamedItem("height") != null ? metaAttrs.getNamedItem("height").getNodeValue() : "";
-
-            //ui controls
-            uiControls = new HashMap<>();
-            NodeList uiObjs = doc.getElementsByTagName("uiObj");
-            for(int i=0; i<uiObjs.getLength(); i++) {
-                Node uiObj = uiObjs.item(i);
-                ArrayList<UIControlAttribute> attrsToAdd = new ArrayList<>();
-
-                NamedNodeMap attrs = uiObj.getAttributes();
-                for (int j = 0; j < uiObj.getAttributes().getLength(); j++) {
-                    Node attr = attrs.item(j);
-                    String name = attr.getNodeName();
-                    UIControlAttribute uiAttr;
-                    if (name.contains("_")) {
-                        uiAttr = new UIControlAttribute(attr.getNodeName(), attr.getNodeValue());
-                        attrsToAdd.add(uiAttr);
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(xml);
+            try {
+                parse(reader);
+            } finally {
+                reader.close();
+            }
+        }
+        catch(Exception e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the cached parsed wireframe with the given id.
+     * @param wireframeId Id of the wireframe (from the Wireframe table).
+     * @return Parsed wireframe or null, if it is not cached.
+     */
+    public static WireframeModel getCached(int wireframeId){
+        return PARSED_WIREFRAMES.get(wireframeId);
+    }
+
+    /**
+     * Adds the given parsed wireframe to the cache.
+     * @param wireframeId Id of the wireframe (from the Wireframe table).
+     * @param wireframe Parsed wireframe.
+     */
+    public static void cache(int wireframeId, WireframeModel wireframe){
+        PARSED_WIREFRAMES.put(wireframeId, wireframe);
+    }
+
+    /**
+     * Removes the wireframe with the given id from the cache. Needs to be called when the wireframe gets deleted.
+     * @param wireframeId Id of the wireframe (from the Wireframe table).
+     */
+    public static void invalidate(int wireframeId){
+        PARSED_WIREFRAMES.invalidate(wireframeId);
+    }
+
+    private static XMLInputFactory createXMLInputFactory(){
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // wireframes do not use DTDs or external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private void parse(XMLStreamReader reader) throws XMLStreamException {
+        // uiObj elements that are currently open (innermost first)
+        Deque<UIObjState> openUIObjs = new ArrayDeque<>();
+        boolean metaRead = false;
+        int depth = 0;
+        while(reader.hasNext()) {
+            int event = reader.next();
+            if(event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                String name = reader.getLocalName();
+
+                UIObjState current = openUIObjs.peek();
+                if(current != null) {
+                    if(depth == current.depth + 1) {
+                        // child of the uiObj, every child except tagRoot contains the geometry as first child
+                        current.geometryChild = !name.equals("tagRoot");
+                        current.firstGrandchild = true;
+                    } else if(depth == current.depth + 2) {
+                        if(current.geometryChild && current.firstGrandchild) {
+                            current.geometry = new Geometry(reader.getAttributeValue(null, "x"), reader.getAttributeValue(null, "y"),
+                                    reader.getAttributeValue(null, "width"), reader.getAttributeValue(null, "height"));
+                        }
+                        current.firstGrandchild = false;
                     }
                 }
 
-                Geometry geometry = null;
-                //UIControl uiParent = null;
-                NodeList children = uiObj.getChildNodes();
-                for (int k = 0; k < children.getLength(); k++) {
-                    Node child = children.item(k);
-                    String name = child.getNodeName();
-                    if (!name.equals("tagRoot")) {
-                        //Create reference to the parent, actually not necessary because of hasChild-edge
-                        /*Node parent = child.getAttributes().getNamedItem("parent");
-                        if (parent != null && uiControls.containsKey(parent.getNodeValue())) {
-                            uiParent = uiControls.get(parent.getNodeValue());
-                        }*/
-
-                        //Create the geometry object
-                        Node geo = child.getFirstChild();
-                        NamedNodeMap geoAttrs = geo.getAttributes();
-                        geometry = new Geometry(geoAttrs.getNamedItem("x"), geoAttrs.getNamedItem("y"), geoAttrs.getNamedItem("width"), geoAttrs.getNamedItem("height"));
-                    }
+                if(name.equals("WireframeMeta") && !metaRead) {
+                    //Wireframe meta
+                    metaRead = true;
+                    id = getAttribute(reader, "id", "");
+                    width = getAttribute(reader, "width", "");
+                    height = getAttribute(reader, "height", "");
+                } else if(name.equals("uiObj")) {
+                    openUIObjs.push(new UIObjState(reader, depth));
                 }
-                UIControl uiControl;
-                String id = attrs.getNamedItem("id").getNodeValue();
-                if (geometry != null) {
-                    uiControl = new UIControl(id, attrs.getNamedItem("uiType").getNodeValue(), geometry, attrsToAdd);
-                    //if (uiParent != null)
-                    //    uiControl.setParent(uiParent);
-                    Node label = attrs.getNamedItem("label");
-                    if(label != null)
-                        uiControl.setLabel(label.getNodeValue());
-                    uiControls.put(id, uiControl);
+            } else if(event == XMLStreamConstants.END_ELEMENT) {
+                UIObjState current = openUIObjs.peek();
+                if(current != null && current.depth == depth) {
+                    openUIObjs.pop();
+                    if(current.geometry != null) {
+                        UIControl uiControl = new UIControl(current.id, current.uiType, current.geometry, current.attributes);
+                        if(current.label != null)
+                            uiControl.setLabel(current.label);
+                        uiControls.put(current.id, uiControl);
+                    }
                 }
+                depth--;
             }
         }
-        catch(Exception e){
-            e.printStackTrace();
-        }
     }
 
+    private static String getAttribute(XMLStreamReader reader, String name, String defaultValue){
+        String value = reader.getAttributeValue(null, name);
+        return value != null ? value : defaultValue;
+    }
 
+    /**
+     * State of a uiObj element while it gets parsed.
+     */
+    private static class UIObjState {
+        private final int depth;
+        private final String id;
+        private final String uiType;
+        private final String label;
+        private final ArrayList<UIControlAttribute> attributes = new ArrayList<>();
+        private Geometry geometry;
+        private boolean geometryChild;
+        private boolean firstGrandchild;
+
+        private UIObjState(XMLStreamReader reader, int depth){
+            this.depth = depth;
+            this.id = reader.getAttributeValue(null, "id");
+            this.uiType = reader.getAttributeValue(null, "uiType");
+            this.label = reader.getAttributeValue(null, "label");
+            // sorted by name, as the DOM parser used before returned them (StAX keeps the document order)
+            TreeMap<String, String> uiAttributes = new TreeMap<>();
+            for(int i = 0; i < reader.getAttributeCount(); i++) {
+                String prefix = reader.getAttributePrefix(i);
+                String name = reader.getAttributeLocalName(i);
+                if(prefix != null && !prefix.isEmpty()) name = prefix + ":" + name;
+                if(name.contains("_")) {
+                    uiAttributes.put(name, reader.getAttributeValue(i));
+                }
+            }
+            for(Map.Entry<String, String> attribute : uiAttributes.entrySet()) {
+                attributes.add(new UIControlAttribute(attribute.getKey(), attribute.getValue()));
+            }
+        }
+    }
 
     public String getId(){
         return id;
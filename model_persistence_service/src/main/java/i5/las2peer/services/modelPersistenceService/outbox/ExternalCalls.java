@@ -0,0 +1,123 @@
+package i5.las2peer.services.modelPersistenceService.outbox;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+import org.json.simple.JSONObject;
+
+import i5.las2peer.api.Context;
+import i5.las2peer.services.modelPersistenceService.chat.RocketChatConfig;
+import i5.las2peer.services.modelPersistenceService.chat.RocketChatHelper;
+
+/**
+ * The calls to other services that are sent via the outbox: which entries get written for them
+ * (with which idempotency keys) and the handlers that do the calls.
+ */
+public class ExternalCalls {
+
+	public static final String TARGET_CODE_GENERATION = "codeGeneration";
+	public static final String TARGET_API_TESTING_BOT = "apiTestingBot";
+
+	private static final String API_TESTING_BOT = "i5.las2peer.services.apiTestingBot.APITestingBot";
+
+	private static final String ACTION_CREATE_REPO = "createRepo";
+	private static final String ACTION_ADD_WEBHOOK = "addWebhook";
+	private static final String ACTION_API_DOC_CHANGES = "sendAPIDocChangesMessage";
+
+	/**
+	 * Adds the creation of the GitHub repository of a component to the outbox.
+	 * @param connection Connection object (of the transaction that creates the component).
+	 * @param repoName Name of the repository, e.g. "frontendComponent-12".
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	@SuppressWarnings("unchecked")
+	public static void createRepo(Connection connection, String repoName) throws SQLException {
+		JSONObject payload = new JSONObject();
+		payload.put("repoName", repoName);
+		Outbox.enqueue(connection, TARGET_CODE_GENERATION, ACTION_CREATE_REPO, "createRepo:" + repoName, payload);
+	}
+
+	/**
+	 * Adds the webhook, that posts the GitHub events of a repository to the RocketChat channel of the
+	 * project, to the outbox. The RocketChat integration of the channel gets created if it does not exist.
+	 * @param connection Connection object (of the transaction that creates the component).
+	 * @param repoName Name of the repository.
+	 * @param channelId Id of the RocketChat channel of the project.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	@SuppressWarnings("unchecked")
+	public static void addWebhook(Connection connection, String repoName, String channelId) throws SQLException {
+		JSONObject payload = new JSONObject();
+		payload.put("repoName", repoName);
+		payload.put("channelId", channelId);
+		Outbox.enqueue(connection, TARGET_CODE_GENERATION, ACTION_ADD_WEBHOOK, "addWebhook:" + repoName + ":" + channelId,
+				payload);
+	}
+
+	/**
+	 * Adds the message about the API changes of a commit (sent by the API testing bot) to the outbox.
+	 * @param connection Connection object (of the transaction of the commit).
+	 * @param commitId Id of the commit that changed the API.
+	 * @param oldSwaggerDoc Swagger doc before the commit.
+	 * @param swaggerDoc Swagger doc after the commit.
+	 * @param channelId Id of the RocketChat channel of the project.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	@SuppressWarnings("unchecked")
+	public static void sendAPIDocChangesMessage(Connection connection, int commitId, String oldSwaggerDoc,
+			String swaggerDoc, String channelId) throws SQLException {
+		JSONObject payload = new JSONObject();
+		payload.put("oldSwaggerDoc", oldSwaggerDoc);
+		payload.put("swaggerDoc", swaggerDoc);
+		payload.put("channelId", channelId);
+		Outbox.enqueue(connection, TARGET_API_TESTING_BOT, ACTION_API_DOC_CHANGES, "apiDocChanges:" + commitId, payload);
+	}
+
+	/**
+	 * Registers the handlers of the calls at the dispatcher.
+	 * @param dispatcher Dispatcher of the outbox.
+	 * @param codeGenerationService Name of the code generation service, calls to it are not registered if empty.
+	 * @param rocketChatConfig Supplies the RocketChat configuration used to look up and create integrations.
+	 */
+	public static void register(OutboxDispatcher dispatcher, String codeGenerationService,
+			Supplier<RocketChatConfig> rocketChatConfig) {
+		if(codeGenerationService != null && !codeGenerationService.isEmpty()) {
+			// creating repositories is slow and uses the GitHub API => only a few at a time
+			dispatcher.register(TARGET_CODE_GENERATION, 2, true,
+					entry -> callCodeGenerationService(entry, codeGenerationService, rocketChatConfig.get()));
+		}
+		dispatcher.register(TARGET_API_TESTING_BOT, 2, true, entry -> {
+			JSONObject payload = entry.getPayload();
+			Context.get().invoke(API_TESTING_BOT, ACTION_API_DOC_CHANGES, (String) payload.get("oldSwaggerDoc"),
+					(String) payload.get("swaggerDoc"), "CAEBot", "RocketChat", (String) payload.get("channelId"));
+			return null;
+		});
+	}
+
+	private static String callCodeGenerationService(OutboxEntry entry, String codeGenerationService,
+			RocketChatConfig rocketChatConfig) throws Exception {
+		JSONObject payload = entry.getPayload();
+		String repoName = (String) payload.get("repoName");
+		switch(entry.getAction()) {
+		case ACTION_CREATE_REPO:
+			Context.get().invoke(codeGenerationService, "createRepo", repoName);
+			return null;
+		case ACTION_ADD_WEBHOOK:
+			// reuse the integration of the channel, so that retries do not create more integrations
+			String channelId = (String) payload.get("channelId");
+			String webhookUrl = RocketChatHelper.getIntegrationWebhookUrl(rocketChatConfig, channelId);
+			if(webhookUrl == null) {
+				webhookUrl = new RocketChatHelper().createIntegration(rocketChatConfig, channelId);
+			}
+			if(webhookUrl == null) {
+				throw new IllegalStateException("Could not create RocketChat integration for channel " + channelId);
+			}
+			// fails (and gets retried) as long as the repository does not exist
+			Context.get().invoke(codeGenerationService, "addWebhook", repoName, webhookUrl);
+			return webhookUrl;
+		default:
+			throw new IllegalArgumentException("Unknown action " + entry.getAction());
+		}
+	}
+}
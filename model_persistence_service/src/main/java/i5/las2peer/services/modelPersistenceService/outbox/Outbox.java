@@ -0,0 +1,215 @@
+package i5.las2peer.services.modelPersistenceService.outbox;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+/**
+ * Access to the outbox (table Outbox), which contains the calls to external services (e.g. code
+ * generation, API testing bot) that still need to be done.
+ * Entries are written with the connection of the change that causes the call, so that the call only
+ * happens if the change got committed. The {@link OutboxDispatcher} sends them afterwards.
+ * Every entry has an idempotency key: an entry with a key that already exists is not added again, so
+ * retrying a request does not repeat the call.
+ * Status of an entry: pending (waiting for its next attempt), running (claimed by a dispatcher until
+ * nextAttemptAt, after that it can be claimed again), done or failed (no attempts left).
+ * A claim is identified by the attempts of the entry: a dispatcher can only finish or release an entry
+ * as long as it is running and was not claimed again by another dispatcher.
+ */
+public class Outbox {
+
+	public static final String STATUS_PENDING = "pending";
+	public static final String STATUS_RUNNING = "running";
+	public static final String STATUS_DONE = "done";
+	public static final String STATUS_FAILED = "failed";
+
+	/**
+	 * Maximum length of the stored error message and result.
+	 */
+	private static final int MAX_TEXT_LENGTH = 4000;
+
+	/**
+	 * Adds an entry to the outbox.
+	 * @param connection Connection object (of the transaction of the change that causes the call).
+	 * @param target Service that gets called, e.g. "codeGeneration".
+	 * @param action Action of the call, e.g. "createRepo".
+	 * @param idempotencyKey Key that identifies the call, e.g. "createRepo:frontendComponent-12".
+	 * @param payload Arguments of the call.
+	 * @return False if an entry with the given key exists already.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static boolean enqueue(Connection connection, String target, String action, String idempotencyKey,
+			JSONObject payload) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"INSERT IGNORE INTO Outbox (idempotencyKey, target, action, payload) VALUES (?, ?, ?, ?);");
+		statement.setString(1, idempotencyKey);
+		statement.setString(2, target);
+		statement.setString(3, action);
+		statement.setString(4, payload.toJSONString());
+		int inserted = statement.executeUpdate();
+		statement.close();
+		return inserted > 0;
+	}
+
+	/**
+	 * Claims due entries of the given target, oldest first. A claimed entry is running until the lease
+	 * expires; if the dispatcher does not finish it until then (e.g. the service stopped), it gets claimed again.
+	 * @param connection Connection object
+	 * @param target Service that gets called.
+	 * @param limit Maximum number of entries to claim.
+	 * @param leaseSeconds Time (in seconds) the entries are reserved for the caller.
+	 * @return The claimed entries (with their attempts already increased).
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static List<OutboxEntry> claimDue(Connection connection, String target, int limit, int leaseSeconds) throws SQLException {
+		List<OutboxEntry> due = new ArrayList<>();
+		PreparedStatement statement = connection.prepareStatement("SELECT id, idempotencyKey, action, payload, attempts FROM Outbox "
+				+ "WHERE target = ? AND status IN (?, ?) AND nextAttemptAt <= NOW() ORDER BY id LIMIT ?;");
+		statement.setString(1, target);
+		statement.setString(2, STATUS_PENDING);
+		statement.setString(3, STATUS_RUNNING);
+		statement.setInt(4, limit);
+		ResultSet queryResult = statement.executeQuery();
+		while(queryResult.next()) {
+			due.add(new OutboxEntry(queryResult.getInt(1), queryResult.getString(2), target, queryResult.getString(3),
+					(JSONObject) JSONValue.parse(queryResult.getString(4)), queryResult.getInt(5)));
+		}
+		statement.close();
+
+		// another dispatcher (e.g. of another node) might claim the same entries => only keep the ones whose
+		// attempts did not change in the meantime
+		List<OutboxEntry> claimed = new ArrayList<>();
+		statement = connection.prepareStatement("UPDATE Outbox SET status = ?, attempts = attempts + 1, "
+				+ "nextAttemptAt = TIMESTAMPADD(SECOND, ?, NOW()) WHERE id = ? AND attempts = ?;");
+		try {
+			for(OutboxEntry entry : due) {
+				statement.setString(1, STATUS_RUNNING);
+				statement.setInt(2, leaseSeconds);
+				statement.setInt(3, entry.getId());
+				statement.setInt(4, entry.getAttempts());
+				if(statement.executeUpdate() == 1) {
+					claimed.add(entry.claimed());
+				}
+			}
+		} finally {
+			statement.close();
+		}
+		return claimed;
+	}
+
+	/**
+	 * Marks the claimed entry as done.
+	 * @param connection Connection object
+	 * @param entry Entry as returned by {@link #claimDue(Connection, String, int, int)}.
+	 * @param result Result of the call (e.g. the url of a created webhook), may be null.
+	 * @return False if the caller does not hold the claim anymore (the entry is left unchanged then).
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static boolean markDone(Connection connection, OutboxEntry entry, String result) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"UPDATE Outbox SET status = ?, result = ?, lastError = NULL WHERE id = ? AND attempts = ? AND status = ?;");
+		statement.setString(1, STATUS_DONE);
+		statement.setString(2, truncate(result));
+		statement.setInt(3, entry.getId());
+		statement.setInt(4, entry.getAttempts());
+		statement.setString(5, STATUS_RUNNING);
+		int updated = statement.executeUpdate();
+		statement.close();
+		return updated > 0;
+	}
+
+	/**
+	 * Records a failed attempt of the claimed entry. The entry gets retried after the given delay, or
+	 * marks it as failed if there is no attempt left.
+	 * @param connection Connection object
+	 * @param entry Entry as returned by {@link #claimDue(Connection, String, int, int)}.
+	 * @param error Error message of the attempt.
+	 * @param retryAfterSeconds Delay until the next attempt, negative if the entry should not be retried.
+	 * @return False if the caller does not hold the claim anymore (the entry is left unchanged then).
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static boolean markFailed(Connection connection, OutboxEntry entry, String error, int retryAfterSeconds)
+			throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("UPDATE Outbox SET status = ?, lastError = ?, "
+				+ "nextAttemptAt = TIMESTAMPADD(SECOND, ?, NOW()) WHERE id = ? AND attempts = ? AND status = ?;");
+		statement.setString(1, retryAfterSeconds < 0 ? STATUS_FAILED : STATUS_PENDING);
+		statement.setString(2, truncate(error));
+		statement.setInt(3, Math.max(retryAfterSeconds, 0));
+		statement.setInt(4, entry.getId());
+		statement.setInt(5, entry.getAttempts());
+		statement.setString(6, STATUS_RUNNING);
+		int updated = statement.executeUpdate();
+		statement.close();
+		return updated > 0;
+	}
+
+	/**
+	 * Gives a claimed entry back without counting the attempt, e.g. if its call could not be started.
+	 * @param connection Connection object
+	 * @param entry Entry as returned by {@link #claimDue(Connection, String, int, int)}.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static void release(Connection connection, OutboxEntry entry) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("UPDATE Outbox SET status = ?, "
+				+ "attempts = attempts - 1, nextAttemptAt = NOW() WHERE id = ? AND attempts = ? AND status = ?;");
+		statement.setString(1, STATUS_PENDING);
+		statement.setInt(2, entry.getId());
+		statement.setInt(3, entry.getAttempts());
+		statement.setString(4, STATUS_RUNNING);
+		statement.executeUpdate();
+		statement.close();
+	}
+
+	/**
+	 * Deletes done entries that are older than the given number of days. Their idempotency keys
+	 * are released by this, so it should be much longer than a request could be retried.
+	 * @param connection Connection object
+	 * @param days Age (in days) of the entries that get deleted.
+	 * @return Number of deleted entries.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static int deleteDone(Connection connection, int days) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"DELETE FROM Outbox WHERE status = ? AND createdAt < TIMESTAMPADD(DAY, ?, NOW());");
+		statement.setString(1, STATUS_DONE);
+		statement.setInt(2, -days);
+		int deleted = statement.executeUpdate();
+		statement.close();
+		return deleted;
+	}
+
+	/**
+	 * Returns the number of entries per target and status, e.g. {"codeGeneration": {"pending": 2, "done": 40}}.
+	 * @param connection Connection object
+	 * @return Number of entries per target and status.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	@SuppressWarnings("unchecked")
+	public static JSONObject countByStatus(Connection connection) throws SQLException {
+		JSONObject counts = new JSONObject();
+		PreparedStatement statement = connection.prepareStatement(
+				"SELECT target, status, COUNT(*) FROM Outbox GROUP BY target, status;");
+		ResultSet queryResult = statement.executeQuery();
+		while(queryResult.next()) {
+			JSONObject targetCounts = (JSONObject) counts.get(queryResult.getString(1));
+			if(targetCounts == null) {
+				targetCounts = new JSONObject();
+				counts.put(queryResult.getString(1), targetCounts);
+			}
+			targetCounts.put(queryResult.getString(2), queryResult.getLong(3));
+		}
+		statement.close();
+		return counts;
+	}
+
+	private static String truncate(String text) {
+		if(text == null || text.length() <= MAX_TEXT_LENGTH) return text;
+		return text.substring(0, MAX_TEXT_LENGTH);
+	}
+}
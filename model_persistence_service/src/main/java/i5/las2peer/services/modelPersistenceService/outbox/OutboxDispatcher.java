@@ -0,0 +1,288 @@
+package i5.las2peer.services.modelPersistenceService.outbox;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+
+import i5.las2peer.logging.L2pLogger;
+import i5.las2peer.services.modelPersistenceService.database.DatabaseManager;
+import i5.las2peer.services.modelPersistenceService.metrics.ServiceMetrics;
+
+/**
+ * Sends the calls of the outbox (see {@link Outbox}) in the background, so that requests do not wait
+ * for external services. Every target (e.g. "codeGeneration") has a handler and a limit of concurrent
+ * calls. Failed calls are retried with exponential backoff until they succeed or no attempt is left.
+ *
+ * Calls of other las2peer services need an execution context. Handlers that need it are run with the
+ * executor given to {@link #start(long, Executor)}, which should belong to a context of the service itself
+ * (see ServiceContext), because the context of the request that caused a call is gone when it gets sent.
+ */
+public class OutboxDispatcher {
+
+	public static final int MAX_ATTEMPTS = 10;
+
+	private static final long BASE_BACKOFF_SECONDS = 10;
+	private static final long MAX_BACKOFF_SECONDS = 60 * 60;
+
+	/**
+	 * Time a claimed entry is reserved for this dispatcher. Needs to be longer than a call can take.
+	 */
+	private static final int LEASE_SECONDS = 5 * 60;
+
+	/**
+	 * Done entries are kept this long, so that their idempotency keys prevent duplicate calls.
+	 */
+	private static final int KEEP_DONE_DAYS = 7;
+
+	private final DatabaseManager dbm;
+	private final ServiceMetrics metrics;
+	private final L2pLogger logger;
+	private final Map<String, Target> targets = new ConcurrentHashMap<>();
+
+	private ScheduledExecutorService scheduler;
+	private ExecutorService workers;
+	private Executor contextExecutor;
+
+	public OutboxDispatcher(DatabaseManager dbm, ServiceMetrics metrics, L2pLogger logger) {
+		this.dbm = dbm;
+		this.metrics = metrics;
+		this.logger = logger;
+	}
+
+	/**
+	 * Registers the handler of a target.
+	 * @param target Name of the target, as used in the outbox entries.
+	 * @param maxConcurrency Maximum number of calls to the target that run at the same time.
+	 * @param needsContext Whether the handler invokes other las2peer services and thus needs an execution context.
+	 * @param handler Handler that does the call.
+	 */
+	public void register(String target, int maxConcurrency, boolean needsContext, Handler handler) {
+		this.targets.put(target, new Target(target, maxConcurrency, needsContext, handler));
+	}
+
+	/**
+	 * Starts sending the calls periodically in a background thread.
+	 * @param intervalSeconds Time between two checks for due calls.
+	 * @param contextExecutor Executor that runs the handlers which need an execution context.
+	 */
+	public synchronized void start(long intervalSeconds, Executor contextExecutor) {
+		if(this.scheduler != null) return;
+		this.contextExecutor = contextExecutor;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "outbox-dispatcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.workers = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "outbox-worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.scheduler.scheduleWithFixedDelay(this::dispatch, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+		this.scheduler.scheduleWithFixedDelay(this::deleteDone, 1, 24, TimeUnit.HOURS);
+	}
+
+	public synchronized void stop() {
+		if(this.scheduler != null) {
+			this.scheduler.shutdownNow();
+			this.workers.shutdownNow();
+			this.scheduler = null;
+			this.workers = null;
+		}
+	}
+
+	/**
+	 * Sends the due calls right away (in the background), e.g. after a request added entries to the outbox.
+	 */
+	public synchronized void wakeUp() {
+		if(this.scheduler != null) {
+			this.scheduler.execute(this::dispatch);
+		}
+	}
+
+	/**
+	 * Claims the due entries of every target (as many as the target has free slots) and starts their calls.
+	 */
+	void dispatch() {
+		Executor contextExecutor;
+		Executor workers;
+		synchronized (this) {
+			contextExecutor = this.contextExecutor;
+			workers = this.workers;
+		}
+		for(Target target : this.targets.values()) {
+			Executor executor = target.needsContext ? contextExecutor : workers;
+			int free = target.slots.availablePermits();
+			if(executor == null || free <= 0) continue;
+
+			List<OutboxEntry> entries;
+			Connection connection = null;
+			try {
+				connection = this.dbm.getConnection();
+				entries = Outbox.claimDue(connection, target.name, free, LEASE_SECONDS);
+			} catch (SQLException e) {
+				this.logger.printStackTrace(e);
+				return;
+			} finally {
+				close(connection);
+			}
+
+			for(OutboxEntry entry : entries) {
+				target.slots.acquireUninterruptibly();
+				try {
+					executor.execute(() -> this.send(target, entry));
+				} catch (RejectedExecutionException e) {
+					// the dispatcher got stopped, the call was not tried => does not count as attempt
+					target.slots.release();
+					this.release(entry);
+				}
+			}
+		}
+	}
+
+	private void send(Target target, OutboxEntry entry) {
+		try {
+			String result = target.handler.handle(entry);
+			this.finish(entry, null, 0, result);
+			this.metrics.increment("outbox." + target.name + ".done");
+		} catch (Exception e) {
+			boolean retry = entry.getAttempts() < MAX_ATTEMPTS;
+			this.logger.warning("Outbox call " + entry.getIdempotencyKey() + " failed (attempt " + entry.getAttempts() + "): " + e);
+			this.finish(entry, String.valueOf(e.getMessage()), retry ? backoffSeconds(entry.getAttempts()) : -1);
+			this.metrics.increment("outbox." + target.name + (retry ? ".retried" : ".failed"));
+		} finally {
+			target.slots.release();
+		}
+	}
+
+	private void finish(OutboxEntry entry, String error, int retryAfterSeconds) {
+		this.finish(entry, error, retryAfterSeconds, null);
+	}
+
+	private void finish(OutboxEntry entry, String error, int retryAfterSeconds, String result) {
+		Connection connection = null;
+		try {
+			connection = this.dbm.getConnection();
+			boolean claimed = error == null ? Outbox.markDone(connection, entry, result)
+					: Outbox.markFailed(connection, entry, error, retryAfterSeconds);
+			if(!claimed) {
+				// the call took longer than the lease, the entry got claimed again in the meantime
+				this.logger.warning("Outbox call " + entry.getIdempotencyKey() + " finished after its lease expired (attempt "
+						+ entry.getAttempts() + ")");
+			}
+		} catch (SQLException e) {
+			// the entry gets claimed again after its lease expired
+			this.logger.printStackTrace(e);
+		} finally {
+			close(connection);
+		}
+	}
+
+	private void release(OutboxEntry entry) {
+		Connection connection = null;
+		try {
+			connection = this.dbm.getConnection();
+			Outbox.release(connection, entry);
+		} catch (SQLException e) {
+			// the entry gets claimed again after its lease expired
+			this.logger.printStackTrace(e);
+		} finally {
+			close(connection);
+		}
+	}
+
+	private void deleteDone() {
+		Connection connection = null;
+		try {
+			connection = this.dbm.getConnection();
+			Outbox.deleteDone(connection, KEEP_DONE_DAYS);
+		} catch (SQLException e) {
+			this.logger.printStackTrace(e);
+		} finally {
+			close(connection);
+		}
+	}
+
+	/**
+	 * Returns the delay before the next attempt: doubles with every attempt (10s, 20s, 40s, ...) up to
+	 * one hour, with some jitter so that failed calls to the same target do not all retry at once.
+	 * @param attempts Number of attempts so far.
+	 * @return Delay in seconds.
+	 */
+	static int backoffSeconds(int attempts) {
+		long backoff = Math.min(MAX_BACKOFF_SECONDS, BASE_BACKOFF_SECONDS << Math.min(Math.max(attempts - 1, 0), 20));
+		return (int) (backoff + ThreadLocalRandom.current().nextLong(backoff / 5 + 1));
+	}
+
+	/**
+	 * Returns the number of outbox entries per target and status and the number of running calls.
+	 * @return JSON representation of the outbox state.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	@SuppressWarnings("unchecked")
+	public JSONObject toJSONObject() throws SQLException {
+		JSONObject running = new JSONObject();
+		for(Target target : this.targets.values()) {
+			running.put(target.name, target.maxConcurrency - target.slots.availablePermits());
+		}
+		JSONObject json = new JSONObject();
+		Connection connection = null;
+		try {
+			connection = this.dbm.getConnection();
+			json.put("entries", Outbox.countByStatus(connection));
+		} finally {
+			close(connection);
+		}
+		json.put("runningCalls", running);
+		return json;
+	}
+
+	private void close(Connection connection) {
+		try {
+			if(connection != null) connection.close();
+		} catch (SQLException e) {
+			this.logger.printStackTrace(e);
+		}
+	}
+
+	/**
+	 * Does the call of an outbox entry.
+	 */
+	@FunctionalInterface
+	public interface Handler {
+		/**
+		 * @param entry Entry whose call should be done.
+		 * @return Result that gets stored with the entry (e.g. an id created by the call), may be null.
+		 * @throws Exception If the call failed, it gets retried later.
+		 */
+		String handle(OutboxEntry entry) throws Exception;
+	}
+
+	private static class Target {
+		private final String name;
+		private final int maxConcurrency;
+		private final boolean needsContext;
+		private final Handler handler;
+		private final Semaphore slots;
+
+		private Target(String name, int maxConcurrency, boolean needsContext, Handler handler) {
+			this.name = name;
+			this.maxConcurrency = maxConcurrency;
+			this.needsContext = needsContext;
+			this.handler = handler;
+			this.slots = new Semaphore(maxConcurrency);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package i5.las2peer.services.modelPersistenceService.outbox;
+
+import org.json.simple.JSONObject;
+
+/**
+ * A call to an external service that is stored in the outbox.
+ */
+public class OutboxEntry {
+
+	private final int id;
+	private final String idempotencyKey;
+	private final String target;
+	private final String action;
+	private final JSONObject payload;
+	private final int attempts;
+
+	public OutboxEntry(int id, String idempotencyKey, String target, String action, JSONObject payload, int attempts) {
+		this.id = id;
+		this.idempotencyKey = idempotencyKey;
+		this.target = target;
+		this.action = action;
+		this.payload = payload;
+		this.attempts = attempts;
+	}
+
+	/**
+	 * Returns the entry after it got claimed for a new attempt.
+	 * @return Entry with increased attempts.
+	 */
+	OutboxEntry claimed() {
+		return new OutboxEntry(this.id, this.idempotencyKey, this.target, this.action, this.payload, this.attempts + 1);
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public String getIdempotencyKey() {
+		return idempotencyKey;
+	}
+
+	public String getTarget() {
+		return target;
+	}
+
+	public String getAction() {
+		return action;
+	}
+
+	public JSONObject getPayload() {
+		return payload;
+	}
+
+	/**
+	 * Number of attempts so far (including the current one, once the entry got claimed).
+	 * @return Number of attempts.
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+}
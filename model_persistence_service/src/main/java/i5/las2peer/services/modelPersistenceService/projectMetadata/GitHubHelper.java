@@ -1,19 +1,22 @@
 package i5.las2peer.services.modelPersistenceService.projectMetadata;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
 import org.json.simple.parser.ParseException;
 
+import i5.las2peer.services.modelPersistenceService.cache.ExpiringCache;
 import i5.las2peer.services.modelPersistenceService.exception.GitHubException;
+import i5.las2peer.services.modelPersistenceService.http.GitHubRateLimit;
+import i5.las2peer.services.modelPersistenceService.http.GitHubRateLimit.Priority;
+import i5.las2peer.services.modelPersistenceService.http.SharedHttpClient;
+import i5.las2peer.services.modelPersistenceService.metrics.ServiceMetrics;
 
 /**
  * Helper class for working with GitHub API.
@@ -26,6 +29,41 @@ public class GitHubHelper {
 
 	private static final String API_BASE_URL = "https://api.github.com";
 
+	/**
+	 * Maximum number of tags that are requested per page (the maximum allowed by GitHub).
+	 */
+	private static final int TAGS_PER_PAGE = 100;
+
+	/**
+	 * Maximum number of pages that are loaded, protects against endless pagination.
+	 */
+	private static final int MAX_PAGES = 50;
+
+	/**
+	 * Maximum number of tag pages that are kept for conditional requests.
+	 */
+	private static final int MAX_CACHED_PAGES = 500;
+
+	/**
+	 * Tag pages with their ETag by url. Requesting them again with If-None-Match returns
+	 * "304 Not Modified" if the tags did not change, which does not count against the rate limit.
+	 */
+	private static final ExpiringCache<String, TagPage> tagPages = new ExpiringCache<>(MAX_CACHED_PAGES, 0);
+
+	private static volatile String personalAccessToken;
+	private static volatile GitHubRateLimit rateLimit = new GitHubRateLimit(new ServiceMetrics());
+
+	/**
+	 * Sets the token that is used to authenticate the requests (which raises the rate limit) and the
+	 * tracker of its rate limit, which might be shared with other users of the token.
+	 * @param token Personal access token, the requests are sent unauthenticated if it is null or empty.
+	 * @param tokenRateLimit Rate limit of the token.
+	 */
+	public static void configure(String token, GitHubRateLimit tokenRateLimit) {
+		personalAccessToken = token;
+		rateLimit = tokenRateLimit;
+	}
+
 	/**
 	 * Returns an ArrayList containing the version tags of the given repository as strings.
 	 * @param repoOwner Owner/account on GitHub where the repository is hosted.
@@ -34,32 +72,65 @@ public class GitHubHelper {
 	 * @throws GitHubException If something with the API request went wrong.
 	 */
 	public static ArrayList<String> getRepoVersionTags(String repoOwner, String repoName) throws GitHubException {
+		return getRepoVersionTags(API_BASE_URL, repoOwner, repoName);
+	}
+
+	/**
+	 * Returns an ArrayList containing the version tags of the given repository as strings.
+	 * Follows the pagination of the GitHub API (Link header), so that repositories with many
+	 * tags return all of them and not only the first page. Pages are requested conditionally with
+	 * their ETag and with low priority, i.e. they are not requested if the rate limit gets low.
+	 * @param apiBaseUrl Base url of the GitHub API.
+	 * @param repoOwner Owner/account on GitHub where the repository is hosted.
+	 * @param repoName Name of the GitHub repository.
+	 * @return ArrayList containing the version tags of the repository as strings.
+	 * @throws GitHubException If something with the API request went wrong.
+	 */
+	public static ArrayList<String> getRepoVersionTags(String apiBaseUrl, String repoOwner, String repoName) throws GitHubException {
 		ArrayList<String> tags = new ArrayList<>();
-		URL url;
+		SharedHttpClient client = SharedHttpClient.getInstance();
+		String url = apiBaseUrl + "/repos/" + repoOwner + "/" + repoName + "/tags?per_page=" + TAGS_PER_PAGE;
 		try {
-			url = new URL(API_BASE_URL + "/repos/" + repoOwner + "/" + repoName + "/tags");
-			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-			connection.setRequestMethod("GET");
-			connection.setDoInput(true);
-			connection.connect();
-			
-			// forward (in case of) error
-			if (connection.getResponseCode() != 200) {
-				String message = getErrorMessage(connection);
-				throw new GitHubException(message);
-			} else {
-				// get response
-				String response = getResponseBody(connection);
-							
-				// convert to JSONObject
-				JSONArray json = (JSONArray) JSONValue.parseWithException(response);
+			for(int page = 0; url != null && page < MAX_PAGES; page++) {
+				TagPage cached = tagPages.get(url);
+				HttpRequest.Builder request = client.request(url).header("Accept", "application/vnd.github+json").GET();
+				if (cached != null) {
+					request.header("If-None-Match", cached.etag);
+				}
+				String token = personalAccessToken;
+				if (token != null && !token.isEmpty()) {
+					request.header("Authorization", "token " + token);
+				}
+				GitHubRateLimit tokenRateLimit = rateLimit;
+				tokenRateLimit.acquire(Priority.LOW);
+				HttpResponse<InputStream> response = client.send(request.build());
+				tokenRateLimit.update(response.statusCode(), response.headers());
+
+				if (response.statusCode() == 304 && cached != null) {
+					SharedHttpClient.discard(response);
+					tags.addAll(cached.tags);
+					url = cached.nextLink;
+					continue;
+				}
+				// forward (in case of) error
+				if (response.statusCode() != 200) {
+					throw new GitHubException("Error: " + SharedHttpClient.readErrorBody(response));
+				}
+				String nextLink = SharedHttpClient.getNextLink(response);
+				ArrayList<String> pageTags = new ArrayList<>();
+				JSONArray json = (JSONArray) SharedHttpClient.readJSON(response);
 				for(Object o : json) {
 					JSONObject tag = (JSONObject) o;
-					tags.add((String) tag.get("name"));
+					pageTags.add((String) tag.get("name"));
 				}
-				return tags;
+				String pageUrl = url;
+				response.headers().firstValue("ETag").ifPresent(etag -> tagPages.put(pageUrl, new TagPage(etag, pageTags, nextLink)));
+				tags.addAll(pageTags);
+				url = nextLink;
 			}
-		} catch (MalformedURLException e) {
+			return tags;
+		} catch (IllegalArgumentException e) {
+			// invalid url
 			e.printStackTrace();
 			throw new GitHubException(e.getMessage());
 		} catch (IOException e) {
@@ -70,36 +141,16 @@ public class GitHubHelper {
 			throw new GitHubException(e.getMessage());
 		}
 	}
-	
-	/**
-	 * Extracts the error message from the response.
-	 * @param connection HttpURLConnection object
-	 * @return Error message as String.
-	 * @throws IOException
-	 */
-	private static String getErrorMessage(HttpURLConnection connection) throws IOException {
-		String message = "Error: ";
-		BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getErrorStream()));
-		for (String line; (line = reader.readLine()) != null;) {
-			message += line;
-		}
-		reader.close();
-		return message;
-	}
-	
-	/**
-	 * Getter for the body of the response.
-	 * @param connection HttpURLConnection object
-	 * @return Body of the response as string.
-	 * @throws IOException
-	 */
-	private static String getResponseBody(HttpURLConnection connection) throws IOException {
-		String response = "";
-		BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-		for (String line; (line = reader.readLine()) != null;) {
-			response += line;
+
+	private static class TagPage {
+		private final String etag;
+		private final List<String> tags;
+		private final String nextLink;
+
+		private TagPage(String etag, List<String> tags, String nextLink) {
+			this.etag = etag;
+			this.tags = tags;
+			this.nextLink = nextLink;
 		}
-		reader.close();
-		return response;
 	}
-}
\ No newline at end of file
+}
@@ -1,6 +1,5 @@
 package i5.las2peer.services.modelPersistenceService.projectMetadata;
 
-import java.io.Serializable;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -12,6 +11,7 @@ import org.json.simple.JSONObject;
 
 import i5.las2peer.api.Context;
 import i5.las2peer.api.security.UserAgent;
+import i5.las2peer.services.modelPersistenceService.outbox.ExternalCalls;
 
 public class ProjectMetadata {
 
@@ -40,6 +40,16 @@ public class ProjectMetadata {
 	 */
 	private ArrayList<ExternalDependency> externalDependencies;
 	
+	/**
+	 * Creates the initial metadata of a new project, including its (empty) application component.
+	 * The creation of the GitHub repository of the component gets added to the outbox, so the connection
+	 * should belong to a transaction that only gets committed if the whole project could be set up.
+	 * @param connection Connection object
+	 * @param projectName Name of the project.
+	 * @param projectCreatorAgentId Id of the agent that created the project.
+	 * @param codeGenService Name of the code generation service (no repository gets created if empty).
+	 * @throws SQLException If something with the database went wrong.
+	 */
 	public ProjectMetadata(Connection connection, String projectName, String projectCreatorAgentId, String codeGenService) throws SQLException {
 	    this.roles = PredefinedRoles.get();	
 	    
@@ -62,12 +72,9 @@ public class ProjectMetadata {
 		// create versioned model for the component
 		applicationComponent.createEmptyVersionedModel(connection, false);
 
-		// create GitHub repo
-		String repoName = "application-" +  applicationComponent.getVersionedModelId();
-		try {
-			Context.get().invoke(codeGenService, "createRepo", new Serializable[] { repoName });
-		} catch (Exception e) {
-
+		// create GitHub repo (in the background, after the versioned model got stored)
+		if(codeGenService != null && !codeGenService.isEmpty()) {
+			ExternalCalls.createRepo(connection, "application-" + applicationComponent.getVersionedModelId());
 		}
 
 		// also create category in Requirements Bazaar
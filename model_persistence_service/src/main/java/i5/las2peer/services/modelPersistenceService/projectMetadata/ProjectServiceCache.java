@@ -0,0 +1,241 @@
+package i5.las2peer.services.modelPersistenceService.projectMetadata;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+import i5.las2peer.api.Context;
+import i5.las2peer.api.execution.InternalServiceException;
+import i5.las2peer.api.execution.ServiceAccessDeniedException;
+import i5.las2peer.api.execution.ServiceInvocationFailedException;
+import i5.las2peer.api.execution.ServiceMethodNotFoundException;
+import i5.las2peer.api.execution.ServiceNotAuthorizedException;
+import i5.las2peer.api.execution.ServiceNotAvailableException;
+import i5.las2peer.api.execution.ServiceNotFoundException;
+import i5.las2peer.services.modelPersistenceService.ModelPersistenceService;
+import i5.las2peer.services.modelPersistenceService.cache.ExpiringCache;
+
+/**
+ * Caching facade for the RMI calls to the las2peer-project-service.
+ * Project metadata, chat info and access checks are kept for a short time, so that a request
+ * does not need to call the project service multiple times. Concurrent lookups of the same entry
+ * are coalesced into a single RMI call. The cached metadata of a project gets invalidated whenever
+ * it is changed via {@link #changeMetadata(String, JSONObject)}.
+ */
+public class ProjectServiceCache {
+
+	private static final long METADATA_TTL_MILLIS = 30 * 1000L;
+	private static final long CHAT_INFO_TTL_MILLIS = 5 * 60 * 1000L;
+	private static final long ACCESS_TTL_MILLIS = 60 * 1000L;
+	private static final int MAX_ENTRIES = 1000;
+
+	/**
+	 * Metadata by project name. Stored as JSON string, so that every caller gets its own copy that it may modify.
+	 */
+	private final ExpiringCache<String, String> metadata;
+
+	/**
+	 * Chat info by project name (stored as JSON string).
+	 */
+	private final ExpiringCache<String, String> chatInfo;
+
+	/**
+	 * Result of access checks by agent id and project name.
+	 */
+	private final ExpiringCache<String, Boolean> access;
+
+	/**
+	 * Lookups that are currently running, by cache key.
+	 */
+	private final ConcurrentHashMap<String, CompletableFuture<Object>> pendingLookups = new ConcurrentHashMap<>();
+
+	private final ProjectService projectService;
+	private final Supplier<String> mainAgentId;
+
+	/**
+	 * Creates a new cache that calls the project service in the current las2peer context.
+	 */
+	public ProjectServiceCache() {
+		this((method, parameters) -> Context.get().invoke(ModelPersistenceService.PROJECT_SERVICE, method, parameters),
+				() -> Context.get().getMainAgent().getIdentifier(), METADATA_TTL_MILLIS, CHAT_INFO_TTL_MILLIS,
+				ACCESS_TTL_MILLIS);
+	}
+
+	/**
+	 * Creates a new cache.
+	 * @param projectService Calls the project service.
+	 * @param mainAgentId Returns the id of the main agent of the current request (used for the access checks).
+	 * @param metadataTtlMillis Time (in ms) for which the metadata of a project is cached.
+	 * @param chatInfoTtlMillis Time (in ms) for which the chat info of a project is cached.
+	 * @param accessTtlMillis Time (in ms) for which the result of an access check is cached.
+	 */
+	ProjectServiceCache(ProjectService projectService, Supplier<String> mainAgentId, long metadataTtlMillis,
+			long chatInfoTtlMillis, long accessTtlMillis) {
+		this.projectService = projectService;
+		this.mainAgentId = mainAgentId;
+		this.metadata = new ExpiringCache<>(MAX_ENTRIES, metadataTtlMillis);
+		this.chatInfo = new ExpiringCache<>(MAX_ENTRIES, chatInfoTtlMillis);
+		this.access = new ExpiringCache<>(MAX_ENTRIES, accessTtlMillis);
+	}
+
+	/**
+	 * Returns the metadata of the project (may be up to a few seconds old).
+	 * @param projectName Name of the project.
+	 * @return Metadata of the project.
+	 */
+	public JSONObject getProjectMetadata(String projectName) throws ServiceNotFoundException, ServiceNotAvailableException,
+			InternalServiceException, ServiceMethodNotFoundException, ServiceInvocationFailedException,
+			ServiceAccessDeniedException, ServiceNotAuthorizedException {
+		String cached = this.metadata.get(projectName);
+		if(cached == null) {
+			cached = (String) lookup("metadata/" + projectName, () -> loadProjectMetadata(projectName));
+		}
+		return (JSONObject) JSONValue.parse(cached);
+	}
+
+	/**
+	 * Fetches the current metadata of the project from the project service (and updates the cache).
+	 * Should be used if the metadata gets changed afterwards, because the project service compares
+	 * the old metadata with the current one.
+	 * @param projectName Name of the project.
+	 * @return Current metadata of the project.
+	 */
+	public JSONObject getCurrentProjectMetadata(String projectName) throws ServiceNotFoundException, ServiceNotAvailableException,
+			InternalServiceException, ServiceMethodNotFoundException, ServiceInvocationFailedException,
+			ServiceAccessDeniedException, ServiceNotAuthorizedException {
+		return (JSONObject) JSONValue.parse(loadProjectMetadata(projectName));
+	}
+
+	/**
+	 * Returns the chat info (e.g. the RocketChat channel) of the project.
+	 * @param projectName Name of the project.
+	 * @return Chat info of the project.
+	 */
+	public JSONObject getProjectChatInfo(String projectName) throws ServiceNotFoundException, ServiceNotAvailableException,
+			InternalServiceException, ServiceMethodNotFoundException, ServiceInvocationFailedException,
+			ServiceAccessDeniedException, ServiceNotAuthorizedException {
+		String cached = this.chatInfo.get(projectName);
+		if(cached == null) {
+			cached = (String) lookup("chatInfo/" + projectName, () -> {
+				JSONObject result = (JSONObject) this.projectService.invoke("getProjectChatInfo", "CAE", projectName);
+				String json = result.toJSONString();
+				this.chatInfo.put(projectName, json);
+				return json;
+			});
+		}
+		return (JSONObject) JSONValue.parse(cached);
+	}
+
+	/**
+	 * Checks whether the main agent of the current context has access to the project.
+	 * @param projectName Name of the project.
+	 * @return Whether the agent has access to the project.
+	 */
+	public boolean hasAccessToProject(String projectName) throws ServiceNotFoundException, ServiceNotAvailableException,
+			InternalServiceException, ServiceMethodNotFoundException, ServiceInvocationFailedException,
+			ServiceAccessDeniedException, ServiceNotAuthorizedException {
+		String key = this.mainAgentId.get() + "/" + projectName;
+		Boolean cached = this.access.get(key);
+		if(cached == null) {
+			cached = (Boolean) lookup("access/" + key, () -> {
+				Boolean result = (boolean) this.projectService.invoke("hasAccessToProject", "CAE", projectName);
+				this.access.put(key, result);
+				return result;
+			});
+		}
+		return cached;
+	}
+
+	/**
+	 * Sends the given metadata change to the project service and invalidates the cached metadata of the project.
+	 * @param projectName Name of the project.
+	 * @param change JSON containing projectName, oldMetadata and newMetadata.
+	 * @return Whether the project service accepted the change.
+	 */
+	public boolean changeMetadata(String projectName, JSONObject change) throws ServiceNotFoundException, ServiceNotAvailableException,
+			InternalServiceException, ServiceMethodNotFoundException, ServiceInvocationFailedException,
+			ServiceAccessDeniedException, ServiceNotAuthorizedException {
+		try {
+			return (boolean) this.projectService.invoke("changeMetadataRMI", "CAE", change.toJSONString());
+		} finally {
+			this.metadata.invalidate(projectName);
+		}
+	}
+
+	/**
+	 * Removes all cached entries of the given project (e.g. when the project got deleted).
+	 * @param projectName Name of the project.
+	 */
+	public void invalidateProject(String projectName) {
+		this.metadata.invalidate(projectName);
+		this.chatInfo.invalidate(projectName);
+		this.access.invalidateIf(key -> key.endsWith("/" + projectName));
+	}
+
+	private String loadProjectMetadata(String projectName) throws ServiceNotFoundException, ServiceNotAvailableException,
+			InternalServiceException, ServiceMethodNotFoundException, ServiceInvocationFailedException,
+			ServiceAccessDeniedException, ServiceNotAuthorizedException {
+		JSONObject result = (JSONObject) this.projectService.invoke("getProjectMetadataRMI", "CAE", projectName);
+		String json = result.toJSONString();
+		this.metadata.put(projectName, json);
+		return json;
+	}
+
+	/**
+	 * Runs the given lookup, unless the same lookup is already running. In that case the result of the
+	 * running lookup is used. If the running lookup fails, the lookup is repeated by the caller itself, so
+	 * that every caller gets its own exception.
+	 * @param key Key identifying the lookup.
+	 * @param lookup Lookup that calls the project service (and stores the result in the cache).
+	 * @return Result of the lookup.
+	 */
+	private Object lookup(String key, Lookup lookup) throws ServiceNotFoundException, ServiceNotAvailableException,
+			InternalServiceException, ServiceMethodNotFoundException, ServiceInvocationFailedException,
+			ServiceAccessDeniedException, ServiceNotAuthorizedException {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		CompletableFuture<Object> running = this.pendingLookups.putIfAbsent(key, future);
+		if(running != null) {
+			try {
+				return running.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				// running lookup failed, try again below
+			}
+			return lookup.run();
+		}
+
+		try {
+			Object result = lookup.run();
+			future.complete(result);
+			return result;
+		} finally {
+			if(!future.isDone()) {
+				future.completeExceptionally(new IllegalStateException("Lookup " + key + " failed."));
+			}
+			this.pendingLookups.remove(key, future);
+		}
+	}
+
+	/**
+	 * Call of a method of the project service.
+	 */
+	@FunctionalInterface
+	interface ProjectService {
+		Object invoke(String method, Serializable... parameters) throws ServiceNotFoundException,
+				ServiceNotAvailableException, InternalServiceException, ServiceMethodNotFoundException,
+				ServiceInvocationFailedException, ServiceAccessDeniedException, ServiceNotAuthorizedException;
+	}
+
+	@FunctionalInterface
+	private interface Lookup {
+		Object run() throws ServiceNotFoundException, ServiceNotAvailableException, InternalServiceException,
+				ServiceMethodNotFoundException, ServiceInvocationFailedException, ServiceAccessDeniedException,
+				ServiceNotAuthorizedException;
+	}
+}
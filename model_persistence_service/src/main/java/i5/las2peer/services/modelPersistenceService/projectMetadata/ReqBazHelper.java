@@ -1,19 +1,17 @@
 package i5.las2peer.services.modelPersistenceService.projectMetadata;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 
 import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
 import org.json.simple.parser.ParseException;
 
 import i5.las2peer.services.modelPersistenceService.exception.ReqBazException;
+import i5.las2peer.services.modelPersistenceService.http.SharedHttpClient;
 
 public class ReqBazHelper {
 
@@ -63,36 +61,26 @@ public class ReqBazHelper {
 		// this is the access token from the user that wants to create the project
 		String oidcToken = accessToken;
 		
-		URL url;
+		SharedHttpClient client = SharedHttpClient.getInstance();
 		try {
-			url = new URL(this.reqBazBackendUrl + "/categories");
-
-			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-			connection.setRequestMethod("POST");
-			connection.setDoInput(true);
-			connection.setDoOutput(true);
-			connection.setUseCaches(false);
-			connection.setRequestProperty("Content-Type", "application/json");
-			connection.setRequestProperty("Content-Length", String.valueOf(body.length()));
-			connection.setRequestProperty("access-token", oidcToken);
-			connection.setRequestProperty("Authorization", "Basic " + this.getAuthorizationHeader(username, sub));
-			
-            writeRequestBody(connection, body);
+			HttpRequest request = client.request(this.reqBazBackendUrl + "/categories")
+					.header("Content-Type", "application/json")
+					.header("access-token", oidcToken)
+					.header("Authorization", "Basic " + this.getAuthorizationHeader(username, sub))
+					.POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)).build();
+			HttpResponse<InputStream> response = client.send(request);
 			
 			// forward (in case of) error
-			if (connection.getResponseCode() != 201) {
-				String message = getErrorMessage(connection);
-				throw new ReqBazException(message);
+			if (response.statusCode() != 201) {
+				throw new ReqBazException("Error creating Requirements Bazaar category at: " + SharedHttpClient.readErrorBody(response));
 			} else {
-				// get response
-				String response = getResponseBody(connection);
-				
 				// convert to JSONObject
-				JSONObject json = (JSONObject) JSONValue.parseWithException(response);
+				JSONObject json = (JSONObject) SharedHttpClient.readJSON(response);
 				int categoryId = ((Long) json.get("id")).intValue();
 				return new ReqBazCategory(categoryId, this.reqBazProjectId);
 			}
-		} catch (MalformedURLException e) {
+		} catch (IllegalArgumentException e) {
+			// invalid url
 			e.printStackTrace();
 			throw new ReqBazException(e.getMessage());
 		} catch (IOException e) {
@@ -116,26 +104,23 @@ public class ReqBazHelper {
 		// this is the access token from the user that wants to create the project
 		String oidcToken = accessToken;
 				
-		URL url;
+		SharedHttpClient client = SharedHttpClient.getInstance();
 		try {
-			url = new URL(this.reqBazBackendUrl + "/categories/" + category.getId());
-
-			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-			connection.setRequestMethod("DELETE");
-			connection.setDoInput(true);
-			connection.setDoOutput(true);
-			connection.setUseCaches(false);
-			connection.setRequestProperty("access-token", oidcToken);
-			connection.setRequestProperty("Authorization", "Basic " + this.getAuthorizationHeader(username, sub));
+			HttpRequest request = client.request(this.reqBazBackendUrl + "/categories/" + category.getId())
+					.header("access-token", oidcToken)
+					.header("Authorization", "Basic " + this.getAuthorizationHeader(username, sub))
+					.DELETE().build();
+			HttpResponse<InputStream> response = client.send(request);
 					
 		    // forward (in case of) error
             // 200 is ok, since then the category got deleted
 			// 404 is ok, because then the category already got deleted before we tried to delete it (maybe manually by a user)
-		    if (connection.getResponseCode() != 200 && connection.getResponseCode() != 404) {
-				String message = getErrorMessage(connection);
-				throw new ReqBazException(message);
+		    if (response.statusCode() != 200 && response.statusCode() != 404) {
+				throw new ReqBazException("Error deleting Requirements Bazaar category at: " + SharedHttpClient.readErrorBody(response));
 			}
-		} catch (MalformedURLException e) {
+			SharedHttpClient.discard(response);
+		} catch (IllegalArgumentException e) {
+			// invalid url
 			e.printStackTrace();
 			throw new ReqBazException(e.getMessage());
 		} catch (IOException e) {
@@ -162,49 +147,4 @@ public class ReqBazHelper {
 		String body = JSONObject.toJSONString(jsonObject);
 		return body;
 	}
-	
-	/**
-	 * Extracts the error message from the response.
-	 * @param connection HttpURLConnection object
-	 * @return Error message as String.
-	 * @throws IOException
-	 */
-	private String getErrorMessage(HttpURLConnection connection) throws IOException {
-		String message = "Error creating Requirements Bazaar category at: ";
-		BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getErrorStream()));
-		for (String line; (line = reader.readLine()) != null;) {
-			message += line;
-		}
-		reader.close();
-		return message;
-	}
-	
-	/**
-	 * Getter for the body of the response.
-	 * @param connection HttpURLConnection object
-	 * @return Body of the response as string.
-	 * @throws IOException
-	 */
-	private String getResponseBody(HttpURLConnection connection) throws IOException {
-		String response = "";
-		BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-		for (String line; (line = reader.readLine()) != null;) {
-			response += line;
-		}
-		reader.close();
-		return response;
-	}
-	
-	/**
-	 * Writes the request body.
-	 * @param connection HttpURLConnection object
-	 * @param body Body that should be written to the request.
-	 * @throws IOException
-	 */
-	private void writeRequestBody(HttpURLConnection connection, String body) throws IOException {
-		OutputStreamWriter writer = new OutputStreamWriter(connection.getOutputStream());
-		writer.write(body);
-		writer.flush();
-		writer.close();
-	}
 }
\ No newline at end of file
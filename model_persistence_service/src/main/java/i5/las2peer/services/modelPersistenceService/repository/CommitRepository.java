@@ -0,0 +1,37 @@
+package i5.las2peer.services.modelPersistenceService.repository;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Storage of the commits of versioned models.
+ */
+public interface CommitRepository {
+
+	/**
+	 * Adds a commit of type COMMIT_TYPE_AUTO to the versioned model. Does not change its revision.
+	 * @param versionedModelId Id of the versioned model.
+	 * @param message Commit message.
+	 * @param sha Commit sha identifier.
+	 * @return Id of the added commit.
+	 * @throws SQLException If something with the storage went wrong.
+	 */
+	int addAutoCommit(int versionedModelId, String message, String sha) throws SQLException;
+
+	/**
+	 * Adds the given version tag to the commit of the versioned model with the given sha identifier.
+	 * @param versionedModelId Id of the versioned model.
+	 * @param sha Commit sha identifier.
+	 * @param tag Version tag.
+	 * @throws SQLException If something with the storage went wrong (CommitNotFoundException if commit not found).
+	 */
+	void addVersionTag(int versionedModelId, String sha, String tag) throws SQLException;
+
+	/**
+	 * Returns the version tags of the versioned model (latest first).
+	 * @param versionedModelId Id of the versioned model.
+	 * @return List of version tags.
+	 * @throws SQLException If something with the storage went wrong.
+	 */
+	List<String> findVersionTags(int versionedModelId) throws SQLException;
+}
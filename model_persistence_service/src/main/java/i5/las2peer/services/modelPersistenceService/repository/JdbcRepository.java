@@ -0,0 +1,157 @@
+package i5.las2peer.services.modelPersistenceService.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import i5.las2peer.apiTestModel.TestCase;
+import i5.las2peer.apiTestModel.TestModel;
+import i5.las2peer.services.modelPersistenceService.database.DatabaseManager;
+import i5.las2peer.services.modelPersistenceService.model.AttributeIndex;
+import i5.las2peer.services.modelPersistenceService.model.Model;
+import i5.las2peer.services.modelPersistenceService.model.ModelCatalog;
+import i5.las2peer.services.modelPersistenceService.testmodel.TestSuggestionLoader;
+import i5.las2peer.services.modelPersistenceService.versionedModel.CommitDAO;
+import i5.las2peer.services.modelPersistenceService.versionedModel.VersionedModel;
+
+/**
+ * Storage backend that stores everything in the MySQL database.
+ * Every method uses its own connection from the connection pool. Operations that need to share a
+ * transaction with other changes (e.g. posting a commit) still use the entity classes directly.
+ */
+public class JdbcRepository implements PersistenceRepository {
+
+	private final DatabaseManager dbm;
+
+	public JdbcRepository(DatabaseManager dbm) {
+		this.dbm = dbm;
+	}
+
+	@Override
+	public Model findModel(int modelId) throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			Model model = new Model(modelId, connection);
+			model.loadWireframe(connection);
+			return model;
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Override
+	public List<Integer> findModelIds(int offset, int limit) throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			return ModelCatalog.findModelIds(connection, offset, limit);
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Override
+	public List<ModelCatalog.Entry> findModelsByType(String type, int offset, int limit) throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			return ModelCatalog.findByType(connection, type, offset, limit);
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Override
+	public List<AttributeIndex.Match> searchAttributes(String name, String value, boolean prefix, String nodeType,
+			int offset, int limit) throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			return AttributeIndex.search(connection, name, value, prefix, nodeType, offset, limit);
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Override
+	public void deleteModel(int modelId) throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			Model.delete(connection, modelId);
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Override
+	public int addAutoCommit(int versionedModelId, String message, String sha) throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			return CommitDAO.addAutoCommit(connection, versionedModelId, message, sha);
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Override
+	public void addVersionTag(int versionedModelId, String sha, String tag) throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			CommitDAO.addVersionTag(connection, versionedModelId, sha, tag);
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Override
+	public List<String> findVersionTags(int versionedModelId) throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			return CommitDAO.findVersionTags(connection, versionedModelId);
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Override
+	public VersionedModel findVersionedModel(int versionedModelId) throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			VersionedModel versionedModel = new VersionedModel(versionedModelId, connection);
+			versionedModel.loadWireframes(connection);
+			return versionedModel;
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Override
+	public void addTestSuggestion(int versionedModelId, TestModel testModel, String description) throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			testModel.persist(connection);
+			TestSuggestionLoader.store(connection, versionedModelId, testModel, description);
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Override
+	public Map<TestCase, String> findTestSuggestions(int versionedModelId, boolean includeAlreadySuggestedTests,
+			int offset, int limit) throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			return TestSuggestionLoader.load(connection, versionedModelId, includeAlreadySuggestedTests, offset, limit);
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Override
+	public void dismissTestSuggestion(int versionedModelId, int testModelId) throws SQLException {
+		Connection connection = this.dbm.getConnection();
+		try {
+			TestSuggestionLoader.dismiss(connection, versionedModelId, testModelId);
+		} finally {
+			connection.close();
+		}
+	}
+}
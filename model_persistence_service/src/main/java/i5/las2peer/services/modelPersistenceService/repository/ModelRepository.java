@@ -0,0 +1,62 @@
+package i5.las2peer.services.modelPersistenceService.repository;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import i5.las2peer.services.modelPersistenceService.model.AttributeIndex;
+import i5.las2peer.services.modelPersistenceService.model.Model;
+import i5.las2peer.services.modelPersistenceService.model.ModelCatalog;
+
+/**
+ * Storage of models.
+ */
+public interface ModelRepository {
+
+	/**
+	 * Loads the model with the given id (including its wireframe).
+	 * @param modelId Id of the model.
+	 * @return The model.
+	 * @throws SQLException If something with the storage went wrong (ModelNotFoundException if model not found).
+	 */
+	Model findModel(int modelId) throws SQLException;
+
+	/**
+	 * Returns a page of the ids of the stored models, ordered by id.
+	 * @param offset Number of models to skip.
+	 * @param limit Maximum number of ids to return.
+	 * @return List of model ids.
+	 * @throws SQLException If something with the storage went wrong.
+	 */
+	List<Integer> findModelIds(int offset, int limit) throws SQLException;
+
+	/**
+	 * Returns a page of the catalog entries of the models with the given type, ordered by model id.
+	 * @param type Type of the models (e.g. "microservice").
+	 * @param offset Number of models to skip.
+	 * @param limit Maximum number of entries to return.
+	 * @return List of catalog entries.
+	 * @throws SQLException If something with the storage went wrong.
+	 */
+	List<ModelCatalog.Entry> findModelsByType(String type, int offset, int limit) throws SQLException;
+
+	/**
+	 * Searches the node attributes of all committed models, including the ones of earlier commits.
+	 * @param name Name of the attribute, null to search all attributes.
+	 * @param value Value of the attribute, or the beginning of it if prefix is set.
+	 * @param prefix Whether the value should be matched as prefix instead of exactly.
+	 * @param nodeType Type of the node, null to search all node types.
+	 * @param offset Number of matches to skip.
+	 * @param limit Maximum number of matches to return.
+	 * @return Matching attributes.
+	 * @throws SQLException If something with the storage went wrong.
+	 */
+	List<AttributeIndex.Match> searchAttributes(String name, String value, boolean prefix, String nodeType,
+			int offset, int limit) throws SQLException;
+
+	/**
+	 * Deletes the model with the given id.
+	 * @param modelId Id of the model.
+	 * @throws SQLException If something with the storage went wrong (ModelNotFoundException if model not found).
+	 */
+	void deleteModel(int modelId) throws SQLException;
+}
@@ -0,0 +1,10 @@
+package i5.las2peer.services.modelPersistenceService.repository;
+
+/**
+ * Storage of models, commits, versioned models and test suggestions. Implementations need to be
+ * thread-safe, because they are shared by all requests.
+ * The service uses {@link JdbcRepository}, which stores everything in the MySQL database.
+ */
+public interface PersistenceRepository extends ModelRepository, CommitRepository, VersionedModelRepository,
+		TestSuggestionRepository {
+}
@@ -0,0 +1,42 @@
+package i5.las2peer.services.modelPersistenceService.repository;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+import i5.las2peer.apiTestModel.TestCase;
+import i5.las2peer.apiTestModel.TestModel;
+
+/**
+ * Storage of the test cases that got suggested for versioned models.
+ */
+public interface TestSuggestionRepository {
+
+	/**
+	 * Stores the given test model (containing exactly one test case) as suggestion for the versioned model.
+	 * @param versionedModelId Id of the versioned model.
+	 * @param testModel Test model containing the suggested test case.
+	 * @param description Description of the suggestion.
+	 * @throws SQLException If something with the storage went wrong.
+	 */
+	void addTestSuggestion(int versionedModelId, TestModel testModel, String description) throws SQLException;
+
+	/**
+	 * Loads the test suggestions of the versioned model.
+	 * @param versionedModelId Id of the versioned model.
+	 * @param includeAlreadySuggestedTests Whether already accepted/declined test cases should be included in result.
+	 * @param offset Number of suggestions to skip.
+	 * @param limit Maximum number of suggestions to return, values smaller than 1 return all suggestions.
+	 * @return Map containing test cases and their descriptions (in the order in which they got suggested).
+	 * @throws SQLException If something with the storage went wrong.
+	 */
+	Map<TestCase, String> findTestSuggestions(int versionedModelId, boolean includeAlreadySuggestedTests,
+			int offset, int limit) throws SQLException;
+
+	/**
+	 * Marks the suggestion as accepted/declined, so that it does not get suggested anymore.
+	 * @param versionedModelId Id of the versioned model.
+	 * @param testModelId Id of the suggested test model.
+	 * @throws SQLException If something with the storage went wrong.
+	 */
+	void dismissTestSuggestion(int versionedModelId, int testModelId) throws SQLException;
+}
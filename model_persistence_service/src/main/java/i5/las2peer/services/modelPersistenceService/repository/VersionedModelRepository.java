@@ -0,0 +1,19 @@
+package i5.las2peer.services.modelPersistenceService.repository;
+
+import java.sql.SQLException;
+
+import i5.las2peer.services.modelPersistenceService.versionedModel.VersionedModel;
+
+/**
+ * Storage of versioned models.
+ */
+public interface VersionedModelRepository {
+
+	/**
+	 * Loads the versioned model with the given id, including all of its commits (and wireframes).
+	 * @param versionedModelId Id of the versioned model.
+	 * @return The versioned model.
+	 * @throws SQLException If something with the storage went wrong (VersionedModelNotFoundException if not found).
+	 */
+	VersionedModel findVersionedModel(int versionedModelId) throws SQLException;
+}
@@ -0,0 +1,118 @@
+package i5.las2peer.services.modelPersistenceService.testmodel;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads the operations of a swagger coverage results file (swagger-coverage-results.json) with a
+ * streaming JSON parser. Only the fields that are needed to add the coverage to a model are kept
+ * (operationKey with httpMethod and path, processCount and the name and covered flag of every
+ * condition), everything else gets skipped while reading. Therefore, the memory needed does not
+ * depend on the size of the report, but only on the number of operations.
+ */
+public class CoverageReportReader {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory()
+			.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+	/**
+	 * Reads the operations from the given coverage results JSON.
+	 * @param inputStream Stream containing the coverage results JSON. The stream does not get closed.
+	 * @return JSONObject containing the (reduced) operations, or null if the report contains no operations.
+	 * @throws IOException If the stream could not be read or does not contain valid JSON.
+	 */
+	public static JSONObject readOperations(InputStream inputStream) throws IOException {
+		try(JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+			if(parser.nextToken() != JsonToken.START_OBJECT) return null;
+			while(parser.nextToken() == JsonToken.FIELD_NAME) {
+				String fieldName = parser.getCurrentName();
+				parser.nextToken();
+				if(fieldName.equals("operations") && parser.getCurrentToken() == JsonToken.START_OBJECT) {
+					return readOperationsObject(parser);
+				}
+				parser.skipChildren();
+			}
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONObject readOperationsObject(JsonParser parser) throws IOException {
+		JSONObject operations = new JSONObject();
+		while(parser.nextToken() == JsonToken.FIELD_NAME) {
+			String operationName = parser.getCurrentName();
+			if(parser.nextToken() == JsonToken.START_OBJECT) {
+				operations.put(operationName, readOperation(parser));
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return operations;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONObject readOperation(JsonParser parser) throws IOException {
+		JSONObject operation = new JSONObject();
+		while(parser.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+			if(fieldName.equals("operationKey") && value == JsonToken.START_OBJECT) {
+				operation.put("operationKey", readStringFields(parser, "httpMethod", "path"));
+			} else if(fieldName.equals("processCount") && value == JsonToken.VALUE_NUMBER_INT) {
+				operation.put("processCount", parser.getLongValue());
+			} else if(fieldName.equals("conditions") && value == JsonToken.START_ARRAY) {
+				operation.put("conditions", readConditions(parser));
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return operation;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONArray readConditions(JsonParser parser) throws IOException {
+		JSONArray conditions = new JSONArray();
+		while(parser.nextToken() == JsonToken.START_OBJECT) {
+			JSONObject condition = new JSONObject();
+			while(parser.nextToken() == JsonToken.FIELD_NAME) {
+				String fieldName = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				if(fieldName.equals("name") && value == JsonToken.VALUE_STRING) {
+					condition.put("name", parser.getText());
+				} else if(fieldName.equals("covered") && (value == JsonToken.VALUE_TRUE || value == JsonToken.VALUE_FALSE)) {
+					condition.put("covered", parser.getBooleanValue());
+				} else {
+					parser.skipChildren();
+				}
+			}
+			conditions.add(condition);
+		}
+		return conditions;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONObject readStringFields(JsonParser parser, String... fieldNames) throws IOException {
+		JSONObject result = new JSONObject();
+		while(parser.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+			boolean wanted = false;
+			for(String name : fieldNames) {
+				if(name.equals(fieldName)) wanted = true;
+			}
+			if(wanted && value == JsonToken.VALUE_STRING) {
+				result.put(fieldName, parser.getText());
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return result;
+	}
+}
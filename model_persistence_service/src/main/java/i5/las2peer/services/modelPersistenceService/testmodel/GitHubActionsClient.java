@@ -0,0 +1,205 @@
+package i5.las2peer.services.modelPersistenceService.testmodel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+import i5.las2peer.services.modelPersistenceService.cache.ExpiringCache;
+import i5.las2peer.services.modelPersistenceService.http.GitHubRateLimit;
+import i5.las2peer.services.modelPersistenceService.http.GitHubRateLimit.Priority;
+import i5.las2peer.services.modelPersistenceService.metrics.ServiceMetrics;
+
+/**
+ * Minimal client for the parts of the GitHub REST API that are needed to read the results of
+ * GitHub Actions workflow runs. One instance (and therefore one underlying HTTP client with its
+ * connection pool) is meant to be shared by all requests of the service.
+ * JSON responses are requested conditionally: the ETag of the last response is sent as
+ * If-None-Match header and a "304 Not Modified" answer is served from the local copy, which does not
+ * count against the rate limit of the token.
+ * Every API request is checked against the remaining budget of the token (see {@link GitHubRateLimit}),
+ * so that low priority requests are shed before the limit is exhausted.
+ */
+public class GitHubActionsClient {
+
+	public static final String DEFAULT_API_URL = "https://api.github.com";
+
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+	/**
+	 * Maximum number of JSON responses that are kept for conditional requests.
+	 */
+	private static final int MAX_CONDITIONAL_RESPONSES = 500;
+
+	private final String apiUrl;
+	private final String personalAccessToken;
+	private final HttpClient httpClient;
+	private final ExpiringCache<String, ConditionalResponse> conditionalResponses;
+	private final GitHubRateLimit rateLimit;
+
+	/**
+	 * Creates a new client with its own rate limit tracking.
+	 * @param apiUrl Base url of the GitHub API (e.g. https://api.github.com).
+	 * @param personalAccessToken Token that is used to authenticate the requests.
+	 */
+	public GitHubActionsClient(String apiUrl, String personalAccessToken) {
+		this(apiUrl, personalAccessToken, new GitHubRateLimit(new ServiceMetrics()));
+	}
+
+	/**
+	 * Creates a new client.
+	 * @param apiUrl Base url of the GitHub API (e.g. https://api.github.com).
+	 * @param personalAccessToken Token that is used to authenticate the requests.
+	 * @param rateLimit Rate limit of the token (shared with other clients using the same token).
+	 */
+	public GitHubActionsClient(String apiUrl, String personalAccessToken, GitHubRateLimit rateLimit) {
+		this.apiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+		this.personalAccessToken = personalAccessToken;
+		// redirects are followed manually, because the artifact download redirects to a pre-signed
+		// url that must not receive the token
+		this.httpClient = HttpClient.newBuilder().connectTimeout(CONNECT_TIMEOUT)
+				.followRedirects(HttpClient.Redirect.NEVER).build();
+		this.conditionalResponses = new ExpiringCache<>(MAX_CONDITIONAL_RESPONSES, 0);
+		this.rateLimit = rateLimit;
+	}
+
+	/**
+	 * Fetches the latest workflow run of the given repository that was triggered for the given commit.
+	 * @param owner Owner (organization) of the repository.
+	 * @param repoName Name of the repository.
+	 * @param headSha Sha of the commit.
+	 * @param priority Priority of the request.
+	 * @return JSON representation of the workflow run or null, if there is no run for the commit.
+	 * @throws IOException If the request failed or was not sent because of the rate limit.
+	 */
+	public JSONObject getWorkflowRun(String owner, String repoName, String headSha, Priority priority) throws IOException {
+		JSONObject result = getJSON("/repos/" + owner + "/" + repoName + "/actions/runs?per_page=1&head_sha="
+				+ URLEncoder.encode(headSha, StandardCharsets.UTF_8), priority);
+		JSONArray runs = (JSONArray) result.get("workflow_runs");
+		if(runs == null || runs.isEmpty()) return null;
+		return (JSONObject) runs.get(0);
+	}
+
+	/**
+	 * Searches for the artifact with the given name in the given workflow run.
+	 * @param owner Owner (organization) of the repository.
+	 * @param repoName Name of the repository.
+	 * @param runId Id of the workflow run.
+	 * @param artifactName Name of the artifact.
+	 * @param priority Priority of the request.
+	 * @return JSON representation of the artifact or null, if the run has no artifact with this name.
+	 * @throws IOException If the request failed or was not sent because of the rate limit.
+	 */
+	public JSONObject getArtifact(String owner, String repoName, long runId, String artifactName, Priority priority)
+			throws IOException {
+		JSONObject result = getJSON("/repos/" + owner + "/" + repoName + "/actions/runs/" + runId + "/artifacts?name="
+				+ URLEncoder.encode(artifactName, StandardCharsets.UTF_8), priority);
+		JSONArray artifacts = (JSONArray) result.get("artifacts");
+		if(artifacts == null) return null;
+		for(Object artifact : artifacts) {
+			if(artifactName.equals(((JSONObject) artifact).get("name"))) {
+				return (JSONObject) artifact;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Downloads the (zipped) artifact and passes the content to the given reader.
+	 * @param artifact JSON representation of the artifact, as returned by getArtifact.
+	 * @param priority Priority of the request.
+	 * @param reader Reader that processes the zip file content.
+	 * @param <T> Type of the result of the reader.
+	 * @return Result of the reader.
+	 * @throws IOException If the download failed or was not sent because of the rate limit.
+	 */
+	public <T> T downloadArtifact(JSONObject artifact, Priority priority, ArtifactReader<T> reader) throws IOException {
+		// only the request to the API counts against the rate limit, not the download of the redirect
+		this.rateLimit.acquire(priority);
+		HttpResponse<InputStream> response = send(authorizedRequest(URI.create((String) artifact.get("archive_download_url"))).build(),
+				HttpResponse.BodyHandlers.ofInputStream());
+		this.rateLimit.update(response.statusCode(), response.headers());
+		if(response.statusCode() == 302 || response.statusCode() == 307) {
+			response.body().close();
+			String location = response.headers().firstValue("Location")
+					.orElseThrow(() -> new IOException("GitHub API redirect without location."));
+			response = send(HttpRequest.newBuilder(URI.create(location)).timeout(REQUEST_TIMEOUT).build(),
+					HttpResponse.BodyHandlers.ofInputStream());
+		}
+		try(InputStream body = response.body()) {
+			if(response.statusCode() != 200) {
+				throw new IOException("Downloading artifact failed with status " + response.statusCode() + ".");
+			}
+			return reader.read(body);
+		}
+	}
+
+	private JSONObject getJSON(String path, Priority priority) throws IOException {
+		String url = this.apiUrl + path;
+		ConditionalResponse previous = this.conditionalResponses.get(url);
+
+		HttpRequest.Builder request = authorizedRequest(URI.create(url)).header("Accept", "application/vnd.github+json");
+		if(previous != null) {
+			request.header("If-None-Match", previous.etag);
+		}
+		this.rateLimit.acquire(priority);
+		HttpResponse<String> response = send(request.build(), HttpResponse.BodyHandlers.ofString());
+		this.rateLimit.update(response.statusCode(), response.headers());
+
+		if(response.statusCode() == 304 && previous != null) {
+			return (JSONObject) JSONValue.parse(previous.body);
+		}
+		if(response.statusCode() != 200) {
+			throw new IOException("GitHub API request " + path + " failed with status " + response.statusCode() + ".");
+		}
+		response.headers().firstValue("ETag").ifPresent(etag ->
+			this.conditionalResponses.put(url, new ConditionalResponse(etag, response.body())));
+		return (JSONObject) JSONValue.parse(response.body());
+	}
+
+	private HttpRequest.Builder authorizedRequest(URI uri) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT);
+		if(this.personalAccessToken != null && !this.personalAccessToken.isEmpty()) {
+			builder.header("Authorization", "token " + this.personalAccessToken);
+		}
+		return builder;
+	}
+
+	private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) throws IOException {
+		try {
+			return this.httpClient.send(request, bodyHandler);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("GitHub API request got interrupted.", e);
+		}
+	}
+
+	/**
+	 * Processes the content of a downloaded artifact.
+	 * @param <T> Type of the result.
+	 */
+	@FunctionalInterface
+	public interface ArtifactReader<T> {
+		T read(InputStream zipStream) throws IOException;
+	}
+
+	private static class ConditionalResponse {
+		private final String etag;
+		private final String body;
+
+		private ConditionalResponse(String etag, String body) {
+			this.etag = etag;
+			this.body = body;
+		}
+	}
+}
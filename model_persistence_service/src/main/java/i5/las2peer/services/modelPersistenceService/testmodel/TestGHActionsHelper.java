@@ -2,7 +2,6 @@ package i5.las2peer.services.modelPersistenceService.testmodel;
 
 import java.io.IOException;
 import java.io.StringReader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -16,25 +15,46 @@ import i5.las2peer.apiTestModel.TestRequest;
 import i5.las2peer.apiTestModel.report.ReportFailure;
 import i5.las2peer.apiTestModel.report.ReportTestCase;
 import i5.las2peer.apiTestModel.report.ReportTestSuite;
+import i5.las2peer.services.modelPersistenceService.cache.ExpiringCache;
+import i5.las2peer.services.modelPersistenceService.http.GitHubRateLimit;
+import i5.las2peer.services.modelPersistenceService.http.GitHubRateLimit.Priority;
+import i5.las2peer.services.modelPersistenceService.metrics.ServiceMetrics;
 import i5.las2peer.services.modelPersistenceService.model.EntityAttribute;
 import i5.las2peer.services.modelPersistenceService.model.Model;
 import i5.las2peer.services.modelPersistenceService.model.node.Node;
 import org.apache.commons.io.IOUtils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
-import org.kohsuke.github.*;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  * Helper class that allows to fetch the current state of test cases and their assertions
  * from GitHub Actions (whether they succeeded, failed or the run is still in progress).
+ * The service uses a single instance: the reports of completed workflow runs never change, so the
+ * parsed test and coverage reports are cached per repository, commit sha and artifact.
  */
 public class TestGHActionsHelper {
 
+	private static final String TEST_RESULTS_ARTIFACT = "test-results";
+	private static final String COVERAGE_REPORT_ARTIFACT = "swagger-coverage-report";
+
+	/**
+	 * Maximum number of parsed test/coverage reports that are kept in memory (per report type).
+	 */
+	private static final int MAX_CACHED_REPORTS = 200;
+
+	/**
+	 * Time after which a cached report gets downloaded again. Artifacts of completed runs do not change,
+	 * but they get deleted by GitHub after their retention period.
+	 */
+	private static final long CACHED_REPORT_TTL_MILLIS = 24 * 60 * 60 * 1000L;
+
 	/**
 	 * Personal access token with read-access to the GitHub organization.
 	 * This is needed, because artifacts of GitHub Actions workflows can not be
@@ -48,31 +68,67 @@ public class TestGHActionsHelper {
 	 */
 	public String ORG_NAME;
 
-	private GitHub github;
+	private static final XMLInputFactory XML_INPUT_FACTORY = createXMLInputFactory();
+	private static volatile JAXBContext reportJAXBContext;
+
+	private final GitHubActionsClient client;
+
+	/**
+	 * Parsed test reports, key is built from repository name, commit sha and artifact name.
+	 */
+	private final ExpiringCache<String, ReportTestSuite> testReports;
+
+	/**
+	 * Operations of parsed coverage reports, key is built from repository name, commit sha and artifact name.
+	 */
+	private final ExpiringCache<String, JSONObject> coverageReports;
+
+	public TestGHActionsHelper(String orgName, String personalAccessToken) {
+		this(GitHubActionsClient.DEFAULT_API_URL, orgName, personalAccessToken);
+	}
+
+	/**
+	 * Creates a helper that uses the GitHub API available at the given url.
+	 * @param apiUrl Base url of the GitHub API.
+	 * @param orgName Name of the GitHub organization.
+	 * @param personalAccessToken Personal access token with read-access to the GitHub organization.
+	 */
+	public TestGHActionsHelper(String apiUrl, String orgName, String personalAccessToken) {
+		this(apiUrl, orgName, personalAccessToken, new GitHubRateLimit(new ServiceMetrics()));
+	}
 
-	public TestGHActionsHelper(String orgName, String personalAccessToken) throws IOException {
+	/**
+	 * Creates a helper that uses the GitHub API available at the given url.
+	 * @param apiUrl Base url of the GitHub API.
+	 * @param orgName Name of the GitHub organization.
+	 * @param personalAccessToken Personal access token with read-access to the GitHub organization.
+	 * @param rateLimit Rate limit of the token (shared with other users of the token).
+	 */
+	public TestGHActionsHelper(String apiUrl, String orgName, String personalAccessToken, GitHubRateLimit rateLimit) {
 		this.ORG_NAME = orgName;
 		this.PERSONAL_ACCESS_TOKEN = personalAccessToken;
-		this.github = new GitHubBuilder().withOAuthToken(PERSONAL_ACCESS_TOKEN, ORG_NAME).build();
+		this.client = new GitHubActionsClient(apiUrl, personalAccessToken, rateLimit);
+		this.testReports = new ExpiringCache<>(MAX_CACHED_REPORTS, CACHED_REPORT_TTL_MILLIS);
+		this.coverageReports = new ExpiringCache<>(MAX_CACHED_REPORTS, CACHED_REPORT_TTL_MILLIS);
 	}
 
 	public void addTestCoverage(String latestCommitSha, Model model, String repoName) throws Exception {
-		GHWorkflowRun latestCommitWorkflowRun = getLatestCommitWorkflowRun(repoName, latestCommitSha);
+		// the coverage overlay is the first thing that gets shed if the GitHub rate limit gets low
+		JSONObject latestCommitWorkflowRun = getLatestCommitWorkflowRun(repoName, latestCommitSha, Priority.LOW);
 		if(latestCommitWorkflowRun == null) throw new Exception("Could not find a GitHub Actions workflow for the given latestCommitSha.");
 
-		if(latestCommitWorkflowRun.getStatus() == GHWorkflowRun.Status.IN_PROGRESS) {
+		if(hasStatus(latestCommitWorkflowRun, "in_progress")) {
 			return;
 		}
 
-		// get coverage report artifact
-		GHArtifact artifact = getArtifactByName(latestCommitWorkflowRun, "swagger-coverage-report");
-		if(artifact == null) {
+		// get operations from coverage report artifact
+		JSONObject operations = getCoverageReportOperations(repoName, latestCommitSha, latestCommitWorkflowRun);
+		if(operations == null) {
 			this.markNodesUnknownCoverage(model);
 			return;
 		}
 
 		// iterate over operations from coverage report
-		JSONObject operations = getCoverageReportOperations(artifact);
         for(Object operationsKey : operations.keySet().toArray()) {
         	// get HTTP method and path of current operation
         	JSONObject operation = (JSONObject) operations.get(operationsKey);
@@ -191,11 +247,28 @@ public class TestGHActionsHelper {
 		return path;
 	}
 
-	private JSONObject getCoverageReportOperations(GHArtifact artifact) throws IOException {
-		// parse coverage report to JSON
-		String coverageResultsStr = extractCoverageResultsFromArtifact(artifact);
-		JSONObject coverageResults = (JSONObject) JSONValue.parse(coverageResultsStr);
-		return (JSONObject) coverageResults.get("operations");
+	/**
+	 * Returns the operations of the coverage report of the given workflow run.
+	 * Reports of completed runs are cached.
+	 * @param repoName Name of the repository.
+	 * @param sha Sha of the commit that the run belongs to.
+	 * @param workflowRun Workflow run that contains the coverage report artifact.
+	 * @return Operations of the coverage report or null, if the run has no coverage report.
+	 * @throws IOException
+	 */
+	private JSONObject getCoverageReportOperations(String repoName, String sha, JSONObject workflowRun) throws IOException {
+		String cacheKey = getReportCacheKey(repoName, sha, COVERAGE_REPORT_ARTIFACT);
+		JSONObject operations = this.coverageReports.get(cacheKey);
+		if(operations != null) return operations;
+
+		JSONObject artifact = getArtifactByName(repoName, workflowRun, COVERAGE_REPORT_ARTIFACT, Priority.LOW);
+		if(artifact == null) return null;
+
+		operations = extractCoverageReportOperationsFromArtifact(artifact);
+		if(operations != null && hasStatus(workflowRun, "completed")) {
+			this.coverageReports.put(cacheKey, operations);
+		}
+		return operations;
 	}
 
 	private void addCoverageAttributeToNode(Node node, int coverage) {
@@ -282,29 +355,25 @@ public class TestGHActionsHelper {
 	 * @throws Exception
 	 */
 	public void addTestResults(String latestCommitSha, TestModel testModel, String repoName) throws Exception {
-		GHWorkflowRun latestCommitWorkflowRun = getLatestCommitWorkflowRun(repoName, latestCommitSha);
+		JSONObject latestCommitWorkflowRun = getLatestCommitWorkflowRun(repoName, latestCommitSha, Priority.HIGH);
 		if(latestCommitWorkflowRun == null
-				|| latestCommitWorkflowRun.getStatus() == GHWorkflowRun.Status.IN_PROGRESS
-				|| latestCommitWorkflowRun.getStatus() == GHWorkflowRun.Status.QUEUED) {
+				|| hasStatus(latestCommitWorkflowRun, "in_progress")
+				|| hasStatus(latestCommitWorkflowRun, "queued")) {
 			// mark all test cases as in progress
 			markAllTestCasesAs(testModel, "in_progress");
 			return;
 		}
 
-		GHArtifact artifact = getArtifactByName(latestCommitWorkflowRun, "test-results");
-
 		// if there is no artifact with test results => build may have failed and tests were not executed
-		if(artifact == null) return;
-
-		ReportTestSuite testReport = extractTestResultFromArtifact(artifact);
+		ReportTestSuite testReport = getTestReport(repoName, latestCommitSha, latestCommitWorkflowRun);
 		if(testReport == null) return;
 		addRequestResponses(testModel, testReport);
 
-		if(latestCommitWorkflowRun.getStatus() == GHWorkflowRun.Status.COMPLETED) {
-			if(latestCommitWorkflowRun.getConclusion() == GHWorkflowRun.Conclusion.SUCCESS) {
+		if(hasStatus(latestCommitWorkflowRun, "completed")) {
+			if("success".equals(latestCommitWorkflowRun.get("conclusion"))) {
 				// mark all test cases as successful
 				markAllTestCasesAs(testModel, "success");
-			} else if(latestCommitWorkflowRun.getConclusion() == GHWorkflowRun.Conclusion.FAILURE) {
+			} else if("failure".equals(latestCommitWorkflowRun.get("conclusion"))) {
 				// check which test cases were successful or failed
 
                 // iterate over test cases from commit
@@ -359,94 +428,138 @@ public class TestGHActionsHelper {
 		}
 	}
 
+	/**
+	 * Returns the test report of the given workflow run. Reports of completed runs are cached.
+	 * @param repoName Name of the repository.
+	 * @param sha Sha of the commit that the run belongs to.
+	 * @param workflowRun Workflow run that contains the test results artifact.
+	 * @return ReportTestSuite object or null, if the run has no (readable) test results.
+	 * @throws IOException
+	 */
+	private ReportTestSuite getTestReport(String repoName, String sha, JSONObject workflowRun) throws IOException {
+		String cacheKey = getReportCacheKey(repoName, sha, TEST_RESULTS_ARTIFACT);
+		ReportTestSuite testReport = this.testReports.get(cacheKey);
+		if(testReport != null) return testReport;
+
+		JSONObject artifact = getArtifactByName(repoName, workflowRun, TEST_RESULTS_ARTIFACT, Priority.HIGH);
+		if(artifact == null) return null;
+
+		testReport = extractTestResultFromArtifact(artifact);
+		if(testReport != null && hasStatus(workflowRun, "completed")) {
+			this.testReports.put(cacheKey, testReport);
+		}
+		return testReport;
+	}
+
+	private String getReportCacheKey(String repoName, String sha, String artifactName) {
+		return ORG_NAME + "/" + repoName + "@" + sha + ":" + artifactName;
+	}
+
 	/**
 	 * Searches for the artifact of the workflow run with the given name.
+	 * @param repoName Name of the repository.
 	 * @param latestCommitWorkflowRun Workflow run that contains the artifact.
 	 * @param artifactName Name of the artifact that should be searched for.
+	 * @param priority Priority of the GitHub API request.
 	 * @return Artifact of the given workflow run which has the given name.
 	 * @throws IOException
 	 */
-	private GHArtifact getArtifactByName(GHWorkflowRun latestCommitWorkflowRun, String artifactName) throws IOException {
-		for(GHArtifact artifact : latestCommitWorkflowRun.listArtifacts().toList()) {
-			if (artifact.getName().equals(artifactName)) {
-				return artifact;
-			}
-		}
-		return null;
+	private JSONObject getArtifactByName(String repoName, JSONObject latestCommitWorkflowRun, String artifactName,
+			Priority priority) throws IOException {
+		long runId = ((Number) latestCommitWorkflowRun.get("id")).longValue();
+		return client.getArtifact(ORG_NAME, repoName, runId, artifactName, priority);
 	}
 
 	/**
 	 * Downloads the artifact and returns the test result.
+	 * The XML file is unmarshalled directly from the zip stream.
 	 * @param artifact Artifact to download.
 	 * @return ReportTestSuite object containing the test result.
 	 * @throws IOException
 	 */
-	private ReportTestSuite extractTestResultFromArtifact(GHArtifact artifact) throws IOException {
-		String xml = extractTestResultXMLFromArtifact(artifact);
-		JAXBContext jaxbContext = null;
-		try {
-			jaxbContext = JAXBContext.newInstance(ReportTestSuite.class);
-			Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-			ReportTestSuite testSuite = (ReportTestSuite) jaxbUnmarshaller.unmarshal(new StringReader(xml));
-			return testSuite;
-		} catch (JAXBException e) {
-			e.printStackTrace();
-		}
-		return null;
+	private ReportTestSuite extractTestResultFromArtifact(JSONObject artifact) throws IOException {
+		return extractFileFromArtifact(artifact, "TEST-i5", Priority.HIGH, is -> {
+			try {
+				XMLStreamReader xmlReader = XML_INPUT_FACTORY.createXMLStreamReader(is);
+				try {
+					Unmarshaller jaxbUnmarshaller = getReportJAXBContext().createUnmarshaller();
+					return jaxbUnmarshaller.unmarshal(xmlReader, ReportTestSuite.class).getValue();
+				} finally {
+					xmlReader.close();
+				}
+			} catch (JAXBException | XMLStreamException e) {
+				e.printStackTrace();
+			}
+			return null;
+		});
 	}
 
 	/**
-	 * Downloads the artifact and searches for the test result XML file.
+	 * Downloads the artifact and reads the operations from the swagger coverage results JSON file.
 	 * @param artifact Artifact to download.
-	 * @return Test result XML file content as String.
+	 * @return Operations of the coverage report or null, if the artifact does not contain the report.
 	 * @throws IOException
 	 */
-	private String extractTestResultXMLFromArtifact(GHArtifact artifact) throws IOException {
-		return extractFileFromArtifact(artifact, "TEST-i5");
+	private JSONObject extractCoverageReportOperationsFromArtifact(JSONObject artifact) throws IOException {
+		return extractFileFromArtifact(artifact, "swagger-coverage-results.json", Priority.LOW, CoverageReportReader::readOperations);
 	}
 
 	/**
-	 * Downloads the artifact and searches for the swagger coverage results JSON file.
+	 * Downloads the artifact and passes the first file whose name starts with the given prefix to the given
+	 * reader. The zip file is processed entry by entry while it gets downloaded, so it is never held in memory.
 	 * @param artifact Artifact to download.
-	 * @return Coverage results JSON file content as String.
+	 * @param fileStartsWith Prefix of the name of the file that should be read.
+	 * @param priority Priority of the GitHub API request.
+	 * @param fileReader Reader that processes the content of the file.
+	 * @param <T> Type of the result of the reader.
+	 * @return Result of the reader or null, if the artifact does not contain a matching file.
 	 * @throws IOException
 	 */
-	private String extractCoverageResultsFromArtifact(GHArtifact artifact) throws IOException {
-		return extractFileFromArtifact(artifact, "swagger-coverage-results.json");
-	}
-
-	private String extractFileFromArtifact(GHArtifact artifact, String fileStartsWith) throws IOException {
-		return artifact.download(is -> {
+	private <T> T extractFileFromArtifact(JSONObject artifact, String fileStartsWith, Priority priority,
+			GitHubActionsClient.ArtifactReader<T> fileReader) throws IOException {
+		return client.downloadArtifact(artifact, priority, is -> {
 			ZipInputStream zipInputStream = new ZipInputStream(is);
 			// search for file
 			ZipEntry nextEntry = zipInputStream.getNextEntry();
 			while (nextEntry != null) {
 				if (nextEntry.getName().startsWith(fileStartsWith))
-					break;
+					return fileReader.read(zipInputStream);
 				nextEntry = zipInputStream.getNextEntry();
 			}
-			// return file content as String
-			return IOUtils.toString(zipInputStream, StandardCharsets.UTF_8);
+			return null;
 		});
 	}
 
+	private static JAXBContext getReportJAXBContext() throws JAXBException {
+		// JAXBContext is thread-safe and expensive to create, so it is created only once
+		if(reportJAXBContext == null) {
+			reportJAXBContext = JAXBContext.newInstance(ReportTestSuite.class);
+		}
+		return reportJAXBContext;
+	}
+
 	/**
 	 * Fetches a GitHub workflow run for a given commit.
 	 * @param repoName Name of the repository, that the workflow is part of.
 	 * @param latestCommitSha Sha of the latest commit, for which a workflow should be fetched.
-	 * @return GHWorkflowRun
+	 * @param priority Priority of the GitHub API request.
+	 * @return JSON representation of the workflow run or null, if there is no run for the commit.
 	 * @throws IOException
 	 */
-	private GHWorkflowRun getLatestCommitWorkflowRun(String repoName, String latestCommitSha) throws IOException {
-		List<GHWorkflowRun> workflowRuns = getRepository(repoName).queryWorkflowRuns().list().toList();
-		GHWorkflowRun latestCommitWorkflowRun = null;
-		for(GHWorkflowRun run : workflowRuns) {
-			if(run.getHeadSha().equals(latestCommitSha)) {
-				latestCommitWorkflowRun = run;
-				break;
-			}
-		}
-		return latestCommitWorkflowRun;
+	private JSONObject getLatestCommitWorkflowRun(String repoName, String latestCommitSha, Priority priority) throws IOException {
+		return client.getWorkflowRun(ORG_NAME, repoName, latestCommitSha, priority);
+	}
+
+	private static XMLInputFactory createXMLInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		// test reports do not need DTDs or external entities
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+	private boolean hasStatus(JSONObject workflowRun, String status) {
+		return status.equals(workflowRun.get("status"));
 	}
 
 	/**
@@ -475,8 +588,4 @@ public class TestGHActionsHelper {
 			}
 		}
 	}
-
-	private GHRepository getRepository(String repoName) throws IOException {
-		return github.getOrganization(ORG_NAME).getRepository(repoName);
-	}
 }
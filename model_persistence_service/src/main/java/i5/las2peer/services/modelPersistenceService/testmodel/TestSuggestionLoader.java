@@ -0,0 +1,143 @@
+package i5.las2peer.services.modelPersistenceService.testmodel;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+import i5.las2peer.apiTestModel.TestCase;
+import i5.las2peer.apiTestModel.TestModel;
+
+/**
+ * Stores and loads the test cases that got suggested for a versioned model.
+ * Every suggestion is stored as a test model that contains exactly one test case. Hydrating these
+ * test models one by one needs a cascade of queries per test case, request and assertion. Therefore,
+ * the suggested test case is additionally stored as a JSON snapshot (table TestSuggestionCase), which
+ * allows to load a whole page of suggestions with a single query. The snapshots of suggestions that
+ * were stored before snapshots existed get created by a schema migration.
+ */
+public class TestSuggestionLoader {
+
+	/**
+	 * Loads the test suggestions of the given versioned model.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of versioned model for which test suggestions should be loaded.
+	 * @param includeAlreadySuggestedTests Whether already accepted/declined test cases should be included in result.
+	 * @param offset Number of suggestions to skip.
+	 * @param limit Maximum number of suggestions to return, values smaller than 1 return all suggestions.
+	 * @return Map containing test cases and their descriptions (in the order in which they got suggested).
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static Map<TestCase, String> load(Connection connection, int versionedModelId,
+			boolean includeAlreadySuggestedTests, int offset, int limit) throws SQLException {
+		String sql = "SELECT s.testModelId, s.description, c.testCaseJSON FROM VersionedModelToTestSuggestion s "
+				+ "JOIN TestSuggestionCase c ON c.testModelId = s.testModelId WHERE s.versionedModelId = ?";
+		if(!includeAlreadySuggestedTests) {
+			sql += " AND s.suggest = 1";
+		}
+		sql += " ORDER BY s.id";
+		if(limit > 0) {
+			sql += " LIMIT ? OFFSET ?";
+		}
+
+		PreparedStatement statement = connection.prepareStatement(sql + ";");
+		statement.setInt(1, versionedModelId);
+		if(limit > 0) {
+			statement.setInt(2, limit);
+			statement.setInt(3, Math.max(offset, 0));
+		}
+
+		Map<TestCase, String> testCases = new LinkedHashMap<>();
+		ResultSet queryResult = statement.executeQuery();
+		while(queryResult.next()) {
+			TestCase testCase = new TestCase((JSONObject) JSONValue.parse(queryResult.getString(3)));
+			testCase.setId(queryResult.getInt(1));
+			testCases.put(testCase, queryResult.getString(2));
+		}
+		statement.close();
+		return testCases;
+	}
+
+	/**
+	 * Stores the given (already persisted) test model as suggestion for the versioned model.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of the versioned model.
+	 * @param testModel Persisted test model containing exactly one test case.
+	 * @param description Description of the suggestion.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static void store(Connection connection, int versionedModelId, TestModel testModel, String description) throws SQLException {
+		// the snapshot is stored first, suggestions without one are not listed
+		storeSnapshot(connection, testModel.getId(), testModel.getTestCases().get(0));
+
+		PreparedStatement statement = connection.prepareStatement("INSERT INTO VersionedModelToTestSuggestion (versionedModelId, testModelId, description, suggest) VALUES (?,?,?,?);");
+		statement.setInt(1, versionedModelId);
+		statement.setInt(2, testModel.getId());
+		statement.setString(3, description);
+		statement.setBoolean(4, true);
+		statement.executeUpdate();
+		statement.close();
+	}
+
+	/**
+	 * Marks the suggestion as accepted/declined, so that it does not get suggested anymore.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of the versioned model.
+	 * @param testModelId Id of the suggested test model.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static void dismiss(Connection connection, int versionedModelId, int testModelId) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("UPDATE VersionedModelToTestSuggestion SET `suggest`='0' "
+				+ "WHERE `versionedModelId`=? AND `testModelId`=?;");
+		statement.setInt(1, versionedModelId);
+		statement.setInt(2, testModelId);
+		statement.executeUpdate();
+		statement.close();
+	}
+
+	/**
+	 * Creates the missing snapshots of suggestions that were stored before snapshots existed. Loads the
+	 * suggested test models, which needs a cascade of queries per test model, thus this is only done
+	 * once by a schema migration.
+	 * @param connection Connection object
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static void storeMissingSnapshots(Connection connection) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT DISTINCT s.testModelId FROM VersionedModelToTestSuggestion s "
+				+ "LEFT JOIN TestSuggestionCase c ON c.testModelId = s.testModelId WHERE c.testModelId IS NULL;");
+		ArrayList<Integer> testModelIds = new ArrayList<>();
+		ResultSet queryResult = statement.executeQuery();
+		while(queryResult.next()) {
+			testModelIds.add(queryResult.getInt(1));
+		}
+		statement.close();
+
+		for(int testModelId : testModelIds) {
+			TestModel testModel = new TestModel(connection, testModelId);
+			storeSnapshot(connection, testModelId, testModel.getTestCases().get(0));
+		}
+	}
+
+	/**
+	 * Stores the JSON snapshot of the test case of a suggested test model.
+	 * @param connection Connection object
+	 * @param testModelId Id of the test model that got suggested.
+	 * @param testCase The (only) test case of the suggested test model.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	private static void storeSnapshot(Connection connection, int testModelId, TestCase testCase) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"INSERT INTO TestSuggestionCase (testModelId, testCaseJSON) VALUES (?,?) "
+						+ "ON DUPLICATE KEY UPDATE testCaseJSON = VALUES(testCaseJSON);");
+		statement.setInt(1, testModelId);
+		statement.setString(2, testCase.toJSONObject().toJSONString());
+		statement.executeUpdate();
+		statement.close();
+	}
+}
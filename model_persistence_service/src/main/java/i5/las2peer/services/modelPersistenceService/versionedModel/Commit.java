@@ -12,7 +12,10 @@ import org.json.simple.JSONValue;
 import org.json.simple.parser.ParseException;
 
 import i5.las2peer.services.modelPersistenceService.exception.CommitNotFoundException;
+import i5.las2peer.services.modelPersistenceService.model.AttributeIndex;
+import i5.las2peer.services.modelPersistenceService.model.ContentHash;
 import i5.las2peer.services.modelPersistenceService.model.Model;
+import i5.las2peer.services.modelPersistenceService.model.ModelCatalog;
 
 public class Commit {
 	
@@ -65,6 +68,12 @@ public class Commit {
 	 */
 	private String sha;
 	
+	/**
+	 * Content hash of the committed model (see {@link #hashOfCommittedModel()}), stored with the commit.
+	 * Null for commits of type COMMIT_TYPE_AUTO and for commits that were stored before model hashes existed.
+	 */
+	private String modelHash;
+	
 	/**
 	 * Tags thats connected to the commit.
 	 * Might be null, if no tag is connected to the commit.
@@ -124,6 +133,51 @@ public class Commit {
 		this.commitType = COMMIT_TYPE_AUTO;
 	}
 	
+	/**
+	 * Creates the commit for uncommited changes from a stored working copy.
+	 * @param jsonModel JSON representation of the model.
+	 * @param jsonTestModel JSON representation of the test model, may be null.
+	 * @param timestamp Time of the last change of the working copy.
+	 * @return Commit without message and id containing the given model.
+	 * @throws ParseException If the model or test model could not be parsed.
+	 */
+	static Commit forUncommitedChanges(String jsonModel, String jsonTestModel, String timestamp) throws ParseException {
+		Commit commit = new Commit(null);
+		commit.commitType = COMMIT_TYPE_MANUAL;
+		commit.timestamp = timestamp;
+		commit.model = new Model(jsonModel);
+		if(jsonTestModel != null) {
+			commit.testModel = new TestModel(jsonTestModel);
+		}
+		return commit;
+	}
+	
+	/**
+	 * Creates a commit from already stored values.
+	 * Used by storage backends that do not load commits from the database.
+	 * @param id Id of the stored commit.
+	 * @param commitType Either COMMIT_TYPE_MANUAL or COMMIT_TYPE_AUTO.
+	 * @param message Commit message, null for the commit for uncommited changes.
+	 * @param timestamp Time when the commit got created.
+	 * @param sha Commit sha identifier, may be null.
+	 * @param versionTag Version tag of the commit, may be null.
+	 * @param model Model of the commit, null for commits of type COMMIT_TYPE_AUTO.
+	 * @param testModel Test model of the commit, may be null.
+	 * @return Commit containing the given values.
+	 */
+	public static Commit restore(int id, int commitType, String message, String timestamp, String sha,
+			String versionTag, Model model, TestModel testModel) {
+		Commit commit = new Commit(message);
+		commit.id = id;
+		commit.commitType = commitType;
+		commit.timestamp = timestamp;
+		commit.sha = sha;
+		commit.versionTag = versionTag;
+		commit.model = model;
+		commit.testModel = testModel;
+		return commit;
+	}
+	
 	/**
 	 * Creates a new commit by loading it from the database.
 	 * @param commitId Id of the commit to search for.
@@ -143,6 +197,7 @@ public class Commit {
 			this.timestamp = queryResult.getString("timestamp");
 			this.sha = queryResult.getString("sha");
 			this.commitType = queryResult.getInt("commitType");
+			this.modelHash = queryResult.getString("modelHash");
 		} else {
 			throw new CommitNotFoundException();
 		}
@@ -196,6 +251,9 @@ public class Commit {
 			jsonCommit.put("versionTag", this.versionTag);
 		}
 		jsonCommit.put("sha", this.sha);
+		if(this.getModelHash() != null) {
+			jsonCommit.put("modelHash", this.getModelHash());
+		}
 		
 		return jsonCommit;
 	}
@@ -213,10 +271,14 @@ public class Commit {
 		try {
 			connection.setAutoCommit(false);
 			
-			statement = connection.prepareStatement("INSERT INTO Commit (message, timestamp, commitType) " + 
-			    "VALUES (?, CURRENT_TIMESTAMP, ?);", Statement.RETURN_GENERATED_KEYS);
+			if(this.commitType == COMMIT_TYPE_MANUAL) {
+				this.modelHash = hashOfCommittedModel();
+			}
+			statement = connection.prepareStatement("INSERT INTO Commit (message, timestamp, commitType, modelHash) " + 
+			    "VALUES (?, CURRENT_TIMESTAMP, ?, ?);", Statement.RETURN_GENERATED_KEYS);
 			statement.setString(1, this.message);
 			statement.setInt(2, this.commitType);
+			statement.setString(3, this.modelHash);
 			// execute query
 			statement.executeUpdate();
 		    // get the generated id and close statement
@@ -244,6 +306,11 @@ public class Commit {
 			    statement.setInt(2, this.model.getId());
 			    statement.executeUpdate();
 			    statement.close();
+			    ModelCatalog.link(connection, this.model.getId(), versionedModelId, this.id);
+			    // only real commits are searchable, not the commit for uncommited changes
+			    if(this.message != null) {
+			        AttributeIndex.add(connection, this.model);
+			    }
 			    
 			    // check if test model is included in commit
 			    if(this.testModel != null) {
@@ -326,6 +393,37 @@ public class Commit {
 		return this.sha;
 	}
 	
+	/**
+	 * Returns the content hash of the model of the commit.
+	 * @return Stored hash, null if the commit has none.
+	 */
+	public String getModelHash() {
+		return this.modelHash;
+	}
+
+	/**
+	 * Hashes the model of a new commit together with its wireframe, metadata doc and test model. These
+	 * are sent with every commit and passed to the code generation too, but are not part of the model
+	 * content hash, because models loaded from the database do not contain them.
+	 */
+	private String hashOfCommittedModel() {
+		return hashOfCommittedModel(this.model.getContentHash(), this.model.getWireframeModelAsString(),
+				this.model.getMetadataDoc(), this.testModel != null ? this.testModel.toJSONObject() : null);
+	}
+
+	/**
+	 * Hashes the parts of a commit that the code generation gets.
+	 * @param modelHash Content hash of the model.
+	 * @param wireframe Wireframe XML, may be null.
+	 * @param metadataDoc Metadata doc, may be null.
+	 * @param testModel JSON representation of the test model, may be null.
+	 * @return Hash of the committed model.
+	 */
+	static String hashOfCommittedModel(String modelHash, String wireframe, String metadataDoc, JSONObject testModel) {
+		return ContentHash.of("commit", modelHash, wireframe != null ? ContentHash.of(wireframe) : null, metadataDoc,
+				testModel != null ? ContentHash.ofJSON(testModel) : null);
+	}
+	
 	public Model getModel() {
 		return this.model;
 	}
@@ -0,0 +1,139 @@
+package i5.las2peer.services.modelPersistenceService.versionedModel;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+
+import i5.las2peer.services.modelPersistenceService.exception.CommitNotFoundException;
+
+/**
+ * Direct SQL operations on the commits of a versioned model.
+ * In contrast to loading a whole VersionedModel (which loads the models of all commits), these
+ * operations only touch the rows involved. They are used for the calls of the Code Generation Service
+ * (e.g. after a push to GitHub), which only need a single commit.
+ */
+public class CommitDAO {
+
+	/**
+	 * Searches for the commit with the given sha identifier within the versioned model.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of the versioned model.
+	 * @param sha Commit sha identifier.
+	 * @return Id of the commit.
+	 * @throws SQLException If something with the database went wrong (CommitNotFoundException if no commit has the sha).
+	 */
+	public static int findCommitIdBySha(Connection connection, int versionedModelId, String sha) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT c.id FROM Commit c "
+				+ "JOIN CommitToVersionedModel cv ON cv.commitId = c.id "
+				+ "WHERE c.sha = ? AND cv.versionedModelId = ? ORDER BY c.id DESC LIMIT 1;");
+		statement.setString(1, sha);
+		statement.setInt(2, versionedModelId);
+		return singleId(statement);
+	}
+
+	/**
+	 * Adds a commit of type COMMIT_TYPE_AUTO to the versioned model.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of the versioned model.
+	 * @param message Message of the commit.
+	 * @param sha Commit sha identifier.
+	 * @return Id of the new commit.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static int addAutoCommit(Connection connection, int versionedModelId, String message, String sha) throws SQLException {
+		boolean autoCommitBefore = connection.getAutoCommit();
+		try {
+			connection.setAutoCommit(false);
+
+			// auto commits do not change the model => the revision stays the same, so that clients can still
+			// commit their changes (this only checks that the versioned model exists)
+			VersionedModel.getRevision(connection, versionedModelId);
+
+			PreparedStatement statement = connection.prepareStatement("INSERT INTO Commit (message, timestamp, sha, commitType) "
+					+ "VALUES (?, CURRENT_TIMESTAMP, ?, ?);", Statement.RETURN_GENERATED_KEYS);
+			statement.setString(1, message);
+			statement.setString(2, sha);
+			statement.setInt(3, Commit.COMMIT_TYPE_AUTO);
+			int commitId = insert(statement);
+
+			statement = connection.prepareStatement("INSERT INTO CommitToVersionedModel (versionedModelId, commitId) VALUES (?, ?);");
+			statement.setInt(1, versionedModelId);
+			statement.setInt(2, commitId);
+			statement.executeUpdate();
+			statement.close();
+
+			connection.commit();
+			return commitId;
+		} catch (SQLException e) {
+			connection.rollback();
+			throw e;
+		} finally {
+			connection.setAutoCommit(autoCommitBefore);
+		}
+	}
+
+	/**
+	 * Adds the given version tag to the commit with the given sha identifier.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of the versioned model, which the commit belongs to.
+	 * @param sha Commit sha identifier.
+	 * @param tag Tag that should be set to the commit.
+	 * @throws SQLException If something with the database went wrong (CommitNotFoundException if no commit has the sha).
+	 */
+	public static void addVersionTag(Connection connection, int versionedModelId, String sha, String tag) throws SQLException {
+		int commitId = findCommitIdBySha(connection, versionedModelId, sha);
+		PreparedStatement statement = connection.prepareStatement("INSERT INTO VersionTag (tag, commitId) VALUE (?, ?);");
+		statement.setString(1, tag);
+		statement.setInt(2, commitId);
+		statement.executeUpdate();
+		statement.close();
+	}
+
+	/**
+	 * Returns the version tags that are set to commits of the versioned model (latest commit first).
+	 * Same result as {@link VersionedModel#getVersions()}, but without loading the versioned model.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of the versioned model.
+	 * @return ArrayList containing the version tags of the versioned model as strings.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static ArrayList<String> findVersionTags(Connection connection, int versionedModelId) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT t.tag FROM VersionTag t "
+				+ "JOIN Commit c ON c.id = t.commitId JOIN CommitToVersionedModel cv ON cv.commitId = c.id "
+				+ "WHERE cv.versionedModelId = ? AND c.message IS NOT NULL ORDER BY c.id DESC;");
+		statement.setInt(1, versionedModelId);
+		ArrayList<String> versions = new ArrayList<>();
+		ResultSet queryResult = statement.executeQuery();
+		while(queryResult.next()) {
+			versions.add(queryResult.getString(1));
+		}
+		statement.close();
+		return versions;
+	}
+
+	private static int singleId(PreparedStatement statement) throws SQLException {
+		try {
+			ResultSet queryResult = statement.executeQuery();
+			if(!queryResult.next()) {
+				throw new CommitNotFoundException();
+			}
+			return queryResult.getInt(1);
+		} finally {
+			statement.close();
+		}
+	}
+
+	private static int insert(PreparedStatement statement) throws SQLException {
+		try {
+			statement.executeUpdate();
+			ResultSet genKeys = statement.getGeneratedKeys();
+			genKeys.next();
+			return genKeys.getInt(1);
+		} finally {
+			statement.close();
+		}
+	}
+}
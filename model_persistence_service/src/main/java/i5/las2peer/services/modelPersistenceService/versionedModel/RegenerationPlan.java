@@ -0,0 +1,228 @@
+package i5.las2peer.services.modelPersistenceService.versionedModel;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Decides which stages of the commit pipeline (code generation, swagger doc, API changes message and
+ * test suggestions) need to run for a new commit. The model of the new commit is compared with the
+ * model of the previous manual commit of the versioned model using their content hashes, so that e.g.
+ * a commit that only adds a version tag does not regenerate anything.
+ * The plan also records which stages ran and which got skipped (and why).
+ */
+public class RegenerationPlan {
+
+	public enum Stage {
+		CODE_GENERATION("codeGeneration"),
+		SWAGGER("swagger"),
+		API_CHANGES_MESSAGE("apiChangesMessage"),
+		TEST_SUGGESTIONS("testSuggestions");
+
+		private final String name;
+
+		Stage(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+	}
+
+	private final boolean modelChanged;
+	private final String previousSha;
+
+	/**
+	 * Whether the commit belongs to an application. The code generation of an application includes the
+	 * latest commits of its components, which are resolved when the code generation gets called and thus
+	 * are not covered by the hash of the application model.
+	 */
+	private final boolean application;
+
+	/**
+	 * Decisions by stage: null if the stage ran, otherwise the reason why it got skipped.
+	 */
+	private final Map<Stage, String> decisions = new EnumMap<>(Stage.class);
+
+	RegenerationPlan(boolean modelChanged, String previousSha, boolean application) {
+		this.modelChanged = modelChanged;
+		this.previousSha = previousSha;
+		this.application = application;
+	}
+
+	/**
+	 * Creates the plan for the given (already persisted) commit.
+	 * Type and component name are compared too, because they are passed to the code generation together
+	 * with the model. If the previous commit has no stored model hash (e.g. it was stored before hashes
+	 * existed), the model is treated as changed.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of the versioned model.
+	 * @param commit The new commit.
+	 * @param type Type of the component (e.g. "frontend-component").
+	 * @param componentName Name of the component.
+	 * @return Plan for the commit.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static RegenerationPlan forCommit(Connection connection, int versionedModelId, Commit commit, String type,
+			String componentName) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT c.modelHash, c.sha, mc.type, mc.componentName "
+				+ "FROM Commit c JOIN CommitToVersionedModel cv ON cv.commitId = c.id "
+				+ "LEFT JOIN CommitToModel cm ON cm.commitId = c.id LEFT JOIN ModelCatalog mc ON mc.modelId = cm.modelId "
+				+ "WHERE cv.versionedModelId = ? AND c.commitType = ? AND c.id < ? ORDER BY c.id DESC LIMIT 1;");
+		statement.setInt(1, versionedModelId);
+		statement.setInt(2, Commit.COMMIT_TYPE_MANUAL);
+		statement.setInt(3, commit.getId());
+		boolean application = "application".equals(type);
+		try {
+			ResultSet queryResult = statement.executeQuery();
+			if(!queryResult.next()) {
+				// first commit of the versioned model
+				return new RegenerationPlan(true, null, application);
+			}
+			boolean modelChanged = isChanged(queryResult.getString(1), queryResult.getString(3), queryResult.getString(4),
+					commit.getModelHash(), type, componentName);
+			return new RegenerationPlan(modelChanged, queryResult.getString(2), application);
+		} finally {
+			statement.close();
+		}
+	}
+
+	/**
+	 * Compares the new commit with the previous manual commit.
+	 * @return Whether model hash, type or component name differ (or the previous commit has no model hash).
+	 */
+	static boolean isChanged(String previousHash, String previousType, String previousComponentName, String hash,
+			String type, String componentName) {
+		return previousHash == null || !previousHash.equals(hash) || !Objects.equals(previousType, type)
+				|| !Objects.equals(previousComponentName, componentName);
+	}
+
+	/**
+	 * Whether the model (or its type or component name) differs from the one of the previous manual commit.
+	 * @return False if the model is unchanged.
+	 */
+	public boolean isModelChanged() {
+		return this.modelChanged;
+	}
+
+	/**
+	 * Returns the sha identifier of the previous manual commit.
+	 * @return Sha of the previous manual commit, null if there is no previous commit or it has no sha.
+	 */
+	public String getPreviousSha() {
+		return this.previousSha;
+	}
+
+	/**
+	 * Whether the code generation needs to run. It can only be skipped if the model is unchanged, the
+	 * previous commit got pushed by the code generation (i.e. it has a sha) and the model is not an
+	 * application (whose components might have changed since the previous commit).
+	 * @return Whether the code generation needs to run.
+	 */
+	public boolean needsCodeGeneration() {
+		return this.modelChanged || this.application || this.previousSha == null || this.previousSha.isEmpty();
+	}
+
+	/**
+	 * Decides whether the swagger doc needs to be generated and records the decision. The previous doc
+	 * can be reused if the model is unchanged and the doc was generated for the same metadata version.
+	 * @param oldSwaggerDoc Swagger doc of the previous commit, null if there is none.
+	 * @param metadataVersionUnchanged Whether the metadata version equals the one of the previous doc.
+	 * @return Whether the swagger doc needs to be generated.
+	 */
+	public boolean needsSwagger(String oldSwaggerDoc, boolean metadataVersionUnchanged) {
+		if(!this.modelChanged && oldSwaggerDoc != null && metadataVersionUnchanged) {
+			skip(Stage.SWAGGER, "model unchanged");
+			return false;
+		}
+		ran(Stage.SWAGGER);
+		return true;
+	}
+
+	/**
+	 * Decides whether the message about the API changes needs to be sent and records the decision.
+	 * @param oldSwaggerDoc Swagger doc of the previous commit, null if there is none (e.g. first commit).
+	 * @param swaggerDoc Swagger doc of the new commit.
+	 * @return Whether the message needs to be sent.
+	 */
+	public boolean needsAPIChangesMessage(String oldSwaggerDoc, String swaggerDoc) {
+		if(isAPIUnchanged(oldSwaggerDoc, swaggerDoc)) {
+			skip(Stage.API_CHANGES_MESSAGE, "API unchanged");
+			return false;
+		}
+		if(oldSwaggerDoc == null || swaggerDoc == null) {
+			skip(Stage.API_CHANGES_MESSAGE, "no previous API doc");
+			return false;
+		}
+		ran(Stage.API_CHANGES_MESSAGE);
+		return true;
+	}
+
+	/**
+	 * Decides whether test cases need to be suggested and records the decision.
+	 * @param oldSwaggerDoc Swagger doc of the previous commit, null if there is none (e.g. first commit).
+	 * @param swaggerDoc Swagger doc of the new commit.
+	 * @return Whether test cases need to be suggested.
+	 */
+	public boolean needsTestSuggestions(String oldSwaggerDoc, String swaggerDoc) {
+		if(isAPIUnchanged(oldSwaggerDoc, swaggerDoc)) {
+			skip(Stage.TEST_SUGGESTIONS, "API unchanged");
+			return false;
+		}
+		ran(Stage.TEST_SUGGESTIONS);
+		return true;
+	}
+
+	private static boolean isAPIUnchanged(String oldSwaggerDoc, String swaggerDoc) {
+		return oldSwaggerDoc != null && oldSwaggerDoc.equals(swaggerDoc);
+	}
+
+	public void ran(Stage stage) {
+		this.decisions.put(stage, null);
+	}
+
+	public void skip(Stage stage, String reason) {
+		this.decisions.put(stage, reason);
+	}
+
+	public boolean isSkipped(Stage stage) {
+		return this.decisions.get(stage) != null;
+	}
+
+	/**
+	 * Returns the names of the stages that got skipped.
+	 * @return List of stage names.
+	 */
+	public List<String> getSkippedStages() {
+		List<String> skipped = new ArrayList<>();
+		for(Map.Entry<Stage, String> decision : this.decisions.entrySet()) {
+			if(decision.getValue() != null) skipped.add(decision.getKey().getName());
+		}
+		return skipped;
+	}
+
+	/**
+	 * Returns the decisions, e.g. {"modelChanged": false, "stages": {"codeGeneration": "skipped: model unchanged"}}.
+	 * @return JSON representation of the plan.
+	 */
+	@SuppressWarnings("unchecked")
+	public JSONObject toJSONObject() {
+		JSONObject stages = new JSONObject();
+		for(Map.Entry<Stage, String> decision : this.decisions.entrySet()) {
+			stages.put(decision.getKey().getName(), decision.getValue() == null ? "ran" : "skipped: " + decision.getValue());
+		}
+		JSONObject json = new JSONObject();
+		json.put("modelChanged", this.modelChanged);
+		json.put("stages", stages);
+		return json;
+	}
+}
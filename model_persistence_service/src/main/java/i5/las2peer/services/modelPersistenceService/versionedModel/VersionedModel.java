@@ -6,11 +6,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 import i5.las2peer.services.modelPersistenceService.exception.CommitNotFoundException;
+import i5.las2peer.services.modelPersistenceService.exception.RevisionConflictException;
 import i5.las2peer.services.modelPersistenceService.exception.VersionedModelNotFoundException;
 
 public class VersionedModel {
@@ -20,6 +22,12 @@ public class VersionedModel {
 	 */
 	private int id = -1;
 	
+	/**
+	 * Revision of the versioned model. Gets increased with every commit and is used to detect
+	 * concurrent changes of the versioned model.
+	 */
+	private int revision = 0;
+	
 	/**
 	 * List of commits that belong to the versioned model.
 	 * Each of the commits describes the model at a specific
@@ -35,6 +43,18 @@ public class VersionedModel {
 		this.commits = new ArrayList<>();
 	}
 	
+	/**
+	 * Creates a versioned model from already loaded commits.
+	 * @param id Id of the versioned model.
+	 * @param revision Current revision of the versioned model.
+	 * @param commits Commits of the versioned model, latest first (commit for uncommited changes at index 0).
+	 */
+	public VersionedModel(int id, int revision, List<Commit> commits) {
+		this.id = id;
+		this.revision = revision;
+		this.commits = new ArrayList<>(commits);
+	}
+	
 	/**
 	 * Creates a new versioned model by loading it from the database.
 	 * @param versionedModelId Id of the versioned model to search for.
@@ -53,20 +73,49 @@ public class VersionedModel {
 			// there does not exist a versioned model with the given id
 			throw new VersionedModelNotFoundException();
 		}
+		this.revision = queryResult.getInt("revision");
 		statement.close();
 		
 		// create empty list for commits
 		this.commits = new ArrayList<>();
 		
+		// the uncommited changes are stored as working copy document
+		// (older versioned models might still use a commit without message)
+		Commit uncommitedChanges = WorkingCopy.load(connection, versionedModelId);
+		
 		// load commits (order by id descending, then the latest commit is the first in the list)
 		statement = connection.prepareStatement("SELECT commitId FROM CommitToVersionedModel WHERE versionedModelId = ? ORDER BY commitId DESC;");
 		statement.setInt(1, versionedModelId);
 		
 		queryResult = statement.executeQuery();
 		while (queryResult.next()) {
-			this.commits.add(new Commit(queryResult.getInt(1), connection));
+			Commit commit = new Commit(queryResult.getInt(1), connection);
+			if(commit.getMessage() == null) {
+				if(uncommitedChanges == null) uncommitedChanges = commit;
+				continue;
+			}
+			this.commits.add(commit);
 		}
 		statement.close();
+		
+		// the commit for uncommited changes always is the first one in the list
+		if(uncommitedChanges != null) {
+			this.commits.add(0, uncommitedChanges);
+		}
+	}
+	
+	/**
+	 * Loads the wireframes of the models of all commits. Wireframes are loaded lazily, thus this
+	 * needs to be called before the JSON representation is created, if it should contain them.
+	 * @param connection Connection object
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public void loadWireframes(Connection connection) throws SQLException {
+		for(Commit commit : this.commits) {
+			if(commit.getModel() != null) {
+				commit.getModel().loadWireframe(connection);
+			}
+		}
 	}
 	
 	/**
@@ -78,6 +127,7 @@ public class VersionedModel {
 		JSONObject jsonVersionedModel = new JSONObject();
 		
 		jsonVersionedModel.put("id", this.id);
+		jsonVersionedModel.put("revision", this.revision);
 		
 		// add commits
 		JSONArray jsonCommits = new JSONArray();
@@ -139,10 +189,81 @@ public class VersionedModel {
 		return versions;
 	}
 	
+	/**
+	 * Returns the current revision of the versioned model.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of the versioned model.
+	 * @return Current revision of the versioned model.
+	 * @throws SQLException If something with the database went wrong (VersionedModelNotFoundException if model not found).
+	 */
+	public static int getRevision(Connection connection, int versionedModelId) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT revision FROM VersionedModel WHERE id = ?;");
+		statement.setInt(1, versionedModelId);
+		ResultSet queryResult = statement.executeQuery();
+		if(!queryResult.next()) {
+			statement.close();
+			throw new VersionedModelNotFoundException();
+		}
+		int revision = queryResult.getInt(1);
+		statement.close();
+		return revision;
+	}
+	
+	/**
+	 * Increases the revision of the versioned model, if it still is the expected one (compare-and-set).
+	 * Should be called within the transaction that changes the versioned model. Then the row of the
+	 * versioned model stays locked until the transaction ends, so that concurrent changes (also of
+	 * other nodes) wait and fail afterwards.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of the versioned model.
+	 * @param expectedRevision Revision the change is based on.
+	 * @return The new revision.
+	 * @throws SQLException If something with the database went wrong (RevisionConflictException if
+	 * the versioned model got changed in the meantime).
+	 */
+	public static int increaseRevision(Connection connection, int versionedModelId, int expectedRevision) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"UPDATE VersionedModel SET revision = revision + 1 WHERE id = ? AND revision = ?;");
+		statement.setInt(1, versionedModelId);
+		statement.setInt(2, expectedRevision);
+		int updated = statement.executeUpdate();
+		statement.close();
+		if(updated == 0) {
+			throw new RevisionConflictException("Versioned model " + versionedModelId + " is not at revision "
+					+ expectedRevision + " anymore.");
+		}
+		return expectedRevision + 1;
+	}
+	
+	/**
+	 * Increases the revision of the versioned model, regardless of its current revision. Used for commits
+	 * of clients that do not send the revision their commit is based on. Like
+	 * {@link #increaseRevision(Connection, int, int)}, the row of the versioned model stays locked until
+	 * the transaction ends.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of the versioned model.
+	 * @return The new revision.
+	 * @throws SQLException If something with the database went wrong (VersionedModelNotFoundException if model not found).
+	 */
+	public static int increaseRevision(Connection connection, int versionedModelId) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("UPDATE VersionedModel SET revision = revision + 1 WHERE id = ?;");
+		statement.setInt(1, versionedModelId);
+		int updated = statement.executeUpdate();
+		statement.close();
+		if(updated == 0) {
+			throw new VersionedModelNotFoundException();
+		}
+		return getRevision(connection, versionedModelId);
+	}
+	
 	public int getId() {
 		return this.id;
 	}
 	
+	public int getRevision() {
+		return this.revision;
+	}
+	
 	public ArrayList<Commit> getCommits() {
 		return this.commits;
 	}
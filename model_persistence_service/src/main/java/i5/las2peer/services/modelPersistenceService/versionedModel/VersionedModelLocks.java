@@ -0,0 +1,57 @@
+package i5.las2peer.services.modelPersistenceService.versionedModel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One lock per versioned model, so that changes to the same versioned model on this node get serialized,
+ * while changes to different versioned models never wait for each other (even if one of them waits for
+ * a slow call to another service). A lock only exists while it is held or waited for.
+ */
+public class VersionedModelLocks {
+
+	private final Map<Integer, Entry> locks = new HashMap<>();
+
+	/**
+	 * Acquires the lock of the given versioned model. Needs to be released with {@link #unlock(int)}.
+	 * @param versionedModelId Id of the versioned model.
+	 */
+	public void lock(int versionedModelId) {
+		Entry entry;
+		synchronized (this.locks) {
+			entry = this.locks.computeIfAbsent(versionedModelId, id -> new Entry());
+			entry.users++;
+		}
+		entry.lock.lock();
+	}
+
+	/**
+	 * Releases the lock of the given versioned model, which needs to be held by the current thread.
+	 * @param versionedModelId Id of the versioned model.
+	 */
+	public void unlock(int versionedModelId) {
+		synchronized (this.locks) {
+			Entry entry = this.locks.get(versionedModelId);
+			entry.lock.unlock();
+			if(--entry.users == 0) {
+				this.locks.remove(versionedModelId);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of versioned models whose lock is currently held or waited for.
+	 * @return Number of locks.
+	 */
+	public int size() {
+		synchronized (this.locks) {
+			return this.locks.size();
+		}
+	}
+
+	private static class Entry {
+		private final ReentrantLock lock = new ReentrantLock();
+		private int users = 0;
+	}
+}
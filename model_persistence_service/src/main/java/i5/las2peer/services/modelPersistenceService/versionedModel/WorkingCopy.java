@@ -0,0 +1,122 @@
+package i5.las2peer.services.modelPersistenceService.versionedModel;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Stores the uncommited changes of a versioned model (its working copy).
+ * The working copy is stored as a single JSON document per versioned model in the WorkingCopy table,
+ * which gets overwritten on every save. In contrast to a commit, the model is not split into the
+ * Node, Edge and Attribute tables, thus saving it only costs a single row.
+ * Versioned models that were created before, still use a commit without a message for the uncommited
+ * changes. That commit gets removed when the working copy is saved the first time.
+ */
+public class WorkingCopy {
+
+	/**
+	 * Saves the working copy of the versioned model (insert or update) and increases its revision.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of the versioned model.
+	 * @param model JSON representation of the model.
+	 * @param testModel JSON representation of the test model, null if the versioned model has none.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static void save(Connection connection, int versionedModelId, JSONObject model, JSONObject testModel) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("INSERT INTO WorkingCopy (versionedModelId, model, testModel, revision) "
+				+ "VALUES (?, ?, ?, 1) ON DUPLICATE KEY UPDATE model = VALUES(model), testModel = VALUES(testModel), "
+				+ "updatedAt = CURRENT_TIMESTAMP, revision = revision + 1;");
+		statement.setInt(1, versionedModelId);
+		statement.setString(2, model.toJSONString());
+		statement.setString(3, testModel == null ? null : testModel.toJSONString());
+		statement.executeUpdate();
+		statement.close();
+
+		deleteCommitForUncommitedChanges(connection, versionedModelId);
+	}
+
+	/**
+	 * Saves the given revision of the working copy of the versioned model (insert or update).
+	 * The stored working copy only gets replaced, if its revision is lower than the given one. Thus,
+	 * a delayed save cannot overwrite a newer working copy.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of the versioned model.
+	 * @param model JSON representation of the model.
+	 * @param testModel JSON representation of the test model, null if the versioned model has none.
+	 * @param revision Revision of the working copy.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static void save(Connection connection, int versionedModelId, JSONObject model, JSONObject testModel, int revision) throws SQLException {
+		// the revision needs to be updated last, because the other columns compare against the old one
+		PreparedStatement statement = connection.prepareStatement("INSERT INTO WorkingCopy (versionedModelId, model, testModel, revision) "
+				+ "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+				+ "model = IF(VALUES(revision) > revision, VALUES(model), model), "
+				+ "testModel = IF(VALUES(revision) > revision, VALUES(testModel), testModel), "
+				+ "updatedAt = IF(VALUES(revision) > revision, CURRENT_TIMESTAMP, updatedAt), "
+				+ "revision = GREATEST(revision, VALUES(revision));");
+		statement.setInt(1, versionedModelId);
+		statement.setString(2, model.toJSONString());
+		statement.setString(3, testModel == null ? null : testModel.toJSONString());
+		statement.setInt(4, revision);
+		statement.executeUpdate();
+		statement.close();
+
+		deleteCommitForUncommitedChanges(connection, versionedModelId);
+	}
+
+	/**
+	 * Returns the revision of the stored working copy of the versioned model.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of the versioned model.
+	 * @return Revision of the working copy, 0 if the versioned model has no working copy document.
+	 * @throws SQLException If something with the database went wrong.
+	 */
+	public static int getRevision(Connection connection, int versionedModelId) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT revision FROM WorkingCopy WHERE versionedModelId = ?;");
+		statement.setInt(1, versionedModelId);
+		ResultSet queryResult = statement.executeQuery();
+		int revision = queryResult.next() ? queryResult.getInt(1) : 0;
+		statement.close();
+		return revision;
+	}
+
+	/**
+	 * Loads the working copy of the versioned model.
+	 * @param connection Connection object
+	 * @param versionedModelId Id of the versioned model.
+	 * @return Commit (without message) containing the uncommited changes, or null if the versioned
+	 * model has no working copy document.
+	 * @throws SQLException If something with the database went wrong or the stored document is invalid.
+	 */
+	public static Commit load(Connection connection, int versionedModelId) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"SELECT model, testModel, updatedAt FROM WorkingCopy WHERE versionedModelId = ?;");
+		statement.setInt(1, versionedModelId);
+		try {
+			ResultSet queryResult = statement.executeQuery();
+			if(!queryResult.next()) return null;
+			return Commit.forUncommitedChanges(queryResult.getString("model"), queryResult.getString("testModel"),
+					queryResult.getString("updatedAt"));
+		} catch (ParseException e) {
+			throw new SQLException("Working copy of versioned model " + versionedModelId + " is invalid.", e);
+		} finally {
+			statement.close();
+		}
+	}
+
+	/**
+	 * Removes the commit that was used for the uncommited changes before the working copy got stored
+	 * as document.
+	 */
+	private static void deleteCommitForUncommitedChanges(Connection connection, int versionedModelId) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("DELETE c FROM Commit c JOIN CommitToVersionedModel cv ON cv.commitId = c.id "
+				+ "WHERE cv.versionedModelId = ? AND c.message IS NULL;");
+		statement.setInt(1, versionedModelId);
+		statement.executeUpdate();
+		statement.close();
+	}
+}
@@ -0,0 +1,264 @@
+package i5.las2peer.services.modelPersistenceService.versionedModel;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+
+import i5.las2peer.logging.L2pLogger;
+import i5.las2peer.services.modelPersistenceService.database.DatabaseManager;
+
+/**
+ * Saves working copies that are sent frequently (e.g. autosaves of the modeling editor).
+ * A save is only kept in memory first and gets written to the database after a short delay. All saves
+ * of a versioned model that arrive in the meantime are coalesced, so that only the latest one gets
+ * written. Thus, every versioned model is written at most once per flush interval, independent of the
+ * number of saves. Every save gets a revision, which is stored together with the working copy.
+ * A write only replaces the stored working copy if its revision is higher, so a write that is still
+ * running when the working copy gets replaced (see {@link #beginReplace(int, int)}) cannot overwrite it.
+ * Failed writes are retried with growing delays and given up after {@link #MAX_WRITE_ATTEMPTS} attempts.
+ */
+public class WorkingCopySaver {
+
+	/**
+	 * Delay between the first save of a burst and writing the latest save to the database.
+	 */
+	public static final long FLUSH_INTERVAL_MILLIS = 2000;
+
+	/**
+	 * Number of attempts to write a save before it gets dropped.
+	 */
+	public static final int MAX_WRITE_ATTEMPTS = 5;
+
+	private final DatabaseManager dbm;
+	private final L2pLogger logger;
+	private final long flushIntervalMillis;
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * State of the versioned models that were saved recently, by versioned model id. The state is kept
+	 * while a save is pending or being written and while the working copy is being replaced, so that
+	 * later saves get higher revisions even before the replacing working copy is visible in the database.
+	 */
+	private final ConcurrentHashMap<Integer, State> states = new ConcurrentHashMap<>();
+
+	public WorkingCopySaver(DatabaseManager dbm, L2pLogger logger) {
+		this(dbm, logger, FLUSH_INTERVAL_MILLIS);
+	}
+
+	WorkingCopySaver(DatabaseManager dbm, L2pLogger logger, long flushIntervalMillis) {
+		this.dbm = dbm;
+		this.logger = logger;
+		this.flushIntervalMillis = flushIntervalMillis;
+		// a single thread writes all working copies, which bounds the load caused by saves
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "working-copy-saver");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Saves the working copy of the versioned model. The working copy gets written to the database
+	 * within the flush interval.
+	 * @param versionedModelId Id of the versioned model.
+	 * @param model JSON representation of the model.
+	 * @param testModel JSON representation of the test model, null if the versioned model has none.
+	 * @return Revision of the saved working copy.
+	 * @throws SQLException If the current revision could not be loaded from the database.
+	 */
+	public int save(int versionedModelId, JSONObject model, JSONObject testModel) throws SQLException {
+		while(true) {
+			State state = this.states.computeIfAbsent(versionedModelId, id -> new State());
+			synchronized (state) {
+				// state might have been removed after it was flushed
+				if(state.removed) continue;
+
+				if(state.revision < 0) {
+					Connection connection = this.dbm.getConnection();
+					try {
+						state.revision = WorkingCopy.getRevision(connection, versionedModelId);
+					} finally {
+						connection.close();
+					}
+				}
+				state.revision++;
+				state.pending = new Pending(model, testModel, state.revision);
+				scheduleFlush(versionedModelId, state, this.flushIntervalMillis);
+				return state.revision;
+			}
+		}
+	}
+
+	/**
+	 * Returns the revision for a working copy that replaces the saved ones, e.g. the model of a commit,
+	 * which then needs to be stored with the returned revision. The revision is higher than the ones of
+	 * all previous saves, also of the ones that are not written yet or are being written right now, so
+	 * none of them can overwrite the replacing working copy once it is committed.
+	 * Needs to be followed by {@link #endReplace(int, int, boolean)} when the transaction that stores the
+	 * replacing working copy has ended.
+	 * @param versionedModelId Id of the versioned model.
+	 * @param storedRevision Revision of the working copy stored in the database.
+	 * @return Revision of the replacing working copy.
+	 */
+	public int beginReplace(int versionedModelId, int storedRevision) {
+		while(true) {
+			State state = this.states.computeIfAbsent(versionedModelId, id -> new State());
+			synchronized (state) {
+				if(state.removed) continue;
+
+				state.revision = Math.max(state.revision, storedRevision) + 1;
+				state.replacing++;
+				return state.revision;
+			}
+		}
+	}
+
+	/**
+	 * Discards the saves that were not written yet and are older than the replacing working copy, if it
+	 * got committed. If its transaction got rolled back, the saves still get written.
+	 * @param versionedModelId Id of the versioned model.
+	 * @param revision Revision returned by {@link #beginReplace(int, int)}.
+	 * @param committed Whether the replacing working copy got committed.
+	 */
+	public void endReplace(int versionedModelId, int revision, boolean committed) {
+		State state = this.states.get(versionedModelId);
+		if(state == null) return;
+		synchronized (state) {
+			if(committed && state.pending != null && state.pending.revision < revision) {
+				state.pending = null;
+			}
+			state.replacing--;
+			// the replacing working copy is visible in the database now (or got rolled back)
+			removeIfIdle(versionedModelId, state);
+		}
+	}
+
+	/**
+	 * Stops the background thread. Saves that were not written yet get written before.
+	 * @param timeoutMillis Maximum time to wait for the remaining writes.
+	 */
+	public void stop(long timeoutMillis) {
+		this.scheduler.shutdown();
+		try {
+			if(!this.scheduler.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				this.logger.warning("Not all working copies could be written before stopping.");
+				this.scheduler.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			this.scheduler.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Returns whether the saver keeps a state for the versioned model.
+	 * @param versionedModelId Id of the versioned model.
+	 * @return True if the versioned model was saved or replaced and is not idle yet.
+	 */
+	boolean isTracked(int versionedModelId) {
+		return this.states.containsKey(versionedModelId);
+	}
+
+	/**
+	 * Delay before the next attempt to write a save, doubled with every failed write.
+	 * @param flushIntervalMillis Delay before the first attempt.
+	 * @param failedWrites Number of failed writes of the save.
+	 * @return Delay in milliseconds.
+	 */
+	static long retryDelayMillis(long flushIntervalMillis, int failedWrites) {
+		return flushIntervalMillis << Math.min(failedWrites, MAX_WRITE_ATTEMPTS);
+	}
+
+	private void scheduleFlush(int versionedModelId, State state, long delayMillis) {
+		if(state.flushScheduled) return;
+		state.flushScheduled = true;
+		this.scheduler.schedule(() -> flush(versionedModelId, state), delayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private void flush(int versionedModelId, State state) {
+		Pending pending;
+		synchronized (state) {
+			pending = state.pending;
+			state.pending = null;
+			state.flushScheduled = false;
+			if(pending == null) {
+				removeIfIdle(versionedModelId, state);
+				return;
+			}
+			state.writing = true;
+		}
+
+		SQLException failure = null;
+		Connection connection = null;
+		try {
+			connection = this.dbm.getConnection();
+			WorkingCopy.save(connection, versionedModelId, pending.model, pending.testModel, pending.revision);
+		} catch (SQLException e) {
+			failure = e;
+		} finally {
+			try {
+				if(connection != null) connection.close();
+			} catch (SQLException e) {
+				this.logger.printStackTrace(e);
+			}
+		}
+
+		synchronized (state) {
+			state.writing = false;
+			if(failure == null) {
+				state.failedWrites = 0;
+			} else if(state.pending == null) {
+				// try again later (a newer save is written with the next flush anyway)
+				state.failedWrites++;
+				if(state.failedWrites < MAX_WRITE_ATTEMPTS) {
+					state.pending = pending;
+					scheduleFlush(versionedModelId, state, retryDelayMillis(this.flushIntervalMillis, state.failedWrites));
+				} else {
+					this.logger.warning("Dropped working copy revision " + pending.revision + " of versioned model "
+							+ versionedModelId + " after " + state.failedWrites + " failed writes: " + failure.getMessage());
+					state.failedWrites = 0;
+				}
+			}
+			removeIfIdle(versionedModelId, state);
+		}
+	}
+
+	/**
+	 * Forgets the versioned model if nothing is pending, being written or being replaced, so that the
+	 * next save loads the revision from the database again. Needs to be called while holding the lock
+	 * of the state.
+	 */
+	private void removeIfIdle(int versionedModelId, State state) {
+		if(state.pending == null && !state.flushScheduled && !state.writing && state.replacing == 0) {
+			state.removed = true;
+			this.states.remove(versionedModelId, state);
+		}
+	}
+
+	private static class State {
+		private int revision = -1;
+		private Pending pending;
+		private boolean flushScheduled;
+		private boolean writing;
+		private int replacing;
+		private int failedWrites;
+		private boolean removed;
+	}
+
+	private static class Pending {
+		private final JSONObject model;
+		private final JSONObject testModel;
+		private final int revision;
+
+		private Pending(JSONObject model, JSONObject testModel, int revision) {
+			this.model = model;
+			this.testModel = testModel;
+			this.revision = revision;
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package i5.las2peer.services.modelPersistenceService.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests that communication views are keyed by their models and invalidated when one of them changes.
+ */
+public class CommunicationViewCacheTest {
+
+	@Test
+	public void testKeyIgnoresOrderOfSubModels() {
+		assertEquals(CommunicationViewCache.key(1, Arrays.asList(3, 2)), CommunicationViewCache.key(1, Arrays.asList(2, 3)));
+	}
+
+	@Test
+	public void testInvalidation() {
+		CommunicationViewCache cache = new CommunicationViewCache();
+		String key = CommunicationViewCache.key(1, Arrays.asList(2, 3));
+		cache.put(key, "{}", Arrays.asList(1, 2, 3), Arrays.asList(10, 11));
+		assertEquals("{}", cache.get(key));
+
+		cache.invalidateVersionedModel(12);
+		cache.invalidateModel(4);
+		assertEquals("{}", cache.get(key));
+
+		cache.invalidateVersionedModel(11);
+		assertNull(cache.get(key));
+
+		cache.put(key, "{}", Arrays.asList(1, 2, 3), Arrays.asList(10, 11));
+		cache.invalidateModel(2);
+		assertNull(cache.get(key));
+	}
+}
@@ -0,0 +1,55 @@
+package i5.las2peer.services.modelPersistenceService.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import i5.cae.semanticCheck.SemanticCheckResponse;
+import i5.las2peer.services.modelPersistenceService.metrics.ServiceMetrics;
+
+/**
+ * Tests that semantic check results are reused for unchanged models and invalidated on a new service version.
+ */
+public class SemanticCheckCacheTest {
+
+	@Test
+	public void testIdenticalChecksCallServiceOnce() throws Exception {
+		ServiceMetrics metrics = new ServiceMetrics();
+		SemanticCheckCache cache = new SemanticCheckCache("semcheck@0.1", metrics);
+		AtomicInteger calls = new AtomicInteger();
+		SemanticCheckCache.Check check = model -> {
+			calls.incrementAndGet();
+			return SemanticCheckResponse.success();
+		};
+
+		SemanticCheckResponse first = cache.check("model-a", check);
+		assertSame(first, cache.check("model-a", check));
+		assertEquals(1, calls.get());
+		assertEquals(1, metrics.get("semanticCheck.cacheHit"));
+
+		cache.check("model-b", check);
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void testNewServiceVersionInvalidatesResults() throws Exception {
+		SemanticCheckCache cache = new SemanticCheckCache("semcheck@0.1", new ServiceMetrics());
+		AtomicInteger calls = new AtomicInteger();
+		SemanticCheckCache.Check check = model -> {
+			calls.incrementAndGet();
+			return SemanticCheckResponse.success();
+		};
+
+		cache.check("model-a", check);
+		cache.setServiceVersion("semcheck@0.1");
+		cache.check("model-a", check);
+		assertEquals(1, calls.get());
+
+		cache.setServiceVersion("semcheck@0.2");
+		cache.check("model-a", check);
+		assertEquals(2, calls.get());
+	}
+}
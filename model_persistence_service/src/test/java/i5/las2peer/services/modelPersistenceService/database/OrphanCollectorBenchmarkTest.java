@@ -0,0 +1,124 @@
+package i5.las2peer.services.modelPersistenceService.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import i5.las2peer.services.modelPersistenceService.model.Model;
+
+/**
+ * Fills the database with unreferenced models (half of them "deleted" the old way, which only removed
+ * the Model row and left nodes, edges and attributes behind), then checks that the orphan collector
+ * finds and removes all rows of these models.
+ * Not part of the regular tests (run it with "gradle benchmark"): the collector removes every orphan
+ * of the {@link TestDatabase}, not only the ones created here.
+ */
+public class OrphanCollectorBenchmarkTest {
+
+	private static final String EXAMPLE_MODEL = "./exampleModels/example_microservice_model_1.json";
+	private static final int MODELS = 200;
+
+	private static DatabaseManager dbm;
+	private static Connection connection;
+
+	@BeforeClass
+	public static void connect() throws Exception {
+		dbm = TestDatabase.getDatabaseManager();
+		connection = TestDatabase.connect();
+	}
+
+	@AfterClass
+	public static void closeConnection() throws Exception {
+		if(connection != null) connection.close();
+	}
+
+	@Test
+	public void benchmarkCollection() throws Exception {
+		String json = new String(Files.readAllBytes(Paths.get(EXAMPLE_MODEL)), "UTF-8");
+		List<Integer> modelIds = new ArrayList<>();
+		List<Integer> nodeIds = new ArrayList<>();
+		List<Integer> edgeIds = new ArrayList<>();
+		List<Integer> attributeIds = new ArrayList<>();
+		for(int i = 0; i < MODELS; i++) {
+			Model model = new Model(json);
+			model.persist(connection, true);
+			modelIds.add(model.getId());
+			// the rows of the model, which the collector needs to remove
+			nodeIds.addAll(selectIds("SELECT nodeId FROM NodeToModel WHERE modelId = ?;", model.getId()));
+			edgeIds.addAll(selectIds("SELECT edgeId FROM EdgeToModel WHERE modelId = ?;", model.getId()));
+			attributeIds.addAll(selectIds("SELECT attributeId FROM AttributeToModel WHERE modelId = ? "
+					+ "UNION SELECT an.attributeId FROM AttributeToNode an JOIN NodeToModel nm ON nm.nodeId = an.nodeId WHERE nm.modelId = ? "
+					+ "UNION SELECT ae.attributeId FROM AttributeToEdge ae JOIN EdgeToModel em ON em.edgeId = ae.edgeId WHERE em.modelId = ?;",
+					model.getId()));
+			if(i % 2 == 0) {
+				// old delete: nodes, edges and attributes stay in the database
+				PreparedStatement statement = connection.prepareStatement("DELETE FROM Model WHERE modelId = ?;");
+				statement.setInt(1, model.getId());
+				statement.executeUpdate();
+				statement.close();
+			}
+		}
+		assertTrue(nodeIds.size() > 0);
+		assertTrue(attributeIds.size() > 0);
+
+		OrphanCollector collector = new OrphanCollector(dbm, OrphanCollector.DEFAULT_BATCH_SIZE, 0);
+		collector.recordWatermarks();
+
+		// the counts include the orphans that were in the database before
+		OrphanCollector.Result dryRun = collector.collect(true);
+		assertTrue(dryRun.getCounts().get("Model") >= MODELS / 2);
+		assertTrue(dryRun.getCounts().get("Node") > 0);
+		assertEquals(MODELS / 2, countRows("Model", "modelId", modelIds));
+		assertEquals(nodeIds.size(), countRows("Node", "nodeId", nodeIds));
+
+		OrphanCollector.Result result = collector.collect(false);
+		assertTrue(result.getCounts().get("Model") >= MODELS / 2);
+		assertTrue(result.getCounts().get("Attribute") > 0);
+
+		assertEquals(0, countRows("Model", "modelId", modelIds));
+		assertEquals(0, countRows("Node", "nodeId", nodeIds));
+		assertEquals(0, countRows("Edge", "edgeId", edgeIds));
+		assertEquals(0, countRows("Attribute", "attributeId", attributeIds));
+	}
+
+	private static List<Integer> selectIds(String sql, int modelId) throws Exception {
+		PreparedStatement statement = connection.prepareStatement(sql);
+		long parameters = sql.chars().filter(c -> c == '?').count();
+		for(int i = 1; i <= parameters; i++) {
+			statement.setInt(i, modelId);
+		}
+		ResultSet queryResult = statement.executeQuery();
+		List<Integer> ids = new ArrayList<>();
+		while(queryResult.next()) {
+			ids.add(queryResult.getInt(1));
+		}
+		statement.close();
+		return ids;
+	}
+
+	/**
+	 * Counts the rows of the table that have one of the given ids.
+	 */
+	private static int countRows(String table, String idColumn, List<Integer> ids) throws Exception {
+		if(ids.isEmpty()) return 0;
+		String idList = ids.toString().replace('[', '(').replace(']', ')');
+		PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM " + table + " WHERE "
+				+ idColumn + " IN " + idList + ";");
+		ResultSet queryResult = statement.executeQuery();
+		queryResult.next();
+		int count = queryResult.getInt(1);
+		statement.close();
+		return count;
+	}
+}
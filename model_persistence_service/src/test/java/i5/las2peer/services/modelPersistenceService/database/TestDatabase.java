@@ -0,0 +1,92 @@
+package i5.las2peer.services.modelPersistenceService.database;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import org.junit.Assume;
+
+import i5.las2peer.services.modelPersistenceService.database.migration.SchemaMigrator;
+
+/**
+ * Database used by the tests: the one configured in the service properties file. Its schema gets
+ * migrated to the latest version before the first connection is returned. Test classes that need the
+ * database call {@link #connect()} in their @BeforeClass method and get skipped if it is not available.
+ */
+public class TestDatabase {
+
+	private static final String PROPERTIES_FILE = "./etc/i5.las2peer.services.modelPersistenceService.ModelPersistenceService.properties";
+
+	private static DatabaseManager dbm;
+	private static boolean migrated;
+
+	/**
+	 * Loads the service properties, which contain the database configuration.
+	 * @return Service properties.
+	 * @throws IOException If the properties file could not be read.
+	 */
+	public static Properties getProperties() throws IOException {
+		Properties properties = new Properties();
+		try (FileReader reader = new FileReader(PROPERTIES_FILE)) {
+			properties.load(reader);
+		}
+		return properties;
+	}
+
+	/**
+	 * Returns the database manager of the test database (the same one for all tests).
+	 * @return Database manager.
+	 * @throws IOException If the properties file could not be read.
+	 */
+	public static synchronized DatabaseManager getDatabaseManager() throws IOException {
+		if(dbm == null) {
+			Properties properties = getProperties();
+			dbm = new DatabaseManager(properties.getProperty("jdbcDriverClassName"),
+					properties.getProperty("jdbcLogin"), properties.getProperty("jdbcPass"),
+					properties.getProperty("jdbcUrl"), properties.getProperty("jdbcSchema"));
+		}
+		return dbm;
+	}
+
+	/**
+	 * Opens a connection to the test database. Skips the calling tests if the database is not available.
+	 * @return Connection to the migrated database.
+	 * @throws Exception If the properties could not be read or the migration failed.
+	 */
+	public static Connection connect() throws Exception {
+		Connection connection = null;
+		try {
+			connection = getDatabaseManager().getConnection();
+		} catch (SQLException e) {
+			Assume.assumeNoException("Database not available", e);
+		}
+		migrate();
+		return connection;
+	}
+
+	/**
+	 * Like {@link #connect()}, but returns null if the database is not available. Used by test classes
+	 * where only some of the tests need the database.
+	 * @return Connection to the migrated database, null if the database is not available.
+	 * @throws Exception If the properties could not be read or the migration failed.
+	 */
+	public static Connection connectIfAvailable() throws Exception {
+		Connection connection;
+		try {
+			connection = getDatabaseManager().getConnection();
+		} catch (SQLException e) {
+			return null;
+		}
+		migrate();
+		return connection;
+	}
+
+	private static synchronized void migrate() throws Exception {
+		if(!migrated) {
+			new SchemaMigrator(getDatabaseManager()).migrate();
+			migrated = true;
+		}
+	}
+}
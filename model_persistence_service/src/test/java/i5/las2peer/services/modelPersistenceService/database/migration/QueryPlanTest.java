@@ -0,0 +1,90 @@
+package i5.las2peer.services.modelPersistenceService.database.migration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import i5.las2peer.services.modelPersistenceService.database.TestDatabase;
+
+/**
+ * Regression test for the query plans of the hot lookups. Checks (using EXPLAIN) that the lookups use
+ * an index of the migrated {@link TestDatabase} instead of scanning the table.
+ */
+public class QueryPlanTest {
+
+	private static Connection connection;
+
+	@BeforeClass
+	public static void connect() throws Exception {
+		connection = TestDatabase.connect();
+	}
+
+	@AfterClass
+	public static void closeConnection() throws Exception {
+		if(connection != null) connection.close();
+	}
+
+	@Test
+	public void testSchemaIsUpToDate() throws Exception {
+		int latestVersion = SchemaMigrations.MIGRATIONS.get(SchemaMigrations.MIGRATIONS.size() - 1).getVersion();
+		assertEquals(latestVersion, SchemaMigrator.getCurrentVersion(connection));
+	}
+
+	@Test
+	public void testCommitHistoryUsesIndex() throws Exception {
+		// the commits need to be returned in order without sorting them
+		assertIndexSeek("SELECT commitId FROM CommitToVersionedModel WHERE versionedModelId = 1 ORDER BY commitId DESC",
+				"commitToVersionedModelHistoryIndex");
+	}
+
+	@Test
+	public void testCommitByShaUsesIndex() throws Exception {
+		assertIndexSeek("SELECT id FROM Commit WHERE sha = 'abc'", "commitShaIndex");
+	}
+
+	@Test
+	public void testCommitLookupsUseIndex() throws Exception {
+		assertIndexSeek("SELECT modelId FROM CommitToModel WHERE commitId = 1", null);
+		assertIndexSeek("SELECT * FROM VersionTag WHERE commitId = 1", null);
+	}
+
+	@Test
+	public void testModelLoadingUsesIndex() throws Exception {
+		assertIndexSeek("SELECT nodeId FROM NodeToModel WHERE modelId = 1", null);
+		assertIndexSeek("SELECT attributeId FROM AttributeToNode WHERE nodeId = 1", null);
+		assertIndexSeek("SELECT attributeId FROM AttributeToEdge WHERE edgeId = 1", null);
+	}
+
+	@Test
+	public void testTestSuggestionsUseIndex() throws Exception {
+		assertIndexSeek("SELECT id FROM VersionedModelToTestSuggestion WHERE versionedModelId = 1 AND suggest = 1", null);
+	}
+
+	/**
+	 * Checks that the plan of the given query uses an index and does not need to sort the result.
+	 * @param query Query to explain.
+	 * @param expectedIndex Name of the index that should be used, null if any index is fine.
+	 */
+	private static void assertIndexSeek(String query, String expectedIndex) throws Exception {
+		PreparedStatement statement = connection.prepareStatement("EXPLAIN " + query);
+		ResultSet plan = statement.executeQuery();
+		while(plan.next()) {
+			String key = plan.getString("key");
+			String extra = plan.getString("Extra");
+			assertNotEquals(query + " scans the whole table", "ALL", plan.getString("type"));
+			assertNotNull(query + " uses no index", key);
+			if(expectedIndex != null) assertEquals(query, expectedIndex, key);
+			assertFalse(query + " needs filesort", extra != null && extra.contains("Using filesort"));
+		}
+		statement.close();
+	}
+}
@@ -0,0 +1,75 @@
+package i5.las2peer.services.modelPersistenceService.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.http.HttpHeaders;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import i5.las2peer.services.modelPersistenceService.exception.RateLimitException;
+import i5.las2peer.services.modelPersistenceService.http.GitHubRateLimit.Priority;
+import i5.las2peer.services.modelPersistenceService.metrics.ServiceMetrics;
+
+/**
+ * Tests that low priority requests are shed before the GitHub rate limit is exhausted.
+ */
+public class GitHubRateLimitTest {
+
+	@Test
+	public void testLowPriorityRequestsAreShedNearTheLimit() throws Exception {
+		ServiceMetrics metrics = new ServiceMetrics();
+		GitHubRateLimit rateLimit = new GitHubRateLimit(metrics);
+		long reset = System.currentTimeMillis() / 1000 + 600;
+
+		rateLimit.update(200, headers("X-RateLimit-Limit", "100", "X-RateLimit-Remaining", "50",
+				"X-RateLimit-Reset", String.valueOf(reset)));
+		rateLimit.acquire(Priority.LOW);
+
+		rateLimit.update(200, headers("X-RateLimit-Limit", "100", "X-RateLimit-Remaining", "10",
+				"X-RateLimit-Reset", String.valueOf(reset)));
+		try {
+			rateLimit.acquire(Priority.LOW);
+			fail("Expected low priority request to be shed.");
+		} catch (RateLimitException e) {
+			assertTrue(e.getRetryAfterSeconds() > 0);
+		}
+		// the reserve is left for high priority requests
+		rateLimit.acquire(Priority.HIGH);
+
+		assertEquals(2, metrics.get("github.requests"));
+		assertEquals(1, metrics.get("github.shed.low"));
+		assertEquals(9L, rateLimit.toJSONObject().get("remaining"));
+	}
+
+	@Test
+	public void testSecondaryRateLimitBlocksAllRequests() throws Exception {
+		ServiceMetrics metrics = new ServiceMetrics();
+		GitHubRateLimit rateLimit = new GitHubRateLimit(metrics);
+
+		rateLimit.update(403, headers("Retry-After", "60"));
+		for(Priority priority : Priority.values()) {
+			try {
+				rateLimit.acquire(priority);
+				fail("Expected request to be shed.");
+			} catch (RateLimitException e) {
+				assertTrue(e.getRetryAfterSeconds() > 50);
+			}
+		}
+		assertEquals(1, metrics.get("github.rateLimited"));
+		assertEquals(0, metrics.get("github.requests"));
+	}
+
+	private static HttpHeaders headers(String... namesAndValues) {
+		Map<String, List<String>> headers = new HashMap<>();
+		for(int i = 0; i < namesAndValues.length; i += 2) {
+			headers.put(namesAndValues[i], Arrays.asList(namesAndValues[i + 1]));
+		}
+		return HttpHeaders.of(headers, (name, value) -> true);
+	}
+}
@@ -0,0 +1,106 @@
+package i5.las2peer.services.modelPersistenceService.invocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import i5.las2peer.services.modelPersistenceService.exception.ServiceCallException;
+
+/**
+ * Tests the concurrent execution, timeouts and cancellation of ServiceCalls using a local stub service.
+ */
+public class ServiceCallsTest {
+
+	private ExecutorService executor;
+
+	@Before
+	public void createExecutor() {
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void shutdownExecutor() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testIndependentCallsRunConcurrently() throws Exception {
+		// every call of the stub only returns once all three calls arrived
+		StubService stub = new StubService(3);
+		try (ServiceCalls calls = new ServiceCalls(executor)) {
+			ServiceCalls.Call<String> metadata = calls.submit("getProjectMetadataRMI", 5000, () -> stub.call("metadata"));
+			ServiceCalls.Call<String> chatInfo = calls.submit("getProjectChatInfo", 5000, () -> stub.call("chatInfo"));
+			ServiceCalls.Call<String> access = calls.submit("hasAccessToProject", 5000, () -> stub.call("access"));
+			calls.awaitAll();
+
+			assertEquals("metadata", metadata.get());
+			assertEquals("chatInfo", chatInfo.get());
+			assertEquals("access", access.get());
+		}
+	}
+
+	@Test
+	public void testTimeoutCancelsRemainingCalls() throws Exception {
+		// the stub never answers, because only one of two expected calls arrives
+		StubService stub = new StubService(2);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		try (ServiceCalls calls = new ServiceCalls(executor)) {
+			calls.submit("slow", 100, () -> {
+				try {
+					return stub.call("slow");
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+					throw e;
+				}
+			});
+			try {
+				calls.awaitAll();
+				fail("Expected timeout.");
+			} catch (ServiceCallException e) {
+				assertTrue(e.getMessage().contains("slow"));
+			}
+		}
+		assertTrue("Call did not get interrupted.", interrupted.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testFailureIsReported() {
+		try (ServiceCalls calls = new ServiceCalls(executor)) {
+			ServiceCalls.Call<String> call = calls.submit("failing", () -> {
+				throw new IllegalStateException("service not available");
+			});
+			call.get();
+			fail("Expected failure.");
+		} catch (ServiceCallException e) {
+			assertTrue(e.getMessage().contains("service not available"));
+		}
+	}
+
+	/**
+	 * Stub for a remote service: a call only returns after the expected number of calls arrived.
+	 */
+	private static class StubService {
+		private final CountDownLatch arrived;
+
+		private StubService(int expectedCalls) {
+			this.arrived = new CountDownLatch(expectedCalls);
+		}
+
+		private String call(String result) throws InterruptedException {
+			this.arrived.countDown();
+			if (!this.arrived.await(10, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Calls were not executed concurrently.");
+			}
+			return result;
+		}
+	}
+}
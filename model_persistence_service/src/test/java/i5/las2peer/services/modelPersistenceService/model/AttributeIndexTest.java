@@ -0,0 +1,126 @@
+package i5.las2peer.services.modelPersistenceService.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import i5.las2peer.services.modelPersistenceService.database.TestDatabase;
+import i5.las2peer.services.modelPersistenceService.versionedModel.Commit;
+import i5.las2peer.services.modelPersistenceService.versionedModel.VersionedModel;
+
+/**
+ * Tests the search of the attribute index against the {@link TestDatabase}. Uses its own versioned
+ * model with two commits, whose attribute values start with a prefix that is unique for the test run.
+ * Everything gets deleted afterwards.
+ */
+public class AttributeIndexTest {
+
+	private static final String PREFIX = "/attributeIndexTest" + System.nanoTime();
+
+	private static Connection connection;
+
+	private int versionedModelId;
+	private final List<Commit> commits = new ArrayList<>();
+
+	@BeforeClass
+	public static void connect() throws Exception {
+		connection = TestDatabase.connect();
+	}
+
+	@Before
+	public void commitModels() throws Exception {
+		VersionedModel versionedModel = new VersionedModel();
+		versionedModel.persist(connection);
+		versionedModelId = versionedModel.getId();
+
+		commit("first", node("n1", "HTTP Method", "path", PREFIX + "/a_b"),
+				node("n2", "HTTP Method", "path", PREFIX + "/old"));
+		commit("second", node("n1", "HTTP Method", "path", PREFIX + "/a_b"),
+				node("n2", "HTTP Method", "path", PREFIX + "/axb"),
+				node("n3", "HTTP Method", "path", PREFIX + "/A%b"),
+				node("n4", "RESTful Resource", "name", PREFIX + "/a_b"));
+	}
+
+	@After
+	public void deleteModels() throws Exception {
+		for(Commit commit : commits) {
+			// the index rows get deleted with the model
+			Model.delete(connection, commit.getModel().getId());
+			deleteRows("DELETE FROM Commit WHERE id = ?;", commit.getId());
+		}
+		deleteRows("DELETE FROM VersionedModel WHERE id = ?;", versionedModelId);
+	}
+
+	@AfterClass
+	public static void closeConnection() throws Exception {
+		if(connection != null) connection.close();
+	}
+
+	@Test
+	public void testExactSearch() throws Exception {
+		List<AttributeIndex.Match> matches = AttributeIndex.search(connection, "path", PREFIX + "/a_b", false, null, 0, 100);
+		// the models of earlier commits are searched as well
+		assertEquals(2, matches.size());
+		assertEquals(versionedModelId, matches.get(0).getVersionedModelId().intValue());
+		assertEquals(commits.get(0).getId(), matches.get(0).getCommitId().intValue());
+		assertEquals(commits.get(1).getId(), matches.get(1).getCommitId().intValue());
+		assertEquals("n1", matches.get(0).getNodeSyncMetaId());
+
+		// values of earlier commits are found, even though later commits changed them
+		assertEquals(1, AttributeIndex.search(connection, "path", PREFIX + "/old", false, null, 0, 100).size());
+		// values are compared case-sensitively
+		assertEquals(0, AttributeIndex.search(connection, "path", PREFIX + "/A_b", false, null, 0, 100).size());
+	}
+
+	@Test
+	public void testPrefixSearch() throws Exception {
+		assertEquals(6, AttributeIndex.search(connection, null, PREFIX + "/", true, null, 0, 100).size());
+		// wildcard characters are matched literally
+		List<AttributeIndex.Match> matches = AttributeIndex.search(connection, "path", PREFIX + "/a_", true, null, 0, 100);
+		assertEquals(2, matches.size());
+		assertEquals(PREFIX + "/a_b", matches.get(0).toJSONObject().get("value"));
+		assertEquals(1, AttributeIndex.search(connection, "path", PREFIX + "/A%", true, null, 0, 100).size());
+		assertEquals(0, AttributeIndex.search(connection, "path", PREFIX + "/%", true, null, 0, 100).size());
+	}
+
+	@Test
+	public void testFilters() throws Exception {
+		assertEquals(3, AttributeIndex.search(connection, null, PREFIX + "/a_b", false, null, 0, 100).size());
+		assertEquals(1, AttributeIndex.search(connection, "name", PREFIX + "/a_b", false, null, 0, 100).size());
+		assertEquals(1, AttributeIndex.search(connection, null, PREFIX + "/a_b", false, "RESTful Resource", 0, 100).size());
+
+		// pages in index order
+		List<AttributeIndex.Match> page = AttributeIndex.search(connection, null, PREFIX + "/a_b", false, null, 1, 1);
+		assertEquals(1, page.size());
+		assertNotEquals(commits.get(0).getId(), page.get(0).getCommitId().intValue());
+	}
+
+	private void commit(String message, String... nodes) throws Exception {
+		String model = "{\"attributes\":{\"attributes\":{}},\"edges\":{},\"nodes\":{" + String.join(",", nodes) + "}}";
+		Commit commit = new Commit("{\"message\":\"" + message + "\",\"model\":" + model + "}", false, false);
+		commit.persist(versionedModelId, connection, true);
+		commits.add(commit);
+	}
+
+	private static String node(String id, String type, String name, String value) {
+		return "\"" + id + "\":{\"type\":\"" + type + "\",\"left\":0,\"top\":0,\"width\":10,\"height\":10,\"zIndex\":1,"
+				+ "\"attributes\":{\"" + id + "a\":{\"value\":{\"name\":\"" + name + "\",\"value\":\"" + value + "\"}}}}";
+	}
+
+	private static void deleteRows(String sql, int id) throws Exception {
+		PreparedStatement statement = connection.prepareStatement(sql);
+		statement.setInt(1, id);
+		statement.executeUpdate();
+		statement.close();
+	}
+}
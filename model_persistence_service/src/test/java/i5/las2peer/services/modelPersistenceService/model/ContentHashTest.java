@@ -0,0 +1,70 @@
+package i5.las2peer.services.modelPersistenceService.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests the content hashes of models, nodes and attributes.
+ */
+public class ContentHashTest {
+
+	private static String model(String path, int left) {
+		return "{\"attributes\":{\"attributes\":{}},\"edges\":{},\"nodes\":{"
+				+ "\"n1\":{\"type\":\"HTTP Method\",\"left\":" + left + ",\"top\":0,\"width\":10,\"height\":10,\"zIndex\":1,"
+				+ "\"attributes\":{\"a1\":{\"value\":{\"name\":\"path\",\"value\":\"" + path + "\"}},"
+				+ "\"a2\":{\"value\":{\"name\":\"methodType\",\"value\":\"GET\"}}}},"
+				+ "\"n2\":{\"type\":\"RESTful Resource\",\"left\":0,\"top\":0,\"width\":10,\"height\":10,\"zIndex\":2,"
+				+ "\"attributes\":{\"a3\":{\"value\":{\"name\":\"path\",\"value\":\"users\"}}}}}}";
+	}
+
+	@Test
+	public void testUnorderedCombination() {
+		String a = ContentHash.of("a");
+		String b = ContentHash.of("b");
+		assertEquals(ContentHash.unordered(Arrays.asList(a, b)), ContentHash.unordered(Arrays.asList(b, a)));
+		assertNotEquals(ContentHash.of("ab", "c"), ContentHash.of("a", "bc"));
+	}
+
+	@Test
+	public void testEqualModelsHaveEqualHash() throws Exception {
+		assertEquals(new Model(model("{id}", 0)).getContentHash(), new Model(model("{id}", 0)).getContentHash());
+		// the layout is not part of the hash
+		assertEquals(new Model(model("{id}", 0)).getContentHash(), new Model(model("{id}", 500)).getContentHash());
+	}
+
+	@Test
+	public void testHashOnlyCoversPartsOfEveryLoadPath() throws Exception {
+		// models loaded from the database contain neither the wireframe nor the metadata doc
+		String withWireframe = "{\"wireframe\":\"<wireframe/>\",\"metadataDoc\":{\"info\":\"doc\"},"
+				+ model("{id}", 0).substring(1);
+		assertEquals(new Model(model("{id}", 0)).getContentHash(), new Model(withWireframe).getContentHash());
+	}
+
+	@Test
+	public void testHashIncludesAttributesAddedLater() throws Exception {
+		Model model = new Model(model("{id}", 0));
+		String before = model.getContentHash();
+		model.getAttributes().add(new EntityAttribute("type", "type", "microservice"));
+		assertNotEquals(before, model.getContentHash());
+	}
+
+	@Test
+	public void testChangeOnlyAffectsChangedNode() throws Exception {
+		Model before = new Model(model("{id}", 0));
+		Model after = new Model(model("{name}", 0));
+		assertNotEquals(before.getContentHash(), after.getContentHash());
+
+		for(int i = 0; i < before.getNodes().size(); i++) {
+			String syncMetaId = before.getNodes().get(i).getSyncMetaId();
+			for(int j = 0; j < after.getNodes().size(); j++) {
+				if(!after.getNodes().get(j).getSyncMetaId().equals(syncMetaId)) continue;
+				boolean changed = !before.getNodes().get(i).getContentHash().equals(after.getNodes().get(j).getContentHash());
+				assertEquals(syncMetaId.equals("n1"), changed);
+			}
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package i5.las2peer.services.modelPersistenceService.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.simple.JSONValue;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import i5.las2peer.services.modelPersistenceService.database.TestDatabase;
+
+/**
+ * Checks that every storage mode returns the stored models unchanged, using the example models: the
+ * loaded models have the content hash of the parsed model and the same JSON representation as the
+ * models loaded from the normalized storage (also when loaded together with other models).
+ */
+public class ModelStorageTest {
+
+	private static final String[] EXAMPLE_MODELS = { "./exampleModels/example_microservice_model_1.json",
+			"./exampleModels/example_microservice_model_2.json", "./exampleModels/example_microservice_model_3.json" };
+
+	private static Connection connection;
+	private final List<Model> persistedModels = new ArrayList<>();
+
+	@BeforeClass
+	public static void connect() throws Exception {
+		connection = TestDatabase.connect();
+	}
+
+	@After
+	public void deleteModels() {
+		Model.setStorageMode(ModelStorageMode.NORMALIZED);
+		for(Model model : persistedModels) {
+			model.deleteFromDatabase(connection);
+		}
+	}
+
+	@AfterClass
+	public static void closeConnection() throws Exception {
+		if(connection != null) connection.close();
+	}
+
+	@Test
+	public void testEveryStorageModeReturnsSameModel() throws Exception {
+		for(String file : EXAMPLE_MODELS) {
+			String json = readModel(file);
+			String hash = new Model(json).getContentHash();
+
+			Model.setStorageMode(ModelStorageMode.NORMALIZED);
+			Object normalized = JSONValue.parse(new Model(persist(json), connection).toJSONObject().toJSONString());
+
+			for(ModelStorageMode mode : ModelStorageMode.values()) {
+				Model.setStorageMode(mode);
+				int modelId = persist(json);
+				String message = file + " (" + mode + ")";
+
+				Model loaded = new Model(modelId, connection);
+				assertEquals(message, hash, loaded.getContentHash());
+				assertEquals(message, normalized, JSONValue.parse(loaded.toJSONObject().toJSONString()));
+
+				Model loadedWithOthers = Model.loadAll(connection, Arrays.asList(modelId, persistedModels.get(0).getId())).get(modelId);
+				assertEquals(message, hash, loadedWithOthers.getContentHash());
+			}
+		}
+	}
+
+	private int persist(String json) throws Exception {
+		Model model = new Model(json);
+		model.persist(connection, true);
+		persistedModels.add(model);
+		return model.getId();
+	}
+
+	private static String readModel(String file) throws Exception {
+		return new String(Files.readAllBytes(Paths.get(file)), "UTF-8");
+	}
+}
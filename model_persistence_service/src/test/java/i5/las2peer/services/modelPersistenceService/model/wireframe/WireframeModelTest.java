@@ -0,0 +1,136 @@
+package i5.las2peer.services.modelPersistenceService.model.wireframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import i5.cae.simpleModel.SimpleEntityAttribute;
+import i5.cae.simpleModel.SimpleModel;
+import i5.cae.simpleModel.node.SimpleNode;
+
+/**
+ * Tests that the StAX parser extends models with the same attributes (and in the same order) as the
+ * DOM parser used before. The expected attributes are the ones the DOM parser created for
+ * example_wireframe.xml.
+ */
+public class WireframeModelTest {
+
+	private static final String WIREFRAME = "example_wireframe.xml";
+
+	@Test
+	public void testMeta() throws Exception {
+		WireframeModel wireframe = new WireframeModel(readWireframe());
+		assertEquals("wireframe1", wireframe.getId());
+		assertEquals("1024", wireframe.getWidth());
+		assertEquals("768", wireframe.getHeight());
+	}
+
+	@Test
+	public void testExtendSimpleModel() throws Exception {
+		SimpleModel model = extend(new WireframeModel(readWireframe()));
+
+		assertAttributes(model, "div1",
+				"uiAttr_class", "class", "panel",
+				"uiAttr_style", "style", "border:1px",
+				"uiGeo_X", "x", "20",
+				"uiGeo_Y", "y", "40",
+				"uiGeo_Height", "height", "400",
+				"uiGeo_Width", "width", "600",
+				"uiLabel", "label", "Container");
+		// ui attributes are sorted by name, not in document order
+		assertAttributes(model, "button1",
+				"uiAttr_autofocus", "autofocus", "true",
+				"uiAttr_disabled", "disabled", "false",
+				"uiAttr_type", "type", "submit",
+				"uiGeo_X", "x", "40",
+				"uiGeo_Y", "y", "300",
+				"uiGeo_Height", "height", "30",
+				"uiGeo_Width", "width", "120",
+				"uiLabel", "label", "Send");
+		// missing width and height get the default size, a missing label is "null"
+		assertAttributes(model, "input1",
+				"uiAttr_placeholder", "placeholder", "Name",
+				"uiGeo_X", "x", "40",
+				"uiGeo_Y", "y", "60",
+				"uiGeo_Height", "height", "200",
+				"uiGeo_Width", "width", "200",
+				"uiLabel", "label", "null");
+		// ui objects without geometry and nodes that are not part of the wireframe are not extended
+		assertAttributes(model, "link1");
+		assertAttributes(model, "other");
+	}
+
+	@Test
+	public void testReaderAndStringGiveSameResult() throws Exception {
+		SimpleModel fromString = extend(new WireframeModel(readWireframe()));
+		SimpleModel fromReader;
+		try (Reader reader = new InputStreamReader(WireframeModelTest.class.getResourceAsStream(WIREFRAME),
+				StandardCharsets.UTF_8)) {
+			fromReader = extend(new WireframeModel(reader));
+		}
+		for(int i = 0; i < fromString.getNodes().size(); i++) {
+			assertEquals(toStrings(fromString.getNodes().get(i)), toStrings(fromReader.getNodes().get(i)));
+		}
+	}
+
+	@Test
+	public void testWhitespaceBetweenElements() throws Exception {
+		// the DOM parser failed on indented wireframes, the StAX parser ignores the whitespace
+		String indented = readWireframe().replace("><", ">\n  <");
+		SimpleModel expected = extend(new WireframeModel(readWireframe()));
+		SimpleModel actual = extend(new WireframeModel(indented));
+		for(int i = 0; i < expected.getNodes().size(); i++) {
+			assertEquals(toStrings(expected.getNodes().get(i)), toStrings(actual.getNodes().get(i)));
+		}
+	}
+
+	private static String readWireframe() throws Exception {
+		StringBuilder xml = new StringBuilder();
+		try (Reader reader = new InputStreamReader(WireframeModelTest.class.getResourceAsStream(WIREFRAME),
+				StandardCharsets.UTF_8)) {
+			char[] buffer = new char[4096];
+			int read;
+			while((read = reader.read(buffer)) != -1) {
+				xml.append(buffer, 0, read);
+			}
+		}
+		return xml.toString();
+	}
+
+	private static SimpleModel extend(WireframeModel wireframe) {
+		ArrayList<SimpleNode> nodes = new ArrayList<>();
+		for(String id : new String[] { "div1", "button1", "input1", "link1", "other" }) {
+			nodes.add(new SimpleNode(id, "UI Control", new ArrayList<SimpleEntityAttribute>()));
+		}
+		SimpleModel model = new SimpleModel("wireframeModelTest", nodes, new ArrayList<>(), new ArrayList<SimpleEntityAttribute>());
+		return wireframe.extendSimpleModel(model);
+	}
+
+	private static void assertAttributes(SimpleModel model, String nodeId, String... expected) {
+		for(SimpleNode node : model.getNodes()) {
+			if(node.getId().equals(nodeId)) {
+				assertEquals(nodeId, Arrays.asList(expected), toStrings(node));
+				return;
+			}
+		}
+		fail("Node " + nodeId + " not found");
+	}
+
+	private static List<String> toStrings(SimpleNode node) {
+		List<String> attributes = new ArrayList<>();
+		for(SimpleEntityAttribute attribute : node.getAttributes()) {
+			attributes.add(attribute.getSyncMetaId());
+			attributes.add(attribute.getName());
+			attributes.add(attribute.getValue());
+		}
+		return attributes;
+	}
+}
@@ -0,0 +1,216 @@
+package i5.las2peer.services.modelPersistenceService.outbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.json.simple.JSONObject;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import i5.las2peer.logging.L2pLogger;
+import i5.las2peer.services.modelPersistenceService.database.DatabaseManager;
+import i5.las2peer.services.modelPersistenceService.database.TestDatabase;
+import i5.las2peer.services.modelPersistenceService.metrics.ServiceMetrics;
+
+/**
+ * Tests the delays between the attempts of failed outbox calls and (if the {@link TestDatabase} is
+ * available) how the dispatcher sends, retries and gives up calls.
+ * The dispatcher tests only use entries of their own target, which get deleted afterwards.
+ */
+public class OutboxDispatcherTest {
+
+	private static final String TARGET = "outboxDispatcherTest-" + System.nanoTime();
+
+	private static DatabaseManager dbm;
+	private static Connection connection;
+
+	private ServiceMetrics metrics;
+	private OutboxDispatcher dispatcher;
+
+	@BeforeClass
+	public static void connect() throws Exception {
+		dbm = TestDatabase.getDatabaseManager();
+		// only the dispatcher tests need the database
+		connection = TestDatabase.connectIfAvailable();
+	}
+
+	@Before
+	public void createDispatcher() {
+		metrics = new ServiceMetrics();
+		dispatcher = new OutboxDispatcher(dbm, metrics, L2pLogger.getInstance(OutboxDispatcherTest.class.getName()));
+		// calls are only dispatched by the tests (the first periodic run would be in an hour)
+		dispatcher.start(3600, null);
+	}
+
+	@After
+	public void deleteEntries() throws Exception {
+		dispatcher.stop();
+		if(connection == null) return;
+		PreparedStatement statement = connection.prepareStatement("DELETE FROM Outbox WHERE target = ?;");
+		statement.setString(1, TARGET);
+		statement.executeUpdate();
+		statement.close();
+	}
+
+	@AfterClass
+	public static void closeConnection() throws Exception {
+		if(connection != null) connection.close();
+	}
+
+	@Test
+	public void testBackoffGrowsUntilCap() {
+		int first = OutboxDispatcher.backoffSeconds(1);
+		assertTrue(first >= 10 && first <= 12);
+
+		int third = OutboxDispatcher.backoffSeconds(3);
+		assertTrue(third >= 40 && third <= 48);
+
+		// capped at one hour (plus jitter), also for large numbers of attempts
+		for(int attempts : new int[] { 12, 40, Integer.MAX_VALUE }) {
+			int backoff = OutboxDispatcher.backoffSeconds(attempts);
+			assertTrue(backoff >= 3600 && backoff <= 3600 + 720);
+		}
+	}
+
+	@Test
+	public void testSuccessfulCallIsDone() throws Exception {
+		Assume.assumeTrue("Database not available", connection != null);
+		AtomicInteger calls = new AtomicInteger();
+		dispatcher.register(TARGET, 2, false, entry -> {
+			calls.incrementAndGet();
+			return "result of " + entry.getPayload().get("value");
+		});
+		int id = enqueue("done", "a");
+
+		dispatcher.dispatch();
+		// counted after the entry got updated
+		await(() -> metrics.get("outbox." + TARGET + ".done") == 1);
+		assertEquals(Outbox.STATUS_DONE, getColumn(id, "status"));
+		assertEquals("result of a", getColumn(id, "result"));
+
+		// done entries are not sent again
+		dispatcher.dispatch();
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void testFailedCallIsRetriedLater() throws Exception {
+		Assume.assumeTrue("Database not available", connection != null);
+		AtomicInteger calls = new AtomicInteger();
+		dispatcher.register(TARGET, 2, false, entry -> {
+			calls.incrementAndGet();
+			throw new IllegalStateException("service not available");
+		});
+		int id = enqueue("retry", "a");
+
+		dispatcher.dispatch();
+		await(() -> metrics.get("outbox." + TARGET + ".retried") == 1);
+		assertEquals(Outbox.STATUS_PENDING, getColumn(id, "status"));
+		assertEquals("service not available", getColumn(id, "lastError"));
+		assertEquals("1", getColumn(id, "attempts"));
+
+		// the next attempt is delayed by the backoff
+		dispatcher.dispatch();
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void testCallIsGivenUpAfterLastAttempt() throws Exception {
+		Assume.assumeTrue("Database not available", connection != null);
+		dispatcher.register(TARGET, 2, false, entry -> {
+			throw new IllegalStateException("service not available");
+		});
+		int id = enqueue("giveUp", "a");
+		PreparedStatement statement = connection.prepareStatement("UPDATE Outbox SET attempts = ? WHERE id = ?;");
+		statement.setInt(1, OutboxDispatcher.MAX_ATTEMPTS - 1);
+		statement.setInt(2, id);
+		statement.executeUpdate();
+		statement.close();
+
+		dispatcher.dispatch();
+		await(() -> metrics.get("outbox." + TARGET + ".failed") == 1);
+		assertEquals(Outbox.STATUS_FAILED, getColumn(id, "status"));
+		assertEquals(0, metrics.get("outbox." + TARGET + ".retried"));
+	}
+
+	@Test
+	public void testConcurrentCallsPerTargetAreLimited() throws Exception {
+		Assume.assumeTrue("Database not available", connection != null);
+		CountDownLatch blocked = new CountDownLatch(1);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		dispatcher.register(TARGET, 2, false, entry -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			try {
+				blocked.await(10, TimeUnit.SECONDS);
+			} finally {
+				running.decrementAndGet();
+			}
+			return null;
+		});
+		for(int i = 0; i < 5; i++) {
+			enqueue("concurrency" + i, String.valueOf(i));
+		}
+
+		dispatcher.dispatch();
+		await(() -> running.get() == 2);
+		// no free slot => nothing else gets claimed
+		dispatcher.dispatch();
+		assertEquals(3L, ((JSONObject) Outbox.countByStatus(connection).get(TARGET)).get(Outbox.STATUS_PENDING));
+
+		blocked.countDown();
+		await(() -> {
+			dispatcher.dispatch();
+			return metrics.get("outbox." + TARGET + ".done") == 5;
+		});
+		assertEquals(2, maxRunning.get());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static int enqueue(String key, String value) throws Exception {
+		JSONObject payload = new JSONObject();
+		payload.put("value", value);
+		Outbox.enqueue(connection, TARGET, "action", TARGET + ":" + key, payload);
+		PreparedStatement statement = connection.prepareStatement("SELECT id FROM Outbox WHERE idempotencyKey = ?;");
+		statement.setString(1, TARGET + ":" + key);
+		ResultSet queryResult = statement.executeQuery();
+		queryResult.next();
+		int id = queryResult.getInt(1);
+		statement.close();
+		return id;
+	}
+
+	private static String getColumn(int id, String column) {
+		try {
+			PreparedStatement statement = connection.prepareStatement("SELECT " + column + " FROM Outbox WHERE id = ?;");
+			statement.setInt(1, id);
+			ResultSet queryResult = statement.executeQuery();
+			queryResult.next();
+			String value = queryResult.getString(1);
+			statement.close();
+			return value;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while(!condition.getAsBoolean()) {
+			assertTrue("Condition not met in time", System.currentTimeMillis() < deadline);
+			Thread.sleep(20);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package i5.las2peer.services.modelPersistenceService.outbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+import org.json.simple.JSONObject;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import i5.las2peer.services.modelPersistenceService.database.TestDatabase;
+
+/**
+ * Tests claiming, leases, claim checks and idempotency keys of the outbox. Only uses entries of its own target,
+ * which get deleted afterwards.
+ */
+public class OutboxTest {
+
+	private static final String TARGET = "outboxTest-" + System.nanoTime();
+
+	private static Connection connection;
+
+	@BeforeClass
+	public static void connect() throws Exception {
+		connection = TestDatabase.connect();
+	}
+
+	@After
+	public void deleteEntries() throws Exception {
+		PreparedStatement statement = connection.prepareStatement("DELETE FROM Outbox WHERE target = ?;");
+		statement.setString(1, TARGET);
+		statement.executeUpdate();
+		statement.close();
+	}
+
+	@AfterClass
+	public static void closeConnection() throws Exception {
+		if(connection != null) connection.close();
+	}
+
+	@Test
+	public void testClaimedEntryIsLeased() throws Exception {
+		assertTrue(Outbox.enqueue(connection, TARGET, "action", TARGET + ":lease", payload("a")));
+
+		List<OutboxEntry> claimed = Outbox.claimDue(connection, TARGET, 10, 600);
+		assertEquals(1, claimed.size());
+		assertEquals(1, claimed.get(0).getAttempts());
+		assertEquals("a", claimed.get(0).getPayload().get("value"));
+		// leased => not claimed again
+		assertTrue(Outbox.claimDue(connection, TARGET, 10, 600).isEmpty());
+	}
+
+	@Test
+	public void testExpiredLeaseGetsClaimedAgain() throws Exception {
+		Outbox.enqueue(connection, TARGET, "action", TARGET + ":expired", payload("a"));
+
+		// lease of 0 seconds => expired right away, as if the dispatcher stopped during the call
+		assertEquals(1, Outbox.claimDue(connection, TARGET, 10, 0).size());
+		List<OutboxEntry> claimedAgain = Outbox.claimDue(connection, TARGET, 10, 600);
+		assertEquals(1, claimedAgain.size());
+		assertEquals(2, claimedAgain.get(0).getAttempts());
+	}
+
+	@Test
+	public void testClaimRespectsLimitAndOrder() throws Exception {
+		for(int i = 0; i < 3; i++) {
+			Outbox.enqueue(connection, TARGET, "action", TARGET + ":order" + i, payload(String.valueOf(i)));
+		}
+		List<OutboxEntry> claimed = Outbox.claimDue(connection, TARGET, 2, 600);
+		assertEquals(2, claimed.size());
+		assertEquals("0", claimed.get(0).getPayload().get("value"));
+		assertEquals("1", claimed.get(1).getPayload().get("value"));
+	}
+
+	@Test
+	public void testIdempotencyKeyPreventsDuplicateCalls() throws Exception {
+		String key = TARGET + ":idempotent";
+		assertTrue(Outbox.enqueue(connection, TARGET, "action", key, payload("a")));
+		// e.g. a retried request
+		assertFalse(Outbox.enqueue(connection, TARGET, "action", key, payload("b")));
+
+		OutboxEntry entry = Outbox.claimDue(connection, TARGET, 10, 600).get(0);
+		assertTrue(Outbox.markDone(connection, entry, "result"));
+		assertFalse(Outbox.enqueue(connection, TARGET, "action", key, payload("c")));
+		assertTrue(Outbox.claimDue(connection, TARGET, 10, 0).isEmpty());
+		assertEquals(1L, ((JSONObject) Outbox.countByStatus(connection).get(TARGET)).get(Outbox.STATUS_DONE));
+	}
+
+	@Test
+	public void testReleasedEntryKeepsItsAttempts() throws Exception {
+		Outbox.enqueue(connection, TARGET, "action", TARGET + ":release", payload("a"));
+		OutboxEntry entry = Outbox.claimDue(connection, TARGET, 10, 600).get(0);
+
+		Outbox.release(connection, entry);
+		List<OutboxEntry> claimedAgain = Outbox.claimDue(connection, TARGET, 10, 600);
+		assertEquals(1, claimedAgain.size());
+		assertEquals(1, claimedAgain.get(0).getAttempts());
+	}
+
+	@Test
+	public void testFailedEntryIsRetriedOrGivenUp() throws Exception {
+		Outbox.enqueue(connection, TARGET, "action", TARGET + ":retry", payload("a"));
+		OutboxEntry entry = Outbox.claimDue(connection, TARGET, 10, 600).get(0);
+
+		assertTrue(Outbox.markFailed(connection, entry, "error", 0));
+		assertEquals(Outbox.STATUS_PENDING, getStatus(entry.getId()));
+		entry = Outbox.claimDue(connection, TARGET, 10, 600).get(0);
+		assertEquals(2, entry.getAttempts());
+
+		assertTrue(Outbox.markFailed(connection, entry, "error", -1));
+		assertEquals(Outbox.STATUS_FAILED, getStatus(entry.getId()));
+		assertTrue(Outbox.claimDue(connection, TARGET, 10, 600).isEmpty());
+	}
+
+	@Test
+	public void testOnlyCurrentClaimCanFinishEntry() throws Exception {
+		Outbox.enqueue(connection, TARGET, "action", TARGET + ":claim", payload("a"));
+		// lease expired => claimed again, e.g. by the dispatcher of another node
+		OutboxEntry expired = Outbox.claimDue(connection, TARGET, 10, 0).get(0);
+		OutboxEntry current = Outbox.claimDue(connection, TARGET, 10, 600).get(0);
+
+		assertFalse(Outbox.markDone(connection, expired, "result"));
+		assertFalse(Outbox.markFailed(connection, expired, "error", -1));
+		Outbox.release(connection, expired);
+		assertEquals(Outbox.STATUS_RUNNING, getStatus(current.getId()));
+		assertTrue(Outbox.claimDue(connection, TARGET, 10, 600).isEmpty());
+
+		assertTrue(Outbox.markDone(connection, current, "result"));
+		assertEquals(Outbox.STATUS_DONE, getStatus(current.getId()));
+		// finished entries can not be finished again
+		assertFalse(Outbox.markFailed(connection, current, "error", 0));
+		assertEquals(Outbox.STATUS_DONE, getStatus(current.getId()));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONObject payload(String value) {
+		JSONObject payload = new JSONObject();
+		payload.put("value", value);
+		return payload;
+	}
+
+	private static String getStatus(int id) throws Exception {
+		PreparedStatement statement = connection.prepareStatement("SELECT status FROM Outbox WHERE id = ?;");
+		statement.setInt(1, id);
+		ResultSet queryResult = statement.executeQuery();
+		queryResult.next();
+		String status = queryResult.getString(1);
+		statement.close();
+		return status;
+	}
+}
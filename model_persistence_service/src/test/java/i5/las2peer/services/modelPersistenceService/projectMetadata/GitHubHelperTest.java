@@ -0,0 +1,79 @@
+package i5.las2peer.services.modelPersistenceService.projectMetadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import i5.las2peer.services.modelPersistenceService.exception.GitHubException;
+import i5.las2peer.services.modelPersistenceService.http.SharedHttpClient;
+
+/**
+ * Tests loading the version tags of a repository against a local stand-in for the GitHub API.
+ */
+public class GitHubHelperTest {
+
+	private HttpServer server;
+	private String apiUrl;
+
+	@Before
+	public void startGitHubStandIn() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		apiUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+		server.createContext("/repos/owner/many-tags/tags", exchange -> {
+			String query = exchange.getRequestURI().getQuery();
+			if(query.contains("page=2")) {
+				respond(exchange, 200, "[{\"name\":\"v0.1.0\"}]");
+			} else {
+				exchange.getResponseHeaders().add("Link", "<" + apiUrl + "/repos/owner/many-tags/tags?per_page=100&page=2>; rel=\"next\", "
+						+ "<" + apiUrl + "/repos/owner/many-tags/tags?per_page=100&page=2>; rel=\"last\"");
+				respond(exchange, 200, "[{\"name\":\"v0.3.0\"},{\"name\":\"v0.2.0\"}]");
+			}
+		});
+		server.createContext("/repos/owner/missing/tags", exchange -> respond(exchange, 404, "{\"message\":\"Not Found\"}"));
+		server.start();
+	}
+
+	@After
+	public void stopGitHubStandIn() {
+		server.stop(0);
+	}
+
+	@Test
+	public void testTagsOfAllPagesAreReturned() throws Exception {
+		assertEquals(Arrays.asList("v0.3.0", "v0.2.0", "v0.1.0"), GitHubHelper.getRepoVersionTags(apiUrl, "owner", "many-tags"));
+	}
+
+	@Test(expected = GitHubException.class)
+	public void testErrorStatusIsForwarded() throws Exception {
+		GitHubHelper.getRepoVersionTags(apiUrl, "owner", "missing");
+	}
+
+	@Test
+	public void testNextLink() {
+		assertEquals("https://api.github.com/x?page=3", SharedHttpClient.getNextLink(
+				"<https://api.github.com/x?page=1>; rel=\"prev\", <https://api.github.com/x?page=3>; rel=\"next\""));
+		assertNull(SharedHttpClient.getNextLink("<https://api.github.com/x?page=1>; rel=\"prev\""));
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try(OutputStream os = exchange.getResponseBody()) {
+			os.write(bytes);
+		}
+	}
+}
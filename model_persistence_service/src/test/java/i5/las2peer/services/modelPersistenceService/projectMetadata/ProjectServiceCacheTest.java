@@ -0,0 +1,162 @@
+package i5.las2peer.services.modelPersistenceService.projectMetadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+import i5.las2peer.api.execution.ServiceNotAvailableException;
+
+/**
+ * Tests that the cache coalesces concurrent lookups, reloads the metadata of a project after it got
+ * changed and keeps metadata, chat info and access checks for their own time to live. The project
+ * service is replaced by a counting fake.
+ */
+public class ProjectServiceCacheTest {
+
+	private static final long LONG_TTL_MILLIS = 60 * 1000L;
+
+	private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+	@Test
+	public void testConcurrentCallersShareOneLoad() throws Exception {
+		int callers = 8;
+		CountDownLatch started = new CountDownLatch(callers);
+		CountDownLatch release = new CountDownLatch(1);
+		ProjectServiceCache cache = new ProjectServiceCache((method, parameters) -> {
+			count(method);
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return metadata("v1");
+		}, () -> "agent", LONG_TTL_MILLIS, LONG_TTL_MILLIS, LONG_TTL_MILLIS);
+
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+		List<Future<JSONObject>> results = new ArrayList<>();
+		for(int i = 0; i < callers; i++) {
+			results.add(executor.submit(() -> {
+				started.countDown();
+				return cache.getProjectMetadata("project");
+			}));
+		}
+		started.await();
+		// give the callers time to join the running lookup
+		Thread.sleep(200);
+		release.countDown();
+
+		for(Future<JSONObject> result : results) {
+			assertEquals("v1", result.get(10, TimeUnit.SECONDS).get("version"));
+		}
+		executor.shutdown();
+		assertEquals(1, calls("getProjectMetadataRMI"));
+	}
+
+	@Test
+	public void testChangeMetadataForcesReload() throws Exception {
+		AtomicInteger version = new AtomicInteger(1);
+		ProjectServiceCache cache = new ProjectServiceCache((method, parameters) -> {
+			count(method);
+			if(method.equals("changeMetadataRMI")) {
+				version.incrementAndGet();
+				return true;
+			}
+			return metadata("v" + version.get());
+		}, () -> "agent", LONG_TTL_MILLIS, LONG_TTL_MILLIS, LONG_TTL_MILLIS);
+
+		assertEquals("v1", cache.getProjectMetadata("project").get("version"));
+		assertEquals("v1", cache.getProjectMetadata("project").get("version"));
+		assertEquals(1, calls("getProjectMetadataRMI"));
+
+		assertTrue(cache.changeMetadata("project", new JSONObject()));
+		assertEquals("v2", cache.getProjectMetadata("project").get("version"));
+		assertEquals(2, calls("getProjectMetadataRMI"));
+	}
+
+	@Test
+	public void testEachKindHasItsOwnTimeToLive() throws Exception {
+		ProjectServiceCache cache = new ProjectServiceCache((method, parameters) -> {
+			count(method);
+			return method.equals("hasAccessToProject") ? (Object) true : metadata("v1");
+		}, () -> "agent", 50, LONG_TTL_MILLIS, LONG_TTL_MILLIS);
+
+		cache.getProjectMetadata("project");
+		cache.getProjectChatInfo("project");
+		cache.hasAccessToProject("project");
+		Thread.sleep(100);
+		cache.getProjectMetadata("project");
+		cache.getProjectChatInfo("project");
+		cache.hasAccessToProject("project");
+
+		// only the metadata expired
+		assertEquals(2, calls("getProjectMetadataRMI"));
+		assertEquals(1, calls("getProjectChatInfo"));
+		assertEquals(1, calls("hasAccessToProject"));
+	}
+
+	@Test
+	public void testAccessIsCachedPerAgent() throws Exception {
+		AtomicInteger agent = new AtomicInteger(1);
+		ProjectServiceCache cache = new ProjectServiceCache((method, parameters) -> {
+			count(method);
+			return agent.get() == 1;
+		}, () -> "agent" + agent.get(), LONG_TTL_MILLIS, LONG_TTL_MILLIS, LONG_TTL_MILLIS);
+
+		assertTrue(cache.hasAccessToProject("project"));
+		agent.set(2);
+		assertEquals(false, cache.hasAccessToProject("project"));
+		assertEquals(2, calls("hasAccessToProject"));
+
+		cache.invalidateProject("project");
+		agent.set(1);
+		assertTrue(cache.hasAccessToProject("project"));
+		assertEquals(3, calls("hasAccessToProject"));
+	}
+
+	@Test
+	public void testFailedLookupIsNotCached() throws Exception {
+		ProjectServiceCache cache = new ProjectServiceCache((method, parameters) -> {
+			if(count(method) == 1) throw new ServiceNotAvailableException("Project service not available");
+			return metadata("v1");
+		}, () -> "agent", LONG_TTL_MILLIS, LONG_TTL_MILLIS, LONG_TTL_MILLIS);
+
+		try {
+			cache.getProjectMetadata("project");
+			fail("Expected the failure of the project service");
+		} catch (ServiceNotAvailableException e) {
+			// expected
+		}
+		assertEquals("v1", cache.getProjectMetadata("project").get("version"));
+		assertEquals(2, calls("getProjectMetadataRMI"));
+	}
+
+	private int count(String method) {
+		return this.calls.computeIfAbsent(method, m -> new AtomicInteger()).incrementAndGet();
+	}
+
+	private int calls(String method) {
+		AtomicInteger count = this.calls.get(method);
+		return count == null ? 0 : count.get();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONObject metadata(String version) {
+		JSONObject metadata = new JSONObject();
+		metadata.put("version", version);
+		return metadata;
+	}
+}
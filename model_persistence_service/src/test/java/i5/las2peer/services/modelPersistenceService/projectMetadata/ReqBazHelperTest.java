@@ -0,0 +1,65 @@
+package i5.las2peer.services.modelPersistenceService.projectMetadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests creating and deleting Requirements Bazaar categories against a local stand-in for the API.
+ */
+public class ReqBazHelperTest {
+
+	private HttpServer server;
+	private final AtomicInteger deletions = new AtomicInteger();
+	private volatile String createdBody;
+
+	@Before
+	public void startReqBazStandIn() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/bazaar/categories", exchange -> {
+			if(exchange.getRequestMethod().equals("POST")) {
+				createdBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+				byte[] bytes = "{\"id\":17,\"name\":\"frontend\"}".getBytes(StandardCharsets.UTF_8);
+				exchange.sendResponseHeaders(201, bytes.length);
+				try(OutputStream os = exchange.getResponseBody()) {
+					os.write(bytes);
+				}
+			} else {
+				deletions.incrementAndGet();
+				// category was already deleted manually
+				exchange.sendResponseHeaders(404, -1);
+				exchange.close();
+			}
+		});
+		server.start();
+
+		ReqBazHelper.getInstance().setReqBazBackendUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/bazaar");
+		ReqBazHelper.getInstance().setReqBazProjectId(3);
+	}
+
+	@After
+	public void stopReqBazStandIn() {
+		server.stop(0);
+	}
+
+	@Test
+	public void testCreateAndDeleteCategory() throws Exception {
+		ReqBazCategory category = ReqBazHelper.getInstance().createCategory("frontend", "token", "alice", "sub");
+		assertEquals(17, category.getId());
+		assertTrue(createdBody.contains("\"projectId\":3"));
+
+		ReqBazHelper.getInstance().deleteCategory(category, "token", "alice", "sub");
+		assertEquals(1, deletions.get());
+	}
+}
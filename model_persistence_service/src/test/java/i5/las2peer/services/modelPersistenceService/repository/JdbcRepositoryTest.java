@@ -0,0 +1,103 @@
+package i5.las2peer.services.modelPersistenceService.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import i5.las2peer.services.modelPersistenceService.database.TestDatabase;
+import i5.las2peer.services.modelPersistenceService.exception.ModelNotFoundException;
+import i5.las2peer.services.modelPersistenceService.model.Model;
+import i5.las2peer.services.modelPersistenceService.versionedModel.Commit;
+import i5.las2peer.services.modelPersistenceService.versionedModel.VersionedModel;
+import i5.las2peer.services.modelPersistenceService.versionedModel.WorkingCopy;
+
+/**
+ * Tests the repository used by the service against the {@link TestDatabase}. The models and versioned
+ * models of the tests get deleted afterwards.
+ */
+public class JdbcRepositoryTest {
+
+	private static final String EMPTY_MODEL = "{\"attributes\":{\"attributes\":{}},\"nodes\":{},\"edges\":{}}";
+
+	private static Connection connection;
+	private static JdbcRepository repository;
+
+	@BeforeClass
+	public static void connect() throws Exception {
+		connection = TestDatabase.connect();
+		repository = new JdbcRepository(TestDatabase.getDatabaseManager());
+	}
+
+	@AfterClass
+	public static void closeConnection() throws Exception {
+		if(connection != null) connection.close();
+	}
+
+	@Test
+	public void testModelLifecycle() throws Exception {
+		Model model = new Model(EMPTY_MODEL);
+		model.persist(connection, true);
+
+		assertEquals(model.getId(), repository.findModel(model.getId()).getId());
+		// without a limit, e.g. when listing all models
+		assertTrue(repository.findModelIds(0, Integer.MAX_VALUE).contains(model.getId()));
+
+		repository.deleteModel(model.getId());
+		try {
+			repository.findModel(model.getId());
+			fail("Expected ModelNotFoundException.");
+		} catch (ModelNotFoundException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testVersionedModelWithCommits() throws Exception {
+		VersionedModel created = new VersionedModel();
+		created.persist(connection);
+		int versionedModelId = created.getId();
+		try {
+			WorkingCopy.save(connection, versionedModelId, (JSONObject) JSONValue.parse(EMPTY_MODEL), null);
+			Commit commit = new Commit("{\"message\":\"first\",\"model\":" + EMPTY_MODEL + "}", false, false);
+			commit.persist(versionedModelId, connection, true);
+			commit.persistSha("abc", connection);
+			repository.addVersionTag(versionedModelId, "abc", "v1.0.0");
+			repository.addAutoCommit(versionedModelId, "code change", "def");
+
+			VersionedModel versionedModel = repository.findVersionedModel(versionedModelId);
+			List<Commit> commits = versionedModel.getCommits();
+			assertEquals(3, commits.size());
+			// commit for uncommited changes first, then the latest commit
+			assertNull(commits.get(0).getMessage());
+			assertEquals("code change", commits.get(1).getMessage());
+			assertEquals("v1.0.0", commits.get(2).getVersionTag());
+			assertEquals(commit.getId(), commits.get(2).getId());
+			assertEquals(1, repository.findVersionTags(versionedModelId).size());
+			// auto commits do not change the revision
+			assertEquals(0, versionedModel.getRevision());
+		} finally {
+			// the models of the commits are left to the orphan collector
+			deleteRows("DELETE c FROM Commit c JOIN CommitToVersionedModel cv ON cv.commitId = c.id WHERE cv.versionedModelId = ?;",
+					versionedModelId);
+			deleteRows("DELETE FROM VersionedModel WHERE id = ?;", versionedModelId);
+		}
+	}
+
+	private static void deleteRows(String sql, int id) throws Exception {
+		PreparedStatement statement = connection.prepareStatement(sql);
+		statement.setInt(1, id);
+		statement.executeUpdate();
+		statement.close();
+	}
+}
@@ -0,0 +1,80 @@
+package i5.las2peer.services.modelPersistenceService.testmodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.junit.Test;
+
+/**
+ * Tests that the coverage report reader keeps only the needed fields of the operations in
+ * swagger-coverage-results.json (a report as created by swagger-coverage, with fields that are skipped).
+ */
+public class CoverageReportReaderTest {
+
+	private static final String REPORT = "swagger-coverage-results.json";
+
+	@Test
+	public void testReadOperations() throws Exception {
+		JSONObject operations;
+		try(InputStream is = CoverageReportReaderTest.class.getResourceAsStream(REPORT)) {
+			operations = CoverageReportReader.readOperations(is);
+		}
+
+		// values that are no operations are skipped
+		assertEquals(2, operations.size());
+		Object expected = JSONValue.parse("{\"operationKey\":{\"path\":\"/users\",\"httpMethod\":\"GET\"},\"processCount\":3,"
+				+ "\"conditions\":[{\"name\":\"HTTP status 200\",\"covered\":true},{\"name\":\"HTTP status 404\",\"covered\":false}]}");
+		assertEquals(expected, operations.get("GET /users"));
+
+		JSONObject post = (JSONObject) operations.get("POST /users");
+		assertEquals(0L, post.get("processCount"));
+		assertEquals(new JSONArray(), post.get("conditions"));
+	}
+
+	@Test
+	public void testReportWithoutOperations() throws Exception {
+		assertNull(read("{\"info\":{\"title\":\"users\"},\"counters\":{\"all\":0}}"));
+		assertNull(read("[]"));
+		assertEquals(new JSONObject(), read("{\"operations\":{}}"));
+	}
+
+	@Test
+	public void testInvalidReport() throws Exception {
+		try {
+			read("{\"operations\":{\"GET /users\":{\"processCount\":");
+			fail("Expected IOException.");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testStreamIsNotClosed() throws Exception {
+		boolean[] closed = new boolean[1];
+		InputStream is = new FilterInputStream(new ByteArrayInputStream("{\"operations\":{}}".getBytes(StandardCharsets.UTF_8))) {
+			@Override
+			public void close() throws IOException {
+				closed[0] = true;
+				super.close();
+			}
+		};
+		CoverageReportReader.readOperations(is);
+		// the stream is the entry of the artifact zip file, which gets closed by the caller
+		assertFalse(closed[0]);
+	}
+
+	private static JSONObject read(String json) throws IOException {
+		return CoverageReportReader.readOperations(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,201 @@
+package i5.las2peer.services.modelPersistenceService.testmodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import i5.las2peer.services.modelPersistenceService.model.EntityAttribute;
+import i5.las2peer.services.modelPersistenceService.model.Model;
+import i5.las2peer.services.modelPersistenceService.model.node.Node;
+
+/**
+ * Tests the GitHub Actions access of the TestGHActionsHelper and how it reads the coverage report from the
+ * downloaded artifact, against a local stand-in for the GitHub API.
+ */
+public class TestGHActionsHelperTest {
+
+	private static final String ORG = "test-org";
+	private static final String REPO = "test-repo";
+	private static final String SHA = "0123456789abcdef";
+	private static final String RUNS_ETAG = "\"runs-1\"";
+	private static final String EMPTY_MODEL = "{\"attributes\":{\"attributes\":{}},\"nodes\":{},\"edges\":{}}";
+
+	private HttpServer server;
+	private String apiUrl;
+	private String runStatus;
+	private volatile byte[] artifact;
+
+	private final AtomicInteger runRequests = new AtomicInteger();
+	private final AtomicInteger notModifiedResponses = new AtomicInteger();
+	private final AtomicInteger artifactDownloads = new AtomicInteger();
+	private volatile String downloadAuthorization;
+
+	@Before
+	public void startGitHubStandIn() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		apiUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+		runStatus = "completed";
+		artifact = zip("swagger-coverage-results.json", "{\"operations\":{}}");
+
+		server.createContext("/repos/" + ORG + "/" + REPO + "/actions/runs", exchange -> {
+			if(exchange.getRequestURI().getPath().endsWith("/artifacts")) {
+				respond(exchange, 200, "{\"artifacts\":[{\"id\":7,\"name\":\"swagger-coverage-report\","
+						+ "\"archive_download_url\":\"" + apiUrl + "/download/7\"}]}");
+				return;
+			}
+			runRequests.incrementAndGet();
+			String body = "{\"workflow_runs\":[{\"id\":42,\"head_sha\":\"" + SHA + "\",\"status\":\"" + runStatus
+					+ "\",\"conclusion\":\"success\"}]}";
+			if(RUNS_ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match")) && runStatus.equals("completed")) {
+				notModifiedResponses.incrementAndGet();
+				exchange.sendResponseHeaders(304, -1);
+				exchange.close();
+				return;
+			}
+			if(runStatus.equals("completed")) {
+				exchange.getResponseHeaders().add("ETag", RUNS_ETAG);
+			}
+			respond(exchange, 200, body);
+		});
+		server.createContext("/download/7", exchange -> {
+			// GitHub redirects artifact downloads to a pre-signed url
+			exchange.getResponseHeaders().add("Location", apiUrl + "/blob/7");
+			exchange.sendResponseHeaders(302, -1);
+			exchange.close();
+		});
+		server.createContext("/blob/7", exchange -> {
+			artifactDownloads.incrementAndGet();
+			downloadAuthorization = exchange.getRequestHeaders().getFirst("Authorization");
+			exchange.sendResponseHeaders(200, artifact.length);
+			try(OutputStream os = exchange.getResponseBody()) {
+				os.write(artifact);
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void stopGitHubStandIn() {
+		server.stop(0);
+	}
+
+	@Test
+	public void testCoverageReportOfCompletedRunIsCached() throws Exception {
+		TestGHActionsHelper helper = new TestGHActionsHelper(apiUrl, ORG, "token");
+
+		helper.addTestCoverage(SHA, new Model(EMPTY_MODEL), REPO);
+		helper.addTestCoverage(SHA, new Model(EMPTY_MODEL), REPO);
+
+		assertEquals(1, artifactDownloads.get());
+		assertEquals(2, runRequests.get());
+		assertEquals(1, notModifiedResponses.get());
+		// token must not be sent to the pre-signed download url
+		assertNull(downloadAuthorization);
+	}
+
+	@Test
+	public void testCoverageReportOfQueuedRunIsNotCached() throws Exception {
+		runStatus = "queued";
+		TestGHActionsHelper helper = new TestGHActionsHelper(apiUrl, ORG, "token");
+
+		helper.addTestCoverage(SHA, new Model(EMPTY_MODEL), REPO);
+		helper.addTestCoverage(SHA, new Model(EMPTY_MODEL), REPO);
+
+		assertEquals(2, artifactDownloads.get());
+		assertEquals(0, notModifiedResponses.get());
+	}
+
+	@Test
+	public void testCoverageIsReadFromArtifact() throws Exception {
+		String report;
+		try(InputStream is = TestGHActionsHelperTest.class.getResourceAsStream("swagger-coverage-results.json")) {
+			report = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		// the report is not the first file of the artifact
+		char[] html = new char[1 << 20];
+		Arrays.fill(html, 'x');
+		artifact = zip("index.html", new String(html), "swagger-coverage-results.json", report);
+		Model model = new Model(microserviceModel());
+
+		new TestGHActionsHelper(apiUrl, ORG, "token").addTestCoverage(SHA, model, REPO);
+
+		assertEquals("100", coverage(model, "get"));
+		assertEquals("0", coverage(model, "post"));
+		// not part of the report
+		assertEquals("unknown", coverage(model, "delete"));
+	}
+
+	@Test
+	public void testArtifactWithoutCoverageReport() throws Exception {
+		artifact = zip("TEST-i5.xml", "<testsuite/>");
+		Model model = new Model(microserviceModel());
+
+		new TestGHActionsHelper(apiUrl, ORG, "token").addTestCoverage(SHA, model, REPO);
+
+		assertEquals("unknown", coverage(model, "get"));
+		assertEquals("unknown", coverage(model, "post"));
+		assertEquals("unknown", coverage(model, "delete"));
+	}
+
+	private static String microserviceModel() {
+		return "{\"attributes\":{\"attributes\":{}},\"edges\":{},\"nodes\":{" + methodNode("get", "GET") + ","
+				+ methodNode("post", "POST") + "," + methodNode("delete", "DELETE") + "}}";
+	}
+
+	private static String methodNode(String id, String methodType) {
+		return "\"" + id + "\":{\"type\":\"HTTP Method\",\"left\":0,\"top\":0,\"width\":10,\"height\":10,\"zIndex\":1,"
+				+ "\"attributes\":{\"" + id + "1\":{\"value\":{\"name\":\"methodType\",\"value\":\"" + methodType + "\"}},"
+				+ "\"" + id + "2\":{\"value\":{\"name\":\"path\",\"value\":\"users\"}}}}";
+	}
+
+	private static String coverage(Model model, String nodeId) {
+		for(Node node : model.getNodes()) {
+			if(!node.getSyncMetaId().equals(nodeId)) continue;
+			for(EntityAttribute attribute : node.getAttributes()) {
+				if(attribute.getName().equals("coverage")) return attribute.getValue();
+			}
+		}
+		return null;
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try(OutputStream os = exchange.getResponseBody()) {
+			os.write(bytes);
+		}
+	}
+
+	/**
+	 * Creates a zip file with the given files (alternating file name and content).
+	 */
+	private static byte[] zip(String... files) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try(ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			for(int i = 0; i < files.length; i += 2) {
+				zip.putNextEntry(new ZipEntry(files[i]));
+				zip.write(files[i + 1].getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,122 @@
+package i5.las2peer.services.modelPersistenceService.testmodel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import i5.las2peer.apiTestModel.TestCase;
+import i5.las2peer.apiTestModel.TestModel;
+import i5.las2peer.services.modelPersistenceService.database.TestDatabase;
+import i5.las2peer.services.modelPersistenceService.versionedModel.VersionedModel;
+
+/**
+ * Tests storing, loading and dismissing test suggestions against the {@link TestDatabase}. Uses its
+ * own versioned model and test models, which get deleted afterwards.
+ */
+public class TestSuggestionLoaderTest {
+
+	private static Connection connection;
+
+	private int versionedModelId;
+	private final List<Integer> testModelIds = new ArrayList<>();
+
+	@BeforeClass
+	public static void connect() throws Exception {
+		connection = TestDatabase.connect();
+	}
+
+	@Before
+	public void createVersionedModel() throws Exception {
+		VersionedModel versionedModel = new VersionedModel();
+		versionedModel.persist(connection);
+		versionedModelId = versionedModel.getId();
+	}
+
+	@After
+	public void deleteSuggestions() throws Exception {
+		// the suggestions and snapshots get deleted with the versioned model and test models
+		deleteRows("DELETE FROM VersionedModel WHERE id = ?;", versionedModelId);
+		for(int testModelId : testModelIds) {
+			deleteRows("DELETE FROM TestModel WHERE modelId = ?;", testModelId);
+		}
+	}
+
+	@AfterClass
+	public static void closeConnection() throws Exception {
+		if(connection != null) connection.close();
+	}
+
+	@Test
+	public void testLoadInSuggestedOrder() throws Exception {
+		suggest("get users", "Lists the users.");
+		suggest("post user", "Creates a user.");
+		suggest("delete user", "Deletes a user.");
+
+		Map<TestCase, String> suggestions = TestSuggestionLoader.load(connection, versionedModelId, false, 0, 0);
+		assertEquals(Arrays.asList("get users", "post user", "delete user"), names(suggestions));
+		assertEquals(Arrays.asList("Lists the users.", "Creates a user.", "Deletes a user."), new ArrayList<>(suggestions.values()));
+		// the test cases get the id of their test model, which is used to dismiss them
+		assertEquals(testModelIds.get(0).intValue(), suggestions.keySet().iterator().next().getId());
+
+		assertEquals(Arrays.asList("post user", "delete user"), names(TestSuggestionLoader.load(connection, versionedModelId, false, 1, 2)));
+		assertEquals(Arrays.asList("delete user"), names(TestSuggestionLoader.load(connection, versionedModelId, false, 2, 2)));
+	}
+
+	@Test
+	public void testDismissedSuggestionsAreNotSuggestedAgain() throws Exception {
+		suggest("get users", "Lists the users.");
+		suggest("post user", "Creates a user.");
+
+		TestSuggestionLoader.dismiss(connection, versionedModelId, testModelIds.get(0));
+		assertEquals(Arrays.asList("post user"), names(TestSuggestionLoader.load(connection, versionedModelId, false, 0, 0)));
+		// e.g. to check whether a generated test case got suggested before
+		assertEquals(Arrays.asList("get users", "post user"), names(TestSuggestionLoader.load(connection, versionedModelId, true, 0, 0)));
+	}
+
+	@Test
+	public void testMissingSnapshotsAreCreated() throws Exception {
+		suggest("get users", "Lists the users.");
+		// suggestion stored before snapshots existed
+		deleteRows("DELETE FROM TestSuggestionCase WHERE testModelId = ?;", testModelIds.get(0));
+		assertEquals(0, TestSuggestionLoader.load(connection, versionedModelId, false, 0, 0).size());
+
+		TestSuggestionLoader.storeMissingSnapshots(connection);
+		assertEquals(Arrays.asList("get users"), names(TestSuggestionLoader.load(connection, versionedModelId, false, 0, 0)));
+	}
+
+	private void suggest(String name, String description) throws Exception {
+		JSONObject testCase = (JSONObject) JSONValue.parse("{\"id\":1,\"name\":\"" + name + "\",\"requests\":[]}");
+		TestModel testModel = new TestModel(Arrays.asList(new TestCase(testCase)));
+		testModel.persist(connection);
+		testModelIds.add(testModel.getId());
+		TestSuggestionLoader.store(connection, versionedModelId, testModel, description);
+	}
+
+	private static List<String> names(Map<TestCase, String> suggestions) {
+		List<String> names = new ArrayList<>();
+		for(TestCase testCase : suggestions.keySet()) {
+			names.add(testCase.getName());
+		}
+		return names;
+	}
+
+	private static void deleteRows(String sql, int id) throws Exception {
+		PreparedStatement statement = connection.prepareStatement(sql);
+		statement.setInt(1, id);
+		statement.executeUpdate();
+		statement.close();
+	}
+}
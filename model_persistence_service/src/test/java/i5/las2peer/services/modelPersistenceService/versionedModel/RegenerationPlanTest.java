@@ -0,0 +1,114 @@
+package i5.las2peer.services.modelPersistenceService.versionedModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.junit.Test;
+
+import i5.las2peer.services.modelPersistenceService.versionedModel.RegenerationPlan.Stage;
+
+/**
+ * Tests which stages of the commit pipeline run or get skipped, and that every stage is recorded.
+ */
+public class RegenerationPlanTest {
+
+	private static final String SWAGGER = "{\"paths\":{\"/users\":{}}}";
+	private static final String CHANGED_SWAGGER = "{\"paths\":{\"/users\":{},\"/groups\":{}}}";
+	private static final String TEST_MODEL = "{\"testCases\":[{\"id\":1,\"name\":\"get users\"}]}";
+
+	@Test
+	public void testUnchangedModel() {
+		assertFalse(RegenerationPlan.isChanged("hash", "microservice", "users", "hash", "microservice", "users"));
+		RegenerationPlan plan = new RegenerationPlan(false, "sha", false);
+
+		assertFalse(plan.needsCodeGeneration());
+		assertFalse(plan.needsSwagger(SWAGGER, true));
+		assertFalse(plan.needsAPIChangesMessage(SWAGGER, SWAGGER));
+		assertFalse(plan.needsTestSuggestions(SWAGGER, SWAGGER));
+		assertEquals(Arrays.asList("swagger", "apiChangesMessage", "testSuggestions"), plan.getSkippedStages());
+	}
+
+	@Test
+	public void testUnchangedModelWithNewMetadataVersion() {
+		RegenerationPlan plan = new RegenerationPlan(false, "sha", false);
+		assertTrue(plan.needsSwagger(SWAGGER, false));
+		// same API => nothing to tell or suggest
+		assertFalse(plan.needsAPIChangesMessage(SWAGGER, SWAGGER));
+		assertFalse(plan.needsTestSuggestions(SWAGGER, SWAGGER));
+	}
+
+	@Test
+	public void testChangedModel() {
+		assertTrue(RegenerationPlan.isChanged("hash", "microservice", "users", "other", "microservice", "users"));
+		RegenerationPlan plan = new RegenerationPlan(true, "sha", false);
+
+		assertTrue(plan.needsCodeGeneration());
+		assertTrue(plan.needsSwagger(SWAGGER, true));
+		assertTrue(plan.needsAPIChangesMessage(SWAGGER, CHANGED_SWAGGER));
+		assertTrue(plan.needsTestSuggestions(SWAGGER, CHANGED_SWAGGER));
+		assertEquals(Collections.emptyList(), plan.getSkippedStages());
+		assertEquals("ran", ((JSONObject) plan.toJSONObject().get("stages")).get("apiChangesMessage"));
+	}
+
+	@Test
+	public void testChangedTypeOrComponentName() {
+		// same model, but the code generation gets type and component name too
+		assertTrue(RegenerationPlan.isChanged("hash", "frontend-component", "users", "hash", "microservice", "users"));
+		assertTrue(RegenerationPlan.isChanged("hash", "microservice", "users", "hash", "microservice", "groups"));
+		// commits stored before model hashes existed
+		assertTrue(RegenerationPlan.isChanged(null, "microservice", "users", "hash", "microservice", "users"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testChangedTestModel() {
+		JSONObject testModel = (JSONObject) JSONValue.parse(TEST_MODEL);
+		String hash = Commit.hashOfCommittedModel("modelHash", null, null, testModel);
+		// the key order of the JSON does not matter
+		assertEquals(hash, Commit.hashOfCommittedModel("modelHash", null, null,
+				(JSONObject) JSONValue.parse("{\"testCases\":[{\"name\":\"get users\",\"id\":1}]}")));
+
+		// the code generation pushes the tests too, so a commit that only changes the test model is a change
+		((JSONObject) ((JSONArray) testModel.get("testCases")).get(0)).put("name", "get all users");
+		String changedHash = Commit.hashOfCommittedModel("modelHash", null, null, testModel);
+		assertTrue(RegenerationPlan.isChanged(hash, "microservice", "users", changedHash, "microservice", "users"));
+		assertTrue(RegenerationPlan.isChanged(hash, "microservice", "users",
+				Commit.hashOfCommittedModel("modelHash", null, null, null), "microservice", "users"));
+	}
+
+	@Test
+	public void testUnchangedApplication() {
+		// the code generation of an application uses the latest commits of its components, which
+		// might have changed even if the application model did not
+		RegenerationPlan plan = new RegenerationPlan(false, "sha", true);
+		assertTrue(plan.needsCodeGeneration());
+		assertFalse(plan.needsSwagger(SWAGGER, true));
+	}
+
+	@Test
+	public void testFirstCommit() {
+		RegenerationPlan plan = new RegenerationPlan(true, null, false);
+
+		assertTrue(plan.needsCodeGeneration());
+		assertTrue(plan.needsSwagger(null, false));
+		// there is no previous API to compare with, but the decision still gets recorded
+		assertFalse(plan.needsAPIChangesMessage(null, SWAGGER));
+		assertTrue(plan.isSkipped(Stage.API_CHANGES_MESSAGE));
+		assertTrue(plan.needsTestSuggestions(null, SWAGGER));
+		assertEquals(Arrays.asList("apiChangesMessage"), plan.getSkippedStages());
+	}
+
+	@Test
+	public void testUnchangedModelWithoutPreviousSha() {
+		// the previous commit was not pushed by the code generation
+		RegenerationPlan plan = new RegenerationPlan(false, null, false);
+		assertTrue(plan.needsCodeGeneration());
+	}
+}
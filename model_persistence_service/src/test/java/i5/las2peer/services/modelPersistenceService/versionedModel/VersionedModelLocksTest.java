@@ -0,0 +1,62 @@
+package i5.las2peer.services.modelPersistenceService.versionedModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests that only changes to the same versioned model wait for each other.
+ */
+public class VersionedModelLocksTest {
+
+	@Test
+	public void testDifferentVersionedModelsDoNotWait() throws Exception {
+		VersionedModelLocks locks = new VersionedModelLocks();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			locks.lock(1);
+			// 65 would have shared the lock of 1 with 64 striped locks
+			Future<?> other = executor.submit(() -> {
+				locks.lock(65);
+				locks.unlock(65);
+			});
+			other.get(5, TimeUnit.SECONDS);
+			locks.unlock(1);
+			assertEquals(0, locks.size());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSameVersionedModelWaits() throws Exception {
+		VersionedModelLocks locks = new VersionedModelLocks();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			CountDownLatch acquired = new CountDownLatch(1);
+			locks.lock(1);
+			Future<?> other = executor.submit(() -> {
+				locks.lock(1);
+				acquired.countDown();
+				locks.unlock(1);
+			});
+			assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+
+			locks.unlock(1);
+			assertTrue(acquired.await(5, TimeUnit.SECONDS));
+			other.get(5, TimeUnit.SECONDS);
+			// the lock is removed once nobody holds or waits for it
+			assertEquals(0, locks.size());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
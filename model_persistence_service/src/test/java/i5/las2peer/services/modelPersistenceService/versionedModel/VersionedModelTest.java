@@ -0,0 +1,99 @@
+package i5.las2peer.services.modelPersistenceService.versionedModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import i5.las2peer.services.modelPersistenceService.database.DatabaseManager;
+import i5.las2peer.services.modelPersistenceService.database.TestDatabase;
+import i5.las2peer.services.modelPersistenceService.exception.RevisionConflictException;
+
+/**
+ * Tests the revision of versioned models, which detects concurrent commits. Uses its own versioned
+ * model, which gets deleted afterwards.
+ */
+public class VersionedModelTest {
+
+	private static DatabaseManager dbm;
+	private static Connection connection;
+
+	private int versionedModelId;
+
+	@BeforeClass
+	public static void connect() throws Exception {
+		dbm = TestDatabase.getDatabaseManager();
+		connection = TestDatabase.connect();
+	}
+
+	@Before
+	public void createVersionedModel() throws Exception {
+		versionedModelId = WorkingCopyTest.createVersionedModel(connection);
+	}
+
+	@After
+	public void deleteVersionedModel() throws Exception {
+		WorkingCopyTest.deleteVersionedModel(connection, versionedModelId);
+	}
+
+	@AfterClass
+	public static void closeConnection() throws Exception {
+		if(connection != null) connection.close();
+	}
+
+	@Test
+	public void testRevisionConflict() throws Exception {
+		assertEquals(0, VersionedModel.getRevision(connection, versionedModelId));
+		assertEquals(1, VersionedModel.increaseRevision(connection, versionedModelId, 0));
+		try {
+			VersionedModel.increaseRevision(connection, versionedModelId, 0);
+			fail("Expected RevisionConflictException.");
+		} catch (RevisionConflictException e) {
+			// expected
+		}
+		// commits without a revision are not checked
+		assertEquals(2, VersionedModel.increaseRevision(connection, versionedModelId));
+	}
+
+	@Test
+	public void testConcurrentRevisionIncreases() throws Exception {
+		// every thread tries to commit based on revision 0, only one of them may succeed
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Callable<Boolean>> tasks = new ArrayList<>();
+			for(int i = 0; i < 8; i++) {
+				tasks.add(() -> {
+					Connection threadConnection = dbm.getConnection();
+					try {
+						VersionedModel.increaseRevision(threadConnection, versionedModelId, 0);
+						return true;
+					} catch (RevisionConflictException e) {
+						return false;
+					} finally {
+						threadConnection.close();
+					}
+				});
+			}
+			int succeeded = 0;
+			for(Future<Boolean> result : executor.invokeAll(tasks)) {
+				if(result.get()) succeeded++;
+			}
+			assertEquals(1, succeeded);
+			assertEquals(1, VersionedModel.getRevision(connection, versionedModelId));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
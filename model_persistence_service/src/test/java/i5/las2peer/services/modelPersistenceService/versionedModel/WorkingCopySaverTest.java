@@ -0,0 +1,213 @@
+package i5.las2peer.services.modelPersistenceService.versionedModel;
+
+import static i5.las2peer.services.modelPersistenceService.versionedModel.WorkingCopyTest.getStoredModelName;
+import static i5.las2peer.services.modelPersistenceService.versionedModel.WorkingCopyTest.model;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import i5.las2peer.logging.L2pLogger;
+import i5.las2peer.services.modelPersistenceService.database.DatabaseManager;
+import i5.las2peer.services.modelPersistenceService.database.TestDatabase;
+
+/**
+ * Tests that failed writes are given up and that the saver forgets idle versioned models, and (if the
+ * {@link TestDatabase} is available) that it coalesces saves and that a replaced working copy (e.g. by
+ * a commit) is not overwritten by earlier saves, which are kept if the replacement got rolled back.
+ * The database tests use their own versioned model, which gets deleted afterwards.
+ */
+public class WorkingCopySaverTest {
+
+	private static DatabaseManager dbm;
+	private static Connection connection;
+
+	private WorkingCopySaver saver;
+	private int versionedModelId;
+
+	@BeforeClass
+	public static void connect() throws Exception {
+		dbm = TestDatabase.getDatabaseManager();
+		// only some of the tests need the database
+		connection = TestDatabase.connectIfAvailable();
+	}
+
+	@Before
+	public void createSaver() throws Exception {
+		saver = new WorkingCopySaver(dbm, logger());
+		if(connection != null) versionedModelId = WorkingCopyTest.createVersionedModel(connection);
+	}
+
+	@After
+	public void stopSaver() throws Exception {
+		saver.stop(0);
+		if(connection != null) WorkingCopyTest.deleteVersionedModel(connection, versionedModelId);
+	}
+
+	@AfterClass
+	public static void closeConnection() throws Exception {
+		if(connection != null) connection.close();
+	}
+
+	@Test
+	public void testRetryDelayDoubles() {
+		assertEquals(2000, WorkingCopySaver.retryDelayMillis(1000, 1));
+		assertEquals(16000, WorkingCopySaver.retryDelayMillis(1000, 4));
+	}
+
+	@Test
+	public void testReplacedVersionedModelIsForgotten() throws Exception {
+		WorkingCopySaver failingSaver = new WorkingCopySaver(new FailingDatabaseManager(), logger());
+		int revision = failingSaver.beginReplace(1, 0);
+		assertTrue(failingSaver.isTracked(1));
+		failingSaver.endReplace(1, revision, true);
+		assertFalse(failingSaver.isTracked(1));
+		failingSaver.stop(0);
+	}
+
+	@Test
+	public void testFailedWriteIsGivenUp() throws Exception {
+		FailingDatabaseManager failingDbm = new FailingDatabaseManager();
+		WorkingCopySaver failingSaver = new WorkingCopySaver(failingDbm, logger(), 10);
+		// the replacement sets the revision, so the save does not need to load it
+		int revision = failingSaver.beginReplace(1, 0);
+		failingSaver.save(1, model("a"), null);
+		failingSaver.endReplace(1, revision, false);
+
+		await(() -> !failingSaver.isTracked(1));
+		assertEquals(WorkingCopySaver.MAX_WRITE_ATTEMPTS, failingDbm.attempts.get());
+		failingSaver.stop(0);
+	}
+
+	@Test
+	public void testSavesAreCoalesced() throws Exception {
+		Assume.assumeTrue("Database not available", connection != null);
+		assertEquals(1, saver.save(versionedModelId, model("a"), null));
+		assertEquals(2, saver.save(versionedModelId, model("b"), null));
+		assertEquals(3, saver.save(versionedModelId, model("c"), null));
+		// nothing written before the flush interval
+		assertEquals(0, WorkingCopy.getRevision(connection, versionedModelId));
+
+		await(() -> revision() == 3);
+		assertEquals("c", getStoredModelName(connection, versionedModelId));
+	}
+
+	@Test
+	public void testReplaceDiscardsPendingSaves() throws Exception {
+		Assume.assumeTrue("Database not available", connection != null);
+		saver.save(versionedModelId, model("a"), null);
+		saver.save(versionedModelId, model("b"), null);
+
+		// the pending saves have higher revisions than the stored working copy
+		int revision = saver.beginReplace(versionedModelId, WorkingCopy.getRevision(connection, versionedModelId));
+		assertEquals(3, revision);
+		WorkingCopy.save(connection, versionedModelId, model("commit"), null, revision);
+		saver.endReplace(versionedModelId, revision, true);
+
+		Thread.sleep(WorkingCopySaver.FLUSH_INTERVAL_MILLIS + 500);
+		assertEquals(3, revision());
+		assertEquals("commit", getStoredModelName(connection, versionedModelId));
+
+		// later saves replace the committed working copy again
+		assertEquals(4, saver.save(versionedModelId, model("d"), null));
+		await(() -> revision() == 4);
+		assertEquals("d", getStoredModelName(connection, versionedModelId));
+		// nothing is pending anymore
+		await(() -> !saver.isTracked(versionedModelId));
+	}
+
+	@Test
+	public void testRolledBackReplaceKeepsPendingSaves() throws Exception {
+		Assume.assumeTrue("Database not available", connection != null);
+		saver.save(versionedModelId, model("a"), null);
+		saver.save(versionedModelId, model("b"), null);
+
+		// e.g. the code generation failed, so the commit did not store its working copy
+		int revision = saver.beginReplace(versionedModelId, WorkingCopy.getRevision(connection, versionedModelId));
+		saver.endReplace(versionedModelId, revision, false);
+
+		await(() -> revision() == 2);
+		assertEquals("b", getStoredModelName(connection, versionedModelId));
+		// revisions stay unique
+		assertEquals(revision + 1, saver.save(versionedModelId, model("c"), null));
+	}
+
+	@Test
+	public void testSaveBeingWrittenDoesNotOverwriteReplacement() throws Exception {
+		Assume.assumeTrue("Database not available", connection != null);
+		int saved = saver.save(versionedModelId, model("autosave"), null);
+		int revision = saver.beginReplace(versionedModelId, WorkingCopy.getRevision(connection, versionedModelId));
+		assertTrue(revision > saved);
+
+		// the commit gets stored first, the autosave that was already being written afterwards
+		WorkingCopy.save(connection, versionedModelId, model("commit"), null, revision);
+		WorkingCopy.save(connection, versionedModelId, model("autosave"), null, saved);
+		assertEquals("commit", getStoredModelName(connection, versionedModelId));
+	}
+
+	@Test
+	public void testStopWritesPendingSaves() throws Exception {
+		Assume.assumeTrue("Database not available", connection != null);
+		saver.save(versionedModelId, model("a"), null);
+		saver.stop(2 * WorkingCopySaver.FLUSH_INTERVAL_MILLIS);
+		assertEquals(1, revision());
+		assertEquals("a", getStoredModelName(connection, versionedModelId));
+	}
+
+	private static L2pLogger logger() {
+		return L2pLogger.getInstance(WorkingCopySaverTest.class.getName());
+	}
+
+	private int revision() {
+		try {
+			return WorkingCopy.getRevision(connection, versionedModelId);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while(!condition.getAsBoolean()) {
+			assertTrue("Condition not met in time", System.currentTimeMillis() < deadline);
+			Thread.sleep(50);
+		}
+	}
+
+	/**
+	 * Database manager of the test database whose connections always fail.
+	 */
+	private static class FailingDatabaseManager extends DatabaseManager {
+
+		private final AtomicInteger attempts = new AtomicInteger();
+
+		private FailingDatabaseManager() throws Exception {
+			// same configuration, as the connection pool is shared by all database managers
+			this(TestDatabase.getProperties());
+		}
+
+		private FailingDatabaseManager(Properties properties) {
+			super(properties.getProperty("jdbcDriverClassName"), properties.getProperty("jdbcLogin"),
+					properties.getProperty("jdbcPass"), properties.getProperty("jdbcUrl"),
+					properties.getProperty("jdbcSchema"));
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			attempts.incrementAndGet();
+			throw new SQLException("Database not reachable");
+		}
+	}
+}
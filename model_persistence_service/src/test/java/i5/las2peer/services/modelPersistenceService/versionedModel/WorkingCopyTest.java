@@ -0,0 +1,113 @@
+package i5.las2peer.services.modelPersistenceService.versionedModel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import i5.las2peer.services.modelPersistenceService.database.TestDatabase;
+
+/**
+ * Tests the revisions of stored working copies. Uses its own versioned model, which gets deleted
+ * afterwards.
+ */
+public class WorkingCopyTest {
+
+	private static Connection connection;
+
+	private int versionedModelId;
+
+	@BeforeClass
+	public static void connect() throws Exception {
+		connection = TestDatabase.connect();
+	}
+
+	@Before
+	public void createVersionedModel() throws Exception {
+		versionedModelId = createVersionedModel(connection);
+	}
+
+	@After
+	public void deleteVersionedModel() throws Exception {
+		deleteVersionedModel(connection, versionedModelId);
+	}
+
+	@AfterClass
+	public static void closeConnection() throws Exception {
+		if(connection != null) connection.close();
+	}
+
+	@Test
+	public void testRevisionWithoutWorkingCopy() throws Exception {
+		assertEquals(0, WorkingCopy.getRevision(connection, versionedModelId));
+	}
+
+	@Test
+	public void testSaveIncreasesRevision() throws Exception {
+		WorkingCopy.save(connection, versionedModelId, model("a"), null);
+		WorkingCopy.save(connection, versionedModelId, model("b"), null);
+		assertEquals(2, WorkingCopy.getRevision(connection, versionedModelId));
+		assertEquals("b", getStoredModelName(connection, versionedModelId));
+	}
+
+	@Test
+	public void testLowerRevisionDoesNotOverwrite() throws Exception {
+		WorkingCopy.save(connection, versionedModelId, model("commit"), null, 5);
+		// e.g. an autosave that was written while the commit replaced the working copy
+		WorkingCopy.save(connection, versionedModelId, model("autosave"), null, 4);
+		assertEquals(5, WorkingCopy.getRevision(connection, versionedModelId));
+		assertEquals("commit", getStoredModelName(connection, versionedModelId));
+
+		WorkingCopy.save(connection, versionedModelId, model("newer"), null, 6);
+		assertEquals(6, WorkingCopy.getRevision(connection, versionedModelId));
+		assertEquals("newer", getStoredModelName(connection, versionedModelId));
+	}
+
+	@SuppressWarnings("unchecked")
+	static JSONObject model(String name) {
+		JSONObject model = new JSONObject();
+		model.put("name", name);
+		return model;
+	}
+
+	static int createVersionedModel(Connection connection) throws Exception {
+		PreparedStatement statement = connection.prepareStatement("INSERT INTO VersionedModel () VALUES ();",
+				Statement.RETURN_GENERATED_KEYS);
+		statement.executeUpdate();
+		ResultSet genKeys = statement.getGeneratedKeys();
+		genKeys.next();
+		int id = genKeys.getInt(1);
+		statement.close();
+		return id;
+	}
+
+	static void deleteVersionedModel(Connection connection, int versionedModelId) throws Exception {
+		// the working copy gets deleted with it
+		PreparedStatement statement = connection.prepareStatement("DELETE FROM VersionedModel WHERE id = ?;");
+		statement.setInt(1, versionedModelId);
+		statement.executeUpdate();
+		statement.close();
+	}
+
+	static String getStoredModelName(Connection connection, int versionedModelId) throws Exception {
+		PreparedStatement statement = connection.prepareStatement("SELECT model FROM WorkingCopy WHERE versionedModelId = ?;");
+		statement.setInt(1, versionedModelId);
+		ResultSet queryResult = statement.executeQuery();
+		String name = null;
+		if(queryResult.next()) {
+			name = (String) ((JSONObject) JSONValue.parse(queryResult.getString(1))).get("name");
+		}
+		statement.close();
+		return name;
+	}
+}